@@ -17,15 +17,24 @@ package io.gemini.aop;
 
 import java.util.function.Supplier;
 
+import io.gemini.aop.matcher.ExprPointcut.RuntimeTest;
+import io.gemini.api.annotation.Recyclable;
 import io.gemini.api.aop.Advice;
+import io.gemini.api.aop.AdvisorSpec;
 import io.gemini.api.aop.Pointcut;
 import io.gemini.core.Ordered;
+import io.gemini.core.concurrent.ConcurrentReferenceHashMap;
 import io.gemini.core.util.Assert;
 import io.gemini.core.util.ObjectUtils;
 import io.gemini.core.util.StringUtils;
 
 public interface Advisor extends Ordered {
 
+    /**
+     * @return name of FactoryContext which created this advisor
+     */
+    String getFactoryName();
+
     String getAdvisorName();
 
     Advice getAdvice();
@@ -48,6 +57,12 @@ public interface Advisor extends Ordered {
      */
     boolean isPerInstance();
 
+    /**
+     * Return the fraction of joinpoint invocations, between 0.0 and 1.0, which apply this advice.
+     * @return sampling rate
+     */
+    double getSamplingRate();
+
 
     interface PointcutAdvisor extends Advisor {
 
@@ -61,6 +76,11 @@ public interface Advisor extends Ordered {
                 return false;
             }
 
+            @Override
+            public double getSamplingRate() {
+                return AdvisorSpec.DEFAULT_SAMPLING_RATE;
+            }
+
             @Override
             public String toString() {
                 return this.getAdvisorName() + "@" + ObjectUtils.getIdentityHexString(this);
@@ -69,32 +89,46 @@ public interface Advisor extends Ordered {
 
         class Default extends AbstractBase {
 
+            private final String factoryName;
             private final String advisorName;
 
             private final boolean perInstance;
+            private final double samplingRate;
 
             private final Supplier<Class<? extends Advice>> adviceClassSupplier;
             private final Supplier<? extends Advice> adviceSupplier;
             private Advice advice;
 
+            // recycle per-instance advices marked as @Recyclable per thread, and hold threads weakly
+            // so that neither dead threads nor pooled threads pin advices of discarded advisors
+            private final ConcurrentReferenceHashMap<Thread, Advice> recycledAdvices;
+            private volatile Boolean recyclable;
+
             private final Pointcut pointcut;
             private final int order;
 
-            public Default(String advisorName, 
+            public Default(String factoryName, 
+                    String advisorName, 
                     boolean perInstance, 
+                    double samplingRate, 
                     Supplier<Class<? extends Advice>> adviceClassSupplier, 
                     Supplier<? extends Advice> adviceSupplier,
                     Pointcut pointcut,
                     int order) {
+                this.factoryName = factoryName;
                 this.advisorName = StringUtils.hasText(advisorName) ? advisorName : super.toString();
 
                 this.perInstance = perInstance;
 
+                Assert.isTrue(samplingRate >= 0.0d && samplingRate <= 1.0d, "'samplingRate' must be between 0.0 and 1.0");
+                this.samplingRate = samplingRate;
+
                 Assert.notNull(adviceClassSupplier, "'adviceClassSupplier' must not be null");
                 this.adviceClassSupplier = adviceClassSupplier;
 
                 Assert.notNull(adviceSupplier, "'adviceSupplier' must not be null");
                 this.adviceSupplier = adviceSupplier;
+                this.recycledAdvices = perInstance ? new ConcurrentReferenceHashMap<>() : null;
 
                 Assert.notNull(pointcut, "'pointcut' must not be null");
                 this.pointcut = pointcut;
@@ -103,6 +137,11 @@ public interface Advisor extends Ordered {
             }
 
 
+            @Override
+            public String getFactoryName() {
+                return factoryName;
+            }
+
             @Override
             public String getAdvisorName() {
                 return advisorName;
@@ -113,6 +152,11 @@ public interface Advisor extends Ordered {
                 return perInstance;
             }
 
+            @Override
+            public double getSamplingRate() {
+                return samplingRate;
+            }
+
             @Override
             public Class<? extends Advice> getAdviceClass() {
                 return this.adviceClassSupplier.get();
@@ -122,7 +166,17 @@ public interface Advisor extends Ordered {
             public Advice getAdvice() {
                 // for prototype
                 if (this.perInstance == true) {
-                    return doCreateAdvice();
+                    if (isRecyclable() == false)
+                        return doCreateAdvice();
+
+                    Thread thread = Thread.currentThread();
+                    Advice advice = this.recycledAdvices.get(thread);
+                    if (advice == null) {
+                        advice = doCreateAdvice();
+                        if (advice != null)
+                            this.recycledAdvices.put(thread, advice);
+                    }
+                    return advice;
                 }
 
                 // for singleton
@@ -134,6 +188,18 @@ public interface Advisor extends Ordered {
                 return this.advice;
             }
 
+            private boolean isRecyclable() {
+                Boolean recyclable = this.recyclable;
+                if (recyclable == null) {
+                    Class<? extends Advice> adviceClass = getAdviceClass();
+                    if (adviceClass == null)
+                        return false;
+
+                    this.recyclable = recyclable = adviceClass.isAnnotationPresent(Recyclable.class);
+                }
+                return recyclable;
+            }
+
             private Advice doCreateAdvice() {
                 return this.adviceSupplier.get();
             }
@@ -154,4 +220,86 @@ public interface Advisor extends Ordered {
             }
         }
     }
+
+
+    /**
+     * Advisor matched joinpoint with runtime residue test, such as args(), this() and target()
+     * type tests, which must pass before its advice is applied.
+     */
+    interface GuardedAdvisor extends PointcutAdvisor {
+
+        PointcutAdvisor getTargetAdvisor();
+
+        boolean matches(Object thisObject, Object[] arguments);
+
+
+        class Default implements GuardedAdvisor {
+
+            private final PointcutAdvisor targetAdvisor;
+            private final RuntimeTest runtimeTest;
+
+            public Default(PointcutAdvisor targetAdvisor, RuntimeTest runtimeTest) {
+                Assert.notNull(targetAdvisor, "'targetAdvisor' must not be null");
+                this.targetAdvisor = targetAdvisor;
+
+                Assert.notNull(runtimeTest, "'runtimeTest' must not be null");
+                this.runtimeTest = runtimeTest;
+            }
+
+            @Override
+            public PointcutAdvisor getTargetAdvisor() {
+                return targetAdvisor;
+            }
+
+            @Override
+            public boolean matches(Object thisObject, Object[] arguments) {
+                return runtimeTest.test(thisObject, arguments);
+            }
+
+            @Override
+            public String getFactoryName() {
+                return targetAdvisor.getFactoryName();
+            }
+
+            @Override
+            public String getAdvisorName() {
+                return targetAdvisor.getAdvisorName();
+            }
+
+            @Override
+            public Advice getAdvice() {
+                return targetAdvisor.getAdvice();
+            }
+
+            @Override
+            public Class<? extends Advice> getAdviceClass() {
+                return targetAdvisor.getAdviceClass();
+            }
+
+            @Override
+            public int getOrder() {
+                return targetAdvisor.getOrder();
+            }
+
+            @Override
+            public boolean isPerInstance() {
+                return targetAdvisor.isPerInstance();
+            }
+
+            @Override
+            public double getSamplingRate() {
+                return targetAdvisor.getSamplingRate();
+            }
+
+            @Override
+            public Pointcut getPointcut() {
+                return targetAdvisor.getPointcut();
+            }
+
+            @Override
+            public String toString() {
+                return targetAdvisor + " if " + runtimeTest;
+            }
+        }
+    }
 }
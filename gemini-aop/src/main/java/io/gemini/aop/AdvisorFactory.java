@@ -17,9 +17,12 @@ package io.gemini.aop;
 
 import java.io.Closeable;
 import java.io.IOException;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 
+import io.gemini.api.aop.AdvisorSpec;
 import net.bytebuddy.description.method.MethodDescription;
 import net.bytebuddy.description.type.TypeDescription;
 import net.bytebuddy.utility.JavaModule;
@@ -28,8 +31,92 @@ public interface AdvisorFactory extends Closeable {
 
     Map<String, Integer> getAdvisorSpecNum();
 
+    /**
+     * Return scanned advisor specs keyed by factory name.
+     * 
+     * @return
+     */
+    Map<String, Collection<? extends AdvisorSpec>> getAdvisorSpecs();
+
     Map<? extends MethodDescription, List<? extends Advisor>> getAdvisors(TypeDescription typeDescription, 
             ClassLoader joinpointClassLoader, JavaModule javaModule);
 
+    /**
+     * Return advisors of given type's methods by advisors matched previously, without matching 
+     * pointcuts again.
+     * 
+     * @param typeDescription
+     * @param joinpointClassLoader
+     * @param javaModule
+     * @param matchedAdvisors matched advisors keyed by method signature
+     * @return null if any matched method or advisor could not be found
+     */
+    Map<? extends MethodDescription, List<? extends Advisor>> getAdvisors(TypeDescription typeDescription, 
+            ClassLoader joinpointClassLoader, JavaModule javaModule, 
+            Map<String /* methodSignature */, List<MatchedAdvisor>> matchedAdvisors);
+
+    /**
+     * Create and cache advisors for given ClassLoader in advance, or wait until advisors 
+     * being created by another thread are created.
+     * 
+     * @param joinpointClassLoader
+     * @param javaModule
+     */
+    void prepareAdvisors(ClassLoader joinpointClassLoader, JavaModule javaModule);
+
     void close() throws IOException ;
+
+
+    /**
+     * Advisor matched with joinpoint method previously, and identified by factory name and advisor name.
+     */
+    class MatchedAdvisor {
+
+        private final String factoryName;
+        private final String advisorName;
+        private final boolean guarded;
+
+        public MatchedAdvisor(String factoryName, String advisorName, boolean guarded) {
+            this.factoryName = factoryName;
+            this.advisorName = advisorName;
+            this.guarded = guarded;
+        }
+
+        public String getFactoryName() {
+            return factoryName;
+        }
+
+        public String getAdvisorName() {
+            return advisorName;
+        }
+
+        /**
+         * Whether advisor was guarded with runtime residue test.
+         */
+        public boolean isGuarded() {
+            return guarded;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(factoryName, advisorName, guarded);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj)
+                return true;
+            if (obj instanceof MatchedAdvisor == false)
+                return false;
+
+            MatchedAdvisor other = (MatchedAdvisor) obj;
+            return Objects.equals(factoryName, other.factoryName) && Objects.equals(advisorName, other.advisorName) 
+                    && guarded == other.guarded;
+        }
+
+        @Override
+        public String toString() {
+            return factoryName + ":" + advisorName + (guarded ? "?" : "");
+        }
+    }
 }
@@ -32,6 +32,7 @@ import io.gemini.api.activation.LauncherConfig;
 import io.gemini.api.classloader.AopClassLoader;
 import io.gemini.aspectj.weaver.TypeWorldFactory;
 import io.gemini.core.DiagnosticLevel;
+import io.gemini.core.classloader.ClassLoaderRegistry;
 import io.gemini.core.concurrent.TaskExecutor;
 import io.gemini.core.config.ConfigView;
 import io.gemini.core.converter.ConversionService;
@@ -80,11 +81,15 @@ public class AopContext implements Closeable {
     private final ObjectFactory objectFactory;
 
 
+    private final ClassLoaderRegistry classLoaderRegistry;
+
     private final TypePoolFactory typePoolFactory;
     private final TypeWorldFactory typeWorldFactory;
 
     private final TaskExecutor globalTaskExecutor;
 
+    private final AopSwitch aopSwitch;
+
 
     private boolean dumpByteCode;
     private String byteCodeDumpPath;
@@ -139,13 +144,24 @@ public class AopContext implements Closeable {
         this.objectFactory = createObjectFactory();
 
 
-        this.typePoolFactory = createTypePoolFactory();
+        this.classLoaderRegistry = new ClassLoaderRegistry();
+        this.classLoaderRegistry.addReclaimListener(aopMetrics);
+
+        this.typePoolFactory = createTypePoolFactory(configView);
+        this.aopMetrics.setTypeCacheProvider(typePoolFactory.getBoundedCacheProvider());
         this.typeWorldFactory = createTypeWorldFactory(typePoolFactory);
 
+        if (typePoolFactory instanceof ClassLoaderRegistry.ReclaimListener)
+            this.classLoaderRegistry.addReclaimListener( (ClassLoaderRegistry.ReclaimListener) typePoolFactory );
+        if (typeWorldFactory instanceof ClassLoaderRegistry.ReclaimListener)
+            this.classLoaderRegistry.addReclaimListener( (ClassLoaderRegistry.ReclaimListener) typeWorldFactory );
+
         boolean processInParallel = configView.getAsBoolean("aop.globalTaskExecutor.parallel", false);
         int taskTimeoutMs = configView.getAsInteger("aop.globalTaskExecutor.taskTimeoutMs", 0);
         this.globalTaskExecutor = TaskExecutor.create(diagnosticLevel, "globalTaskExecutor", processInParallel, taskTimeoutMs);
 
+        this.aopSwitch = new AopSwitch( configView.getAsBoolean("aop.switch.registerMBean", true) );
+
 
         long time = System.nanoTime() - startedAt;
         if (diagnosticLevel.isDebugEnabled() && LOGGER.isInfoEnabled()) 
@@ -217,8 +233,12 @@ public class AopContext implements Closeable {
                 .build(true);
     }
 
-    private TypePoolFactory createTypePoolFactory() {
-        return new TypePoolFactory.Default(LocationStrategy.ForClassLoader.WEAK);
+    private TypePoolFactory createTypePoolFactory(ConfigView configView) {
+        return new TypePoolFactory.Default(
+                LocationStrategy.ForClassLoader.WEAK, 
+                configView.getAsBoolean("aop.typePoolFactory.hierarchical", true), 
+                configView.getAsStringSet("aop.typePoolFactory.childFirstClassLoaders", Collections.emptySet()), 
+                configView.getAsInteger("aop.typePoolFactory.typeCacheCapacity", 0) );
     }
 
     private TypeWorldFactory createTypeWorldFactory(TypePoolFactory typePoolFactory) {
@@ -289,6 +309,10 @@ public class AopContext implements Closeable {
         return objectFactory;
     }
 
+    public ClassLoaderRegistry getClassLoaderRegistry() {
+        return classLoaderRegistry;
+    }
+
     public TypePoolFactory getTypePoolFactory() {
         return typePoolFactory;
     }
@@ -301,6 +325,10 @@ public class AopContext implements Closeable {
         return globalTaskExecutor;
     }
 
+    public AopSwitch getAopSwitch() {
+        return aopSwitch;
+    }
+
     public boolean isScanClassesFolder() {
         return launcherConfig.isScanClassesFolder();
     }
@@ -326,5 +354,9 @@ public class AopContext implements Closeable {
     @Override
     public void close() throws IOException {
         this.globalTaskExecutor.shutdown();
+
+        this.aopSwitch.close();
+
+        this.classLoaderRegistry.close();
     }
 }
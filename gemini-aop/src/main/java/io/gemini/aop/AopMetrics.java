@@ -31,8 +31,10 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import io.gemini.core.DiagnosticLevel;
+import io.gemini.core.classloader.ClassLoaderRegistry;
 import io.gemini.core.concurrent.ConcurrentReferenceHashMap;
 import io.gemini.core.config.ConfigView;
+import io.gemini.core.pool.BoundedCacheProvider;
 import io.gemini.core.pool.TypeResolutionInspector.ResolutionLevel;
 import io.gemini.core.util.Assert;
 import io.gemini.core.util.ClassLoaderUtils;
@@ -41,7 +43,7 @@ import io.gemini.core.util.CollectionUtils;
 import io.gemini.core.util.PlaceholderHelper;
 import net.bytebuddy.utility.JavaModule;
 
-public class AopMetrics {
+public class AopMetrics implements ClassLoaderRegistry.ReclaimListener {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(AopMetrics.class);
 
@@ -66,12 +68,14 @@ public class AopMetrics {
     private final BootstraperMetrics bootstraperMetrics;
 
     private final AtomicInteger index = new AtomicInteger(0);
-    private volatile ConcurrentMap<ClassLoader, WeaverMetrics> weaverMetricsMap;
+    private volatile ConcurrentReferenceHashMap<ClassLoader, WeaverMetrics> weaverMetricsMap;
 
     private WeaverMetricsSummary bytebuddyWarmupSummary;
     private WeaverMetricsSummary launcherStartupSummary;
     private WeaverMetricsSummary appStartupSummary;
 
+    private BoundedCacheProvider typeCacheProvider;
+
 
     public AopMetrics(ConfigView configView, DiagnosticLevel diagnosticLevel) {
         // 1.check input argument
@@ -114,6 +118,17 @@ public class AopMetrics {
         return bootstraperMetrics;
     }
 
+    /**
+     * Set bounded type description cache to summarize its hits, misses and evictions.
+     */
+    public void setTypeCacheProvider(BoundedCacheProvider typeCacheProvider) {
+        this.typeCacheProvider = typeCacheProvider;
+    }
+
+    private String getTypeCacheStats() {
+        return typeCacheProvider == null ? "soft referenced" : typeCacheProvider.toString();
+    }
+
     protected Map<ClassLoader, WeaverMetrics> getWeaverMetricsMap() {
         return weaverMetricsMap;
     }
@@ -134,6 +149,14 @@ public class AopMetrics {
         return weaverMetricsMap.get(cacheKey);
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int onReclaimed(long classLoaderId, String classLoaderName) {
+        return weaverMetricsMap.purgeStaleEntries();
+    }
+
     public void warmupByteBuddy() {
         this.bytebuddyWarmupSummary = this.newWeaverMetricsSummary();
     }
@@ -175,7 +198,8 @@ public class AopMetrics {
 
     private WeaverMetricsSummary newWeaverMetricsSummary() {
         Map<ClassLoader, WeaverMetrics> existingMetricsMap = this.weaverMetricsMap;
-        this.weaverMetricsMap = new ConcurrentHashMap<>();
+        // keep weak keys, otherwise ClassLoaders created after startup are pinned by metrics
+        this.weaverMetricsMap = new ConcurrentReferenceHashMap<>();
 
         return new WeaverMetricsSummary(existingMetricsMap);
     }
@@ -203,6 +227,8 @@ public class AopMetrics {
 
         valueMap.put("bytebuddtWarnupTime", bytebuddyWarmupSummary != null ? bytebuddyWarmupSummary.getTypeLoadingTime() : 0);
         valueMap.put("typeRedefiningTime", bootstraperMetrics.getTypeRedefiningTime() / NANO_TIME);
+        valueMap.put("typeMatchingTime", bootstraperMetrics.getTypeMatchingTime() / NANO_TIME);
+        valueMap.put("typeRetransformingTime", bootstraperMetrics.getTypeRetransformingTime() / NANO_TIME);
         valueMap.put("typeWeavingTime", launcherStartupSummary != null ? launcherStartupSummary.getTypeLoadingTime() : 0);
 
         valueMap.put("uncategorizedTime", bootstraperMetrics.getUncategorizedTime() /NANO_TIME );
@@ -220,6 +246,8 @@ public class AopMetrics {
         valueMap.put("advisorSpecs", advisorSepcs.toString());
 
         valueMap.put("typeRedefiningCount", bootstraperMetrics.getTypeRedefiningCount());
+        valueMap.put("typeMatchingCount", bootstraperMetrics.getTypeMatchingCount());
+        valueMap.put("typeCacheStats", getTypeCacheStats());
 
         PlaceholderHelper placeholderHelper = PlaceholderHelper.create(valueMap);
         return placeholderHelper.replace(launcherStartupSummrayTemplate);
@@ -239,6 +267,7 @@ public class AopMetrics {
         valueMap = format(valueMap);
 
         valueMap.put("tyepTransformationCount", appStartupSummary.getTypeTransformationCount() );
+        valueMap.put("typeCacheStats", getTypeCacheStats());
 
         PlaceholderHelper placeholderHelper = PlaceholderHelper.create(valueMap);
         return placeholderHelper.replace(appStartupSummrayTemplate);
@@ -402,6 +431,10 @@ public class AopMetrics {
         private long typeRedefiningTime;
         private int typeRedefiningCount;
 
+        private long typeMatchingTime;
+        private int typeMatchingCount;
+        private long typeRetransformingTime;
+
 
         protected long getLauncherStartedAt() {
             return launcherStartedAt;
@@ -510,6 +543,27 @@ public class AopMetrics {
             this.typeRedefiningCount += typeRedefiningCount;
         }
 
+        protected long getTypeMatchingTime() {
+            return typeMatchingTime;
+        }
+
+        protected int getTypeMatchingCount() {
+            return typeMatchingCount;
+        }
+
+        public void incrTypeMatchingTime(long typeMatchingTime, int typeMatchingCount) {
+            this.typeMatchingTime += typeMatchingTime;
+            this.typeMatchingCount += typeMatchingCount;
+        }
+
+        protected long getTypeRetransformingTime() {
+            return typeRetransformingTime;
+        }
+
+        public void incrTypeRetransformingTime(long typeRetransformingTime) {
+            this.typeRetransformingTime += typeRetransformingTime;
+        }
+
         protected long getLauncherStartupTime() {
             return this.launcherStartupTime;
         }
@@ -0,0 +1,224 @@
+/*
+ * Copyright © 2023, the original author or authors. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gemini.aop;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.invoke.SwitchPoint;
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.StandardMBean;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.gemini.core.util.StringUtils;
+
+
+/**
+ * Runtime kill switches to disable all advisors, advisors of given aspect app, or given advisor.
+ *
+ * <p>Every change invalidates current {@link SwitchPoint}, and woven joinpoints re-check switches
+ * and relink their dispatcher {@code CallSite} lazily. While switches are unchanged, the
+ * {@code SwitchPoint} guard is folded by JIT compiler and costs almost nothing.
+ *
+ * <p>Global switch is also published to registered listeners, such as the bootstrap flag checked at
+ * the top of woven advice templates before joinpoint arguments are boxed and dispatcher is created.
+ *
+ * @author   martin.liu
+ * @since	 1.0
+ */
+public class AopSwitch implements AopSwitchMXBean, Closeable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(AopSwitch.class);
+
+    public static final String OBJECT_NAME = "io.gemini.aop:type=AopSwitch";
+
+
+    private volatile boolean aopEnabled = true;
+
+    private final Set<String> disabledFactories = ConcurrentHashMap.newKeySet();
+    private final Set<String> disabledAdvisors = ConcurrentHashMap.newKeySet();
+
+    private volatile SwitchPoint switchPoint = new SwitchPoint();
+
+    private final List<Consumer<Boolean>> aopEnabledListeners = new CopyOnWriteArrayList<>();
+
+    private ObjectName objectName;
+
+
+    public AopSwitch(boolean registerMBean) {
+        if (registerMBean)
+            this.registerMBean();
+    }
+
+    private void registerMBean() {
+        try {
+            ObjectName objectName = new ObjectName(OBJECT_NAME);
+            MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+            if (mBeanServer.isRegistered(objectName))
+                return;
+
+            mBeanServer.registerMBean(new StandardMBean(this, AopSwitchMXBean.class, true), objectName);
+            this.objectName = objectName;
+        } catch (Throwable t) {
+            if (LOGGER.isWarnEnabled())
+                LOGGER.warn("Could not register AopSwitch MBean '{}'.", OBJECT_NAME, t);
+        }
+    }
+
+
+    /**
+     * Return current SwitchPoint, which is invalidated once any switch is changed.
+     *
+     * @return
+     */
+    public SwitchPoint getSwitchPoint() {
+        return switchPoint;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isAopEnabled() {
+        return aopEnabled;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setAopEnabled(boolean enabled) {
+        if (this.aopEnabled == enabled)
+            return;
+
+        this.aopEnabled = enabled;
+        for (Consumer<Boolean> listener : aopEnabledListeners)
+            listener.accept(enabled);
+
+        this.switchChanged("aop", "*", enabled);
+    }
+
+    /**
+     * Register listener notified with current and subsequent global switch states.
+     *
+     * @param listener
+     */
+    public void addAopEnabledListener(Consumer<Boolean> listener) {
+        if (listener == null)
+            return;
+
+        this.aopEnabledListeners.add(listener);
+        listener.accept(aopEnabled);
+    }
+
+    public boolean isFactoryEnabled(String factoryName) {
+        return factoryName == null || disabledFactories.contains(factoryName) == false;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setFactoryEnabled(String factoryName, boolean enabled) {
+        if (StringUtils.hasText(factoryName) == false)
+            return;
+
+        if (enabled ? disabledFactories.remove(factoryName) : disabledFactories.add(factoryName))
+            this.switchChanged("factory", factoryName, enabled);
+    }
+
+    public boolean isAdvisorEnabled(String advisorName) {
+        return advisorName == null || disabledAdvisors.contains(advisorName) == false;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setAdvisorEnabled(String advisorName, boolean enabled) {
+        if (StringUtils.hasText(advisorName) == false)
+            return;
+
+        if (enabled ? disabledAdvisors.remove(advisorName) : disabledAdvisors.add(advisorName))
+            this.switchChanged("advisor", advisorName, enabled);
+    }
+
+    /**
+     * Check whether given advisor is enabled by global, factory and advisor switches.
+     *
+     * @param advisor
+     * @return
+     */
+    public boolean isEnabled(Advisor advisor) {
+        if (aopEnabled == false)
+            return false;
+
+        if (disabledFactories.isEmpty() && disabledAdvisors.isEmpty())
+            return true;
+
+        return isFactoryEnabled(advisor.getFactoryName()) && isAdvisorEnabled(advisor.getAdvisorName());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String[] getDisabledFactories() {
+        return disabledFactories.toArray(new String[0]);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String[] getDisabledAdvisors() {
+        return disabledAdvisors.toArray(new String[0]);
+    }
+
+    private synchronized void switchChanged(String switchType, String switchName, boolean enabled) {
+        SwitchPoint existingSwitchPoint = this.switchPoint;
+        this.switchPoint = new SwitchPoint();
+        SwitchPoint.invalidateAll( new SwitchPoint[] { existingSwitchPoint } );
+
+        if (LOGGER.isInfoEnabled())
+            LOGGER.info("Turned {} {} switch '{}'.", enabled ? "on" : "off", switchType, switchName);
+    }
+
+
+    @Override
+    public void close() throws IOException {
+        if (this.objectName == null)
+            return;
+
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+        } catch (Throwable t) {
+            if (LOGGER.isWarnEnabled())
+                LOGGER.warn("Could not unregister AopSwitch MBean '{}'.", OBJECT_NAME, t);
+        } finally {
+            this.objectName = null;
+        }
+    }
+}
@@ -0,0 +1,37 @@
+/*
+ * Copyright © 2023, the original author or authors. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gemini.aop;
+
+/**
+ * Management interface of {@link AopSwitch} exposed via JMX.
+ *
+ * @author   martin.liu
+ * @since	 1.0
+ */
+public interface AopSwitchMXBean {
+
+    boolean isAopEnabled();
+
+    void setAopEnabled(boolean enabled);
+
+    void setFactoryEnabled(String factoryName, boolean enabled);
+
+    void setAdvisorEnabled(String advisorName, boolean enabled);
+
+    String[] getDisabledFactories();
+
+    String[] getDisabledAdvisors();
+}
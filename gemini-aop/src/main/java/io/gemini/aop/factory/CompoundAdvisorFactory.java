@@ -18,10 +18,13 @@ package io.gemini.aop.factory;
 import java.io.Closeable;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 import org.slf4j.Logger;
@@ -30,6 +33,7 @@ import org.slf4j.LoggerFactory;
 import io.gemini.aop.Advisor;
 import io.gemini.aop.AdvisorFactory;
 import io.gemini.aop.AopContext;
+import io.gemini.api.aop.AdvisorSpec;
 import io.gemini.core.util.MethodUtils;
 import io.gemini.core.util.StringUtils;
 import net.bytebuddy.description.method.MethodDescription;
@@ -97,25 +101,68 @@ class CompoundAdvisorFactory implements AdvisorFactory {
                 .collect( Collectors.toMap(Entry::getKey, Entry::getValue) );
     }
 
+    @Override
+    public Map<String, Collection<? extends AdvisorSpec>> getAdvisorSpecs() {
+        return this.advisorFactoryMap.values().stream()
+                .flatMap( e -> 
+                    e.getAdvisorSpecs().entrySet().stream() )
+                .collect( Collectors.toMap(Entry::getKey, Entry::getValue) );
+    }
+
 
     @Override
     public Map<? extends MethodDescription, List<? extends Advisor>> getAdvisors(TypeDescription typeDescription, 
             ClassLoader joinpointClassLoader, JavaModule javaModule) {
+        return doGetAdvisors(typeDescription, joinpointClassLoader, javaModule, null);
+    }
+
+    @Override
+    public Map<? extends MethodDescription, List<? extends Advisor>> getAdvisors(TypeDescription typeDescription, 
+            ClassLoader joinpointClassLoader, JavaModule javaModule, 
+            Map<String /* methodSignature */, List<MatchedAdvisor>> matchedAdvisors) {
+        // every matched advisor must belong to existing AdvisorFactory
+        Set<String> factoryNames = new HashSet<>();
+        for (FactoryContext factoryContext : advisorFactoryMap.keySet())
+            factoryNames.add(factoryContext.getFactoryName());
+
+        for (List<MatchedAdvisor> advisors : matchedAdvisors.values()) {
+            for (MatchedAdvisor matchedAdvisor : advisors) {
+                if (factoryNames.contains(matchedAdvisor.getFactoryName()) == false)
+                    return null;
+            }
+        }
+
+        return doGetAdvisors(typeDescription, joinpointClassLoader, javaModule, matchedAdvisors);
+    }
+
+    /**
+     * Collect and merge advisors per method from every AdvisorFactory, by matching advisors, 
+     * or by replaying given matched advisors if not null.
+     * 
+     * @return merged advisors, or null if matched advisors could not be replayed by any AdvisorFactory
+     */
+    private Map<? extends MethodDescription, List<? extends Advisor>> doGetAdvisors(TypeDescription typeDescription, 
+            ClassLoader joinpointClassLoader, JavaModule javaModule, 
+            Map<String /* methodSignature */, List<MatchedAdvisor>> matchedAdvisors) {
         Map<MethodDescription, List<Advisor>> methodAdvisorMap = new LinkedHashMap<>();
         // collect advisors per method
         for (Entry<FactoryContext, DefaultAdvisorFactory> entry: advisorFactoryMap.entrySet()) {
             FactoryContext factoryContext = entry.getKey();
-            AdvisorFactory advisorFactory = entry.getValue();
+            DefaultAdvisorFactory advisorFactory = entry.getValue();
 
             // diagnostic log
             String typeName = typeDescription.getTypeName();
             if (factoryContext.getAopContext().isDiagnosticClass(typeName) && LOGGER.isInfoEnabled())
-                LOGGER.info("Getting Advisors for type '{}' loaded by ClassLoader '{}' from AdvisorFactory '{}'.", 
-                        typeName, joinpointClassLoader, factoryContext.getFactoryName());
+                LOGGER.info("Getting Advisors for type '{}' loaded by ClassLoader '{}' from AdvisorFactory '{}'{}.", 
+                        typeName, joinpointClassLoader, factoryContext.getFactoryName(), 
+                        matchedAdvisors == null ? "" : " with matched advisors");
 
             // get advisors per AdvisorFactory
-            Map<? extends MethodDescription, List<? extends Advisor>> advisorMap = advisorFactory
-                    .getAdvisors(typeDescription, joinpointClassLoader, javaModule);
+            Map<? extends MethodDescription, List<? extends Advisor>> advisorMap = matchedAdvisors == null
+                    ? advisorFactory.getAdvisors(typeDescription, joinpointClassLoader, javaModule)
+                    : advisorFactory.getAdvisors(typeDescription, joinpointClassLoader, javaModule, matchedAdvisors);
+            if (advisorMap == null)
+                return null;
 
             if (factoryContext.getAopContext().isDiagnosticClass(typeName) && LOGGER.isInfoEnabled()) {
                 if (advisorMap.size() == 0)
@@ -154,6 +201,13 @@ class CompoundAdvisorFactory implements AdvisorFactory {
         return new LinkedHashMap<MethodDescription, List<? extends Advisor>>(methodAdvisorMap);
     }
 
+    @Override
+    public void prepareAdvisors(ClassLoader joinpointClassLoader, JavaModule javaModule) {
+        for (DefaultAdvisorFactory advisorFactory : advisorFactoryMap.values()) {
+            advisorFactory.prepareAdvisors(joinpointClassLoader, javaModule);
+        }
+    }
+
     @Override
     public void close() throws IOException {
         for (Closeable closeable : advisorFactoryMap.values()) {
@@ -17,6 +17,7 @@ package io.gemini.aop.factory;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
@@ -24,21 +25,32 @@ import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ConcurrentMap;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import io.gemini.aop.Advisor;
 import io.gemini.aop.AdvisorFactory;
+import io.gemini.aop.AdvisorFactory.MatchedAdvisor;
 import io.gemini.aop.AopContext;
 import io.gemini.aop.AopMetrics.WeaverMetrics;
 import io.gemini.aop.factory.support.AdvisorRepository;
 import io.gemini.aop.factory.support.AdvisorRepositoryResolver;
 import io.gemini.aop.factory.support.AdvisorSpecScanner;
+import io.gemini.aop.matcher.ExprPointcut;
+import io.gemini.aop.matcher.ExprPointcut.MethodFilter;
+import io.gemini.aop.matcher.ExprPointcut.RuntimeTest;
+import io.gemini.aop.matcher.TypeNameIndex;
 import io.gemini.api.aop.AdvisorSpec;
 import io.gemini.api.aop.Pointcut;
 import io.gemini.aspectj.weaver.TypeWorld;
+import io.gemini.core.classloader.ClassLoaderRegistry;
 import io.gemini.core.concurrent.ConcurrentReferenceHashMap;
 import io.gemini.core.pool.TypeResolutionInspector;
 import io.gemini.core.pool.TypeResolutionInspector.ResolutionLevel;
@@ -60,7 +72,7 @@ import net.bytebuddy.utility.JavaModule;
  * @author   martin.liu
  * @since	 1.0
  */
-class DefaultAdvisorFactory implements AdvisorFactory {
+class DefaultAdvisorFactory implements AdvisorFactory, ClassLoaderRegistry.ReclaimListener {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(DefaultAdvisorFactory.class);
 
@@ -71,8 +83,8 @@ class DefaultAdvisorFactory implements AdvisorFactory {
     private final Collection<? extends AdvisorSpec> advisorSpecs;
     private final Collection<? extends AdvisorRepository> advisorRepositories;
 
-    // cache advisors per ClassLoader
-    private ConcurrentMap<ClassLoader, List<? extends Advisor>> classLoaderAdvisorMap;
+    // cache advisors indexed by type name patterns per ClassLoader, and create them once by single thread
+    private ConcurrentReferenceHashMap<ClassLoader, AdvisorCreation> classLoaderAdvisorMap;
 
 
     public DefaultAdvisorFactory(FactoryContext factoryContext) {
@@ -94,6 +106,7 @@ class DefaultAdvisorFactory implements AdvisorFactory {
 
         // 2.initialize properties
         this.classLoaderAdvisorMap = new ConcurrentReferenceHashMap<>();
+        aopContext.getClassLoaderRegistry().addReclaimListener(this);
 
 
         if (aopContext.getDiagnosticLevel().isSimpleEnabled() && LOGGER.isInfoEnabled())
@@ -110,6 +123,14 @@ class DefaultAdvisorFactory implements AdvisorFactory {
         return Collections.singletonMap(this.factoryContext.getFactoryName(), this.advisorRepositories.size());
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Map<String, Collection<? extends AdvisorSpec>> getAdvisorSpecs() {
+        return Collections.singletonMap(this.factoryContext.getFactoryName(), this.advisorSpecs);
+    }
+
 
     /**
      * {@inheritDoc}
@@ -122,13 +143,13 @@ class DefaultAdvisorFactory implements AdvisorFactory {
 
         // 1.create advisors per ClassLoader
         WeaverMetrics weaverMetrics = aopContext.getAopMetrics().getWeaverMetrics(joinpointClassLoader, javaModule);
-        List<? extends Advisor> candidateAdvisors = null;
+        TypeNameIndex<Advisor> candidateAdvisors = null;
         try {
             startedAt = System.nanoTime();
 
             candidateAdvisors = getOrCreateAdvisorPerClassLoader(joinpointClassLoader, javaModule, weaverMetrics);
 
-            if (CollectionUtils.isEmpty(candidateAdvisors))
+            if (candidateAdvisors.isEmpty())
                 return Collections.emptyMap();
         } finally {
             weaverMetrics.incrAdvisorCreationTime(System.nanoTime() - startedAt);
@@ -186,35 +207,152 @@ class DefaultAdvisorFactory implements AdvisorFactory {
         }
     }
 
-    private List<? extends Advisor> getOrCreateAdvisorPerClassLoader(
+    @Override
+    public Map<? extends MethodDescription, List<? extends Advisor>> getAdvisors(TypeDescription typeDescription, 
+            ClassLoader joinpointClassLoader, JavaModule javaModule, 
+            Map<String /* methodSignature */, List<MatchedAdvisor>> matchedAdvisors) {
+        String factoryName = factoryContext.getFactoryName();
+        WeaverMetrics weaverMetrics = aopContext.getAopMetrics().getWeaverMetrics(joinpointClassLoader, javaModule);
+
+        Map<String, Advisor.PointcutAdvisor> advisorMap = null;
+        Map<String, InDefinedShape> methodMap = null;
+        try {
+            Map<MethodDescription, List<? extends Advisor>> methodAdvisorsMap = new LinkedHashMap<>();
+            for (Entry<String, List<MatchedAdvisor>> entry : matchedAdvisors.entrySet()) {
+                MethodDescription methodDescription = null;
+                List<Advisor> candidateAdvisors = new ArrayList<>();
+                for (MatchedAdvisor matchedAdvisor : entry.getValue()) {
+                    if (factoryName.equals(matchedAdvisor.getFactoryName()) == false)
+                        continue;
+
+                    // lazily index advisors and methods by name
+                    if (advisorMap == null) {
+                        advisorMap = new HashMap<>();
+                        for (Advisor advisor : getOrCreateAdvisorPerClassLoader(joinpointClassLoader, javaModule, weaverMetrics).getElements())
+                            if (advisor instanceof Advisor.PointcutAdvisor)
+                                advisorMap.putIfAbsent(advisor.getAdvisorName(), (Advisor.PointcutAdvisor) advisor);
+
+                        methodMap = new HashMap<>();
+                        for (InDefinedShape method : MethodUtils.getAllMethodDescriptions(typeDescription))
+                            methodMap.putIfAbsent(method.toGenericString(), method);
+                    }
+
+                    methodDescription = methodMap.get(entry.getKey());
+                    Advisor.PointcutAdvisor pointcutAdvisor = advisorMap.get(matchedAdvisor.getAdvisorName());
+                    if (methodDescription == null || pointcutAdvisor == null)
+                        return null;
+
+                    candidateAdvisors.add( matchedAdvisor.isGuarded() 
+                            ? this.guardAdvisor(pointcutAdvisor, methodDescription, joinpointClassLoader) : pointcutAdvisor );
+                }
+
+                if (candidateAdvisors.size() > 0)
+                    methodAdvisorsMap.put(methodDescription, candidateAdvisors);
+            }
+
+            return methodAdvisorsMap;
+        } finally {
+            TypeWorld typeWorld = factoryContext.getTypeWorld();
+            if (typeWorld != null && typeWorld instanceof TypeWorld.CacheResolutionFacade) {
+                ((TypeWorld.CacheResolutionFacade) typeWorld).releaseCache(typeDescription);
+            }
+        }
+    }
+
+    private TypeNameIndex<Advisor> getOrCreateAdvisorPerClassLoader(
             ClassLoader joinpointClassLoader, JavaModule javaModule, WeaverMetrics weaverMetrics) {
         ClassLoader cacheKey = ClassLoaderUtils.maskNull(joinpointClassLoader);
 
-        if (this.classLoaderAdvisorMap.containsKey(cacheKey)) {
-            return this.classLoaderAdvisorMap.get(cacheKey);
+        AdvisorCreation advisorCreation = this.classLoaderAdvisorMap.get(cacheKey);
+        if (advisorCreation == null) {
+            AdvisorCreation newCreation = new AdvisorCreation();
+            advisorCreation = this.classLoaderAdvisorMap.putIfAbsent(cacheKey, newCreation);
+
+            // create advisors in current thread, and other threads wait for the result
+            if (advisorCreation == null) {
+                try {
+                    TypeNameIndex<Advisor> advisorIndex = createAdvisorPerClassLoader(joinpointClassLoader, javaModule, weaverMetrics);
+                    newCreation.complete(advisorIndex);
+                    return advisorIndex;
+                } catch (Throwable t) {
+                    // discard failed creation, and retry in next call
+                    this.classLoaderAdvisorMap.remove(cacheKey, newCreation);
+                    newCreation.completeExceptionally(t);
+                    throw t;
+                }
+            }
+        }
+
+        if (advisorCreation.isDone() == false && advisorCreation.isCreator(Thread.currentThread())) {
+            // types loaded during creating advisors in same thread, create advisors without caching
+            if (LOGGER.isDebugEnabled())
+                LOGGER.debug("Re-entered advisor creation for ClassLoader '{}' in AdvisorFactory '{}'.", 
+                        joinpointClassLoader, factoryContext.getFactoryName());
+
+            return createAdvisorPerClassLoader(joinpointClassLoader, javaModule, weaverMetrics);
         }
 
+        TypeNameIndex<Advisor> advisorIndex = advisorCreation.await(factoryContext.getAdvisorCreationTimeoutMs());
+        if (advisorIndex != null)
+            return advisorIndex;
+
+        // avoid deadlock if creating thread waits for ClassLoader lock held by current thread
+        if (LOGGER.isWarnEnabled())
+            LOGGER.warn("Timed out waiting for advisor creation for ClassLoader '{}' in AdvisorFactory '{}', and create advisors without caching.", 
+                    joinpointClassLoader, factoryContext.getFactoryName());
 
+        return createAdvisorPerClassLoader(joinpointClassLoader, javaModule, weaverMetrics);
+    }
+
+    private TypeNameIndex<Advisor> createAdvisorPerClassLoader(
+            ClassLoader joinpointClassLoader, JavaModule javaModule, WeaverMetrics weaverMetrics) {
         // create Advisors
         List<? extends Advisor> advisors = AdvisorRepository.createAdvisors(
                 factoryContext, joinpointClassLoader, javaModule, advisorRepositories);
 
-        this.classLoaderAdvisorMap.putIfAbsent(cacheKey, advisors);
+        TypeNameIndex<Advisor> advisorIndex = indexAdvisors(advisors);
+
         weaverMetrics.incrAdvisorCreationCount(advisors.size());
 
-        return advisors;
+        return advisorIndex;
+    }
+
+    /**
+     * Index advisors by type name patterns of {@code ExprPointcut}, and other advisors are residual.
+     */
+    private TypeNameIndex<Advisor> indexAdvisors(List<? extends Advisor> advisors) {
+        TypeNameIndex.Builder<Advisor> builder = new TypeNameIndex.Builder<>();
+        for (Advisor advisor : advisors) {
+            TypeNameIndex.Patterns typeNamePatterns = null;
+            if (this.factoryContext.isIndexAdvisorTypeNames() && advisor instanceof Advisor.PointcutAdvisor) {
+                Pointcut pointcut = ((Advisor.PointcutAdvisor) advisor).getPointcut();
+                if (pointcut instanceof ExprPointcut.Decorated)
+                    typeNamePatterns = ((ExprPointcut.Decorated) pointcut).getExprPointcut().getTypeNamePatterns();
+            }
+
+            builder.add(advisor, typeNamePatterns);
+        }
+
+        TypeNameIndex<Advisor> advisorIndex = builder.build();
+        if (LOGGER.isDebugEnabled())
+            LOGGER.debug("Indexed advisors of AdvisorFactory '{}', {}", factoryContext.getFactoryName(), advisorIndex);
+
+        return advisorIndex;
     }
 
 
     private List<Advisor.PointcutAdvisor> fastMatchAdvisors(
             TypeDescription typeDescription, 
             ClassLoader joinpointClassLoader, JavaModule javaModule, 
-            final List<? extends Advisor> advisors, 
+            final TypeNameIndex<Advisor> advisorIndex, 
             final WeaverMetrics weaverMetrics, 
             Map<String, ResolutionLevel> advisorTypeResolutionLevels) {
         TypeResolutionInspector typeResolutionInspector = typeDescription instanceof TypeResolutionInspector
                 ? (TypeResolutionInspector) typeDescription : null;
 
+        // only fast match advisors might match type name
+        List<Advisor> advisors = advisorIndex.lookup(typeDescription);
+
         List<Advisor.PointcutAdvisor> matchedAdvisors = new ArrayList<>();
         for (Advisor advisor : advisors) {
             try {
@@ -261,6 +399,25 @@ class DefaultAdvisorFactory implements AdvisorFactory {
         TypeResolutionInspector typeResolutionInspector = typeDescription instanceof TypeResolutionInspector
                 ? (TypeResolutionInspector) typeDescription : null;;
 
+        // bucket advisors by method names of their method filters
+        int advisorCount = pointcutAdvisors.size();
+        MethodFilter[] methodFilters = new MethodFilter[advisorCount];
+        BitSet anyNameAdvisors = new BitSet(advisorCount);
+        Map<String, BitSet> methodNameAdvisors = new HashMap<>();
+        for (int index = 0; index < advisorCount; index++) {
+            MethodFilter methodFilter = this.getMethodFilter(pointcutAdvisors.get(index));
+            methodFilters[index] = methodFilter;
+
+            Set<String> methodNames = methodFilter.getMethodNames();
+            if (methodNames == null)
+                anyNameAdvisors.set(index);
+            else
+                for (String methodName : methodNames)
+                    methodNameAdvisors.computeIfAbsent(methodName, key -> new BitSet(advisorCount)).set(index);
+        }
+        for (BitSet advisorIndexes : methodNameAdvisors.values())
+            advisorIndexes.or(anyNameAdvisors);
+
         Map<MethodDescription, List<? extends Advisor>> methodAdvisorsMap = new LinkedHashMap<>();
         for (InDefinedShape methodDescription : MethodUtils.getAllMethodDescriptions(typeDescription)) {
             // ignore synthetic method?
@@ -268,8 +425,14 @@ class DefaultAdvisorFactory implements AdvisorFactory {
                     || (methodDescription.isSynthetic() && !methodDescription.isBridge()) )
                 continue;
 
+            // only match advisors might match method name, in original order
+            BitSet advisorIndexes = methodNameAdvisors.getOrDefault(MethodUtils.getMethodName(methodDescription), anyNameAdvisors);
+            if (advisorIndexes.isEmpty())
+                continue;
+
             List<Advisor> candidateAdvisors = new LinkedList<>();
-            for (Advisor.PointcutAdvisor pointcutAdvisor : pointcutAdvisors) {
+            for (int index = advisorIndexes.nextSetBit(0); index >= 0; index = advisorIndexes.nextSetBit(index + 1)) {
+                Advisor.PointcutAdvisor pointcutAdvisor = pointcutAdvisors.get(index);
                 Pointcut pointcut = pointcutAdvisor.getPointcut();
                 if (pointcut == null || pointcut.getMethodMatcher() == null) 
                     continue;
@@ -277,6 +440,10 @@ class DefaultAdvisorFactory implements AdvisorFactory {
                 try {
 //                    long startedAt = System.nanoTime();
 
+                    // reject method by cheap filter without touching AspectJ world
+                    if (methodFilters[index].matches(methodDescription) == false)
+                        continue;
+
                     if (pointcut.getMethodMatcher().matches(methodDescription) == false)
                         continue;
 
@@ -284,7 +451,7 @@ class DefaultAdvisorFactory implements AdvisorFactory {
                         advisorTypeResolutionLevels.remove(pointcutAdvisor.getAdvisorName());
                     }
 
-                    candidateAdvisors.add(pointcutAdvisor);
+                    candidateAdvisors.add( this.guardAdvisor(pointcutAdvisor, methodDescription, joinpointClassLoader) );
                 } catch (Throwable t) {
                     if (LOGGER.isInfoEnabled())
                         LOGGER.info("Could not match joinpoint with pointcut. \n"
@@ -329,8 +496,112 @@ class DefaultAdvisorFactory implements AdvisorFactory {
     }
 
 
+    private MethodFilter getMethodFilter(Advisor.PointcutAdvisor pointcutAdvisor) {
+        if (this.factoryContext.isPreFilterAdvisorMethods() == false)
+            return MethodFilter.TRUE;
+
+        Pointcut pointcut = pointcutAdvisor.getPointcut();
+        return pointcut instanceof ExprPointcut.Decorated
+                ? ((ExprPointcut.Decorated) pointcut).getExprPointcut().getMethodFilter() : MethodFilter.TRUE;
+    }
+
+    /**
+     * Guard advisor with runtime residue test if pointcut could not be determined statically.
+     */
+    private Advisor guardAdvisor(Advisor.PointcutAdvisor pointcutAdvisor, 
+            MethodDescription methodDescription, ClassLoader joinpointClassLoader) {
+        Pointcut pointcut = pointcutAdvisor.getPointcut();
+        if (pointcut instanceof ExprPointcut.Decorated == false)
+            return pointcutAdvisor;
+
+        RuntimeTest runtimeTest = ((ExprPointcut.Decorated) pointcut).getExprPointcut()
+                .getRuntimeTest(methodDescription, joinpointClassLoader);
+        return runtimeTest == RuntimeTest.TRUE 
+                ? pointcutAdvisor 
+                : new Advisor.GuardedAdvisor.Default(pointcutAdvisor, runtimeTest);
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void prepareAdvisors(ClassLoader joinpointClassLoader, JavaModule javaModule) {
+        WeaverMetrics weaverMetrics = aopContext.getAopMetrics().getWeaverMetrics(joinpointClassLoader, javaModule);
+
+        long startedAt = System.nanoTime();
+        try {
+            getOrCreateAdvisorPerClassLoader(joinpointClassLoader, javaModule, weaverMetrics);
+        } finally {
+            weaverMetrics.incrAdvisorCreationTime(System.nanoTime() - startedAt);
+        }
+    }
+
+
+    @Override
+    public int onReclaimed(long classLoaderId, String classLoaderName) {
+        return this.classLoaderAdvisorMap.purgeStaleEntries();
+    }
+
     @Override
     public void close() throws IOException {
         this.factoryContext.close();
     }
+
+
+    /**
+     * Advisors per ClassLoader being created by one thread, and awaited by other threads.
+     * 
+     * <p>Creating thread is released once creation completes, since its context ClassLoader might
+     * refer to the joinpoint ClassLoader which weakly keys this creation.
+     */
+    static class AdvisorCreation extends CompletableFuture<TypeNameIndex<Advisor>> {
+
+        private volatile Thread creator = Thread.currentThread();
+
+
+        public boolean isCreator(Thread thread) {
+            return creator == thread;
+        }
+
+        @Override
+        public boolean complete(TypeNameIndex<Advisor> value) {
+            try {
+                return super.complete(value);
+            } finally {
+                this.creator = null;
+            }
+        }
+
+        @Override
+        public boolean completeExceptionally(Throwable ex) {
+            try {
+                return super.completeExceptionally(ex);
+            } finally {
+                this.creator = null;
+            }
+        }
+
+        /**
+         * Wait for created advisors, and return null if timed out.
+         */
+        public TypeNameIndex<Advisor> await(long timeoutMs) {
+            try {
+                return timeoutMs > 0 ? this.get(timeoutMs, TimeUnit.MILLISECONDS) : this.get();
+            } catch (TimeoutException e) {
+                return null;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return null;
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause() != null ? e.getCause() : e;
+                if (cause instanceof RuntimeException)
+                    throw (RuntimeException) cause;
+                if (cause instanceof Error)
+                    throw (Error) cause;
+
+                throw new IllegalStateException(cause);
+            }
+        }
+    }
 }
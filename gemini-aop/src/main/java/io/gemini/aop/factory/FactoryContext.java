@@ -19,6 +19,7 @@ package io.gemini.aop.factory;
 import java.io.Closeable;
 import java.io.IOException;
 import java.lang.annotation.Annotation;
+import java.lang.ref.WeakReference;
 import java.net.URL;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -28,7 +29,6 @@ import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.concurrent.ConcurrentMap;
 import java.util.stream.Collectors;
 
 import org.slf4j.Logger;
@@ -48,6 +48,7 @@ import io.gemini.api.classloader.ClassLoaders;
 import io.gemini.aspectj.weaver.TypeWorld;
 import io.gemini.aspectj.weaver.TypeWorldFactory;
 import io.gemini.core.OrderComparator;
+import io.gemini.core.classloader.ClassLoaderRegistry;
 import io.gemini.core.concurrent.ConcurrentReferenceHashMap;
 import io.gemini.core.config.ConfigView;
 import io.gemini.core.config.ConfigViews;
@@ -65,7 +66,7 @@ import net.bytebuddy.matcher.ElementMatcher;
 import net.bytebuddy.matcher.ElementMatchers;
 import net.bytebuddy.utility.JavaModule;
 
-public class FactoryContext implements Closeable {
+public class FactoryContext implements Closeable, ClassLoaderRegistry.ReclaimListener {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(FactoryContext.class);
 
@@ -107,6 +108,10 @@ public class FactoryContext implements Closeable {
 
     private ElementMatcher<String> enabledAdvisorMatcher;
 
+    private boolean indexAdvisorTypeNames;
+    private boolean preFilterAdvisorMethods;
+    private long advisorCreationTimeoutMs;
+
     private boolean shareAspectClassLoader;
     private List<Set<String>> conflictJoinpointClassLoaders;
 
@@ -122,7 +127,10 @@ public class FactoryContext implements Closeable {
 
     private final Map<Class<? extends Annotation>, Class<?>> conditionalAndConditionClasses;
 
-    private ConcurrentMap<ClassLoader, AdvisorContext> advisorContextMap;
+    private ConcurrentReferenceHashMap<ClassLoader, AdvisorContext> advisorContextMap;
+    // dedicated AspectClassLoader pins joinpoint ClassLoader once aspect classes are linked to joinpoint classes,
+    // so dedicated AdvisorContexts are referenced weakly, and kept alive by advisors created with them
+    private ConcurrentReferenceHashMap<ClassLoader, WeakReference<AdvisorContext>> dedicatedAdvisorContexts;
 
 
     public FactoryContext(AopContext aopContext, 
@@ -184,6 +192,8 @@ public class FactoryContext implements Closeable {
         this.conditionalAndConditionClasses = AdvisorConditionParser.loadConditionalAndConditionClasses(classScanner, classLoader);
 
         this.advisorContextMap = new ConcurrentReferenceHashMap<>();
+        this.dedicatedAdvisorContexts = new ConcurrentReferenceHashMap<>();
+        aopContext.getClassLoaderRegistry().addReclaimListener(this);
 
 
         if (aopContext.getDiagnosticLevel().isSimpleEnabled() && LOGGER.isInfoEnabled()) 
@@ -305,6 +315,12 @@ public class FactoryContext implements Closeable {
             }
         }
 
+        {
+            this.indexAdvisorTypeNames = configView.getAsBoolean("aop.factory.indexAdvisorTypeNames", true);
+            this.preFilterAdvisorMethods = configView.getAsBoolean("aop.factory.preFilterAdvisorMethods", true);
+            this.advisorCreationTimeoutMs = configView.getAsInteger("aop.factory.advisorCreationTimeoutMs", 5000);
+        }
+
         {
             // load and merge global factory settings
             boolean shareAspectClassLoader = configView.getAsBoolean("aop.factory.shareAspectClassLoader", false);
@@ -387,6 +403,18 @@ public class FactoryContext implements Closeable {
         return this.enabledAdvisorMatcher.matches(advisorName);
     }
 
+    public boolean isIndexAdvisorTypeNames() {
+        return indexAdvisorTypeNames;
+    }
+
+    public boolean isPreFilterAdvisorMethods() {
+        return preFilterAdvisorMethods;
+    }
+
+    public long getAdvisorCreationTimeoutMs() {
+        return advisorCreationTimeoutMs;
+    }
+
     public ClassScanner getClassScanner() {
         return this.classScanner;
     }
@@ -426,23 +454,60 @@ public class FactoryContext implements Closeable {
         return createAdvisorContext(joinpointClassLoader, javaModule, false);
     }
 
-    @SuppressWarnings("resource")
     public AdvisorContext createAdvisorContext(ClassLoader joinpointClassLoader, JavaModule javaModule, boolean validateContext) {
         ClassLoader cacheKey = ClassLoaderUtils.maskNull(joinpointClassLoader);
 
+        AdvisorContext advisorContext = this.getDedicatedAdvisorContext(cacheKey);
+        if (advisorContext != null)
+            return advisorContext;
+
         boolean sharedMode = useSharedAspectClassLoader(cacheKey);
         if (sharedMode == true) {
-            this.advisorContextMap.computeIfAbsent(
+            return this.advisorContextMap.computeIfAbsent(
                     cacheKey, 
                     key -> doCreateAdvisorContext(joinpointClassLoader, javaModule, sharedMode, validateContext)
             );
         } else {
-            AdvisorContext advisorContext = doCreateAdvisorContext(joinpointClassLoader, javaModule, sharedMode, validateContext);
-            // memory leak?
-            this.advisorContextMap.put(cacheKey, advisorContext);  // overwrite existing AdvisorContext
+            advisorContext = doCreateAdvisorContext(joinpointClassLoader, javaModule, sharedMode, validateContext);
+
+            WeakReference<AdvisorContext> advisorContextRef = new WeakReference<>(advisorContext);
+            while (true) {
+                WeakReference<AdvisorContext> existingRef = this.dedicatedAdvisorContexts.putIfAbsent(cacheKey, advisorContextRef);
+                if (existingRef == null)
+                    return advisorContext;
+
+                AdvisorContext existingContext = existingRef.get();
+                if (existingContext != null) {
+                    // AdvisorContext was created concurrently
+                    this.closeAdvisorContext(advisorContext, joinpointClassLoader);
+                    return existingContext;
+                }
+
+                // replace reclaimed AdvisorContext
+                if (this.dedicatedAdvisorContexts.replace(cacheKey, existingRef, advisorContextRef))
+                    return advisorContext;
+            }
+        }
+    }
+
+    private AdvisorContext getDedicatedAdvisorContext(ClassLoader joinpointClassLoader) {
+        WeakReference<AdvisorContext> advisorContextRef = this.dedicatedAdvisorContexts.get(joinpointClassLoader);
+        return advisorContextRef == null ? null : advisorContextRef.get();
+    }
+
+    private void closeAdvisorContext(AdvisorContext advisorContext, Object joinpointClassLoader) {
+        try {
+            advisorContext.close();
+        } catch (IOException e) {
+            if (LOGGER.isWarnEnabled())
+                LOGGER.warn("Could not close AdvisorContext of ClassLoader '{}'.", joinpointClassLoader, e);
         }
+    }
 
-        return this.advisorContextMap.get(cacheKey);
+    private Set<ClassLoader> getExistingClassLoaders() {
+        Set<ClassLoader> existingClassLoaders = new LinkedHashSet<>(advisorContextMap.keySet());
+        existingClassLoaders.addAll(dedicatedAdvisorContexts.keySet());
+        return existingClassLoaders;
     }
 
     private boolean useSharedAspectClassLoader(ClassLoader joinpointClassLoader) {
@@ -463,8 +528,9 @@ public class FactoryContext implements Closeable {
 
         // 4.check potentially class loading conflict
         // exist ClassLoader is same instance of the joinpointClassLoader
+        Set<ClassLoader> existingClassLoaders = this.getExistingClassLoaders();
         Class<? extends ClassLoader> classLoaderClass = joinpointClassLoader.getClass();
-        for (ClassLoader existingCL : advisorContextMap.keySet()) {
+        for (ClassLoader existingCL : existingClassLoaders) {
             if (existingCL.getClass() == classLoaderClass)
                 return false;
         }
@@ -475,7 +541,7 @@ public class FactoryContext implements Closeable {
                 .filter( classLoaders -> classLoaders.contains(joinpointCLClassName) )
                 .collect( Collectors.toList() );
 
-        for (ClassLoader existingCL : advisorContextMap.keySet()) {
+        for (ClassLoader existingCL : existingClassLoaders) {
             String existingCLClassName = ClassLoaderUtils.getClassLoaderName(existingCL);
 
             for (Set<String> classLoaders : conflictJoinpointClassLoaderList) {
@@ -543,8 +609,21 @@ public class FactoryContext implements Closeable {
         return factoryName;
     }
 
+    @Override
+    public int onReclaimed(long classLoaderId, String classLoaderName) {
+        // jar files of collected dedicated AspectClassLoader are closed by JDK once they are unreachable
+        return this.advisorContextMap.purgeStaleEntries() + this.dedicatedAdvisorContexts.purgeStaleEntries();
+    }
+
     @Override
     public void close() throws IOException {
+        for (Map.Entry<ClassLoader, WeakReference<AdvisorContext>> entry : this.dedicatedAdvisorContexts.entrySet()) {
+            AdvisorContext advisorContext = entry.getValue().get();
+            if (advisorContext != null)
+                this.closeAdvisorContext(advisorContext, entry.getKey());
+        }
+        this.dedicatedAdvisorContexts.clear();
+
         for (Closeable closeable : this.advisorContextMap.values()) {
             closeable.close();
        };
@@ -21,11 +21,14 @@ import java.net.URL;
 import java.util.ArrayList;
 import java.util.Enumeration;
 import java.util.List;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
 
 import io.gemini.api.annotation.NoMatching;
 import io.gemini.api.classloader.AopClassLoader;
 import io.gemini.api.classloader.BaseClassLoader;
 import io.gemini.core.classloader.ThreadContext;
+import io.gemini.core.concurrent.ConcurrentReferenceHashMap;
 import io.gemini.core.util.Assert;
 import io.gemini.core.util.ClassLoaderUtils;
 import io.gemini.core.util.CompoundEnumeration;
@@ -46,6 +49,12 @@ import net.bytebuddy.matcher.ElementMatchers;
  * firstly.
  * 
  * <p>
+ * AspectClassLoader is parallel capable and only locks per class name. Class names not found by 
+ * parent CL, current CL or each joinpoint CL are recorded in bounded negative caches, to avoid 
+ * creating and catching {@code ClassNotFoundException} repeatedly for the same name. Names missed 
+ * by joinpoint CL expire shortly, since application ClassLoader might define them later.
+ * 
+ * <p>
  * Below figure demonstrates runtime relationship between ClassLoaders. 
  * 
  *                           Logical Parent CL          Actual Parent CL        Jointpoint CL
@@ -70,6 +79,12 @@ public class AspectClassLoader extends BaseClassLoader {
     private ElementMatcher<String> joinpointFirstTypeMatcher = ElementMatchers.none();
     private ElementMatcher<String> joinpointFirstResourceMatcher = ElementMatchers.none();
 
+    private static final long JOINPOINT_MISS_EXPIRATION_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final NegativeCache parentMissedNames = new NegativeCache();
+    private final NegativeCache currentMissedNames = new NegativeCache();
+    private final ConcurrentMap<ClassLoader, NegativeCache> joinpointMissedNames = new ConcurrentReferenceHashMap<>();
+
 
     static {
         // invoke registerAsParallelCapable directly since JDK 7+
@@ -111,7 +126,7 @@ public class AspectClassLoader extends BaseClassLoader {
      * {@inheritDoc}
      */
     @Override
-    protected synchronized Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+    protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
         Assert.notNull(name, "'name' must not be empty.");
 
         synchronized (super.getClassLoadingLock(name)) {
@@ -122,14 +137,18 @@ public class AspectClassLoader extends BaseClassLoader {
 
 
             // 2.delegate to parent CL(AopClassLoader) to load AOP framework classes
-            try {
-                type = this.getParent().loadClass(name);
-                if (resolve) {
-                    resolveClass(type);
-                }
+            if (parentMissedNames.contains(name) == false) {
+                try {
+                    type = this.getParent().loadClass(name);
+                    if (resolve) {
+                        resolveClass(type);
+                    }
 
-                return type;
-            } catch (ClassNotFoundException ignored) { /* ignored */ }
+                    return type;
+                } catch (ClassNotFoundException ignored) {
+                    parentMissedNames.add(name);
+                }
+            }
 
 
             ClassLoader joinpointCL = getJoinpointClassLoader();
@@ -157,33 +176,47 @@ public class AspectClassLoader extends BaseClassLoader {
 
     private Class<?> loadClassFromCurrentCL(String name, boolean resolve, 
             boolean throwException) throws ClassNotFoundException {
-        try {
-            Class<?> type = this.findClass(name);
-            if (resolve) {
-                resolveClass(type);
-            }
+        if (currentMissedNames.contains(name) == false) {
+            try {
+                Class<?> type = this.findClass(name);
+                if (resolve) {
+                    resolveClass(type);
+                }
+
+                return type;
+            } catch (ClassNotFoundException e) {
+                currentMissedNames.add(name);
 
-            return type;
-        } catch (ClassNotFoundException e) {
-            if (throwException) throw e;
+                if (throwException) throw e;
+                return null;
+            }
         }
 
+        if (throwException) throw new ClassNotFoundException(name);
         return null;
     }
 
     private Class<?> loadClassFromJoinpointCL(ClassLoader joinpointCL, String name, boolean resolve, 
             boolean throwException) throws ClassNotFoundException {
-        try {
-            Class<?> type = joinpointCL.loadClass(name);
-            if (resolve) {
-                resolveClass(type);
-            }
+        NegativeCache missedNames = joinpointMissedNames.computeIfAbsent(joinpointCL, 
+                cl -> new NegativeCache(JOINPOINT_MISS_EXPIRATION_NANOS) );
+        if (missedNames.contains(name) == false) {
+            try {
+                Class<?> type = joinpointCL.loadClass(name);
+                if (resolve) {
+                    resolveClass(type);
+                }
 
-            return type;
-        } catch (ClassNotFoundException e) {
-            if (throwException) throw e;
+                return type;
+            } catch (ClassNotFoundException e) {
+                missedNames.add(name);
+
+                if (throwException) throw e;
+                return null;
+            }
         }
 
+        if (throwException) throw new ClassNotFoundException(name);
         return null;
     }
 
@@ -304,4 +337,65 @@ public class AspectClassLoader extends BaseClassLoader {
     public String toString() {
         return getLoaderName();
     }
-}
\ No newline at end of file
+
+
+    /**
+     * Bounded direct-mapped cache of missed class names, in which colliding name overwrites 
+     * previous one. Slots are read and written without lock, since stale or lost entry only 
+     * results in another lookup via delegated ClassLoader. Names never expire if expiration 
+     * is not positive.
+     */
+    static class NegativeCache {
+
+        private static final int CAPACITY = 1024;
+
+        private final long expirationNanos;
+
+        private final Entry[] entries = new Entry[CAPACITY];
+
+
+        public NegativeCache() {
+            this(0);
+        }
+
+        public NegativeCache(long expirationNanos) {
+            this.expirationNanos = expirationNanos;
+        }
+
+
+        public boolean contains(String name) {
+            int index = index(name);
+            Entry entry = entries[index];
+            if (entry == null || name.equals(entry.name) == false)
+                return false;
+
+            if (expirationNanos > 0 && System.nanoTime() - entry.expiresAt > 0) {
+                entries[index] = null;
+                return false;
+            }
+            return true;
+        }
+
+        public void add(String name) {
+            entries[index(name)] = new Entry(name, expirationNanos > 0 ? System.nanoTime() + expirationNanos : 0);
+        }
+
+        private static int index(String name) {
+            int hash = name.hashCode();
+            return (hash ^ (hash >>> 16)) & (CAPACITY - 1);
+        }
+
+
+        private static class Entry {
+
+            private final String name;
+            private final long expiresAt;
+
+
+            private Entry(String name, long expiresAt) {
+                this.name = name;
+                this.expiresAt = expiresAt;
+            }
+        }
+    }
+}
@@ -180,8 +180,10 @@ public interface AdvisorRepository {
                 Supplier<? extends Advice> adviceSupplier = this.doCreateAdviceSupplier(advisorContext, adviceClassSupplier);
 
                 return new Advisor.PointcutAdvisor.Default(
+                        advisorContext.getFactoryContext().getFactoryName(), 
                         advisorSpec.getAdvisorName(), 
                         advisorSpec.isPerInstance(),
+                        advisorSpec.getSamplingRate(),
                         adviceClassSupplier, adviceSupplier, 
                         pointcut,
                         advisorSpec.getOrder()
@@ -594,10 +596,10 @@ public interface AdvisorRepository {
                 methodMatcher = new ElementMatcher.Junction.Conjunction<MethodDescription>(
                         methodMatcher, adviceMethodMatcher);
 
-            return new Pointcut.Default(
-                    decorateTypeMatcher(advisorContext.getFactoryContext(), advisorSpec, pointcut),
-                    methodMatcher
-            );
+            ElementMatcher<TypeDescription> typeMatcher = decorateTypeMatcher(advisorContext.getFactoryContext(), advisorSpec, pointcut);
+            return pointcut instanceof ExprPointcut
+                    ? new ExprPointcut.Decorated(typeMatcher, methodMatcher, (ExprPointcut) pointcut)
+                    : new Pointcut.Default(typeMatcher, methodMatcher);
         }
     }
 
@@ -643,9 +645,10 @@ public interface AdvisorRepository {
                 );
 
 
-            return new Pointcut.Default(
+            return new ExprPointcut.Decorated(
                     decorateTypeMatcher(advisorContext.getFactoryContext(), advisorSpec, pointcut),
-                    methodMatcher
+                    methodMatcher,
+                    pointcut
             );
         }
 
@@ -235,6 +235,9 @@ public interface AdvisorSpecParser {
     @NoScanning
     abstract class AbstractAdvisorSpec extends AdvisorSpec.AbstractBase {
 
+        private static final Logger LOGGER = LoggerFactory.getLogger(AdvisorSpec.class);
+
+
         AbstractAdvisorSpec(ElementMatcher<MatchingContext> condition) throws IgnoredSpecException {
             super();
 
@@ -264,6 +267,9 @@ public interface AdvisorSpecParser {
                 this.setPerInstance( 
                         advisorAnnotation.getValue("perInstance").resolve(Boolean.class) );
 
+                this.doParseSamplingRate( 
+                        advisorAnnotation.getValue("samplingRate").resolve(Double.class), "@Advisor.samplingRate" );
+
                 this.setOrder( 
                         advisorAnnotation.getValue("order").resolve(Integer.class) );
             }
@@ -301,12 +307,36 @@ public interface AdvisorSpecParser {
             this.setPerInstance(
                     configView.getAsBoolean(configKeyPrefix + "perInstance", defaultPerInstance ) );
 
+            double defaultSamplingRate = existingAdvisorSpec == null 
+                    ? AdvisorSpec.DEFAULT_SAMPLING_RATE : existingAdvisorSpec.getSamplingRate();
+            String samplingRateKey = configKeyPrefix + "samplingRate";
+            this.doParseSamplingRate(
+                    configView.getAsDouble(samplingRateKey, defaultSamplingRate ), samplingRateKey );
+
             int defaultOrder = existingAdvisorSpec == null 
                     ? AdvisorSpec.DEFAULT_ORDER : existingAdvisorSpec.getOrder();
             this.setOrder(
                     configView.getAsInteger(configKeyPrefix + "order", defaultOrder ) );
         }
 
+        protected void doParseSamplingRate(double samplingRate, String samplingRateKey) {
+            // also reject NaN
+            if (samplingRate >= 0.0d && samplingRate <= 1.0d) {
+                this.setSamplingRate(samplingRate);
+                return;
+            }
+
+            if (LOGGER.isWarnEnabled())
+                LOGGER.warn("Ignored advisor with 'samplingRate' out of range [0.0, 1.0]. \n"
+                        + "  {}: {} \n"
+                        + "    {}: {} \n",
+                        getSpecType(), getAdvisorName(), 
+                        samplingRateKey, samplingRate
+                );
+
+            throw new IgnoredSpecException();
+        }
+
 
         protected String getSpecType() {
             return AdvisorSpec.class.getSimpleName();
@@ -388,6 +418,10 @@ public interface AdvisorSpecParser {
 
             this.pointcutExpression = 
                     exprPointcutAnnotation.getValue("pointcutExpression").resolve(String.class).trim();
+
+            double samplingRate = exprPointcutAnnotation.getValue("samplingRate").resolve(Double.class);
+            if (samplingRate != AdvisorSpec.DEFAULT_SAMPLING_RATE)
+                this.doParseSamplingRate(samplingRate, "@ExprPointcut.samplingRate");
         }
 
         protected void doParseExprPointcutSpec(ConfigView configView, String configKeyPrefix,
@@ -294,6 +294,7 @@ public interface AdvisorSpecScanner {
                             advisorSpec.getPointcut(), 
                             advisorSpec.getAdviceClassName(),
                             advisorSpec.isPerInstance(),
+                            advisorSpec.getSamplingRate(),
                             advisorSpec.getOrder()
                     );
                 }
@@ -334,6 +335,7 @@ public interface AdvisorSpecScanner {
                             advisorSpec.getPointcut(), 
                             advisorSpec.getAdviceClassName(),
                             advisorSpec.isPerInstance(), 
+                            advisorSpec.getSamplingRate(),
                             advisorSpec.getOrder()
                     );
                 }
@@ -428,6 +430,7 @@ public interface AdvisorSpecScanner {
                             advisorSpec.getPointcutExpression(), 
                             advisorSpec.getAdviceClassName(),
                             advisorSpec.isPerInstance(), 
+                            advisorSpec.getSamplingRate(),
                             advisorSpec.getOrder()
                     );
                 }
@@ -470,6 +473,7 @@ public interface AdvisorSpecScanner {
                             advisorSpec.getPointcutExpression(), 
                             advisorSpec.getAdviceClassName(),
                             advisorSpec.isPerInstance(), 
+                            advisorSpec.getSamplingRate(),
                             advisorSpec.getOrder()
                     );
                 }
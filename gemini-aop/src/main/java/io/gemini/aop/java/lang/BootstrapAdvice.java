@@ -42,6 +42,10 @@ public interface BootstrapAdvice {
 
         Object[] getArguments();
 
+        boolean hasModifiedArguments();
+
+        boolean hasAfterAdvices();
+
         void setReturning(T returning);
 
         void setThrowing(E throwing);
@@ -93,6 +97,18 @@ public interface BootstrapAdvice {
          */
         <T, E extends Throwable> Dispatcher<T, E> dispacther(Object descriptor, Object thisObject, Object[] arguments);
 
+
+        /**
+         * Get INDY CallSite to create {@link Dispatcher} instance with thisObject and arguments per joinpoint.
+         * 
+         * @param lookup
+         * @param bsmMethodName
+         * @param bsmMethodType
+         * @param arguments
+         * @return
+         */
+        CallSite createDispatcherCallSite(MethodHandles.Lookup lookup, String bsmMethodName, MethodType bsmMethodType, Object... arguments);
+
     }
 
 
@@ -102,8 +118,14 @@ public interface BootstrapAdvice {
         private static final Method CREATE_DESCRIPTOR_METHOD;
         private static final Method CREATE_DESCRIPTOR_INDY_BSM;
 
+        private static final Method DISPATCHER_METHOD;
+        private static final Method CREATE_DISPATCHER_INDY_BSM;
+
         private static Factory FACTORY;
 
+        // global kill switch checked by woven advice templates before creating dispatcher
+        private static volatile boolean AOP_ENABLED = true;
+
         static {
             Method bsmMethod = null;
             try {
@@ -125,6 +147,28 @@ public interface BootstrapAdvice {
                         + "  Error reason: " + e.getMessage());
             }
             CREATE_DESCRIPTOR_METHOD = regularMethod;
+
+
+            Method dispatcherMethod = null;
+            try {
+                dispatcherMethod = BootstrapAdvice.Bridger.class.getMethod("dispacther", Object.class, Object.class, Object[].class);
+                dispatcherMethod.setAccessible(true);
+            } catch (Exception e) {
+                System.err.println("Could not fetch BootstrapAdvice.Bridger#dispacther() method. \n"
+                        + "  Error reason: " + e.getMessage());
+            }
+            DISPATCHER_METHOD = dispatcherMethod;
+
+
+            Method dispatcherBsmMethod = null;
+            try {
+                dispatcherBsmMethod = Bridger.class.getMethod("createDispatcherCallSite", MethodHandles.Lookup.class, String.class, MethodType.class, Object[].class);
+                dispatcherBsmMethod.setAccessible(true);
+            } catch (Exception e) {
+                System.err.println("Could not fetch BootstrapAdvice.Bridger#createDispatcherCallSite() method. \n"
+                        + "  Error reason: " + e.getMessage());
+            }
+            CREATE_DISPATCHER_INDY_BSM = dispatcherBsmMethod;
         }
 
 
@@ -142,6 +186,20 @@ public interface BootstrapAdvice {
         }
 
 
+        /**
+         * Check global kill switch, which costs one volatile read per joinpoint invocation.
+         * 
+         * @return
+         */
+        public static boolean isAopEnabled() {
+            return AOP_ENABLED;
+        }
+
+        public static void setAopEnabled(boolean aopEnabled) {
+            AOP_ENABLED = aopEnabled;
+        }
+
+
         public static Method createDescriptorMethod() {
             return CREATE_DESCRIPTOR_METHOD;
         }
@@ -163,8 +221,24 @@ public interface BootstrapAdvice {
         }
 
 
+        public static Method dispatcherMethod() {
+            return DISPATCHER_METHOD;
+        }
+
         public static <T, E extends Throwable> Dispatcher<T, E> dispacther(Object descriptor, Object thisObject, Object[] arguments) {
             return FACTORY.dispacther(descriptor, thisObject, arguments);
         }
+
+
+        public static Method createDispatcherIndyBSM() {
+            return CREATE_DISPATCHER_INDY_BSM;
+        }
+
+        public static CallSite createDispatcherCallSite(MethodHandles.Lookup lookup, 
+                String bsmMethodName,
+                MethodType bsmMethodType,
+                Object... args) {
+            return FACTORY.createDispatcherCallSite(lookup, bsmMethodName, bsmMethodType, args);
+        }
     }
 }
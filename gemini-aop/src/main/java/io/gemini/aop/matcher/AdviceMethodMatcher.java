@@ -15,7 +15,9 @@
  */
 package io.gemini.aop.matcher;
 
+import static net.bytebuddy.matcher.ElementMatchers.isBridge;
 import static net.bytebuddy.matcher.ElementMatchers.named;
+import static net.bytebuddy.matcher.ElementMatchers.not;
 import static net.bytebuddy.matcher.ElementMatchers.takesArgument;
 
 import org.slf4j.Logger;
@@ -23,6 +25,7 @@ import org.slf4j.LoggerFactory;
 
 import io.gemini.api.aop.AdvisorSpec;
 import io.gemini.api.aop.Joinpoint.MutableJoinpoint;
+import io.gemini.api.aop.Joinpoint.ProceedingJoinpoint;
 import io.gemini.core.util.Assert;
 import io.gemini.core.util.ClassUtils;
 import io.gemini.core.util.MethodUtils;
@@ -274,36 +277,39 @@ public class AdviceMethodMatcher implements ElementMatcher<MethodDescription> {
                 if (adviceMethod != null)
                     return adviceMethod;
 
-                adviceType = adviceType.getSuperClass().asErasure();
+                Generic superClass = adviceType.getSuperClass();
+                adviceType = superClass == null ? null : superClass.asErasure();
             }
 
             return null;
         }
 
         private static MethodDescription resolveFirstAdviceMethod(TypeDescription adviceType) {
-            MethodList<MethodDescription.InDefinedShape> beforeMethodFilter = adviceType.getDeclaredMethods()
-                    .filter(named("before")
-                            .and(takesArgument(0, named(MutableJoinpoint.class.getName())))
-                    );
-            if (beforeMethodFilter.isEmpty() == false) {
-                MethodDescription beforeMethod = beforeMethodFilter.getOnly();
+            MethodDescription beforeMethod = resolveParameterizedMethod(adviceType, "before", MutableJoinpoint.class);
+            if (beforeMethod != null)
+                return beforeMethod;
 
-                Generic parameterType = beforeMethod.getParameters().get(0).getType();
-                if (TypeDefinition.Sort.PARAMETERIZED == parameterType.getSort() && parameterType.getTypeArguments().size() > 0)
-                    return beforeMethod;
-            }
+            MethodDescription afterMethod = resolveParameterizedMethod(adviceType, "after", MutableJoinpoint.class);
+            if (afterMethod != null)
+                return afterMethod;
+
+            return resolveParameterizedMethod(adviceType, "invoke", ProceedingJoinpoint.class);
+        }
 
-            MethodList<MethodDescription.InDefinedShape> afterMethodFilter = adviceType.getDeclaredMethods()
-                    .filter(named("after")
-                            .and(takesArgument(0, named(MutableJoinpoint.class.getName())))
+        private static MethodDescription resolveParameterizedMethod(TypeDescription adviceType, String methodName, Class<?> joinpointType) {
+            // bridge method of generic interface method takes raw joinpoint type
+            MethodList<MethodDescription.InDefinedShape> methodFilter = adviceType.getDeclaredMethods()
+                    .filter(named(methodName)
+                            .and(takesArgument(0, named(joinpointType.getName())))
+                            .and(not(isBridge()))
                     );
-            if (afterMethodFilter.isEmpty() == false) {
-                MethodDescription afterMethod = afterMethodFilter.getOnly();
+            if (methodFilter.size() != 1)
+                return null;
 
-                Generic parameterType = afterMethod.getParameters().get(0).getType();
-                if (TypeDefinition.Sort.PARAMETERIZED == parameterType.getSort() && parameterType.getTypeArguments().size() > 0)
-                    return afterMethod;
-            }
+            MethodDescription adviceMethod = methodFilter.getOnly();
+            Generic parameterType = adviceMethod.getParameters().get(0).getType();
+            if (TypeDefinition.Sort.PARAMETERIZED == parameterType.getSort() && parameterType.getTypeArguments().size() > 0)
+                return adviceMethod;
 
             return null;
         }
@@ -52,14 +52,16 @@ public enum ElementMatcherFactory {
 
     public ElementMatcher.Junction<String> createTypeNameMatcher(String ruleName, 
             Collection<String> typeNameExpressions, ElementMatcher.Junction<String> defaultMatcher) {
-        return doCreateElementMatcher(ruleName, typeNameExpressions, 
+        ElementMatcher.Junction<String> typeNameMatcher = doCreateElementMatcher(ruleName, typeNameExpressions, 
                 ExprParser.INSTANCE::parseTypeNameExpr, defaultMatcher);
+        return NamePrefixFilter.wrap(typeNameMatcher, defaultMatcher, typeNameExpressions);
     }
 
     public ElementMatcher.Junction<String> createResourceNameMatcher(String ruleName, 
             Collection<String> resourceNameExpressions, ElementMatcher.Junction<String> defaultMatcher) {
-        return doCreateElementMatcher(ruleName, resourceNameExpressions, 
+        ElementMatcher.Junction<String> resourceNameMatcher = doCreateElementMatcher(ruleName, resourceNameExpressions, 
                 ExprParser.INSTANCE::parseResourceNameExpr, defaultMatcher);
+        return NamePrefixFilter.wrap(resourceNameMatcher, defaultMatcher, resourceNameExpressions);
     }
 
 
@@ -17,17 +17,48 @@ package io.gemini.aop.matcher;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
 
 import org.aspectj.util.FuzzyBoolean;
 import org.aspectj.weaver.Shadow;
+import org.aspectj.weaver.UnresolvedType;
+import org.aspectj.weaver.ast.And;
+import org.aspectj.weaver.ast.Call;
+import org.aspectj.weaver.ast.FieldGetCall;
+import org.aspectj.weaver.ast.HasAnnotation;
+import org.aspectj.weaver.ast.ITestVisitor;
+import org.aspectj.weaver.ast.Instanceof;
+import org.aspectj.weaver.ast.Literal;
+import org.aspectj.weaver.ast.Not;
+import org.aspectj.weaver.ast.Or;
+import org.aspectj.weaver.ast.Test;
+import org.aspectj.weaver.ast.Var;
+import org.aspectj.weaver.internal.tools.MatchingContextBasedTest;
+import org.aspectj.weaver.patterns.AndAnnotationTypePattern;
+import org.aspectj.weaver.patterns.AndPointcut;
+import org.aspectj.weaver.patterns.AnnotationTypePattern;
+import org.aspectj.weaver.patterns.AndTypePattern;
+import org.aspectj.weaver.patterns.ExactAnnotationTypePattern;
+import org.aspectj.weaver.patterns.ExactTypePattern;
 import org.aspectj.weaver.patterns.ExposedState;
 import org.aspectj.weaver.patterns.FastMatchInfo;
+import org.aspectj.weaver.patterns.KindedPointcut;
+import org.aspectj.weaver.patterns.ModifiersPattern;
+import org.aspectj.weaver.patterns.NamePattern;
+import org.aspectj.weaver.patterns.OrPointcut;
+import org.aspectj.weaver.patterns.OrTypePattern;
 import org.aspectj.weaver.patterns.Pointcut;
+import org.aspectj.weaver.patterns.SignaturePattern;
+import org.aspectj.weaver.patterns.TypePattern;
+import org.aspectj.weaver.patterns.TypePatternList;
+import org.aspectj.weaver.patterns.WildTypePattern;
+import org.aspectj.weaver.patterns.WithinPointcut;
 import org.aspectj.weaver.tools.PointcutPrimitive;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -35,8 +66,11 @@ import org.slf4j.LoggerFactory;
 import io.gemini.aspectj.weaver.ExprParser;
 import io.gemini.aspectj.weaver.PointcutParameter;
 import io.gemini.aspectj.weaver.PointcutParameter.NamedPointcutParameter;
+import io.gemini.aspectj.weaver.PointcutParameter.ParamCategory;
 import io.gemini.aspectj.weaver.TypeWorld;
 import io.gemini.core.util.ObjectUtils;
+import io.gemini.core.util.Throwables;
+import net.bytebuddy.description.annotation.AnnotationDescription;
 import net.bytebuddy.description.method.MethodDescription;
 import net.bytebuddy.description.type.TypeDescription;
 import net.bytebuddy.description.type.TypeDescription.Generic;
@@ -64,6 +98,30 @@ public interface ExprPointcut extends io.gemini.api.aop.Pointcut, ElementMatcher
 
     boolean matches(MethodDescription methodDescription, PointcutParameterMatcher pointcutParameterMatcher);
 
+    /**
+     * Compile residue of matched method which could not be determined statically, such as 
+     * args(), this() and target() type tests, into runtime test.
+     * 
+     * @param methodDescription
+     * @param joinpointClassLoader
+     * @return {@link RuntimeTest#TRUE} if method is matched statically
+     */
+    RuntimeTest getRuntimeTest(MethodDescription methodDescription, ClassLoader joinpointClassLoader);
+
+    /**
+     * Return static type name patterns extracted from pointcut expression to index this pointcut.
+     * 
+     * @return null if types could not be filtered by name statically
+     */
+    TypeNameIndex.Patterns getTypeNamePatterns();
+
+    /**
+     * Return static method filter extracted from pointcut expression to reject methods cheaply.
+     * 
+     * @return {@link MethodFilter#TRUE} if methods could not be filtered statically
+     */
+    MethodFilter getMethodFilter();
+
 
     interface PointcutParameterMatcher {
 
@@ -84,6 +142,527 @@ public interface ExprPointcut extends io.gemini.api.aop.Pointcut, ElementMatcher
     }
 
 
+    /**
+     * Runtime residue test evaluated with target object and arguments before dispatching advices.
+     */
+    interface RuntimeTest {
+
+        RuntimeTest TRUE = new RuntimeTest() {
+
+            @Override
+            public boolean test(Object thisObject, Object[] arguments) {
+                return true;
+            }
+
+            @Override
+            public String toString() {
+                return "true";
+            }
+        };
+
+        RuntimeTest FALSE = new RuntimeTest() {
+
+            @Override
+            public boolean test(Object thisObject, Object[] arguments) {
+                return false;
+            }
+
+            @Override
+            public String toString() {
+                return "false";
+            }
+        };
+
+
+        boolean test(Object thisObject, Object[] arguments);
+
+
+        class ForAnd implements RuntimeTest {
+
+            private final RuntimeTest left;
+            private final RuntimeTest right;
+
+            public ForAnd(RuntimeTest left, RuntimeTest right) {
+                this.left = left;
+                this.right = right;
+            }
+
+            @Override
+            public boolean test(Object thisObject, Object[] arguments) {
+                return left.test(thisObject, arguments) && right.test(thisObject, arguments);
+            }
+
+            @Override
+            public String toString() {
+                return "(" + left + " && " + right + ")";
+            }
+        }
+
+        class ForOr implements RuntimeTest {
+
+            private final RuntimeTest left;
+            private final RuntimeTest right;
+
+            public ForOr(RuntimeTest left, RuntimeTest right) {
+                this.left = left;
+                this.right = right;
+            }
+
+            @Override
+            public boolean test(Object thisObject, Object[] arguments) {
+                return left.test(thisObject, arguments) || right.test(thisObject, arguments);
+            }
+
+            @Override
+            public String toString() {
+                return "(" + left + " || " + right + ")";
+            }
+        }
+
+        class ForNot implements RuntimeTest {
+
+            private final RuntimeTest body;
+
+            public ForNot(RuntimeTest body) {
+                this.body = body;
+            }
+
+            @Override
+            public boolean test(Object thisObject, Object[] arguments) {
+                return body.test(thisObject, arguments) == false;
+            }
+
+            @Override
+            public String toString() {
+                return "!" + body;
+            }
+        }
+
+        /**
+         * Test runtime type or annotation of this object, target object or argument.
+         * 
+         * <p>Tested type is resolved lazily via joinpoint ClassLoader at first invocation, 
+         * and non-resolvable type is never matched.
+         */
+        class ForValue implements RuntimeTest {
+
+            private static final Logger LOGGER = LoggerFactory.getLogger(ForValue.class);
+
+            private static final Class<?> UNRESOLVED = ForValue.class;
+
+            private final int argsIndex;        // -1 for this object
+            private final String typeName;
+            private final boolean testAnnotation;
+            private final ClassLoader joinpointClassLoader;
+
+            private volatile Class<?> type;
+
+
+            public ForValue(int argsIndex, String typeName, boolean testAnnotation, ClassLoader joinpointClassLoader) {
+                this.argsIndex = argsIndex;
+                this.typeName = typeName;
+                this.testAnnotation = testAnnotation;
+                this.joinpointClassLoader = joinpointClassLoader;
+            }
+
+            @SuppressWarnings("unchecked")
+            @Override
+            public boolean test(Object thisObject, Object[] arguments) {
+                Object value = argsIndex < 0 ? thisObject : arguments[argsIndex];
+                if (value == null)
+                    return false;
+
+                Class<?> type = this.type;
+                if (type == null)
+                    this.type = type = this.resolveType();
+                if (type == UNRESOLVED)
+                    return false;
+
+                return testAnnotation 
+                        ? value.getClass().isAnnotationPresent( (Class<? extends java.lang.annotation.Annotation>) type )
+                        : type.isInstance(value);
+            }
+
+            private Class<?> resolveType() {
+                try {
+                    Class<?> type = Class.forName(typeName, false, joinpointClassLoader);
+                    return testAnnotation && type.isAnnotation() == false ? UNRESOLVED : type;
+                } catch (Throwable t) {
+                    if (LOGGER.isDebugEnabled())
+                        LOGGER.debug("Could not resolve residue test type '{}' via ClassLoader '{}'.", 
+                                typeName, joinpointClassLoader, t);
+
+                    return UNRESOLVED;
+                }
+            }
+
+            @Override
+            public String toString() {
+                return (argsIndex < 0 ? "this" : "args[" + argsIndex + "]") 
+                        + (testAnnotation ? " annotated @" : " instanceof ") + typeName;
+            }
+        }
+
+
+        /**
+         * Compile AspectJ residue AST, and return null if residue contains unsupported test, 
+         * such as if() and cflow().
+         */
+        class Compiler implements ITestVisitor {
+
+            private final ClassLoader joinpointClassLoader;
+            private RuntimeTest runtimeTest;
+
+
+            public static RuntimeTest compile(Test residue, ClassLoader joinpointClassLoader) {
+                if (residue == null)
+                    return null;
+
+                Compiler compiler = new Compiler(joinpointClassLoader);
+                residue.accept(compiler);
+                return compiler.runtimeTest;
+            }
+
+            private Compiler(ClassLoader joinpointClassLoader) {
+                this.joinpointClassLoader = joinpointClassLoader;
+            }
+
+            private RuntimeTest doCompile(Test test) {
+                this.runtimeTest = null;
+                test.accept(this);
+                return this.runtimeTest;
+            }
+
+            @Override
+            public void visit(And e) {
+                RuntimeTest left = doCompile(e.getLeft());
+                RuntimeTest right = left == null ? null : doCompile(e.getRight());
+                if (left == null || right == null)
+                    this.runtimeTest = null;
+                else if (left == FALSE || right == FALSE)
+                    this.runtimeTest = FALSE;
+                else
+                    this.runtimeTest = left == TRUE ? right : (right == TRUE ? left : new ForAnd(left, right));
+            }
+
+            @Override
+            public void visit(Or e) {
+                RuntimeTest left = doCompile(e.getLeft());
+                RuntimeTest right = left == null ? null : doCompile(e.getRight());
+                if (left == null || right == null)
+                    this.runtimeTest = null;
+                else if (left == TRUE || right == TRUE)
+                    this.runtimeTest = TRUE;
+                else
+                    this.runtimeTest = left == FALSE ? right : (right == FALSE ? left : new ForOr(left, right));
+            }
+
+            @Override
+            public void visit(Not e) {
+                RuntimeTest body = doCompile(e.getBody());
+                if (body == null)
+                    this.runtimeTest = null;
+                else
+                    this.runtimeTest = body == TRUE ? FALSE : (body == FALSE ? TRUE : new ForNot(body));
+            }
+
+            @Override
+            public void visit(Literal literal) {
+                this.runtimeTest = literal == Literal.FALSE ? FALSE : TRUE;
+            }
+
+            @Override
+            public void visit(Instanceof i) {
+                this.runtimeTest = createValueTest(i.getVar(), i.getType(), false);
+            }
+
+            @Override
+            public void visit(HasAnnotation hasAnnotation) {
+                this.runtimeTest = createValueTest(hasAnnotation.getVar(), hasAnnotation.getAnnotationType(), true);
+            }
+
+            private RuntimeTest createValueTest(Var var, UnresolvedType type, boolean testAnnotation) {
+                if (var instanceof PointcutParameter == false || type == null || type.isPrimitiveType())
+                    return null;
+
+                PointcutParameter parameter = (PointcutParameter) var;
+                ParamCategory paramCategory = parameter.getParamCategory();
+
+                int argsIndex;
+                if (paramCategory == ParamCategory.THIS_VAR || paramCategory == ParamCategory.TARGET_VAR)
+                    argsIndex = -1;
+                else if (paramCategory == ParamCategory.ARGS_VAR && parameter.getArgsIndex() >= 0)
+                    argsIndex = parameter.getArgsIndex();
+                else
+                    return null;
+
+                String typeName = type.isArray() ? type.getSignature().replace('/', '.') : type.getName();
+                return new ForValue(argsIndex, typeName, testAnnotation, joinpointClassLoader);
+            }
+
+            @Override
+            public void visit(Call call) {
+                this.runtimeTest = null;
+            }
+
+            @Override
+            public void visit(FieldGetCall fieldGetCall) {
+                this.runtimeTest = null;
+            }
+
+            @Override
+            public void visit(MatchingContextBasedTest matchingContextTest) {
+                this.runtimeTest = null;
+            }
+        }
+    }
+
+
+    /**
+     * Cheap static method filter extracted from pointcut expression, such as method name, modifiers, 
+     * parameter count and declared annotations, which rejects methods before matching them with 
+     * AspectJ shadow. Filter might accept non-matching method, but never rejects matching one.
+     */
+    interface MethodFilter {
+
+        MethodFilter TRUE = new MethodFilter() {
+
+            @Override
+            public boolean matches(MethodDescription methodDescription) {
+                return true;
+            }
+
+            @Override
+            public Set<String> getMethodNames() {
+                return null;
+            }
+
+            @Override
+            public String toString() {
+                return "true";
+            }
+        };
+
+        MethodFilter FALSE = new MethodFilter() {
+
+            @Override
+            public boolean matches(MethodDescription methodDescription) {
+                return false;
+            }
+
+            @Override
+            public Set<String> getMethodNames() {
+                return Collections.emptySet();
+            }
+
+            @Override
+            public String toString() {
+                return "false";
+            }
+        };
+
+
+        boolean matches(MethodDescription methodDescription);
+
+        /**
+         * Return internal names of methods might be accepted, such as {@code <init>} for constructor 
+         * and {@code <clinit>} for type initializer.
+         * 
+         * @return null if method name is not restricted
+         */
+        Set<String> getMethodNames();
+
+
+        class ForAnd implements MethodFilter {
+
+            private final MethodFilter left;
+            private final MethodFilter right;
+
+            private final Set<String> methodNames;
+
+            public ForAnd(MethodFilter left, MethodFilter right) {
+                this.left = left;
+                this.right = right;
+
+                Set<String> leftNames = left.getMethodNames(), rightNames = right.getMethodNames();
+                if (leftNames == null || rightNames == null) {
+                    this.methodNames = leftNames == null ? rightNames : leftNames;
+                } else {
+                    Set<String> methodNames = new LinkedHashSet<>(leftNames);
+                    methodNames.retainAll(rightNames);
+                    this.methodNames = methodNames;
+                }
+            }
+
+            @Override
+            public boolean matches(MethodDescription methodDescription) {
+                return left.matches(methodDescription) && right.matches(methodDescription);
+            }
+
+            @Override
+            public Set<String> getMethodNames() {
+                return methodNames;
+            }
+
+            @Override
+            public String toString() {
+                return "(" + left + " && " + right + ")";
+            }
+        }
+
+        class ForOr implements MethodFilter {
+
+            private final MethodFilter left;
+            private final MethodFilter right;
+
+            private final Set<String> methodNames;
+
+            public ForOr(MethodFilter left, MethodFilter right) {
+                this.left = left;
+                this.right = right;
+
+                Set<String> leftNames = left.getMethodNames(), rightNames = right.getMethodNames();
+                if (leftNames == null || rightNames == null) {
+                    this.methodNames = null;
+                } else {
+                    Set<String> methodNames = new LinkedHashSet<>(leftNames);
+                    methodNames.addAll(rightNames);
+                    this.methodNames = methodNames;
+                }
+            }
+
+            @Override
+            public boolean matches(MethodDescription methodDescription) {
+                return left.matches(methodDescription) || right.matches(methodDescription);
+            }
+
+            @Override
+            public Set<String> getMethodNames() {
+                return methodNames;
+            }
+
+            @Override
+            public String toString() {
+                return "(" + left + " || " + right + ")";
+            }
+        }
+
+        /**
+         * Filter methods by execution or staticinitialization signature pattern.
+         * 
+         * <p>Modifiers and annotations are only checked against method itself by AspectJ, while
+         * bridge method is matched via its bridged method, so both are not checked for bridge method.
+         */
+        class ForSignature implements MethodFilter {
+
+            private static final Logger LOGGER = LoggerFactory.getLogger(ForSignature.class);
+
+            private final Shadow.Kind kind;
+
+            private final NamePattern namePattern;
+            private final Set<String> methodNames;
+
+            private final TypePatternList parameterTypes;
+            private final ModifiersPattern modifiers;
+            private final Set<String> annotationTypeNames;
+
+
+            public ForSignature(Shadow.Kind kind, NamePattern namePattern, 
+                    TypePatternList parameterTypes, ModifiersPattern modifiers, Set<String> annotationTypeNames) {
+                this.kind = kind;
+
+                if (kind == Shadow.MethodExecution) {
+                    this.namePattern = namePattern == null || namePattern.isAny() ? null : namePattern;
+
+                    String name = this.namePattern == null ? null : this.namePattern.maybeGetSimpleName();
+                    this.methodNames = name == null ? null : Collections.singleton(name);
+                } else {
+                    this.namePattern = null;
+                    this.methodNames = Collections.singleton(kind == Shadow.ConstructorExecution 
+                            ? MethodDescription.CONSTRUCTOR_INTERNAL_NAME : MethodDescription.TYPE_INITIALIZER_INTERNAL_NAME);
+                }
+
+                this.parameterTypes = parameterTypes == TypePatternList.ANY ? null : parameterTypes;
+                this.modifiers = modifiers == ModifiersPattern.ANY ? null : modifiers;
+                this.annotationTypeNames = annotationTypeNames == null ? Collections.emptySet() : annotationTypeNames;
+            }
+
+            @Override
+            public boolean matches(MethodDescription methodDescription) {
+                if (kind == Shadow.MethodExecution ? methodDescription.isMethod() == false
+                        : (kind == Shadow.ConstructorExecution ? methodDescription.isConstructor() == false 
+                                : methodDescription.isTypeInitializer() == false))
+                    return false;
+
+                if (namePattern != null && namePattern.matches(methodDescription.getInternalName()) == false)
+                    return false;
+
+                if (parameterTypes != null 
+                        && parameterTypes.canMatchSignatureWithNParameters(methodDescription.getParameters().size()) == false)
+                    return false;
+
+                if (methodDescription.isBridge())
+                    return true;
+
+                if (modifiers != null && modifiers.matches(methodDescription.getModifiers()) == false)
+                    return false;
+
+                if (annotationTypeNames.isEmpty())
+                    return true;
+
+                try {
+                    Set<String> declaredAnnotationTypeNames = new HashSet<>();
+                    for (AnnotationDescription annotation : methodDescription.getDeclaredAnnotations())
+                        declaredAnnotationTypeNames.add(annotation.getAnnotationType().getName());
+
+                    return declaredAnnotationTypeNames.containsAll(annotationTypeNames);
+                } catch (Throwable t) {
+                    // leave unresolvable annotations to AspectJ matching
+                    if (LOGGER.isDebugEnabled())
+                        LOGGER.debug("Could not resolve annotations of method '{}'.", methodDescription, t);
+
+                    Throwables.throwIfRequired(t);
+                    return true;
+                }
+            }
+
+            @Override
+            public Set<String> getMethodNames() {
+                return methodNames;
+            }
+
+            @Override
+            public String toString() {
+                return kind.getName() + "(" + (methodNames != null ? methodNames : namePattern) 
+                        + ", parameters=" + parameterTypes + ", modifiers=" + modifiers 
+                        + ", annotations=" + annotationTypeNames + ")";
+            }
+        }
+    }
+
+
+    /**
+     * Pointcut decorated from {@code ExprPointcut} which keeps original {@code ExprPointcut}
+     * to compile runtime residue test of matched method.
+     */
+    class Decorated extends io.gemini.api.aop.Pointcut.Default {
+
+        private final ExprPointcut exprPointcut;
+
+        public Decorated(ElementMatcher<TypeDescription> typeMatcher, 
+                ElementMatcher<MethodDescription> methodMatcher, 
+                ExprPointcut exprPointcut) {
+            super(typeMatcher, methodMatcher);
+
+            this.exprPointcut = exprPointcut;
+        }
+
+        public ExprPointcut getExprPointcut() {
+            return exprPointcut;
+        }
+    }
+
+
     class AspectJExprPointcut implements ExprPointcut {
 
         private static final Logger LOGGER = LoggerFactory.getLogger(AspectJExprPointcut.class);
@@ -99,6 +678,14 @@ public interface ExprPointcut extends io.gemini.api.aop.Pointcut, ElementMatcher
         private final TypeDescription pointcutDeclarationScope;
         private final Map<String, Generic> pointcutParameters;
 
+        private volatile TypeNameIndex.Patterns typeNamePatterns;
+        private volatile boolean typeNamePatternsExtracted = false;
+
+        private volatile MethodFilter methodFilter;
+
+        // residue of last matched method, carried over to getRuntimeTest() of same method
+        private final AtomicReference<MatchedResidue> matchedResidue = new AtomicReference<>();
+
 
         static {
             SUPPORTED_PRIMITIVES.add(PointcutPrimitive.REFERENCE);
@@ -201,14 +788,221 @@ public interface ExprPointcut extends io.gemini.api.aop.Pointcut, ElementMatcher
             return this.doMatch(methodDescription, false, pointcutParameterMatcher);
         }
 
+        /** 
+         * {@inheritDoc}
+         */
+        @Override
+        public RuntimeTest getRuntimeTest(MethodDescription methodDescription, ClassLoader joinpointClassLoader) {
+            Test residueTest = this.takeMatchedResidue(methodDescription);
+            if (residueTest == null) {
+                Shadow shadow = typeWorld.makeShadow(methodDescription);
+                FuzzyBoolean matchResult = pointcut.match(shadow);
+                if (matchResult.alwaysTrue())
+                    return RuntimeTest.TRUE;
+                if (matchResult.alwaysFalse())
+                    return RuntimeTest.FALSE;
+
+                residueTest = pointcut.findResidue(shadow, new ExposedState(pointcutParameters.size()));
+            }
+
+            if (residueTest == Literal.TRUE)
+                return RuntimeTest.TRUE;
+
+            RuntimeTest runtimeTest = RuntimeTest.Compiler.compile(residueTest, joinpointClassLoader);
+            return runtimeTest == null ? RuntimeTest.FALSE : runtimeTest;
+        }
+
+        /**
+         * Take residue of given method kept by last {@link #doMatch}, or return null if 
+         * another method has been matched since.
+         */
+        private Test takeMatchedResidue(MethodDescription methodDescription) {
+            MatchedResidue matchedResidue = this.matchedResidue.get();
+            if (matchedResidue == null || matchedResidue.methodDescription != methodDescription)
+                return null;
+
+            return this.matchedResidue.compareAndSet(matchedResidue, null) ? matchedResidue.residueTest : null;
+        }
+
+        /** 
+         * {@inheritDoc}
+         */
+        @Override
+        public TypeNameIndex.Patterns getTypeNamePatterns() {
+            if (typeNamePatternsExtracted == false) {
+                try {
+                    this.typeNamePatterns = extractTypeNamePatterns(pointcut);
+                } catch (Exception e) {
+                    if (LOGGER.isDebugEnabled())
+                        LOGGER.debug("Could not extract type name patterns from '{}'.", pointcutExpression, e);
+
+                    this.typeNamePatterns = null;
+                }
+                this.typeNamePatternsExtracted = true;
+            }
+            return typeNamePatterns;
+        }
+
+        private static TypeNameIndex.Patterns extractTypeNamePatterns(Pointcut pointcut) {
+            if (pointcut == null)
+                return null;
+
+            switch (pointcut.getPointcutKind()) {
+            case Pointcut.AND:
+                return TypeNameIndex.Patterns.and(
+                        extractTypeNamePatterns( ((AndPointcut) pointcut).getLeft() ), 
+                        extractTypeNamePatterns( ((AndPointcut) pointcut).getRight() ) );
+            case Pointcut.OR:
+                return TypeNameIndex.Patterns.or(
+                        extractTypeNamePatterns( ((OrPointcut) pointcut).getLeft() ), 
+                        extractTypeNamePatterns( ((OrPointcut) pointcut).getRight() ) );
+            case Pointcut.KINDED:
+                // exact or wildcard declaring type pattern is fast matched against joinpoint type by 
+                // PatternParserV2, while only exact one against its super types by AspectJ KindedPointcut
+                TypePattern declaringType = ((KindedPointcut) pointcut).getSignature().getDeclaringType();
+                if (pointcut.getClass() != KindedPointcut.class)
+                    return declaringType instanceof ExactTypePattern || declaringType instanceof WildTypePattern
+                            ? extractTypeNamePatterns(declaringType) : null;
+
+                TypeNameIndex.Patterns patterns = declaringType instanceof ExactTypePattern 
+                        ? extractTypeNamePatterns(declaringType) : null;
+                return patterns == null 
+                        ? null : new TypeNameIndex.Patterns(patterns.getTypeNames(), patterns.getTypeNamePrefixes(), true);
+            case Pointcut.WITHIN:
+                // type pattern matches joinpoint type or its enclosing types
+                return extractTypeNamePatterns( ((WithinPointcut) pointcut).getTypePattern() );
+            case Pointcut.NONE:
+                return TypeNameIndex.Patterns.EMPTY;
+            default:
+                return null;
+            }
+        }
+
+        private static TypeNameIndex.Patterns extractTypeNamePatterns(TypePattern typePattern) {
+            if (typePattern == null || typePattern.getDimensions() > 0)
+                return null;
+
+            if (typePattern == TypePattern.NO)
+                return TypeNameIndex.Patterns.EMPTY;
+
+            if (typePattern instanceof ExactTypePattern) {
+                UnresolvedType exactType = ((ExactTypePattern) typePattern).getType();
+                return TypeNameIndex.Patterns.ofTypeName(exactType.getRawType().getName(), typePattern.isIncludeSubtypes());
+            }
+
+            if (typePattern instanceof WildTypePattern) {
+                // collect literal prefix before first wildcard or ellipsis
+                StringBuilder typeNamePrefix = new StringBuilder();
+                for (NamePattern namePattern : ((WildTypePattern) typePattern).getNamePatterns()) {
+                    if (typeNamePrefix.length() > 0)
+                        typeNamePrefix.append('.');
+
+                    if (namePattern == NamePattern.ELLIPSIS)
+                        break;
+
+                    String name = namePattern.toString();
+                    int pos = name.indexOf('*');
+                    typeNamePrefix.append(pos < 0 ? name : name.substring(0, pos));
+                    if (pos >= 0)
+                        break;
+                }
+
+                return typeNamePrefix.length() == 0 
+                        ? null : TypeNameIndex.Patterns.ofTypeNamePrefix(typeNamePrefix.toString(), typePattern.isIncludeSubtypes());
+            }
+
+            if (typePattern instanceof OrTypePattern)
+                return TypeNameIndex.Patterns.or(
+                        extractTypeNamePatterns( ((OrTypePattern) typePattern).getLeft() ), 
+                        extractTypeNamePatterns( ((OrTypePattern) typePattern).getRight() ) );
+
+            if (typePattern instanceof AndTypePattern)
+                return TypeNameIndex.Patterns.and(
+                        extractTypeNamePatterns( ((AndTypePattern) typePattern).getLeft() ), 
+                        extractTypeNamePatterns( ((AndTypePattern) typePattern).getRight() ) );
+
+            return null;
+        }
+
+        /** 
+         * {@inheritDoc}
+         */
+        @Override
+        public MethodFilter getMethodFilter() {
+            if (methodFilter == null) {
+                try {
+                    this.methodFilter = extractMethodFilter(pointcut);
+                } catch (Exception e) {
+                    if (LOGGER.isDebugEnabled())
+                        LOGGER.debug("Could not extract method filter from '{}'.", pointcutExpression, e);
+
+                    this.methodFilter = MethodFilter.TRUE;
+                }
+            }
+            return methodFilter;
+        }
+
+        private static MethodFilter extractMethodFilter(Pointcut pointcut) {
+            if (pointcut == null)
+                return MethodFilter.TRUE;
+
+            switch (pointcut.getPointcutKind()) {
+            case Pointcut.AND: {
+                MethodFilter left = extractMethodFilter( ((AndPointcut) pointcut).getLeft() );
+                MethodFilter right = extractMethodFilter( ((AndPointcut) pointcut).getRight() );
+                if (left == MethodFilter.FALSE || right == MethodFilter.FALSE)
+                    return MethodFilter.FALSE;
+                return left == MethodFilter.TRUE ? right : (right == MethodFilter.TRUE ? left : new MethodFilter.ForAnd(left, right));
+            }
+            case Pointcut.OR: {
+                MethodFilter left = extractMethodFilter( ((OrPointcut) pointcut).getLeft() );
+                MethodFilter right = extractMethodFilter( ((OrPointcut) pointcut).getRight() );
+                if (left == MethodFilter.TRUE || right == MethodFilter.TRUE)
+                    return MethodFilter.TRUE;
+                return left == MethodFilter.FALSE ? right : (right == MethodFilter.FALSE ? left : new MethodFilter.ForOr(left, right));
+            }
+            case Pointcut.KINDED:
+                KindedPointcut kindedPointcut = (KindedPointcut) pointcut;
+                Shadow.Kind kind = kindedPointcut.getKind();
+                SignaturePattern signature = kindedPointcut.getSignature();
+                if (kind == Shadow.MethodExecution || kind == Shadow.ConstructorExecution)
+                    return new MethodFilter.ForSignature(kind, signature.getName(), signature.getParameterTypes(), 
+                            signature.getModifiers(), collectAnnotationTypeNames(signature.getAnnotationPattern(), new LinkedHashSet<>()));
+                if (kind == Shadow.StaticInitialization)
+                    return new MethodFilter.ForSignature(kind, null, null, null, null);
+                return MethodFilter.TRUE;
+            case Pointcut.NONE:
+                return MethodFilter.FALSE;
+            default:
+                // not, within, args, this, target and annotation pointcuts
+                return MethodFilter.TRUE;
+            }
+        }
+
+        /**
+         * Collect annotation types which must be declared on matching method.
+         */
+        private static Set<String> collectAnnotationTypeNames(AnnotationTypePattern annotationPattern, Set<String> annotationTypeNames) {
+            if (annotationPattern instanceof ExactAnnotationTypePattern 
+                    && annotationPattern.isForParameterAnnotationMatch() == false) {
+                UnresolvedType annotationType = ((ExactAnnotationTypePattern) annotationPattern).getAnnotationType();
+                if (annotationType != null && annotationType.isArray() == false)
+                    annotationTypeNames.add(annotationType.getName());
+            } else if (annotationPattern instanceof AndAnnotationTypePattern) {
+                collectAnnotationTypeNames( ((AndAnnotationTypePattern) annotationPattern).getLeft(), annotationTypeNames );
+                collectAnnotationTypeNames( ((AndAnnotationTypePattern) annotationPattern).getRight(), annotationTypeNames );
+            }
+            return annotationTypeNames;
+        }
+
         protected boolean doMatch(MethodDescription methodDescription, boolean beanHasIntroductions, PointcutParameterMatcher pointcutParameterMatcher) {
             Shadow shadow = typeWorld.makeShadow(methodDescription);
             FuzzyBoolean matchResult = pointcut.match(shadow);
 
-//            Test residueTest = Literal.TRUE;
+            Test residueTest = Literal.TRUE;
             ExposedState exposedState = new ExposedState(pointcutParameters.size());
             if (matchResult.maybeTrue()) {
-                pointcut.findResidue(shadow, exposedState);
+                residueTest = pointcut.findResidue(shadow, exposedState);
             }
 
 
@@ -216,8 +1010,9 @@ public interface ExprPointcut extends io.gemini.api.aop.Pointcut, ElementMatcher
             // in Spring - we can optimize since we know we have exactly this class,
             // and there will never be matching subclass at runtime.
             if (matchResult.alwaysTrue()) {
-                return pointcutParameterMatcher.match(methodDescription, 
-                        createParamterBindings(pointcutParameters, exposedState));
+                return this.keepMatchedResidue(methodDescription, Literal.TRUE, 
+                        pointcutParameterMatcher.match(methodDescription, 
+                                createParamterBindings(pointcutParameters, exposedState)) );
             }
             else if (matchResult.alwaysFalse()) {
                 return false;
@@ -227,16 +1022,26 @@ public interface ExprPointcut extends io.gemini.api.aop.Pointcut, ElementMatcher
                 if (beanHasIntroductions) {
                     return true;
                 }
-                // A match test returned maybe - if there are any subtype sensitive variables
-                // involved in the test (this, target, at_this, at_target, at_annotation) then
-                // we say this is not a match as in Spring there will never be a different
-                // runtime subtype.
-//                RuntimeTestWalker walker = getRuntimeTestWalker(shadowMatch);
-//                return (!walker.testsSubtypeSensitiveVars() || walker.testTargetInstanceOfResidue(targetClass));
-                return false;
+                // A match test returned maybe - match joinpoint if residue (this, target, args, 
+                // at_this, at_target, at_args) could be compiled into runtime test, which is 
+                // evaluated before creating dispatcher.
+                RuntimeTest runtimeTest = RuntimeTest.Compiler.compile(residueTest, null);
+                if (runtimeTest == null || runtimeTest == RuntimeTest.FALSE)
+                    return false;
+
+                return this.keepMatchedResidue(methodDescription, residueTest, 
+                        pointcutParameterMatcher.match(methodDescription, 
+                                createParamterBindings(pointcutParameters, exposedState)) );
             }
         }
 
+        private boolean keepMatchedResidue(MethodDescription methodDescription, Test residueTest, boolean matched) {
+            if (matched)
+                this.matchedResidue.set( new MatchedResidue(methodDescription, residueTest) );
+
+            return matched;
+        }
+
         private List<NamedPointcutParameter> createParamterBindings(
                 Map<String, Generic> pointcutParameters, ExposedState exposedState) {
             int i = 0;
@@ -254,6 +1059,18 @@ public interface ExprPointcut extends io.gemini.api.aop.Pointcut, ElementMatcher
         }
 
 
+        private static class MatchedResidue {
+
+            private final MethodDescription methodDescription;
+            private final Test residueTest;
+
+            private MatchedResidue(MethodDescription methodDescription, Test residueTest) {
+                this.methodDescription = methodDescription;
+                this.residueTest = residueTest;
+            }
+        }
+
+
         @Override
         public boolean equals(Object other) {
             if (this == other) {
@@ -0,0 +1,179 @@
+/*
+ * Copyright © 2023, the original author or authors. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gemini.aop.matcher;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+import net.bytebuddy.matcher.ElementMatcher;
+import net.bytebuddy.matcher.ElementMatchers;
+
+/**
+ * Type or resource name matcher which checks literal prefixes of name expressions in character
+ * trie, and only evaluates expressions if given name, or its relative name after any package or
+ * enclosing type separator, starts with one of prefixes.
+ *
+ * <p>Literal prefix is extracted before first wildcard or ellipsis, and '/' and '$' are treated
+ * as '.' in both prefixes and names. If any expression contains other syntax, such as boolean
+ * operators, subtypes or annotations, or has no literal prefix, expressions are evaluated directly.
+ *
+ * @author   martin.liu
+ * @since	 1.0
+ */
+class NamePrefixFilter extends ElementMatcher.Junction.AbstractBase<String> {
+
+    private final Node prefixTrie;
+    private final ElementMatcher<String> nameMatcher;
+
+
+    private NamePrefixFilter(Node prefixTrie, ElementMatcher<String> nameMatcher) {
+        this.prefixTrie = prefixTrie;
+        this.nameMatcher = nameMatcher;
+    }
+
+    static ElementMatcher.Junction<String> wrap(ElementMatcher.Junction<String> nameMatcher,
+            ElementMatcher.Junction<String> defaultMatcher, Collection<String> expressions) {
+        if (nameMatcher == defaultMatcher || nameMatcher.equals(ElementMatchers.any()))
+            return nameMatcher;
+
+        Node prefixTrie = new Node();
+        for (String expression : expressions) {
+            String prefix = extractLiteralPrefix(expression.trim());
+            if (prefix == null || prefix.isEmpty())
+                return nameMatcher;
+
+            prefixTrie.insert(prefix);
+        }
+
+        return new NamePrefixFilter(prefixTrie, nameMatcher);
+    }
+
+    static String extractLiteralPrefix(String expression) {
+        StringBuilder prefix = new StringBuilder(expression.length());
+        for (int pos = 0; pos < expression.length(); pos++) {
+            char ch = expression.charAt(pos);
+            if (Character.isJavaIdentifierPart(ch) == false && ch != '.' && ch != '/' && ch != '-' && ch != '*')
+                return null;
+        }
+
+        for (int pos = 0; pos < expression.length(); pos++) {
+            char ch = expression.charAt(pos);
+            if (ch == '*')
+                break;
+
+            ch = normalize(ch);
+            if (ch == '.' && prefix.length() > 0 && prefix.charAt(prefix.length() - 1) == '.') {
+                // stop before ellipsis
+                prefix.setLength(prefix.length() - 1);
+                break;
+            }
+            prefix.append(ch);
+        }
+        return prefix.toString();
+    }
+
+    private static char normalize(char ch) {
+        return ch == '/' || ch == '$' ? '.' : ch;
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean matches(String name) {
+        if (name == null)
+            return false;
+
+        // match name and relative names after package or enclosing type separators
+        for (int pos = 0; pos < name.length(); pos++) {
+            if ((pos == 0 || normalize(name.charAt(pos - 1)) == '.') && prefixTrie.startsWith(name, pos))
+                return nameMatcher.matches(name);
+        }
+        return false;
+    }
+
+    @Override
+    public String toString() {
+        return nameMatcher.toString();
+    }
+
+
+    /**
+     * Character trie node with sorted child keys.
+     */
+    private static class Node {
+
+        private static final char[] NO_KEYS = new char[0];
+        private static final Node[] NO_CHILDREN = new Node[0];
+
+        private char[] keys = NO_KEYS;
+        private Node[] children = NO_CHILDREN;
+
+        private boolean terminal = false;
+
+
+        private void insert(String prefix) {
+            Node node = this;
+            for (int pos = 0; pos < prefix.length(); pos++)
+                node = node.getOrCreateChild(prefix.charAt(pos));
+
+            node.terminal = true;
+        }
+
+        private Node getOrCreateChild(char key) {
+            int pos = Arrays.binarySearch(keys, key);
+            if (pos >= 0)
+                return children[pos];
+
+            pos = -(pos + 1);
+            Node child = new Node();
+
+            char[] keys = new char[this.keys.length + 1];
+            System.arraycopy(this.keys, 0, keys, 0, pos);
+            System.arraycopy(this.keys, pos, keys, pos + 1, this.keys.length - pos);
+            keys[pos] = key;
+
+            Node[] children = new Node[this.children.length + 1];
+            System.arraycopy(this.children, 0, children, 0, pos);
+            System.arraycopy(this.children, pos, children, pos + 1, this.children.length - pos);
+            children[pos] = child;
+
+            this.keys = keys;
+            this.children = children;
+            return child;
+        }
+
+        /**
+         * Check whether any prefix matches given name from given position.
+         */
+        private boolean startsWith(String name, int start) {
+            Node node = this;
+            for (int pos = start; ; pos++) {
+                if (node.terminal)
+                    return true;
+
+                if (pos >= name.length())
+                    return false;
+
+                int keyPos = Arrays.binarySearch(node.keys, normalize(name.charAt(pos)));
+                if (keyPos < 0)
+                    return false;
+                node = node.children[keyPos];
+            }
+        }
+    }
+}
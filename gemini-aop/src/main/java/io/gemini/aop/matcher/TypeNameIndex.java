@@ -0,0 +1,381 @@
+/*
+ * Copyright © 2023, the original author or authors. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gemini.aop.matcher;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.gemini.core.util.Throwables;
+import net.bytebuddy.description.type.TypeDefinition;
+import net.bytebuddy.description.type.TypeDescription;
+
+/**
+ * Index of elements, such as advisors, by static type name patterns of their pointcuts.
+ *
+ * <p>Exact type names are indexed in hash map, and literal type name prefixes in character
+ * trie. Given type name and its enclosing type names, and super type names if any pattern
+ * includes subtypes, are looked up to collect candidate elements which might match the type,
+ * and elements without static patterns are always returned as residual elements.
+ *
+ * @author   martin.liu
+ * @since	 1.0
+ */
+public class TypeNameIndex<T> {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(TypeNameIndex.class);
+
+    private static final int[] NO_INDEXES = new int[0];
+
+
+    private final List<T> elements;
+
+    private final Map<String, int[]> typeNameIndexes;
+    private final Node typeNamePrefixTrie;
+    private final int[] residualIndexes;
+
+    private final boolean includeSubtypes;
+
+
+    private TypeNameIndex(List<T> elements,
+            Map<String, int[]> typeNameIndexes, Node typeNamePrefixTrie, int[] residualIndexes, 
+            boolean includeSubtypes) {
+        this.elements = elements;
+
+        this.typeNameIndexes = typeNameIndexes;
+        this.typeNamePrefixTrie = typeNamePrefixTrie;
+        this.residualIndexes = residualIndexes;
+
+        this.includeSubtypes = includeSubtypes;
+    }
+
+
+    public List<T> getElements() {
+        return elements;
+    }
+
+    public boolean isEmpty() {
+        return elements.isEmpty();
+    }
+
+    /**
+     * Return elements which might match given type, in original order.
+     *
+     * @param typeDescription
+     * @return
+     */
+    public List<T> lookup(TypeDescription typeDescription) {
+        if (residualIndexes.length == elements.size())
+            return elements;
+
+        if (includeSubtypes == false)
+            return lookup(Collections.singleton(typeDescription.getTypeName()));
+
+        Set<String> typeNames = new LinkedHashSet<>();
+        try {
+            collectTypeNames(typeDescription, typeNames);
+        } catch (Throwable t) {
+            // fall back to all elements if type hierarchy could not be resolved
+            if (LOGGER.isDebugEnabled())
+                LOGGER.debug("Could not resolve type hierarchy of '{}'.", typeDescription.getTypeName(), t);
+
+            Throwables.throwIfRequired(t);
+            return elements;
+        }
+
+        return lookup(typeNames);
+    }
+
+    private void collectTypeNames(TypeDefinition typeDefinition, Set<String> typeNames) {
+        if (typeDefinition == null)
+            return;
+
+        TypeDescription typeDescription = typeDefinition.asErasure();
+        if (typeNames.add(typeDescription.getTypeName()) == false)
+            return;
+
+        collectTypeNames(typeDescription.getSuperClass(), typeNames);
+        for (TypeDefinition interfaceType : typeDescription.getInterfaces())
+            collectTypeNames(interfaceType, typeNames);
+    }
+
+    /**
+     * Return elements which might match any of given type names, in original order.
+     *
+     * @param typeNames
+     * @return
+     */
+    public List<T> lookup(Collection<String> typeNames) {
+        if (residualIndexes.length == elements.size())
+            return elements;
+
+        BitSet matchedIndexes = new BitSet(elements.size());
+        for (int index : residualIndexes)
+            matchedIndexes.set(index);
+
+        for (String typeName : typeNames) {
+            // lookup type name and enclosing type names
+            for (int pos = typeName.length(); pos > 0; pos = typeName.lastIndexOf('$', pos - 1)) {
+                int[] indexes = typeNameIndexes.get(pos == typeName.length() ? typeName : typeName.substring(0, pos));
+                if (indexes != null)
+                    for (int index : indexes)
+                        matchedIndexes.set(index);
+            }
+
+            // lookup type name prefixes, and relative names after imported package prefixes
+            String normalizedName = typeName.replace('$', '.');
+            int pos = 0;
+            do {
+                typeNamePrefixTrie.collect(normalizedName, pos, matchedIndexes);
+                pos = normalizedName.indexOf('.', pos) + 1;
+            } while (pos > 0);
+        }
+
+        if (matchedIndexes.cardinality() == elements.size())
+            return elements;
+
+        List<T> matchedElements = new ArrayList<>(matchedIndexes.cardinality());
+        for (int index = matchedIndexes.nextSetBit(0); index >= 0; index = matchedIndexes.nextSetBit(index + 1))
+            matchedElements.add(elements.get(index));
+        return matchedElements;
+    }
+
+
+    @Override
+    public String toString() {
+        return "TypeNameIndex [elements=" + elements.size() + ", typeNames=" + typeNameIndexes.size()
+                + ", residuals=" + residualIndexes.length + ", includeSubtypes=" + includeSubtypes + "]";
+    }
+
+
+    /**
+     * Static type name patterns, one of which must match the name of joinpoint type, its
+     * enclosing types, or its super types if patterns include subtypes, if given pointcut 
+     * might match the joinpoint type.
+     */
+    public static class Patterns {
+
+        public static final Patterns EMPTY = new Patterns(Collections.emptySet(), Collections.emptySet(), false);
+
+
+        private final Set<String> typeNames;
+        private final Set<String> typeNamePrefixes;
+
+        private final boolean includeSubtypes;
+
+
+        public Patterns(Set<String> typeNames, Set<String> typeNamePrefixes, boolean includeSubtypes) {
+            this.typeNames = typeNames;
+            this.typeNamePrefixes = typeNamePrefixes;
+
+            this.includeSubtypes = includeSubtypes;
+        }
+
+        public static Patterns ofTypeName(String typeName, boolean includeSubtypes) {
+            return new Patterns(Collections.singleton(typeName), Collections.emptySet(), includeSubtypes);
+        }
+
+        /**
+         * Create patterns with type name prefix, in which nested types are separated by '.'.
+         */
+        public static Patterns ofTypeNamePrefix(String typeNamePrefix, boolean includeSubtypes) {
+            return new Patterns(Collections.emptySet(), Collections.singleton(typeNamePrefix), includeSubtypes);
+        }
+
+        public Set<String> getTypeNames() {
+            return typeNames;
+        }
+
+        public Set<String> getTypeNamePrefixes() {
+            return typeNamePrefixes;
+        }
+
+        public boolean isIncludeSubtypes() {
+            return includeSubtypes;
+        }
+
+        /**
+         * Combine patterns of disjunctive pointcuts, and return null if any one is not indexable.
+         */
+        public static Patterns or(Patterns left, Patterns right) {
+            if (left == null || right == null)
+                return null;
+
+            Set<String> typeNames = new LinkedHashSet<>(left.typeNames);
+            typeNames.addAll(right.typeNames);
+
+            Set<String> typeNamePrefixes = new LinkedHashSet<>(left.typeNamePrefixes);
+            typeNamePrefixes.addAll(right.typeNamePrefixes);
+
+            return new Patterns(typeNames, typeNamePrefixes, left.includeSubtypes || right.includeSubtypes);
+        }
+
+        /**
+         * Combine patterns of conjunctive pointcuts, and return more selective one.
+         */
+        public static Patterns and(Patterns left, Patterns right) {
+            if (left == null || right == null)
+                return left == null ? right : left;
+
+            if (left.typeNamePrefixes.size() != right.typeNamePrefixes.size())
+                return left.typeNamePrefixes.size() < right.typeNamePrefixes.size() ? left : right;
+
+            return left.typeNames.size() <= right.typeNames.size() ? left : right;
+        }
+
+        @Override
+        public String toString() {
+            return "Patterns [typeNames=" + typeNames + ", typeNamePrefixes=" + typeNamePrefixes 
+                    + ", includeSubtypes=" + includeSubtypes + "]";
+        }
+    }
+
+
+    public static class Builder<T> {
+
+        private final List<T> elements = new ArrayList<>();
+
+        private final Map<String, List<Integer>> typeNameIndexes = new HashMap<>();
+        private final Node typeNamePrefixTrie = new Node();
+        private final List<Integer> residualIndexes = new ArrayList<>();
+
+        private boolean includeSubtypes = false;
+
+
+        /**
+         * Add element with static type name patterns, or residual element if patterns is null.
+         *
+         * @param element
+         * @param patterns
+         * @return
+         */
+        public Builder<T> add(T element, Patterns patterns) {
+            int index = elements.size();
+            elements.add(element);
+
+            if (patterns == null || patterns.getTypeNamePrefixes().contains("")) {
+                residualIndexes.add(index);
+                return this;
+            }
+
+            includeSubtypes = includeSubtypes || patterns.isIncludeSubtypes();
+
+            for (String typeName : patterns.getTypeNames())
+                typeNameIndexes.computeIfAbsent(typeName, key -> new ArrayList<>()).add(index);
+
+            for (String typeNamePrefix : patterns.getTypeNamePrefixes())
+                typeNamePrefixTrie.insert(typeNamePrefix, index);
+
+            return this;
+        }
+
+        public TypeNameIndex<T> build() {
+            Map<String, int[]> typeNameIndexes = new HashMap<>(this.typeNameIndexes.size() * 2);
+            for (Map.Entry<String, List<Integer>> entry : this.typeNameIndexes.entrySet())
+                typeNameIndexes.put(entry.getKey(), toArray(entry.getValue()));
+
+            return new TypeNameIndex<>(
+                    Collections.unmodifiableList(new ArrayList<>(elements)),
+                    typeNameIndexes,
+                    typeNamePrefixTrie,
+                    toArray(residualIndexes), 
+                    includeSubtypes );
+        }
+
+        private static int[] toArray(Collection<Integer> indexes) {
+            return indexes.isEmpty() ? NO_INDEXES : indexes.stream().mapToInt(Integer::intValue).toArray();
+        }
+    }
+
+
+    /**
+     * Character trie node with sorted child keys.
+     */
+    private static class Node {
+
+        private static final char[] NO_KEYS = new char[0];
+        private static final Node[] NO_CHILDREN = new Node[0];
+
+        private char[] keys = NO_KEYS;
+        private Node[] children = NO_CHILDREN;
+
+        private int[] indexes = NO_INDEXES;
+
+
+        private void insert(String prefix, int index) {
+            Node node = this;
+            for (int pos = 0; pos < prefix.length(); pos++)
+                node = node.getOrCreateChild(prefix.charAt(pos));
+
+            if (node.indexes.length == 0 || node.indexes[node.indexes.length - 1] != index) {
+                node.indexes = Arrays.copyOf(node.indexes, node.indexes.length + 1);
+                node.indexes[node.indexes.length - 1] = index;
+            }
+        }
+
+        private Node getOrCreateChild(char key) {
+            int pos = Arrays.binarySearch(keys, key);
+            if (pos >= 0)
+                return children[pos];
+
+            pos = -(pos + 1);
+            Node child = new Node();
+
+            char[] keys = new char[this.keys.length + 1];
+            System.arraycopy(this.keys, 0, keys, 0, pos);
+            System.arraycopy(this.keys, pos, keys, pos + 1, this.keys.length - pos);
+            keys[pos] = key;
+
+            Node[] children = new Node[this.children.length + 1];
+            System.arraycopy(this.children, 0, children, 0, pos);
+            System.arraycopy(this.children, pos, children, pos + 1, this.children.length - pos);
+            children[pos] = child;
+
+            this.keys = keys;
+            this.children = children;
+            return child;
+        }
+
+        /**
+         * Collect indexes of all prefixes of given name starting from given position.
+         */
+        private void collect(String name, int start, BitSet matchedIndexes) {
+            Node node = this;
+            for (int pos = start; ; pos++) {
+                for (int index : node.indexes)
+                    matchedIndexes.set(index);
+
+                if (pos >= name.length())
+                    return;
+
+                int keyPos = Arrays.binarySearch(node.keys, name.charAt(pos));
+                if (keyPos < 0)
+                    return;
+                node = node.children[keyPos];
+            }
+        }
+    }
+}
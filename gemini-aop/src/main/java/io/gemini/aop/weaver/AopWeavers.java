@@ -32,6 +32,7 @@ import io.gemini.aop.weaver.support.DefaultRedefinitionListener;
 import io.gemini.aop.weaver.support.DefaultTransformationListener;
 import io.gemini.aop.weaver.support.DefaultTransformerInstallationListener;
 import io.gemini.aop.weaver.support.DiscoveryStrategyAdapter;
+import io.gemini.aop.weaver.support.ParallelMatchingDiscoveryStrategy;
 import io.gemini.core.util.Assert;
 import net.bytebuddy.ByteBuddy;
 import net.bytebuddy.agent.builder.AgentBuilder;
@@ -40,6 +41,7 @@ import net.bytebuddy.agent.builder.AgentBuilder.FallbackStrategy;
 import net.bytebuddy.agent.builder.AgentBuilder.InitializationStrategy;
 import net.bytebuddy.agent.builder.AgentBuilder.InjectionStrategy;
 import net.bytebuddy.agent.builder.AgentBuilder.RedefinitionStrategy;
+import net.bytebuddy.agent.builder.AgentBuilder.TransformerDecorator;
 import net.bytebuddy.agent.builder.AgentBuilder.TypeStrategy;
 import net.bytebuddy.dynamic.scaffold.MethodGraph;
 import net.bytebuddy.matcher.BooleanMatcher;
@@ -89,6 +91,7 @@ public class AopWeavers {
 
         // 2.initialize BootstrapAdvice.Bridger
         BootstrapAdvice.Bridger.setFactory(aopWeaver);
+        aopContext.getAopSwitch().addAopEnabledListener(BootstrapAdvice.Bridger::setAopEnabled);
         if (aopContext.getDiagnosticLevel().isSimpleEnabled() && LOGGER.isInfoEnabled()) 
             LOGGER.info("$Initialized BootstrapAdvice.Bridger with '{}' loaded by classLoader '{}'.", 
                     aopWeaver, AopWeavers.class.getClassLoader());
@@ -138,7 +141,9 @@ public class AopWeavers {
             // support lambda, for debug only
 //              .with( AgentBuilder.LambdaInstrumentationStrategy.ENABLED )
             .with( aopContext.getTypePoolFactory().getDescriptionStrategy() )
-            .with( ClassFileBufferStrategy.Default.RETAINING )
+            .with( weaverContext.isPersistMatchingDecisions() 
+                    ? new MatchingDecisionCache.HashingClassFileBufferStrategy(ClassFileBufferStrategy.Default.RETAINING) 
+                    : ClassFileBufferStrategy.Default.RETAINING )
             .with( aopContext.getTypePoolFactory().getPoolStrategy() )
             .with( aopContext.getTypePoolFactory().getLocationStrategy() )
             .with( InitializationStrategy.NoOp.INSTANCE )
@@ -146,9 +151,18 @@ public class AopWeavers {
             .with( RedefinitionStrategy.DISABLED != weaverContext.getRedefinitionStrategy()
                     ? weaverContext.getRedefinitionStrategy() 
                     : RedefinitionStrategy.RETRANSFORMATION )
-            .with( RedefinitionStrategy.BatchAllocator.ForFixedSize.ofSize(20) )
+            .with( RedefinitionStrategy.BatchAllocator.ForFixedSize.ofSize(weaverContext.getRedefinitionBatchSize()) )
             .with( new DiscoveryStrategyAdapter(
-                    RedefinitionStrategy.DiscoveryStrategy.Reiterating.INSTANCE, 
+                    // match loaded types in parallel, and only redefine matched types
+                    new ParallelMatchingDiscoveryStrategy(
+                            RedefinitionStrategy.DiscoveryStrategy.Reiterating.INSTANCE, 
+                            aopWeaver, 
+                            aopContext.getTypePoolFactory().getPoolStrategy(), 
+                            aopContext.getTypePoolFactory().getLocationStrategy(), 
+                            aopContext.getTypePoolFactory().getDescriptionStrategy(), 
+                            weaverContext.isMatchJoinpoint() ? weaverContext.getRedefinitionThreads() : 1, 
+                            aopContext.getDiagnosticLevel(), 
+                            bootstraperMetrics), 
                     discoveryStrategyListern,
                     RedefinitionStrategy.DISABLED == weaverContext.getRedefinitionStrategy() ) ) 
             .with( new DefaultRedefinitionListener(aopContext.getDiagnosticLevel(), aopContext.getAopMetrics()) )
@@ -158,6 +172,8 @@ public class AopWeavers {
             .with( new DefaultTransformerInstallationListener() )
             .with( new DefaultTransformationListener(aopContext) )
             .disableClassFormatChanges()
+            .with( aopWeaver instanceof DefaultAopWeaver 
+                    ? ((DefaultAopWeaver) aopWeaver).getTransformerDecorator() : TransformerDecorator.NoOp.INSTANCE )
             .type( aopWeaver )
             .transform( aopWeaver )
             .installOn( instrumentation )
@@ -24,9 +24,13 @@ import java.lang.invoke.MethodHandles;
 import java.lang.invoke.MethodHandles.Lookup;
 import java.lang.invoke.MethodType;
 import java.security.ProtectionDomain;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -42,12 +46,18 @@ import io.gemini.aop.java.lang.BootstrapClassConsumer;
 import io.gemini.aop.weaver.Joinpoints.Descriptor;
 import io.gemini.aop.weaver.WeaverCache.TypeCache;
 import io.gemini.aop.weaver.advice.DescriptorOffset;
+import io.gemini.aop.weaver.advice.DispatcherOffset;
+import io.gemini.core.classloader.ClassLoaderRegistry;
 import io.gemini.core.classloader.ThreadContext;
+import io.gemini.core.concurrent.ConcurrentReferenceHashMap;
+import io.gemini.core.concurrent.DaemonThreadFactory;
+import io.gemini.core.util.ClassLoaderUtils;
 import io.gemini.core.util.CollectionUtils;
 import io.gemini.core.util.MethodUtils;
 import io.gemini.core.util.StringUtils;
 import io.gemini.core.util.Throwables;
 import net.bytebuddy.ClassFileVersion;
+import net.bytebuddy.agent.builder.AgentBuilder.TransformerDecorator;
 import net.bytebuddy.asm.Advice.WithCustomMapping;
 import net.bytebuddy.description.method.MethodDescription;
 import net.bytebuddy.description.type.TypeDescription;
@@ -63,16 +73,63 @@ import net.bytebuddy.utility.JavaModule;
  * @since	 1.0
  */
 @BootstrapClassConsumer
-class DefaultAopWeaver implements AopWeaver, BootstrapAdvice.Factory {
+class DefaultAopWeaver implements AopWeaver, BootstrapAdvice.Factory, ClassLoaderRegistry.ReclaimListener {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(DefaultAopWeaver.class);
 
+    private static final MethodHandle NULL_DISPATCHER = MethodHandles.constant(Dispatcher.class, null);
+
+    private static final MethodHandle CREATE_DISPATCHER_METHOD;
+
+    private static final MethodHandle MUTABLE_DISPATCHER_CONSTRUCTOR;
+    private static final MethodHandle PROCEEDING_DISPATCHER_CONSTRUCTOR;
+
+    private static final MethodType DISPATCHER_TYPE = MethodType.methodType(Dispatcher.class, Object.class, Object[].class);
+
+    static {
+        MethodHandle createDispatcherMethod = null;
+        try {
+            createDispatcherMethod = MethodHandles.lookup().findVirtual(
+                    DefaultAopWeaver.class, "createDispatcher",
+                    MethodType.methodType(Dispatcher.class, Descriptor.class, Object.class, Object[].class) );
+        } catch (Exception e) {
+            LOGGER.error("Could not fetch DefaultAopWeaver#createDispatcher() method.", e);
+        }
+        CREATE_DISPATCHER_METHOD = createDispatcherMethod;
+
+        MethodType constructorType = MethodType.methodType(void.class, 
+                Descriptor.class, Joinpoints.AdviceChain.class, Object.class, Object[].class, AopContext.class);
+
+        MethodHandle mutableDispatcherConstructor = null;
+        try {
+            mutableDispatcherConstructor = MethodHandles.lookup().findConstructor(
+                    Joinpoints.MutableJoinpointDispatcher.class, constructorType);
+        } catch (Exception e) {
+            LOGGER.error("Could not fetch Joinpoints.MutableJoinpointDispatcher constructor.", e);
+        }
+        MUTABLE_DISPATCHER_CONSTRUCTOR = mutableDispatcherConstructor;
+
+        MethodHandle proceedingDispatcherConstructor = null;
+        try {
+            proceedingDispatcherConstructor = MethodHandles.lookup().findConstructor(
+                    Joinpoints.ProceedingJoinpointDispatcher.class, constructorType);
+        } catch (Exception e) {
+            LOGGER.error("Could not fetch Joinpoints.ProceedingJoinpointDispatcher constructor.", e);
+        }
+        PROCEEDING_DISPATCHER_CONSTRUCTOR = proceedingDispatcherConstructor;
+    }
+
 
     private final AopContext aopContext;
     private final AdvisorFactory advisorFactory;
     private final WeaverContext weaverContext;
 
     private WeaverCache weaverCache;
+    private MatchingDecisionCache matchingDecisionCache;
+    private TransformedClassCache transformedClassCache;
+
+    private ExecutorService advisorPreparationExecutor;
+    private ConcurrentReferenceHashMap<ClassLoader, Boolean> preparedClassLoaders;
 
 
     public DefaultAopWeaver(AopContext aopContext, AdvisorFactory advisorFactory, WeaverContext weaverContext) {
@@ -96,6 +153,9 @@ class DefaultAopWeaver implements AopWeaver, BootstrapAdvice.Factory {
 
         this.initialize(weaverContext);
 
+        // tear down per-ClassLoader state once ClassLoader is reclaimed
+        aopContext.getClassLoaderRegistry().addReclaimListener(this);
+
 
         if (aopContext.getDiagnosticLevel().isSimpleEnabled() && LOGGER.isInfoEnabled())
             LOGGER.info("$Took '{}' seconds to create AopWeaver.", (System.nanoTime() - startedAt) / 1e9);
@@ -104,6 +164,39 @@ class DefaultAopWeaver implements AopWeaver, BootstrapAdvice.Factory {
     private void initialize(WeaverContext weaverContext) {
         // 1.initialize properties
         this.weaverCache = new WeaverCache(weaverContext);
+
+        // 2.load persistent matching decisions
+        if (weaverContext.isPersistMatchingDecisions())
+            this.matchingDecisionCache = new MatchingDecisionCache(aopContext, advisorFactory, weaverContext.getMatchingDecisionPath());
+
+        // 3.load persistent transformed class files
+        if (weaverContext.isPersistTransformedClasses())
+            this.transformedClassCache = new TransformedClassCache(aopContext, advisorFactory, weaverContext, 
+                    this, weaverCache, weaverContext.getTransformedClassPath());
+
+        // 4.initialize background advisor preparation
+        if (weaverContext.isPrepareAdvisorsInBackground()) {
+            this.advisorPreparationExecutor = Executors.newFixedThreadPool(
+                    Math.max(1, Runtime.getRuntime().availableProcessors() / 2), 
+                    new DaemonThreadFactory("AdvisorPreparation") );
+            this.preparedClassLoaders = new ConcurrentReferenceHashMap<>();
+        }
+    }
+
+
+    /**
+     * Return decorator of ByteBuddy {@code ClassFileTransformer} to reuse transformed class files, 
+     * and clear class file hash after transformation if enabled.
+     */
+    TransformerDecorator getTransformerDecorator() {
+        List<TransformerDecorator> transformerDecorators = new ArrayList<>(2);
+        if (transformedClassCache != null)
+            transformerDecorators.add(transformedClassCache);
+        // outermost decorator
+        if (matchingDecisionCache != null)
+            transformerDecorators.add(matchingDecisionCache);
+
+        return new TransformerDecorator.Compound(transformerDecorators);
     }
 
 
@@ -114,6 +207,9 @@ class DefaultAopWeaver implements AopWeaver, BootstrapAdvice.Factory {
         long startedAt = System.nanoTime();
 
         String typeName = typeDescription.getTypeName();
+        // fetch class file hash before nested class loading
+        String classFileHash = matchingDecisionCache == null ? null : MatchingDecisionCache.getClassFileHash(typeName);
+
         // diagnostic log
         if (aopContext.isDiagnosticClass(typeName) && LOGGER.isInfoEnabled())
             LOGGER.info("Matching type '{}' loaded by ClassLoader '{}' in AopWeaver.", typeName, joinpointClassLoader);
@@ -126,6 +222,14 @@ class DefaultAopWeaver implements AopWeaver, BootstrapAdvice.Factory {
                 return true;
         }
 
+        // check unmatched types when retransformation or redefinition, since hash collision is possible
+        if (classBeingRedefined != null && weaverCache.isUnmatchedType(joinpointClassLoader, typeName) == true) {
+            if (aopContext.isDiagnosticClass(typeName) && LOGGER.isInfoEnabled())
+                LOGGER.info("Did not match type '{}' loaded by ClassLoader '{}' in AopWeaver per cached unmatched types.", typeName, joinpointClassLoader);
+
+            return false;
+        }
+
         WeaverMetrics weaverMetrics = null;
         ClassLoader existingClassLoader = ThreadContext.getContextClassLoader();
         try {
@@ -137,11 +241,18 @@ class DefaultAopWeaver implements AopWeaver, BootstrapAdvice.Factory {
                 if (weaverContext.acceptClassLoader(joinpointClassLoader) == false)
                     return false;
 
+                aopContext.getClassLoaderRegistry().register(joinpointClassLoader);
                 weaverMetrics = aopContext.getAopMetrics().createWeaverMetrics(joinpointClassLoader, javaModule);
 
+                // prepare advisors for new ClassLoader in background
+                if (advisorPreparationExecutor != null)
+                    this.prepareAdvisors(joinpointClassLoader, javaModule);
+
                 // filter type by typeMatcher
-                if (weaverContext.acceptType(typeName) == false)
+                if (weaverContext.acceptType(typeName) == false) {
+                    weaverCache.putUnmatchedType(joinpointClassLoader, typeName);
                     return false;
+                }
             } finally {
                 if (weaverMetrics != null) {
                     weaverMetrics.incrTypeAcceptingCount();
@@ -150,14 +261,35 @@ class DefaultAopWeaver implements AopWeaver, BootstrapAdvice.Factory {
             }
 
 
-            // 2.get or create/cache advisors
-            Map<? extends MethodDescription, List<? extends Advisor>> methodDescriptionAdvisors = 
-                    this.advisorFactory.getAdvisors(typeDescription, joinpointClassLoader, javaModule);
+            // 2.get advisors matched previously, or get or create/cache advisors
+            Map<? extends MethodDescription, List<? extends Advisor>> methodDescriptionAdvisors = null;
+            MatchingDecisionCache.Decision decision = classFileHash == null 
+                    ? null : matchingDecisionCache.lookup(joinpointClassLoader, typeName, classFileHash);
+            if (decision != null) {
+                if (decision.isMatched() == false) {
+                    if (aopContext.isDiagnosticClass(typeName) && LOGGER.isInfoEnabled())
+                        LOGGER.info("Did not match type '{}' loaded by ClassLoader '{}' in AopWeaver per persistent decision.", typeName, joinpointClassLoader);
+
+                    weaverCache.putUnmatchedType(joinpointClassLoader, typeName);
+                    return false;
+                }
+
+                methodDescriptionAdvisors = this.advisorFactory.getAdvisors(
+                        typeDescription, joinpointClassLoader, javaModule, decision.getMatchedAdvisors());
+            }
+
+            if (methodDescriptionAdvisors == null) {
+                methodDescriptionAdvisors = this.advisorFactory.getAdvisors(typeDescription, joinpointClassLoader, javaModule);
+
+                if (classFileHash != null)
+                    matchingDecisionCache.record(joinpointClassLoader, typeName, classFileHash, methodDescriptionAdvisors);
+            }
 
             if (CollectionUtils.isEmpty(methodDescriptionAdvisors) == true) {
                 if (aopContext.isDiagnosticClass(typeName) && LOGGER.isInfoEnabled())
                     LOGGER.info("Did not match type '{}' loaded by ClassLoader '{}' in AopWeaver.", typeName, joinpointClassLoader);
 
+                weaverCache.putUnmatchedType(joinpointClassLoader, typeName);
                 return false;
             }
 
@@ -200,6 +332,32 @@ class DefaultAopWeaver implements AopWeaver, BootstrapAdvice.Factory {
     }
 
 
+    private void prepareAdvisors(ClassLoader joinpointClassLoader, JavaModule javaModule) {
+        if (preparedClassLoaders.putIfAbsent(ClassLoaderUtils.maskNull(joinpointClassLoader), Boolean.TRUE) != null)
+            return;
+
+        try {
+            advisorPreparationExecutor.execute( () -> {
+                ClassLoader existingClassLoader = ThreadContext.getContextClassLoader();
+                try {
+                    ThreadContext.setContextClassLoader(joinpointClassLoader);   // set joinpointClassLoader
+
+                    advisorFactory.prepareAdvisors(joinpointClassLoader, javaModule);
+                } catch (Throwable t) {
+                    if (LOGGER.isWarnEnabled())
+                        LOGGER.warn("Could not prepare advisors for ClassLoader '{}' in background.", joinpointClassLoader, t);
+
+                    Throwables.throwIfRequired(t);
+                } finally {
+                    ThreadContext.setContextClassLoader(existingClassLoader);
+                }
+            } );
+        } catch (RejectedExecutionException e) {
+            // AopWeaver was closed
+        }
+    }
+
+
     @Override
     public Builder<?> transform(Builder<?> builder, TypeDescription typeDescription, ClassLoader joinpointClassLoader,
             JavaModule javaModule, ProtectionDomain protectionDomain) {
@@ -226,7 +384,7 @@ class DefaultAopWeaver implements AopWeaver, BootstrapAdvice.Factory {
 
 
             // 2.transform type
-            for (Entry<String, MethodDescription> entry : typeCache.getMethodSignatureMap().entrySet()) {
+            for (Entry<String, MethodDescription> entry : typeCache.getMethodSignatureMap(typeDescription).entrySet()) {
                 builder = this.transformMatchedMethods(builder, typeDescription, entry.getKey(), entry.getValue());
             }
 
@@ -234,6 +392,9 @@ class DefaultAopWeaver implements AopWeaver, BootstrapAdvice.Factory {
                 LOGGER.error("Reweaved type '{}' loaded by ClassLoader '{}' since it was already transformed!\n", typeName, joinpointClassLoader);
             }
 
+            // 3.release type descriptions retained by matching result
+            weaverCache.compactTypeCache(typeCache);
+
             // log transformation in DefaultTransformationListener
 
             return builder;
@@ -248,12 +409,18 @@ class DefaultAopWeaver implements AopWeaver, BootstrapAdvice.Factory {
 
     private Builder<?> transformMatchedMethods(Builder<?> builder, TypeDescription typeDescription, 
             String methodSignature, MethodDescription methodDescription) {
+        boolean supportInvokeDynamic = ClassFileVersion.JAVA_V7.isGreaterThan(typeDescription.getClassFileVersion()) == false;
         WithCustomMapping withCustomMapping = net.bytebuddy.asm.Advice.withCustomMapping()
                 .bind(
-                        ClassFileVersion.JAVA_V7.isGreaterThan(typeDescription.getClassFileVersion())
+                        supportInvokeDynamic == false
                             ? new DescriptorOffset.ForRegularInvocation(methodSignature, methodDescription) 
                             : new DescriptorOffset.ForDynamicInvocation(methodSignature, methodDescription)
                 )
+                .bind(
+                        supportInvokeDynamic == false || this.weaverContext.isIndyDispatch() == false
+                            ? new DispatcherOffset.ForRegularInvocation(methodSignature, methodDescription) 
+                            : new DispatcherOffset.ForDynamicInvocation(methodSignature, methodDescription)
+                )
                 ;
 
         if (methodDescription.isStatic()) {
@@ -315,14 +482,105 @@ class DefaultAopWeaver implements AopWeaver, BootstrapAdvice.Factory {
      */
     @Override
     public <T, E extends Throwable> Dispatcher<T, E> dispacther(Object descriptor, Object thisObject, Object[] arguments) {
-        return descriptor == null 
-                ? null
-                : new Joinpoints.MutableJoinpointDispatcher<>( (Descriptor) descriptor, thisObject, arguments, aopContext );
+        if (descriptor == null)
+            return null;
+
+        Descriptor joinpointDescriptor = (Descriptor) descriptor;
+
+        // dispatch advices of proceeding joinpoint if re-entered from ProceedingJoinpoint.proceed()
+        return joinpointDescriptor.isReentered()
+                ? joinpointDescriptor.reenterDispatcher()
+                : this.createDispatcher( joinpointDescriptor, thisObject, arguments );
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T, E extends Throwable> Dispatcher<T, E> createDispatcher(Descriptor descriptor, Object thisObject, Object[] arguments) {
+        // select advices by runtime residue tests, and skip dispatcher if none is selected
+        Joinpoints.AdviceChain adviceChain = descriptor.selectAdviceChain(thisObject, arguments);
+
+        if (descriptor.hasAroundAdvice(adviceChain))
+            return (Dispatcher<T, E>) (Dispatcher<?, ?>) new Joinpoints.ProceedingJoinpointDispatcher<T>( descriptor, adviceChain, thisObject, arguments, aopContext );
+
+        return adviceChain.hasBeforeAfterAdvice() 
+                ? new Joinpoints.MutableJoinpointDispatcher<>( descriptor, adviceChain, thisObject, arguments, aopContext )
+                : null;
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public CallSite createDispatcherCallSite(Lookup lookup, String bsmMethodName, MethodType bsmMethodType, Object... arguments) {
+        String methodSignature = (String) arguments[0];
+        Joinpoints.Descriptor descriptor = weaverCache.getJoinpointDescriptor(lookup, methodSignature);
+
+        if (descriptor == null || CREATE_DISPATCHER_METHOD == null)
+            return new ConstantCallSite( 
+                    MethodHandles.dropArguments(NULL_DISPATCHER, 0, bsmMethodType.parameterList()).asType(bsmMethodType) );
+
+        return descriptor.getDispatcherCallSite(bsmMethodType, this::linkDispatcher);
     }
 
+    /**
+     * Link dispatcher factory of current advice chain of given joinpoint.
+     * 
+     * <p>Advice chain without runtime residue tests or sampling is bound into constructor 
+     * of the concrete dispatcher, and advice chain with them is selected per invocation 
+     * via {@link #createDispatcher(Descriptor, Object, Object[])}.
+     * 
+     * @param descriptor
+     * @return method handle of type {@code (Object, Object[])Dispatcher}
+     */
+    private MethodHandle linkDispatcher(Descriptor descriptor) {
+        Joinpoints.AdviceChain adviceChain = descriptor.getAdviceChain();
+
+        if (adviceChain.isSelective() == false) {
+            if (descriptor.hasAroundAdvice(adviceChain)) {
+                if (PROCEEDING_DISPATCHER_CONSTRUCTOR != null)
+                    return bindDispatcherConstructor(PROCEEDING_DISPATCHER_CONSTRUCTOR, descriptor, adviceChain);
+            } else if (MUTABLE_DISPATCHER_CONSTRUCTOR != null) {
+                return adviceChain.hasBeforeAfterAdvice()
+                        ? bindDispatcherConstructor(MUTABLE_DISPATCHER_CONSTRUCTOR, descriptor, adviceChain)
+                        : MethodHandles.dropArguments(NULL_DISPATCHER, 0, DISPATCHER_TYPE.parameterList());
+            }
+        }
+
+        // bind weaver and joinpoint descriptor, and leave thisObject and arguments
+        return MethodHandles.insertArguments(CREATE_DISPATCHER_METHOD, 0, this, descriptor);
+    }
+
+    private MethodHandle bindDispatcherConstructor(MethodHandle constructor, 
+            Descriptor descriptor, Joinpoints.AdviceChain adviceChain) {
+        // bind joinpoint descriptor, advice chain and AopContext, and leave thisObject and arguments
+        MethodHandle methodHandle = MethodHandles.insertArguments(constructor, 0, descriptor, adviceChain);
+        methodHandle = MethodHandles.insertArguments(methodHandle, 2, aopContext);
+
+        return methodHandle.asType(DISPATCHER_TYPE);
+    }
+
+
+    @Override
+    public int onReclaimed(long classLoaderId, String classLoaderName) {
+        int purgedEntries = this.weaverCache.purgeStaleEntries();
+
+        if (this.preparedClassLoaders != null)
+            purgedEntries += this.preparedClassLoaders.purgeStaleEntries();
+
+        return purgedEntries;
+    }
 
     @Override
     public void close() throws IOException {
+        if (this.advisorPreparationExecutor != null)
+            this.advisorPreparationExecutor.shutdownNow();
+
         this.weaverCache.close();
+
+        if (this.matchingDecisionCache != null)
+            this.matchingDecisionCache.close();
+
+        if (this.transformedClassCache != null)
+            this.transformedClassCache.close();
     }
 }
\ No newline at end of file
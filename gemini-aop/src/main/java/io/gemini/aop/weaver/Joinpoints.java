@@ -15,30 +15,39 @@
  */
 package io.gemini.aop.weaver;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
 import java.lang.invoke.MethodHandles.Lookup;
+import java.lang.invoke.MethodType;
+import java.lang.invoke.MutableCallSite;
+import java.lang.invoke.SwitchPoint;
 import java.lang.reflect.AccessibleObject;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
 import java.util.ArrayList;
-import java.util.Collections;
-import java.util.Iterator;
-import java.util.LinkedHashMap;
+import java.util.Arrays;
 import java.util.List;
-import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Function;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import io.gemini.aop.Advisor;
 import io.gemini.aop.AopContext;
+import io.gemini.aop.AopSwitch;
 import io.gemini.aop.java.lang.BootstrapAdvice;
 import io.gemini.aop.java.lang.BootstrapClassConsumer;
+import io.gemini.api.annotation.NoClassLoading;
 import io.gemini.api.aop.Advice;
 import io.gemini.api.aop.Advice.After;
 import io.gemini.api.aop.Advice.Around;
 import io.gemini.api.aop.Advice.Before;
 import io.gemini.api.aop.Joinpoint;
+import io.gemini.api.aop.Joinpoint.ContextKey;
 import io.gemini.api.aop.Joinpoint.MutableJoinpoint;
 import io.gemini.api.aop.Joinpoint.ProceedingJoinpoint;
 import io.gemini.core.classloader.ThreadContext;
@@ -51,8 +60,33 @@ import net.bytebuddy.description.method.MethodDescription;
 
 interface Joinpoints {
 
+    @BootstrapClassConsumer
     class Descriptor {
 
+        private static final MethodHandle RELINK_DISPATCHER_METHOD;
+
+        private static final MethodHandle IS_REENTERED_METHOD;
+        private static final MethodHandle REENTER_DISPATCHER_METHOD;
+
+        static {
+            try {
+                RELINK_DISPATCHER_METHOD = MethodHandles.lookup().findStatic(Descriptor.class, "relinkDispatcher", 
+                        MethodType.methodType(Object.class, Descriptor.class, Object.class, Object[].class));
+            } catch (Exception e) {
+                throw new IllegalStateException("Could not find Descriptor.relinkDispatcher method.", e);
+            }
+
+            try {
+                IS_REENTERED_METHOD = MethodHandles.lookup().findVirtual(Descriptor.class, "isReentered", 
+                        MethodType.methodType(boolean.class));
+                REENTER_DISPATCHER_METHOD = MethodHandles.lookup().findVirtual(Descriptor.class, "reenterDispatcher", 
+                        MethodType.methodType(BootstrapAdvice.Dispatcher.class));
+            } catch (Exception e) {
+                throw new IllegalStateException("Could not find Descriptor.reenterDispatcher method.", e);
+            }
+        }
+
+
         private final Lookup thisLookup;
 
         private final String accessibleName;
@@ -65,12 +99,31 @@ interface Joinpoints {
 
         private final boolean isVoidReturning;
 
+        private final ClassLoader joinpointClassLoader;
+        private final boolean diagnosticClass;
+
+        private final AopSwitch aopSwitch;
+
         // refresh at runtime
-        private List<? extends Advisor> advisorChain;
+        private volatile List<? extends Advisor> advisorChain;
+        private volatile AdviceChain adviceChain;
+
+        // invalidated once AopSwitch is changed, and then advice chain is re-compiled
+        private volatile SwitchPoint switchPoint;
+
+        // original method invoker for around advices, created lazily
+        private volatile MethodHandle originalMethodInvoker;
+
+        // number of ProceedingJoinpoints re-entering original method, checked before thread local hand-over
+        private final AtomicInteger proceedingCount = new AtomicInteger();
+
+        // per joinpoint dispatcher CallSite, relinked when advisorChain changes
+        private MutableCallSite dispatcherCallSite;
+        private Function<Descriptor, MethodHandle> dispatcherLinker;
 
 
         public Descriptor(Lookup thisLookup, String accessibleName, AccessibleObject accessibleObject, 
-                List<? extends Advisor> advisorChain) {
+                List<? extends Advisor> advisorChain, boolean diagnosticClass, AopSwitch aopSwitch) {
             this.thisLookup = thisLookup;
 
             this.accessibleName = accessibleName;
@@ -98,7 +151,15 @@ interface Joinpoints {
                 }
             }
 
+            this.joinpointClassLoader = thisLookup.lookupClass().getClassLoader();
+            this.diagnosticClass = diagnosticClass;
+
+            Assert.notNull(aopSwitch, "'aopSwitch' must not be null.");
+            this.aopSwitch = aopSwitch;
+
             this.advisorChain = advisorChain;
+            this.switchPoint = aopSwitch.getSwitchPoint();
+            this.adviceChain = AdviceChain.compile(advisorChain, aopSwitch);
         }
 
 
@@ -142,9 +203,604 @@ interface Joinpoints {
             return isVoidReturning;
         }
 
+        public ClassLoader getJoinpointClassLoader() {
+            return joinpointClassLoader;
+        }
+
+        public boolean isDiagnosticClass() {
+            return diagnosticClass;
+        }
+
         public List<? extends Advisor> getAdvisorChain() {
             return advisorChain;
         }
+
+        AdviceChain getAdviceChain() {
+            return adviceChain;
+        }
+
+        /**
+         * Return compiled advices of this joinpoint selected by runtime residue tests. 
+         * 
+         * <p>Compiled advices are shared by all invocations, except that per-instance
+         * advices are instantiated and compiled per invocation via {@link AdviceChain#instantiate()}.
+         * 
+         * @param thisObject
+         * @param arguments
+         * @return
+         */
+        public AdviceChain selectAdviceChain(Object thisObject, Object[] arguments) {
+            AdviceChain adviceChain = this.switchPoint.hasBeenInvalidated() 
+                    ? this.refreshAdviceChain() : this.adviceChain;
+            return adviceChain.select(thisObject, arguments);
+        }
+
+        /**
+         * Re-compile advice chain with current AopSwitch, and relink dispatcher CallSite if created.
+         * 
+         * @return
+         */
+        private AdviceChain refreshAdviceChain() {
+            synchronized (this) {
+                if (this.switchPoint.hasBeenInvalidated() == false)
+                    return this.adviceChain;
+            }
+
+            this.setAdvisorChain(this.advisorChain);
+            return this.adviceChain;
+        }
+
+        /**
+         * Around advices are only applied to methods, since constructor and type initializer
+         * could not be re-entered.
+         * 
+         * @param adviceChain
+         * @return
+         */
+        public boolean hasAroundAdvice(AdviceChain adviceChain) {
+            return isTypeInitializer == false && isConstructor == false 
+                    && adviceChain.hasAroundAdvice();
+        }
+
+        /**
+         * Invoke original method body via method handle, without virtual dispatching to 
+         * overriding method in sub classes.
+         * 
+         * <p>Given joinpoint is handed over to re-entered woven method on current thread, 
+         * which dispatches its before and after advices directly, without selecting advice 
+         * chain and applying around advices again.
+         * 
+         * @param joinpoint
+         * @return
+         * @throws Throwable
+         */
+        Object invokeOriginalMethod(DefaultProceedingJoinpoint<?> joinpoint) throws Throwable {
+            MethodHandle invoker = this.originalMethodInvoker;
+            if (invoker == null)
+                this.originalMethodInvoker = invoker = this.createOriginalMethodInvoker();
+
+            proceedingCount.incrementAndGet();
+            DefaultProceedingJoinpoint.PROCEEDING_JOINPOINT.set(joinpoint);
+            try {
+                return (Object) invoker.invokeExact(joinpoint.getThisObject(), joinpoint.arguments);
+            } finally {
+                DefaultProceedingJoinpoint.PROCEEDING_JOINPOINT.remove();
+                proceedingCount.decrementAndGet();
+            }
+        }
+
+        /**
+         * Check whether woven method is re-entered from {@link DefaultProceedingJoinpoint#proceed()}
+         * on current thread.
+         * 
+         * @return
+         */
+        boolean isReentered() {
+            if (proceedingCount.get() == 0)
+                return false;
+
+            DefaultProceedingJoinpoint<?> joinpoint = DefaultProceedingJoinpoint.PROCEEDING_JOINPOINT.get();
+            return joinpoint != null && joinpoint.descriptor == this;
+        }
+
+        /**
+         * Take over proceeding joinpoint handed over to re-entered woven method, and create 
+         * dispatcher of its before and after advices.
+         * 
+         * @return
+         */
+        @SuppressWarnings("unchecked")
+        <T, E extends Throwable> BootstrapAdvice.Dispatcher<T, E> reenterDispatcher() {
+            DefaultProceedingJoinpoint<T> joinpoint = (DefaultProceedingJoinpoint<T>) DefaultProceedingJoinpoint.PROCEEDING_JOINPOINT.get();
+            DefaultProceedingJoinpoint.PROCEEDING_JOINPOINT.remove();
+
+            return joinpoint.createReenteringDispatcher();
+        }
+
+        private MethodHandle createOriginalMethodInvoker() throws IllegalAccessException {
+            Method method = this.getMethod();
+            MethodHandle methodHandle = this.isStatic
+                    ? MethodHandles.dropArguments(thisLookup.unreflect(method), 0, Object.class)
+                    : thisLookup.unreflectSpecial(method, this.getThisClass());
+
+            return methodHandle
+                    .asFixedArity()
+                    .asSpreader(Object[].class, method.getParameterCount())
+                    .asType( MethodType.methodType(Object.class, Object.class, Object[].class) );
+        }
+
+        /**
+         * Refresh advisor chain, and relink dispatcher CallSite if created.
+         * 
+         * @param advisorChain
+         */
+        public void setAdvisorChain(List<? extends Advisor> advisorChain) {
+            ClassLoader existingClassLoader = ThreadContext.getContextClassLoader();
+            try {
+                ThreadContext.setContextClassLoader(joinpointClassLoader);  // set joinpointClassLoader
+
+                SwitchPoint switchPoint = aopSwitch.getSwitchPoint();
+                AdviceChain adviceChain = AdviceChain.compile(advisorChain, aopSwitch);
+                synchronized (this) {
+                    this.advisorChain = advisorChain;
+                    this.switchPoint = switchPoint;
+                    this.adviceChain = adviceChain;
+
+                    this.relinkDispatcherCallSite();
+                }
+            } finally {
+                ThreadContext.setContextClassLoader(existingClassLoader);
+            }
+        }
+
+        /**
+         * Get or create dispatcher CallSite whose target is linked by given dispatcherLinker.
+         * 
+         * @param callSiteType
+         * @param dispatcherLinker
+         * @return
+         */
+        public synchronized MutableCallSite getDispatcherCallSite(MethodType callSiteType, 
+                Function<Descriptor, MethodHandle> dispatcherLinker) {
+            if (this.dispatcherCallSite == null) {
+                this.dispatcherLinker = dispatcherLinker;
+                this.dispatcherCallSite = new MutableCallSite( this.linkDispatcher(callSiteType) );
+            }
+
+            return this.dispatcherCallSite;
+        }
+
+        private void relinkDispatcherCallSite() {
+            MutableCallSite callSite = this.dispatcherCallSite;
+            if (callSite == null)
+                return;
+
+            callSite.setTarget( this.linkDispatcher(callSite.type()) );
+            MutableCallSite.syncAll( new MutableCallSite[] { callSite } );
+        }
+
+        private MethodHandle linkDispatcher(MethodType callSiteType) {
+            // collect and box typed arguments passed by CallSite into Object array in method handle chain
+            MethodHandle dispatcher = dispatcherLinker.apply(this);
+            MethodHandle target = this.adviceChain.isEmpty()
+                    ? MethodHandles.dropArguments(
+                            MethodHandles.constant(dispatcher.type().returnType(), null), 0, callSiteType.parameterList())
+                    : dispatcher.asCollector(Object[].class, callSiteType.parameterCount() - 1);
+
+            // re-check AopSwitch and relink CallSite once switches are changed
+            MethodHandle fallback = MethodHandles.insertArguments(RELINK_DISPATCHER_METHOD, 0, this)
+                    .asType(dispatcher.type())
+                    .asCollector(Object[].class, callSiteType.parameterCount() - 1);
+
+            MethodHandle guardedTarget = this.switchPoint.guardWithTest(
+                    target.asType(callSiteType), 
+                    fallback.asType(callSiteType) );
+            if (this.isTypeInitializer || this.isConstructor)
+                return guardedTarget;
+
+            // check re-entering from ProceedingJoinpoint.proceed() before boxing arguments and selecting advices
+            return MethodHandles.guardWithTest(
+                    MethodHandles.dropArguments(IS_REENTERED_METHOD.bindTo(this), 0, callSiteType.parameterList()), 
+                    MethodHandles.dropArguments(REENTER_DISPATCHER_METHOD.bindTo(this), 0, callSiteType.parameterList())
+                            .asType(callSiteType), 
+                    guardedTarget );
+        }
+
+        private static Object relinkDispatcher(Descriptor descriptor, Object thisObject, Object[] arguments) throws Throwable {
+            descriptor.refreshAdviceChain();
+
+            return descriptor.dispatcherLinker.apply(descriptor).invoke(thisObject, arguments);
+        }
+    }
+
+
+    /**
+     * Immutable before, after and around advices classified from advisor chain.
+     * 
+     * <p>Advices of {@link Advisor.GuardedAdvisor} are selected per invocation by evaluating
+     * runtime residue tests, and chains of selected advices are cached by test results.
+     * 
+     * <p>Advices of advisors with sampling rate below 1.0 are selected in the same way, by 
+     * sampling thread local pseudo random numbers from {@link ThreadLocalRandom}.
+     */
+    class AdviceChain {
+
+        private static final Advisor[] NO_ADVISORS = new Advisor[0];
+        private static final Advice[] NO_ADVICES = new Advice[0];
+        private static final int[] NO_GUARDED_INDEXES = new int[0];
+        private static final int[] NO_SAMPLING_THRESHOLDS = new int[0];
+
+        private static final int ALWAYS_SAMPLED = -1;
+
+        private static final int[] NO_PER_INSTANCE_INDEXES = new int[0];
+
+        // kinds of advice class, which might implement multiple advice interfaces
+        private static final byte BEFORE_ADVICE = 1;
+        private static final byte AFTER_ADVICE = 2;
+        private static final byte AROUND_ADVICE = 4;
+
+        private static final Advice.Before<?, ?>[] NO_BEFORE_ADVICES = new Advice.Before<?, ?>[0];
+        private static final Advice.After<?, ?>[] NO_AFTER_ADVICES = new Advice.After<?, ?>[0];
+        private static final Advice.Around<?, ?>[] NO_AROUND_ADVICES = new Advice.Around<?, ?>[0];
+
+        private static final AdviceChain EMPTY = new AdviceChain(NO_ADVISORS, NO_ADVICES, NO_GUARDED_INDEXES, NO_SAMPLING_THRESHOLDS, false);
+
+        // cache selected chains if guarded advisors are no more than 6
+        private static final int MAX_CACHED_GUARDED_ADVISORS = 6;
+        // select with bit mask of passed tests if guarded advisors are no more than 64
+        private static final int MAX_MASKED_GUARDED_ADVISORS = Long.SIZE;
+
+
+        private final Advisor[] advisors;
+        private final Advice[] advices;
+
+        private final Advice.Before<?, ?>[] beforeAdvices;
+        private final Advice.After<?, ?>[] afterAdvices;
+        private final Advice.Around<?, ?>[] aroundAdvices;
+
+        private final boolean perInstanceAdvice;
+        private final boolean requiresContextClassLoader;
+
+        // per-instance advices have been instantiated for one invocation
+        private final boolean instantiated;
+
+        // resolved once, to instantiate per-instance advices without re-compiling chain
+        private final byte[] adviceKinds;
+        private final int[] perInstanceIndexes;
+
+        private final int[] guardedIndexes;
+        private final int[] samplingThresholds;
+        private final AtomicReferenceArray<AdviceChain> selectedChains;
+
+
+        /**
+         * Create chain with given advices, where per-instance advices are null placeholders
+         * unless chain is instantiated.
+         */
+        private AdviceChain(Advisor[] advisors, Advice[] advices, int[] guardedIndexes, int[] samplingThresholds, boolean instantiated) {
+            this.advisors = advisors;
+            this.advices = advices;
+
+            byte[] adviceKinds = new byte[advices.length];
+            int beforeCount = 0, afterCount = 0, aroundCount = 0;
+            int[] perInstanceIndexes = new int[advices.length];
+            int perInstanceCount = 0;
+            boolean requiresContextClassLoader = false;
+            for (int index = 0; index < advices.length; index++) {
+                Advisor advisor = advisors[index];
+                Class<? extends Advice> adviceClass = advisor.getAdviceClass();
+
+                if (advisor.isPerInstance())
+                    perInstanceIndexes[perInstanceCount++] = index;
+                requiresContextClassLoader = requiresContextClassLoader 
+                        || (advisor.isPerInstance() || adviceClass.isAnnotationPresent(NoClassLoading.class) == false);
+
+                byte adviceKind = 0;
+                if (Advice.Before.class.isAssignableFrom(adviceClass)) {
+                    adviceKind |= BEFORE_ADVICE;
+                    beforeCount++;
+                }
+                if (Advice.After.class.isAssignableFrom(adviceClass)) {
+                    adviceKind |= AFTER_ADVICE;
+                    afterCount++;
+                }
+                if (Advice.Around.class.isAssignableFrom(adviceClass)) {
+                    adviceKind |= AROUND_ADVICE;
+                    aroundCount++;
+                }
+                adviceKinds[index] = adviceKind;
+            }
+
+            this.adviceKinds = adviceKinds;
+            this.perInstanceIndexes = perInstanceCount == 0 
+                    ? NO_PER_INSTANCE_INDEXES : Arrays.copyOf(perInstanceIndexes, perInstanceCount);
+
+            this.beforeAdvices = beforeCount == 0 ? NO_BEFORE_ADVICES : new Advice.Before<?, ?>[beforeCount];
+            this.afterAdvices = afterCount == 0 ? NO_AFTER_ADVICES : new Advice.After<?, ?>[afterCount];
+            this.aroundAdvices = aroundCount == 0 ? NO_AROUND_ADVICES : new Advice.Around<?, ?>[aroundCount];
+            this.distributeAdvices();
+
+            this.perInstanceAdvice = perInstanceCount > 0;
+            this.requiresContextClassLoader = requiresContextClassLoader;
+            this.instantiated = instantiated;
+
+            this.guardedIndexes = guardedIndexes;
+            this.samplingThresholds = samplingThresholds;
+            this.selectedChains = guardedIndexes.length > 0 && guardedIndexes.length <= MAX_CACHED_GUARDED_ADVISORS
+                    ? new AtomicReferenceArray<>(1 << guardedIndexes.length) : null;
+        }
+
+        /**
+         * Create instantiated chain of given compiled chain with per-instance advices.
+         */
+        private AdviceChain(AdviceChain compiledChain, Advice[] advices) {
+            this.advisors = compiledChain.advisors;
+            this.advices = advices;
+
+            this.adviceKinds = compiledChain.adviceKinds;
+            this.perInstanceIndexes = compiledChain.perInstanceIndexes;
+
+            this.beforeAdvices = compiledChain.beforeAdvices.length == 0 
+                    ? NO_BEFORE_ADVICES : new Advice.Before<?, ?>[compiledChain.beforeAdvices.length];
+            this.afterAdvices = compiledChain.afterAdvices.length == 0 
+                    ? NO_AFTER_ADVICES : new Advice.After<?, ?>[compiledChain.afterAdvices.length];
+            this.aroundAdvices = compiledChain.aroundAdvices.length == 0 
+                    ? NO_AROUND_ADVICES : new Advice.Around<?, ?>[compiledChain.aroundAdvices.length];
+            this.distributeAdvices();
+
+            this.perInstanceAdvice = true;
+            this.requiresContextClassLoader = compiledChain.requiresContextClassLoader;
+            this.instantiated = true;
+
+            this.guardedIndexes = NO_GUARDED_INDEXES;
+            this.samplingThresholds = NO_SAMPLING_THRESHOLDS;
+            this.selectedChains = null;
+        }
+
+        private void distributeAdvices() {
+            for (int index = 0, before = 0, after = 0, around = 0; index < advices.length; index++) {
+                Advice advice = advices[index];
+                byte adviceKind = adviceKinds[index];
+
+                if ((adviceKind & BEFORE_ADVICE) != 0)
+                    beforeAdvices[before++] = (Advice.Before<?, ?>) advice;
+                if ((adviceKind & AFTER_ADVICE) != 0)
+                    afterAdvices[after++] = (Advice.After<?, ?>) advice;
+                if ((adviceKind & AROUND_ADVICE) != 0)
+                    aroundAdvices[around++] = (Advice.Around<?, ?>) advice;
+            }
+        }
+
+        static AdviceChain compile(List<? extends Advisor> advisorChain) {
+            return compile(advisorChain, null, false);
+        }
+
+        static AdviceChain compile(List<? extends Advisor> advisorChain, AopSwitch aopSwitch) {
+            return compile(advisorChain, aopSwitch, false);
+        }
+
+        private static AdviceChain compile(List<? extends Advisor> advisorChain, AopSwitch aopSwitch, boolean instantiating) {
+            if (CollectionUtils.isEmpty(advisorChain))
+                return EMPTY;
+
+            if (aopSwitch != null && aopSwitch.isAopEnabled() == false)
+                return EMPTY;
+
+            List<Advisor> advisors = new ArrayList<>(advisorChain.size());
+            List<Advice> advices = new ArrayList<>(advisorChain.size());
+            List<Integer> guardedIndexes = new ArrayList<>();
+            List<Integer> samplingThresholds = new ArrayList<>();
+            for (Advisor advisor : advisorChain) {
+                // skip advisor turned off
+                if (aopSwitch != null && aopSwitch.isEnabled(advisor) == false)
+                    continue;
+
+                Class<? extends Advice> adviceClass = advisor.getAdviceClass();
+                if (adviceClass == null)
+                    continue;
+
+                if (Advice.Before.class.isAssignableFrom(adviceClass) == false
+                        && Advice.After.class.isAssignableFrom(adviceClass) == false
+                        && Advice.Around.class.isAssignableFrom(adviceClass) == false)
+                    continue;
+
+                // per-instance advices are instantiated per invocation, and left as null placeholders
+                Advice advice = null;
+                if (instantiating == true || advisor.isPerInstance() == false) {
+                    advice = advisor.getAdvice();
+                    if (advice == null)
+                        continue;
+                }
+
+                int samplingThreshold = toSamplingThreshold(advisor.getSamplingRate());
+                if (instantiating == false && (advisor instanceof Advisor.GuardedAdvisor || samplingThreshold != ALWAYS_SAMPLED)) {
+                    guardedIndexes.add(advisors.size());
+                    samplingThresholds.add(samplingThreshold);
+                }
+
+                advisors.add(advisor);
+                advices.add(advice);
+            }
+
+            if (advisors.isEmpty())
+                return EMPTY;
+
+            return new AdviceChain(
+                    advisors.toArray(NO_ADVISORS), 
+                    advices.toArray(NO_ADVICES), 
+                    guardedIndexes.stream().mapToInt(Integer::intValue).toArray(), 
+                    samplingThresholds.stream().mapToInt(Integer::intValue).toArray(), 
+                    instantiating );
+        }
+
+        private static int toSamplingThreshold(double samplingRate) {
+            if (samplingRate >= 1.0d)
+                return ALWAYS_SAMPLED;
+
+            // compared with non-negative 31 bits random number
+            return samplingRate <= 0.0d ? 0 : (int) (samplingRate * (1L << 31));
+        }
+
+
+        /**
+         * Select advices which are sampled and whose runtime residue tests pass with given target 
+         * object and arguments.
+         * 
+         * <p>No object is allocated if all or none of the guarded advisors pass, or selected
+         * chain has been cached. Chain with more than 64 guarded advisors is selected 
+         * without bit mask and cache.
+         * 
+         * @param thisObject
+         * @param arguments
+         * @return
+         */
+        public AdviceChain select(Object thisObject, Object[] arguments) {
+            int[] guardedIndexes = this.guardedIndexes;
+            if (guardedIndexes.length == 0)
+                return this;
+
+            if (guardedIndexes.length > MAX_MASKED_GUARDED_ADVISORS)
+                return this.doSelect(thisObject, arguments);
+
+            long passedMask = 0;
+            for (int index = 0; index < guardedIndexes.length; index++) {
+                if (this.isSelected(index, thisObject, arguments))
+                    passedMask |= 1L << index;
+            }
+
+            if (passedMask == -1L >>> (Long.SIZE - guardedIndexes.length))
+                return this;
+
+            AtomicReferenceArray<AdviceChain> selectedChains = this.selectedChains;
+            if (selectedChains == null)
+                return this.doSelect(passedMask);
+
+            int slot = (int) passedMask;
+            AdviceChain selectedChain = selectedChains.get(slot);
+            if (selectedChain == null) {
+                selectedChain = this.doSelect(passedMask);
+                selectedChains.lazySet(slot, selectedChain);
+            }
+            return selectedChain;
+        }
+
+        private boolean isSelected(int guarded, Object thisObject, Object[] arguments) {
+            int samplingThreshold = samplingThresholds[guarded];
+            if (samplingThreshold != ALWAYS_SAMPLED 
+                    && (ThreadLocalRandom.current().nextInt() >>> 1) >= samplingThreshold)
+                return false;
+
+            Advisor advisor = advisors[guardedIndexes[guarded]];
+            return advisor instanceof Advisor.GuardedAdvisor == false
+                    || ((Advisor.GuardedAdvisor) advisor).matches(thisObject, arguments);
+        }
+
+        private AdviceChain doSelect(long passedMask) {
+            List<Advisor> advisors = new ArrayList<>(this.advisors.length);
+            List<Advice> advices = new ArrayList<>(this.advisors.length);
+            for (int index = 0, guarded = 0; index < this.advisors.length; index++) {
+                if (guarded < guardedIndexes.length && guardedIndexes[guarded] == index) {
+                    if ((passedMask & (1L << guarded++)) == 0)
+                        continue;
+                }
+
+                advisors.add(this.advisors[index]);
+                advices.add(this.advices[index]);
+            }
+
+            return createSelectedChain(advisors, advices);
+        }
+
+        private AdviceChain doSelect(Object thisObject, Object[] arguments) {
+            List<Advisor> advisors = new ArrayList<>(this.advisors.length);
+            List<Advice> advices = new ArrayList<>(this.advisors.length);
+            for (int index = 0, guarded = 0; index < this.advisors.length; index++) {
+                if (guarded < guardedIndexes.length && guardedIndexes[guarded] == index) {
+                    if (this.isSelected(guarded++, thisObject, arguments) == false)
+                        continue;
+                }
+
+                advisors.add(this.advisors[index]);
+                advices.add(this.advices[index]);
+            }
+
+            return advisors.size() == this.advisors.length ? this : createSelectedChain(advisors, advices);
+        }
+
+        private static AdviceChain createSelectedChain(List<Advisor> advisors, List<Advice> advices) {
+            return advisors.isEmpty() 
+                    ? EMPTY 
+                    : new AdviceChain(advisors.toArray(NO_ADVISORS), advices.toArray(NO_ADVICES), NO_GUARDED_INDEXES, NO_SAMPLING_THRESHOLDS, false);
+        }
+
+        /**
+         * Return this chain, or chain with per-instance advices instantiated for one invocation.
+         * 
+         * <p>Only slots of per-instance advices are replaced in copied advices, and chain is 
+         * re-compiled only if any per-instance advice could not be instantiated.
+         * 
+         * @return
+         */
+        public AdviceChain instantiate() {
+            if (perInstanceAdvice == false || instantiated == true)
+                return this;
+
+            Advice[] advices = this.advices.clone();
+            for (int index : perInstanceIndexes) {
+                Advice advice = advisors[index].getAdvice();
+                if (advice == null)
+                    return compile(Arrays.asList(advisors), null, true);
+
+                advices[index] = advice;
+            }
+
+            return new AdviceChain(this, advices);
+        }
+
+
+        @SuppressWarnings("unchecked")
+        public <T, E extends Throwable> Advice.Before<T, E>[] getBeforeAdvices() {
+            return (Advice.Before<T, E>[]) beforeAdvices;
+        }
+
+        @SuppressWarnings("unchecked")
+        public <T, E extends Throwable> Advice.After<T, E>[] getAfterAdvices() {
+            return (Advice.After<T, E>[]) afterAdvices;
+        }
+
+        @SuppressWarnings("unchecked")
+        public <T, E extends Throwable> Advice.Around<T, E>[] getAroundAdvices() {
+            return (Advice.Around<T, E>[]) aroundAdvices;
+        }
+
+        public boolean isEmpty() {
+            return advisors.length == 0;
+        }
+
+        /**
+         * Check whether advices should be selected per invocation by runtime residue tests or sampling.
+         * 
+         * @return
+         */
+        public boolean isSelective() {
+            return guardedIndexes.length > 0;
+        }
+
+        public boolean hasBeforeAfterAdvice() {
+            return beforeAdvices.length > 0 || afterAdvices.length > 0;
+        }
+
+        public boolean hasAroundAdvice() {
+            return aroundAdvices.length > 0;
+        }
+
+        public boolean hasPerInstanceAdvice() {
+            return perInstanceAdvice;
+        }
+
+        public boolean requiresContextClassLoader() {
+            return requiresContextClassLoader;
+        }
     }
 
 
@@ -155,15 +811,23 @@ interface Joinpoints {
         protected static final Object UNDEFINED_RETURNING = new Object();
         protected static final Throwable UNDEFINED_THROWING = new Throwable();
 
+        protected static final Object[] NO_ARGUMENTS = new Object[0];
+
 
         protected Descriptor descriptor;
 
         protected Object thisObject;
         protected final boolean lazyInitializeThis;
 
+        // wrap caller's arguments, and copy on write
         protected Object[] arguments;
+        protected boolean argumentsModified;
 
-        protected final Map<String, Object> invocationContext;
+        // arguments exposed via getArguments() might be changed in place
+        private boolean argumentsExposed;
+
+        // lazily created on first use
+        protected InvocationContext invocationContext;
 
 
         AbstractBase(Descriptor descriptor, Object thisObject, Object[] arguments) {
@@ -186,15 +850,11 @@ interface Joinpoints {
                 }
             }
 
-            if (arguments == null || arguments.length == 0) {
-                this.arguments = new Object[0];
-            } else {
-                Object[] args = new Object[arguments.length];
-                System.arraycopy(arguments, 0, args, 0, arguments.length);
-                this.arguments = args;
-            }
-
-            this.invocationContext = new LinkedHashMap<>();
+            // caller's arguments array is created per invocation by woven code, 
+            // and is wrapped directly rather than copied.
+            this.arguments = arguments == null || arguments.length == 0 
+                    ? NO_ARGUMENTS : arguments;
+            this.argumentsModified = false;
         }
 
         Descriptor getDescriptor() {
@@ -238,19 +898,222 @@ interface Joinpoints {
             return (UNDEFINED_RETURNING == thisObject) ? null : this.thisObject;
         }
 
+        /**
+         * Returns arguments of this joinpoint, which might be modified by advices in place.
+         * 
+         * <p>Live arguments are exposed without copying, and then written back by woven code,
+         * which only unboxes unchanged arguments again.
+         */
         @Override
         public Object[] getArguments() {
+            if (this.arguments.length > 0)
+                this.argumentsExposed = true;
+
             return this.arguments;
         }
 
+        /**
+         * Read argument directly, without exposing arguments to be written back as {@link #getArguments()} does.
+         */
+        @Override
+        public int getIntArgument(int index) {
+            return (Integer) this.arguments[index];
+        }
+
+        @Override
+        public long getLongArgument(int index) {
+            return (Long) this.arguments[index];
+        }
+
+        @Override
+        public double getDoubleArgument(int index) {
+            return (Double) this.arguments[index];
+        }
+
+        @Override
+        public boolean getBooleanArgument(int index) {
+            return (Boolean) this.arguments[index];
+        }
+
+        @Override
+        public void setArgument(int index, Object value) {
+            Object[] arguments = this.arguments;
+            if (index < 0 || index >= arguments.length)
+                throw new IndexOutOfBoundsException("Argument index: " + index + ", arguments length: " + arguments.length);
+
+            arguments[index] = value;
+            this.argumentsModified = true;
+        }
+
+        protected void setArguments(Object[] arguments) {
+            if (arguments == null || arguments.length == 0) {
+                this.arguments = NO_ARGUMENTS;
+            } else {
+                // copy to isolate caller's array from later changes
+                Object[] args = new Object[arguments.length];
+                System.arraycopy(arguments, 0, args, 0, arguments.length);
+                this.arguments = args;
+            }
+
+            this.argumentsModified = true;
+        }
+
+        Object[] doGetArguments() {
+            return this.arguments;
+        }
+
+        boolean hasModifiedArguments() {
+            return this.argumentsModified || this.argumentsExposed;
+        }
+
+        /**
+         * Check whether given advice returning is assignable to return type of non-void method.
+         */
+        boolean isAssignableReturning(Object returning) {
+            Class<?> returnType = getDescriptor().getMethod().getReturnType();
+            return returning == null 
+                    ? returnType.isPrimitive() == false
+                    : ClassUtils.isAssignableFrom(returnType, returning.getClass());
+        }
+
+        /**
+         * Check whether given advice throwing is unchecked, or declared in signature of joinpoint.
+         */
+        boolean isDeclaredThrowing(Throwable throwing) {
+            Class<? extends Throwable> throwingType = throwing.getClass();
+            if (RuntimeException.class.isAssignableFrom(throwingType) || Error.class.isAssignableFrom(throwingType))
+                return true;
+
+            Descriptor descriptor = getDescriptor();
+            Class<?>[] exceptionTypes = descriptor.isTypeInitializer() 
+                    ? null 
+                    : descriptor.isConstructor() 
+                        ? descriptor.getConstructor().getExceptionTypes() 
+                        : descriptor.getMethod().getExceptionTypes();
+            if (exceptionTypes != null) {
+                for (Class<?> exceptionClass : exceptionTypes) {
+                    if (exceptionClass.isAssignableFrom(throwingType))
+                        return true;
+                }
+            }
+            return false;
+        }
+
         @Override
         public Object getInvocationContext(String key) {
-            return this.invocationContext.get(key);
+            return this.invocationContext == null ? null : this.invocationContext.get(key);
         }
 
         @Override
         public void setInvocationContext(String key, Object value) {
-            this.invocationContext.put(key, value);
+            this.getOrCreateInvocationContext().put(key, value);
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        public <V> V getInvocationContext(ContextKey<V> key) {
+            return this.invocationContext == null ? null : (V) this.invocationContext.get(key);
+        }
+
+        @Override
+        public <V> void setInvocationContext(ContextKey<V> key, V value) {
+            this.getOrCreateInvocationContext().put(key, value);
+        }
+
+        private InvocationContext getOrCreateInvocationContext() {
+            if (this.invocationContext == null)
+                this.invocationContext = new InvocationContext();
+
+            return this.invocationContext;
+        }
+    }
+
+
+    /**
+     * Open-addressed array map tuned for a handful of context entries per invocation.
+     * 
+     * <p>Keys are {@link String} or {@link ContextKey}, and {@link ContextKey} is compared 
+     * by identity with pre-computed hash code. Not thread-safe.
+     */
+    class InvocationContext {
+
+        private static final int INITIAL_CAPACITY = 8;   // keep load factor under 0.5 for 4 entries
+
+
+        // keys and values are stored in adjacent slots
+        private Object[] table;
+        private int size;
+
+
+        InvocationContext() {
+            this.table = new Object[INITIAL_CAPACITY * 2];
+            this.size = 0;
+        }
+
+        public Object get(Object key) {
+            Assert.notNull(key, "'key' must not be null.");
+
+            Object[] table = this.table;
+            int mask = table.length - 2;
+            for (int index = hash(key) & mask; ; index = (index + 2) & mask) {
+                Object current = table[index];
+                if (current == null)
+                    return null;
+                if (current == key || (current instanceof String && current.equals(key)))
+                    return table[index + 1];
+            }
+        }
+
+        public Object put(Object key, Object value) {
+            Assert.notNull(key, "'key' must not be null.");
+
+            Object[] table = this.table;
+            int mask = table.length - 2;
+            int index = hash(key) & mask;
+            for (Object current; (current = table[index]) != null; index = (index + 2) & mask) {
+                if (current == key || (current instanceof String && current.equals(key))) {
+                    Object existing = table[index + 1];
+                    table[index + 1] = value;
+                    return existing;
+                }
+            }
+
+            table[index] = key;
+            table[index + 1] = value;
+
+            if (++size * 4 > table.length)
+                resize();
+            return null;
+        }
+
+        public int size() {
+            return size;
+        }
+
+        private void resize() {
+            Object[] oldTable = this.table;
+            Object[] newTable = new Object[oldTable.length * 2];
+            int mask = newTable.length - 2;
+            for (int i = 0; i < oldTable.length; i += 2) {
+                Object key = oldTable[i];
+                if (key == null)
+                    continue;
+
+                int index = hash(key) & mask;
+                while (newTable[index] != null)
+                    index = (index + 2) & mask;
+
+                newTable[index] = key;
+                newTable[index + 1] = oldTable[i + 1];
+            }
+
+            this.table = newTable;
+        }
+
+        private static int hash(Object key) {
+            int h = key.hashCode();
+            // spread bits and align to even slot
+            return (h ^ (h >>> 16)) << 1;
         }
     }
 
@@ -319,11 +1182,10 @@ interface Joinpoints {
                 return;
             }
 
-            Class<?> returnType = getDescriptor().getMethod().getReturnType();
-            if (returning == null || ClassUtils.isAssignableFrom(returnType, returning.getClass()) == false) {
+            if (returning == null || isAssignableReturning(returning) == false) {
                 if (LOGGER.isWarnEnabled())
                     LOGGER.warn("Ignored advice returning '{}' which must be instance of {}.\n", 
-                            returning, returnType);
+                            returning, getDescriptor().getMethod().getReturnType());
 
                 return;
             }
@@ -348,32 +1210,15 @@ interface Joinpoints {
                 return;
             }
 
-            Descriptor descriptor = getDescriptor();
-            Class<?>[] exceptionTypes = descriptor.isTypeInitializer() 
-                    ? null 
-                    : descriptor.isConstructor() 
-                        ? descriptor.getConstructor().getExceptionTypes() 
-                        : descriptor.getMethod().getExceptionTypes();
-            Class<? extends Throwable> throwingType = throwing.getClass();
-
-            boolean assignable = false;
-            if (exceptionTypes != null && exceptionTypes.length != 0) {
-                for (Class<?> exceptionClass : exceptionTypes) {
-                    if (exceptionClass.isAssignableFrom(throwingType)) {
-                        assignable = true;
-                        break;
-                    }
-                }
-            }
-
-            if (assignable == false && RuntimeException.class.isAssignableFrom(throwingType) == false) {
+            if (isDeclaredThrowing(throwing) == false) {
+                Descriptor descriptor = getDescriptor();
                 String targetMethod = descriptor.isTypeInitializer 
                         ? MethodDescription.TYPE_INITIALIZER_INTERNAL_NAME
                         : descriptor.isConstructor() 
                             ? descriptor.getConstructor().toString() : descriptor.getMethod().toString();
 
                 if (LOGGER.isWarnEnabled())
-                    LOGGER.warn("Ignored advice throwing '{}' which must be instance of RuntimeException or exception types declared in signature '{}'.\n",
+                    LOGGER.warn("Ignored advice throwing '{}' which must be instance of RuntimeException, Error or exception types declared in signature '{}'.\n",
                             throwing, targetMethod);
 
                 return;
@@ -394,119 +1239,100 @@ interface Joinpoints {
 
         private DefaultMutableJoinpoint<T, E> joinpoint = null;
 
+        // decided by selected advice chain of this invocation
+        private final boolean requiresContextClassLoader;
+
         private boolean dispatchBeforeAdvice = true;
-        private List<? extends Advice.Before<T, E>> beforeAdvices = Collections.emptyList();
-        private List<? extends Advice.After<T, E>> afterAdvices = Collections.emptyList();
+        private Advice.Before<T, E>[] beforeAdvices = AdviceChain.EMPTY.getBeforeAdvices();
+        private Advice.After<T, E>[] afterAdvices = AdviceChain.EMPTY.getAfterAdvices();
 
 
-        public MutableJoinpointDispatcher(Descriptor descriptor, Object thisObject, Object[] arguments, AopContext aopContext) {
+        public MutableJoinpointDispatcher(Descriptor descriptor, AdviceChain adviceChain, 
+                Object thisObject, Object[] arguments, AopContext aopContext) {
             Assert.notNull(aopContext, "'aopContext' must not be null.");
             this.aopContext = aopContext;
+            this.requiresContextClassLoader = adviceChain.requiresContextClassLoader();
 
-            ClassLoader existingClassLoader = ThreadContext.getContextClassLoader();
-
-            Class<?> thisClass = descriptor.getThisClass();
-            String typeName = thisClass.getName();
-            ClassLoader joinpointClassLoader = thisClass.getClassLoader();
+            // switch context ClassLoader only if required and different
+            ClassLoader joinpointClassLoader = descriptor.getJoinpointClassLoader();
+            ClassLoader existingClassLoader = this.requiresContextClassLoader 
+                    ? ThreadContext.getContextClassLoader() : joinpointClassLoader;
+            boolean switchClassLoader = existingClassLoader != joinpointClassLoader;
             try {
-                ThreadContext.setContextClassLoader(joinpointClassLoader);  // set joinpointClassLoader
+                if (switchClassLoader)
+                    ThreadContext.setContextClassLoader(joinpointClassLoader);  // set joinpointClassLoader
 
-                if (aopContext.isDiagnosticClass(typeName) && LOGGER.isInfoEnabled())
+                if (descriptor.isDiagnosticClass() && LOGGER.isInfoEnabled())
                     LOGGER.info("^Creating joinpoint instance of type '{}', \n"
                             + "  ClassLoader: {} \n"
                             + "  Method: {} \n", 
-                            typeName, 
+                            descriptor.getThisClass().getName(), 
                             joinpointClassLoader, 
                             descriptor.getAccessibleName()
                     );
 
                 joinpoint = new DefaultMutableJoinpoint<T, E>(descriptor, thisObject, arguments);
 
-                initialize(descriptor);
+                initialize(adviceChain);
             } catch (Throwable t) {
                 if (LOGGER.isWarnEnabled())
                     LOGGER.warn("Could not create joinpoint instance of type '{}',"
                             + "  ClassLoader: {} \n"
                             + "  Method: {} \n", 
-                            typeName, 
+                            descriptor.getThisClass().getName(), 
                             joinpointClassLoader, 
                             descriptor.getAccessibleName(), t);
 
                 Throwables.throwIfRequired(t);
             } finally {
-                ThreadContext.setContextClassLoader(existingClassLoader);
+                if (switchClassLoader)
+                    ThreadContext.setContextClassLoader(existingClassLoader);
             }
         }
 
 
-        @SuppressWarnings("unchecked")
-        protected void initialize(Descriptor descriptor) {
-            // initialize advisorChain
-            List<? extends Advisor> advisorChain = descriptor.getAdvisorChain();
-            advisorChain = CollectionUtils.isEmpty(advisorChain) ? Collections.emptyList() : advisorChain;
-
-            List<Advice.Before<T, E>> beforeAdvices = new ArrayList<>();
-            List<Advice.After<T, E>> afterAdvices = new ArrayList<>();
-            for (Iterator<? extends Advisor> iterator = advisorChain.iterator(); iterator.hasNext(); ) {
-                Advisor advisor = iterator.next();
-                Class<? extends Advice> adviceClass = advisor.getAdviceClass();
-                if (adviceClass == null)
-                    iterator.remove();
-
-                boolean isBeforeAdvice = Advice.Before.class.isAssignableFrom(adviceClass);
-                boolean isAfterAdvice = Advice.After.class.isAssignableFrom(adviceClass);
-                if (isBeforeAdvice == false && isAfterAdvice == false) {
-                    continue;
-                }
+        protected void initialize(AdviceChain adviceChain) {
+            // fetch compiled advices
+            adviceChain = adviceChain.instantiate();
 
-                Advice advice = advisor.getAdvice();
-                if (advice == null)
-                    iterator.remove();
-
-                if (isBeforeAdvice == true && isAfterAdvice == true) {
-                    beforeAdvices.add( (Advice.Before<T, E>) advice );
-                    afterAdvices.add( (Advice.After<T, E>) advice );
-                } else if (isBeforeAdvice == true && isAfterAdvice == false) {
-                    beforeAdvices.add( (Advice.Before<T, E>) advice );
-                } else if (isBeforeAdvice == false && isAfterAdvice == true) {
-                    afterAdvices.add( (Advice.After<T, E>) advice );
-                }
-            }
-
-            this.beforeAdvices = beforeAdvices;
-            this.afterAdvices = afterAdvices;
+            this.beforeAdvices = adviceChain.getBeforeAdvices();
+            this.afterAdvices = adviceChain.getAfterAdvices();
         }
 
 
         @Override
         public T dispatch() throws E {
-            if (dispatchBeforeAdvice == true && this.beforeAdvices.size() == 0) {
+            if (dispatchBeforeAdvice == true && this.beforeAdvices.length == 0) {
                 dispatchBeforeAdvice = false;
                 return null;
             }
-            if (dispatchBeforeAdvice == false && this.afterAdvices.size() == 0) {
+            if (dispatchBeforeAdvice == false && this.afterAdvices.length == 0) {
                 return null;
             }
 
-            ClassLoader existingClassLoader = ThreadContext.getContextClassLoader();
+            Descriptor descriptor = joinpoint.getDescriptor();
 
-            String typeName = getThisClass().getName();
-            ClassLoader joinpointClassLoader = getThisClass().getClassLoader();
+            // switch context ClassLoader only if required and different
+            ClassLoader joinpointClassLoader = descriptor.getJoinpointClassLoader();
+            ClassLoader existingClassLoader = this.requiresContextClassLoader 
+                    ? ThreadContext.getContextClassLoader() : joinpointClassLoader;
+            boolean switchClassLoader = existingClassLoader != joinpointClassLoader;
             String adviceMessage = dispatchBeforeAdvice ? "BeforeAdvices" : "AfterAdvices";
             try {
-                ThreadContext.setContextClassLoader(joinpointClassLoader);  // set joinpointClassLoader
+                if (switchClassLoader)
+                    ThreadContext.setContextClassLoader(joinpointClassLoader);  // set joinpointClassLoader
 
-                if (aopContext.isDiagnosticClass(typeName) && LOGGER.isInfoEnabled())
+                if (descriptor.isDiagnosticClass() && LOGGER.isInfoEnabled())
                     LOGGER.info("^Invoking {} for joinpoint instance of type '{}', \n"
                             + "  ClassLoader: {} \n"
                             + "  Method: {} \n"
                             + "  Advices: \n"
                             + "    {} \n", 
                             adviceMessage,
-                            typeName,
+                            getThisClass().getName(),
                             joinpointClassLoader, 
                             getAccessibleName(), 
-                            StringUtils.join(dispatchBeforeAdvice ? this.beforeAdvices : this.afterAdvices, e -> e.getClass().getName(), "\n    ") 
+                            StringUtils.join(Arrays.asList(dispatchBeforeAdvice ? this.beforeAdvices : this.afterAdvices), e -> e.getClass().getName(), "\n    ") 
                     );
 
                 if (dispatchBeforeAdvice) {
@@ -524,17 +1350,18 @@ interface Joinpoints {
                             + "  Advices: \n"
                             + "    {} \n",
                             adviceMessage, 
-                            typeName,
+                            getThisClass().getName(),
                             joinpointClassLoader, 
                             getAccessibleName(), 
-                            StringUtils.join(dispatchBeforeAdvice ? this.beforeAdvices : this.afterAdvices, e -> e.getClass().getName(), "\n    "),
+                            StringUtils.join(Arrays.asList(dispatchBeforeAdvice ? this.beforeAdvices : this.afterAdvices), e -> e.getClass().getName(), "\n    "),
                             t
                     );
 
                 Throwables.throwIfRequired(t);
                 return null;
             } finally {
-                ThreadContext.setContextClassLoader(existingClassLoader);
+                if (switchClassLoader)
+                    ThreadContext.setContextClassLoader(existingClassLoader);
             }
         }
 
@@ -550,8 +1377,8 @@ interface Joinpoints {
         }
 
         private void invokeBeforeAdvices(ClassLoader joinpointClassLoader) throws Throwable {
-            for (int index = 0; index < this.beforeAdvices.size(); index++) {
-                Before<T, E> advice = this.beforeAdvices.get(index);
+            for (int index = 0; index < this.beforeAdvices.length; index++) {
+                Before<T, E> advice = this.beforeAdvices[index];
                 try {
                     advice.before(joinpoint);
                 } catch (Throwable t) {
@@ -573,8 +1400,8 @@ interface Joinpoints {
         }
 
         private void invokeAfterAdvices(ClassLoader joinpointClassLoader) throws Throwable {
-            for (int index = this.afterAdvices.size() - 1; index >= 0; index--) {
-                After<T, E> advice = this.afterAdvices.get(index);
+            for (int index = this.afterAdvices.length - 1; index >= 0; index--) {
+                After<T, E> advice = this.afterAdvices[index];
                 try {
                     advice.after(joinpoint);
                 } catch (Throwable t) {
@@ -596,7 +1423,17 @@ interface Joinpoints {
 
         @Override
         public Object[] getArguments() {
-            return joinpoint.getArguments();
+            return joinpoint.doGetArguments();
+        }
+
+        @Override
+        public boolean hasModifiedArguments() {
+            return joinpoint.hasModifiedArguments();
+        }
+
+        @Override
+        public boolean hasAfterAdvices() {
+            return this.afterAdvices.length > 0;
         }
 
         @Override
@@ -632,64 +1469,104 @@ interface Joinpoints {
     }
 
 
+    @BootstrapClassConsumer
     class DefaultProceedingJoinpoint<T> extends AbstractBase<T, Throwable> implements ProceedingJoinpoint<T, Throwable> {
 
-        private int currentAdviceIndex = 0;
-        private final List<? extends Advice.Around<T, Throwable>> aroundAdvices;
+        // hand joinpoint over to woven method re-entered from proceed() per thread
+        static final ThreadLocal<DefaultProceedingJoinpoint<?>> PROCEEDING_JOINPOINT = new ThreadLocal<>();
 
 
+        private final AopContext aopContext;
+
+        // selected and instantiated advices of this invocation, shared with re-entered woven method
+        private final AdviceChain adviceChain;
+
+        private int currentAdviceIndex = 0;
+        private final Advice.Around<T, Throwable>[] aroundAdvices;
+
+        // result of last original method invocation, to replace illegal result of around advices
         @SuppressWarnings("unchecked")
-        public DefaultProceedingJoinpoint(Descriptor descriptor, Object thisObject, Object[] arguments) {
-            super(descriptor, thisObject, arguments);
+        private T originalReturning = (T) UNDEFINED_RETURNING;
+        private Throwable originalThrowing = null;
 
-            // initialize advisorChain
-            List<? extends Advisor> advisorChain = descriptor.getAdvisorChain();
-            advisorChain = CollectionUtils.isEmpty(advisorChain) ? Collections.emptyList() : advisorChain;
 
-            List<Advice.Around<T, Throwable>> aroundAdvices = new ArrayList<>();
-            for (Iterator<? extends Advisor> iterator = advisorChain.iterator(); iterator.hasNext(); ) {
-                Advisor advisor = iterator.next();
-                Class<? extends Advice> adviceClass = advisor.getAdviceClass();
-                if (adviceClass == null)
-                    iterator.remove();
+        public DefaultProceedingJoinpoint(Descriptor descriptor, AdviceChain adviceChain, 
+                Object thisObject, Object[] arguments, AopContext aopContext) {
+            super(descriptor, thisObject, arguments);
 
-                boolean isAroundAdvice = Advice.Around.class.isAssignableFrom(adviceClass);
-                if (isAroundAdvice == false) {
-                    continue;
-                }
+            this.aopContext = aopContext;
 
-                Advice.Around<T, Throwable> advice = (Advice.Around<T, Throwable>) advisor.getAdvice();
-                if (advice == null)
-                    iterator.remove();
+            // fetch compiled advices
+            this.adviceChain = adviceChain.instantiate();
+            this.aroundAdvices = this.adviceChain.getAroundAdvices();
+        }
 
-                aroundAdvices.add(advice);
-            }
-            this.aroundAdvices = aroundAdvices;
+        /**
+         * Create dispatcher of before and after advices of this invocation for re-entered 
+         * woven method, or null if there is none.
+         * 
+         * @return
+         */
+        <E extends Throwable> BootstrapAdvice.Dispatcher<T, E> createReenteringDispatcher() {
+            // copy arguments since before advices might change them in each proceeding
+            return adviceChain.hasBeforeAfterAdvice()
+                    ? new MutableJoinpointDispatcher<>( descriptor, adviceChain, getThisObject(), arguments.clone(), aopContext )
+                    : null;
         }
 
+        @SuppressWarnings("unchecked")
         @Override
         public T proceed() throws Throwable {
-            if (currentAdviceIndex == this.aroundAdvices.size()) {
+            int index = this.currentAdviceIndex;
+            if (index == this.aroundAdvices.length) {
+                // re-enter original method, and skip around advices in woven code
                 try {
-                    // TODO: super call
-                    return null;
+                    T returning = (T) descriptor.invokeOriginalMethod(this);
+                    this.originalReturning = returning;
+                    this.originalThrowing = null;
+                    return returning;
                 } catch (Throwable t) {
-                    if (t instanceof InterruptedException) 
-                        Thread.currentThread().interrupt();
-
-                    Throwables.propagate(t);
+                    this.originalReturning = null;
+                    this.originalThrowing = t;
+                    throw t;
                 }
             }
 
-            return this.aroundAdvices.get(currentAdviceIndex++).invoke(this);
+            // restore index to support proceeding multiple times, such as retry
+            this.currentAdviceIndex = index + 1;
+            try {
+                return this.aroundAdvices[index].invoke(this);
+            } finally {
+                this.currentAdviceIndex = index;
+            }
         }
 
         @Override
         public T proceed(Object... arguments) throws Throwable {
-            this.arguments = arguments;
+            this.setArguments(arguments);
 
             return this.proceed();
         }
+
+        /**
+         * Return result of last original method invocation, or invoke original method if 
+         * around advices did not proceed it.
+         */
+        T proceedOriginalMethod() throws Throwable {
+            if (UNDEFINED_RETURNING == this.originalReturning) {
+                int index = this.currentAdviceIndex;
+                this.currentAdviceIndex = this.aroundAdvices.length;
+                try {
+                    return this.proceed();
+                } finally {
+                    this.currentAdviceIndex = index;
+                }
+            }
+
+            if (this.originalThrowing != null)
+                throw this.originalThrowing;
+            return this.originalReturning;
+        }
     }
 
 
@@ -702,35 +1579,45 @@ interface Joinpoints {
 
         private DefaultProceedingJoinpoint<T> joinpoint = null;
 
+        // decided by selected advice chain of this invocation
+        private final boolean requiresContextClassLoader;
 
-        public ProceedingJoinpointDispatcher(Descriptor descriptor, Object thisObject, Object[] arguments, AopContext aopContext) {
+        private boolean dispatched = false;
+        private T adviceReturning = null;
+        private Throwable adviceThrowing = null;
+
+
+        public ProceedingJoinpointDispatcher(Descriptor descriptor, AdviceChain adviceChain, 
+                Object thisObject, Object[] arguments, AopContext aopContext) {
             Assert.notNull(aopContext, "'aopContext' must not be null.");
             this.aopContext = aopContext;
+            this.requiresContextClassLoader = adviceChain.requiresContextClassLoader();
 
-            ClassLoader existingClassLoader = ThreadContext.getContextClassLoader();
-
-            Class<?> thisClass = descriptor.getThisClass();
-            String typeName = thisClass.getName();
-            ClassLoader joinpointClassLoader = thisClass.getClassLoader();
+            // switch context ClassLoader only if required and different
+            ClassLoader joinpointClassLoader = descriptor.getJoinpointClassLoader();
+            ClassLoader existingClassLoader = this.requiresContextClassLoader 
+                    ? ThreadContext.getContextClassLoader() : joinpointClassLoader;
+            boolean switchClassLoader = existingClassLoader != joinpointClassLoader;
             try {
-                ThreadContext.setContextClassLoader(joinpointClassLoader);  // set joinpointClassLoader
+                if (switchClassLoader)
+                    ThreadContext.setContextClassLoader(joinpointClassLoader);  // set joinpointClassLoader
 
-                if (aopContext.isDiagnosticClass(typeName) && LOGGER.isInfoEnabled())
+                if (descriptor.isDiagnosticClass() && LOGGER.isInfoEnabled())
                     LOGGER.info("^Creating joinpoint instance of type '{}', \n"
                             + "  ClassLoader: {} \n"
                             + "  Method: {} \n", 
-                            typeName, 
+                            descriptor.getThisClass().getName(), 
                             joinpointClassLoader, 
                             descriptor.getAccessibleName()
                     );
 
-                joinpoint = new DefaultProceedingJoinpoint<T>(descriptor, thisObject, arguments);
+                joinpoint = new DefaultProceedingJoinpoint<T>(descriptor, adviceChain, thisObject, arguments, aopContext);
             } catch (Throwable t) {
                 if (LOGGER.isWarnEnabled())
                     LOGGER.warn("Could not create joinpoint instance of type '{}', \n"
                             + "  ClassLoader: {} \n"
                             + "  Method: {} \n", 
-                            typeName, 
+                            descriptor.getThisClass().getName(), 
                             joinpointClassLoader, 
                             descriptor.getAccessibleName(), 
                             t
@@ -738,57 +1625,89 @@ interface Joinpoints {
 
                 Throwables.throwIfRequired(t);
             } finally {
-                ThreadContext.setContextClassLoader(existingClassLoader);
+                if (switchClassLoader)
+                    ThreadContext.setContextClassLoader(existingClassLoader);
             }
         }
 
 
         @Override
         public T dispatch() throws Throwable {
-            ClassLoader existingClassLoader = ThreadContext.getContextClassLoader();
+            if (this.dispatched == true)
+                return null;
+
+            Descriptor descriptor = joinpoint.getDescriptor();
 
-            String typeName = getThisClass().getName();
-            ClassLoader joinpointClassLoader = getThisClass().getClassLoader();
+            // switch context ClassLoader only if required and different
+            ClassLoader joinpointClassLoader = descriptor.getJoinpointClassLoader();
+            ClassLoader existingClassLoader = this.requiresContextClassLoader 
+                    ? ThreadContext.getContextClassLoader() : joinpointClassLoader;
+            boolean switchClassLoader = existingClassLoader != joinpointClassLoader;
             try {
-                ThreadContext.setContextClassLoader(joinpointClassLoader);  // set joinpointClassLoader
+                if (switchClassLoader)
+                    ThreadContext.setContextClassLoader(joinpointClassLoader);  // set joinpointClassLoader
 
-                if (aopContext.isDiagnosticClass(typeName) && LOGGER.isInfoEnabled())
+                if (descriptor.isDiagnosticClass() && LOGGER.isInfoEnabled())
                     LOGGER.info("^Proceeding joinpoint instance of type '{}', \n"
                             + "  ClassLoader: {} \n"
                             + "  Method: {} \n"
                             + "  Around advices: \n"
                             + "    {} \n", 
-                            typeName,
+                            getThisClass().getName(),
                             joinpointClassLoader,
                             getAccessibleName(), 
-                            StringUtils.join(getAroundAdvice(), e -> e.getClass().getName(), "\n    ")
+                            StringUtils.join(Arrays.asList(getAroundAdvice()), e -> e.getClass().getName(), "\n    ")
                     );
 
-                return joinpoint.proceed();
+                T returning = joinpoint.proceed();
+                if (descriptor.isVoidReturning() == false && joinpoint.isAssignableReturning(returning) == false) {
+                    if (LOGGER.isWarnEnabled())
+                        LOGGER.warn("Ignored around advice returning '{}' which must be instance of {}, and used original method result. \n"
+                                + "  Method: {} \n", 
+                                returning, descriptor.getMethod().getReturnType(), getAccessibleName());
+
+                    returning = joinpoint.proceedOriginalMethod();
+                }
+
+                this.adviceReturning = returning;
+                return null;
             } catch (Throwable t) {
-                if (LOGGER.isWarnEnabled())
-                    LOGGER.warn("$Could not proceed joinpoint instance of type '{}', \n"
+                if (descriptor.isDiagnosticClass() && LOGGER.isInfoEnabled())
+                    LOGGER.info("$Proceeded joinpoint instance of type '{}' with throwing, \n"
                             + "  ClassLoader: {} \n"
                             + "  Method: {} \n"
                             + "  Around advices: \n"
                             + "    {} \n", 
-                            typeName,
+                            getThisClass().getName(),
                             joinpointClassLoader,
                             getAccessibleName(), 
-                            StringUtils.join(getAroundAdvice(), e -> e.getClass().getName(), "\n    "),
+                            StringUtils.join(Arrays.asList(getAroundAdvice()), e -> e.getClass().getName(), "\n    "),
                             t
                     );
 
-                // throw joinpoint exception
-                Throwable rootCause = Throwables.unwrap(t);
-                if (rootCause != null)
-                    throw rootCause;
+                // throwing of joinpoint or around advices
+                Throwable throwing = Throwables.unwrap(t);
+                if (joinpoint.isDeclaredThrowing(throwing) == false) {
+                    if (LOGGER.isWarnEnabled())
+                        LOGGER.warn("Ignored around advice throwing '{}' which must be instance of RuntimeException, Error or exception types declared in signature, and used original method result. \n"
+                                + "  Method: {} \n", 
+                                throwing, getAccessibleName());
+
+                    try {
+                        this.adviceReturning = joinpoint.proceedOriginalMethod();
+                        return null;
+                    } catch (Throwable originalThrowing) {
+                        throwing = Throwables.unwrap(originalThrowing);
+                    }
+                }
 
-                // throw fatal error
-                Throwables.throwIfRequired(t);
+                this.adviceThrowing = throwing;
                 return null;
             } finally {
-                ThreadContext.setContextClassLoader(existingClassLoader);
+                this.dispatched = true;
+
+                if (switchClassLoader)
+                    ThreadContext.setContextClassLoader(existingClassLoader);
             }
         }
 
@@ -803,44 +1722,61 @@ interface Joinpoints {
             return joinpoint.getDescriptor().getAccessibleName();
         }
 
-        private List<? extends Around<T, Throwable>> getAroundAdvice() {
+        private Around<T, Throwable>[] getAroundAdvice() {
             return joinpoint.aroundAdvices;
         }
 
 
         @Override
         public Object[] getArguments() {
-            return joinpoint.getArguments();
+            return joinpoint.doGetArguments();
         }
 
+        @Override
+        public boolean hasModifiedArguments() {
+            return joinpoint.hasModifiedArguments();
+        }
+
+        /**
+         * AfterAdvices are invoked in original method proceeded by around advices.
+         */
+        @Override
+        public boolean hasAfterAdvices() {
+            return false;
+        }
+
+        /**
+         * Ignore target returning since original method is proceeded by around advices.
+         */
         @Override
         public void setReturning(T returning) {
-            throw new UnsupportedOperationException();
         }
 
+        /**
+         * Ignore target throwing since original method is proceeded by around advices.
+         */
         @Override
         public void setThrowing(Throwable throwing) {
-            throw new UnsupportedOperationException();
         }
 
         @Override
         public boolean hasAdviceReturning() {
-            throw new UnsupportedOperationException();
+            return this.dispatched && this.adviceThrowing == null;
         }
 
         @Override
         public T getAdviceReturning() {
-            throw new UnsupportedOperationException();
+            return this.adviceReturning;
         }
 
         @Override
         public boolean hasAdviceThrowing() {
-            throw new UnsupportedOperationException();
+            return this.adviceThrowing != null;
         }
 
         @Override
         public Throwable getAdviceThrowing() {
-            throw new UnsupportedOperationException();
+            return this.adviceThrowing;
         }
     }
 }
@@ -0,0 +1,564 @@
+/*
+ * Copyright © 2023, the original author or authors. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gemini.aop.weaver;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.lang.instrument.IllegalClassFormatException;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.ProtectionDomain;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Queue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.gemini.aop.Advisor;
+import io.gemini.aop.AdvisorFactory;
+import io.gemini.aop.AdvisorFactory.MatchedAdvisor;
+import io.gemini.aop.AopContext;
+import io.gemini.api.aop.AdvisorSpec;
+import io.gemini.api.aop.AdvisorSpec.ExprPointcutSpec;
+import io.gemini.api.aop.AdvisorSpec.PojoPointcutSpec;
+import io.gemini.api.aop.Pointcut;
+import io.gemini.core.config.ConfigView;
+import io.gemini.core.util.ClassLoaderUtils;
+import io.gemini.core.util.Throwables;
+import net.bytebuddy.agent.builder.AgentBuilder.ClassFileBufferStrategy;
+import net.bytebuddy.agent.builder.AgentBuilder.PoolStrategy;
+import net.bytebuddy.agent.builder.AgentBuilder.TransformerDecorator;
+import net.bytebuddy.agent.builder.ResettableClassFileTransformer;
+import net.bytebuddy.description.method.MethodDescription;
+import net.bytebuddy.dynamic.ClassFileLocator;
+import net.bytebuddy.pool.TypePool;
+import net.bytebuddy.utility.JavaModule;
+
+/**
+ * Persistent matching decisions of types across restarts, keyed by ClassLoader name, type name
+ * and class file hash, and stored in file named by fingerprint of aop settings, advisor specs
+ * and aspect app jars.
+ *
+ * <p>Known unmatched types skip {@code AdvisorFactory} entirely, and known matched types get
+ * previously matched advisors by name without matching pointcuts again. Since ClassLoader name
+ * is not unique, key with different decisions is marked as conflicted and never cached.
+ *
+ * @author   martin.liu
+ * @since	 1.0
+ */
+class MatchingDecisionCache implements TransformerDecorator, Closeable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(MatchingDecisionCache.class);
+
+    private static final String FILE_PREFIX = "matching-decisions-";
+    private static final String FILE_SUFFIX = ".dat";
+
+    private static final String UNMATCHED = "N";
+    private static final String MATCHED = "M";
+    private static final String CONFLICTED = "C";
+
+    private static final String GUARDED = "G";
+    private static final String UNGUARDED = "U";
+
+    private static final int FLUSH_THRESHOLD = 1024;
+
+    private static final ThreadLocal<String[]> CLASS_FILE_HASH = new ThreadLocal<>();
+
+    private static final Pattern IDENTITY_PATTERN = Pattern.compile("@[0-9a-f]+\\b|\\$\\$Lambda\\$?[0-9]*(/0x[0-9a-f]+)?");
+
+
+    private final File cacheFile;
+
+    private final ConcurrentMap<String /* key */, Decision> decisions = new ConcurrentHashMap<>();
+    private final Set<String> conflictedKeys = ConcurrentHashMap.newKeySet();
+
+    private final Queue<String> pendingRecords = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pendingCount = new AtomicInteger(0);
+
+    private final AtomicLong hitCount = new AtomicLong(0);
+    private final AtomicLong missCount = new AtomicLong(0);
+
+
+    MatchingDecisionCache(AopContext aopContext, AdvisorFactory advisorFactory, String cachePath) {
+        this(new File(cachePath), fingerprint(aopContext, advisorFactory));
+    }
+
+    MatchingDecisionCache(File cacheDir, String fingerprint) {
+        this.cacheFile = new File(cacheDir, FILE_PREFIX + fingerprint + FILE_SUFFIX);
+
+        cacheDir.mkdirs();
+        this.deleteStaleFiles(cacheDir);
+        this.load();
+
+        if (LOGGER.isInfoEnabled())
+            LOGGER.info("Loaded {} matching decisions from '{}'.", decisions.size(), cacheFile);
+    }
+
+    /**
+     * Fingerprint aop settings, advisor specs, aspect app jars and class path, which decide
+     * matching result of same class file.
+     */
+    static String fingerprint(AopContext aopContext, AdvisorFactory advisorFactory) {
+        StringBuilder content = new StringBuilder();
+
+        ConfigView configView = aopContext.getConfigView();
+        for (String key : new TreeSet<>(configView.keys("aop."))) {
+            String value;
+            try {
+                value = configView.getAsString(key);
+            } catch (Exception e) {
+                value = "?";
+            }
+            content.append(key).append('=').append(value).append('\n');
+        }
+
+        for (Entry<String, Collection<? extends AdvisorSpec>> entry : new TreeMap<>(advisorFactory.getAdvisorSpecs()).entrySet()) {
+            content.append(entry.getKey()).append('\n');
+
+            Set<String> advisorSpecs = new TreeSet<>();
+            for (AdvisorSpec advisorSpec : entry.getValue())
+                advisorSpecs.add( describeAdvisorSpec(advisorSpec) );
+            for (String advisorSpec : advisorSpecs)
+                content.append(advisorSpec).append('\n');
+        }
+
+        for (Entry<String, URL[]> entry : new TreeMap<>(aopContext.getAspectAppResourceMap()).entrySet()) {
+            content.append(entry.getKey()).append('\n');
+            for (URL url : entry.getValue())
+                appendResource(content, url);
+        }
+
+        ProtectionDomain protectionDomain = MatchingDecisionCache.class.getProtectionDomain();
+        if (protectionDomain != null && protectionDomain.getCodeSource() != null)
+            appendResource(content, protectionDomain.getCodeSource().getLocation());
+
+        content.append(System.getProperty("java.version")).append('\n')
+            .append(System.getProperty("java.class.path")).append('\n');
+
+        return digest(content.toString());
+    }
+
+    static String digest(String content) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(content.getBytes(StandardCharsets.UTF_8));
+
+            StringBuilder fingerprint = new StringBuilder();
+            for (int i = 0; i < 8; i++)
+                fingerprint.append(String.format("%02x", digest[i]));
+            return fingerprint.toString();
+        } catch (Exception e) {
+            return Integer.toHexString(content.hashCode());
+        }
+    }
+
+    /**
+     * Describe advisor spec by properties which decide matching result. Identity hash codes and 
+     * lambda numbers in descriptions of conditions and pointcuts are dropped to keep it stable 
+     * across restarts.
+     */
+    static String describeAdvisorSpec(AdvisorSpec advisorSpec) {
+        StringBuilder content = new StringBuilder();
+        content.append(advisorSpec.getAdvisorName())
+            .append(' ').append(advisorSpec.getAdviceClassName())
+            .append(' ').append(describeObject(advisorSpec.getCondition()))
+            .append(' ').append(advisorSpec.isInheritClassLoaderMatcher())
+            .append(' ').append(advisorSpec.isInheritTypeMatcher())
+            .append(' ').append(advisorSpec.isPerInstance())
+            .append(' ').append(advisorSpec.getSamplingRate())
+            .append(' ').append(advisorSpec.getOrder());
+
+        if (advisorSpec instanceof ExprPointcutSpec) {
+            ExprPointcutSpec exprPointcutSpec = (ExprPointcutSpec) advisorSpec;
+            content.append(' ').append(exprPointcutSpec.getClassLoaderExpression())
+                .append(' ').append(exprPointcutSpec.getPointcutExpression());
+        } else if (advisorSpec instanceof PojoPointcutSpec) {
+            Pointcut pointcut = ((PojoPointcutSpec) advisorSpec).getPointcut();
+            if (pointcut != null)
+                content.append(' ').append(describeObject(pointcut.getTypeMatcher()))
+                    .append(' ').append(describeObject(pointcut.getMethodMatcher()));
+        }
+
+        return content.toString();
+    }
+
+    private static String describeObject(Object object) {
+        return object == null ? "null" : IDENTITY_PATTERN.matcher(object.toString()).replaceAll("");
+    }
+
+    private static void appendResource(StringBuilder content, URL url) {
+        if (url == null)
+            return;
+
+        content.append(url);
+        if ("file".equals(url.getProtocol())) {
+            File file = new File(url.getPath());
+            if (file.isDirectory())
+                content.append(' ').append(hashDirectory(file));
+            else
+                content.append(' ').append(file.length()).append(' ').append(file.lastModified());
+        }
+        content.append('\n');
+    }
+
+    /**
+     * Hash relative paths and contents of files under given directory, since modification of 
+     * nested files changes neither length nor last modified time of directory.
+     */
+    private static String hashDirectory(File directory) {
+        Path root = directory.toPath();
+        CRC32 crc32 = new CRC32();
+        try (Stream<Path> paths = Files.walk(root)) {
+            for (Path path : (Iterable<Path>) paths.filter(Files::isRegularFile).sorted()::iterator) {
+                crc32.update(root.relativize(path).toString().getBytes(StandardCharsets.UTF_8));
+                crc32.update(Files.readAllBytes(path));
+            }
+            return Long.toHexString(crc32.getValue());
+        } catch (Exception e) {
+            if (LOGGER.isWarnEnabled())
+                LOGGER.warn("Could not hash directory '{}'.", directory, e);
+
+            return String.valueOf(System.nanoTime());     // never reuse stored decisions
+        }
+    }
+
+    private void deleteStaleFiles(File cacheDir) {
+        File[] files = cacheDir.listFiles(
+                file -> file.getName().startsWith(FILE_PREFIX) && file.getName().endsWith(FILE_SUFFIX) );
+        if (files == null)
+            return;
+
+        for (File file : files) {
+            if (file.equals(cacheFile) == false && file.delete() && LOGGER.isDebugEnabled())
+                LOGGER.debug("Deleted stale matching decisions '{}'.", file);
+        }
+    }
+
+    private void load() {
+        if (cacheFile.isFile() == false)
+            return;
+
+        Map<String, Integer> methodCounts = new HashMap<>();
+        Map<String, Map<String, List<MatchedAdvisor>>> matchedAdvisorsMap = new HashMap<>();
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(new FileInputStream(cacheFile), StandardCharsets.UTF_8))) {
+            String line = null;
+            while ((line = reader.readLine()) != null) {
+                String[] fields = line.split("\t", -1);
+                if (fields.length < 4)
+                    continue;
+
+                String key = toKey(fields[1], fields[2], fields[3]);
+                if (CONFLICTED.equals(fields[0])) {
+                    conflictedKeys.add(key);
+                } else if (UNMATCHED.equals(fields[0]) && fields.length == 4) {
+                    this.putLoadedDecision(key, Decision.UNMATCHED);
+                } else if (MATCHED.equals(fields[0]) && fields.length >= 9 && (fields.length - 6) % 3 == 0) {
+                    // M, ClassLoader, type, hash, method count, method signature, [guarded, factory, advisor]+
+                    List<MatchedAdvisor> matchedAdvisors = new ArrayList<>();
+                    for (int pos = 6; pos < fields.length; pos += 3)
+                        matchedAdvisors.add( new MatchedAdvisor(fields[pos + 1], fields[pos + 2], GUARDED.equals(fields[pos])) );
+
+                    methodCounts.put(key, Integer.parseInt(fields[4]));
+                    matchedAdvisorsMap.computeIfAbsent(key, k -> new LinkedHashMap<>()).put(fields[5], matchedAdvisors);
+                }
+            }
+        } catch (Exception e) {
+            if (LOGGER.isWarnEnabled())
+                LOGGER.warn("Could not load matching decisions from '{}'.", cacheFile, e);
+        }
+
+        // ignore partially written decisions
+        for (Entry<String, Map<String, List<MatchedAdvisor>>> entry : matchedAdvisorsMap.entrySet()) {
+            if (methodCounts.get(entry.getKey()) == entry.getValue().size())
+                this.putLoadedDecision(entry.getKey(), new Decision(entry.getValue()));
+        }
+
+        for (String key : conflictedKeys)
+            decisions.remove(key);
+    }
+
+    private void putLoadedDecision(String key, Decision decision) {
+        Decision existing = decisions.putIfAbsent(key, decision);
+        if (existing != null && existing.equals(decision) == false)
+            conflictedKeys.add(key);
+    }
+
+
+    /**
+     * Return hash of class file which is being transformed by current thread.
+     *
+     * @param typeName
+     * @return null if class file is not available, such as loaded type discovered during retransformation
+     */
+    public static String getClassFileHash(String typeName) {
+        String[] classFileHash = CLASS_FILE_HASH.get();
+        return classFileHash == null || classFileHash[0].equals(typeName) == false ? null : classFileHash[1];
+    }
+
+    static void setClassFileHash(String typeName, String classFileHash) {
+        if (typeName == null || classFileHash == null)
+            CLASS_FILE_HASH.remove();
+        else
+            CLASS_FILE_HASH.set( new String[] { typeName, classFileHash } );
+    }
+
+    static String hashClassFile(byte[] classFile) {
+        CRC32 crc32 = new CRC32();
+        crc32.update(classFile, 0, classFile.length);
+        return Long.toHexString(crc32.getValue()) + "-" + Integer.toHexString(classFile.length);
+    }
+
+    public Decision lookup(ClassLoader classLoader, String typeName, String classFileHash) {
+        Decision decision = decisions.get( toKey(ClassLoaderUtils.getClassLoaderName(classLoader), typeName, classFileHash) );
+        (decision == null ? missCount : hitCount).incrementAndGet();
+        return decision;
+    }
+
+    public void record(ClassLoader classLoader, String typeName, String classFileHash,
+            Map<? extends MethodDescription, List<? extends Advisor>> methodDescriptionAdvisors) {
+        String classLoaderName = ClassLoaderUtils.getClassLoaderName(classLoader);
+        String key = toKey(classLoaderName, typeName, classFileHash);
+        if (conflictedKeys.contains(key))
+            return;
+
+        Decision decision = toDecision(methodDescriptionAdvisors);
+        if (decision == null)
+            return;
+
+        Decision existing = decisions.putIfAbsent(key, decision);
+        if (existing != null) {
+            if (existing.equals(decision) == false && conflictedKeys.add(key)) {
+                decisions.remove(key);
+                this.addPendingRecord(CONFLICTED + "\t" + key);
+            }
+            return;
+        }
+
+        if (decision.isMatched() == false) {
+            this.addPendingRecord(UNMATCHED + "\t" + key);
+            return;
+        }
+
+        StringBuilder record = new StringBuilder();
+        for (Entry<String, List<MatchedAdvisor>> entry : decision.getMatchedAdvisors().entrySet()) {
+            if (record.length() > 0)
+                record.append('\n');
+
+            record.append(MATCHED).append('\t').append(key)
+                .append('\t').append(decision.getMatchedAdvisors().size())
+                .append('\t').append(entry.getKey());
+            for (MatchedAdvisor matchedAdvisor : entry.getValue())
+                record.append('\t').append(matchedAdvisor.isGuarded() ? GUARDED : UNGUARDED)
+                    .append('\t').append(matchedAdvisor.getFactoryName())
+                    .append('\t').append(matchedAdvisor.getAdvisorName());
+        }
+        this.addPendingRecord(record.toString());
+    }
+
+    private static String toKey(String classLoaderName, String typeName, String classFileHash) {
+        return classLoaderName + "\t" + typeName + "\t" + classFileHash;
+    }
+
+    private static Decision toDecision(Map<? extends MethodDescription, List<? extends Advisor>> methodDescriptionAdvisors) {
+        if (methodDescriptionAdvisors == null || methodDescriptionAdvisors.isEmpty())
+            return Decision.UNMATCHED;
+
+        Map<String, List<MatchedAdvisor>> matchedAdvisorsMap = new LinkedHashMap<>();
+        for (Entry<? extends MethodDescription, List<? extends Advisor>> entry : methodDescriptionAdvisors.entrySet()) {
+            String methodSignature = entry.getKey().toGenericString();
+            if (isStorable(methodSignature) == false)
+                return null;
+
+            List<MatchedAdvisor> matchedAdvisors = new ArrayList<>(entry.getValue().size());
+            for (Advisor advisor : entry.getValue()) {
+                if (isStorable(advisor.getFactoryName()) == false || isStorable(advisor.getAdvisorName()) == false)
+                    return null;
+
+                matchedAdvisors.add( new MatchedAdvisor(advisor.getFactoryName(), advisor.getAdvisorName(),
+                        advisor instanceof Advisor.GuardedAdvisor) );
+            }
+            matchedAdvisorsMap.put(methodSignature, matchedAdvisors);
+        }
+        return new Decision(matchedAdvisorsMap);
+    }
+
+    private static boolean isStorable(String value) {
+        return value != null && value.indexOf('\t') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0;
+    }
+
+    private void addPendingRecord(String record) {
+        pendingRecords.add(record);
+
+        if (pendingCount.incrementAndGet() >= FLUSH_THRESHOLD)
+            this.flush();
+    }
+
+    private synchronized void flush() {
+        if (pendingRecords.isEmpty())
+            return;
+
+        try (BufferedWriter writer = new BufferedWriter(
+                new OutputStreamWriter(new FileOutputStream(cacheFile, true), StandardCharsets.UTF_8))) {
+            String record = null;
+            while ((record = pendingRecords.poll()) != null) {
+                pendingCount.decrementAndGet();
+
+                writer.write(record);
+                writer.write('\n');
+            }
+        } catch (Throwable t) {
+            if (LOGGER.isWarnEnabled())
+                LOGGER.warn("Could not store matching decisions into '{}'.", cacheFile, t);
+
+            Throwables.throwIfRequired(t);
+        }
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public ResettableClassFileTransformer decorate(ResettableClassFileTransformer classFileTransformer) {
+        return new HashClearingClassFileTransformer(classFileTransformer);
+    }
+
+
+    @Override
+    public void close() throws IOException {
+        this.flush();
+
+        if (LOGGER.isInfoEnabled())
+            LOGGER.info("Closed matching decisions '{}', hits: {}, misses: {}, conflicts: {}.",
+                    cacheFile, hitCount.get(), missCount.get(), conflictedKeys.size());
+    }
+
+
+    static class Decision {
+
+        static final Decision UNMATCHED = new Decision(Collections.emptyMap());
+
+
+        private final Map<String /* methodSignature */, List<MatchedAdvisor>> matchedAdvisors;
+
+        Decision(Map<String /* methodSignature */, List<MatchedAdvisor>> matchedAdvisors) {
+            this.matchedAdvisors = matchedAdvisors;
+        }
+
+        public boolean isMatched() {
+            return matchedAdvisors.size() > 0;
+        }
+
+        public Map<String, List<MatchedAdvisor>> getMatchedAdvisors() {
+            return Collections.unmodifiableMap(matchedAdvisors);
+        }
+
+        @Override
+        public int hashCode() {
+            return matchedAdvisors.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            return obj instanceof Decision && matchedAdvisors.equals( ((Decision) obj).matchedAdvisors );
+        }
+    }
+
+
+    /**
+     * Clear hash of class file exposed by {@link HashingClassFileBufferStrategy} once transformation finished.
+     */
+    private static class HashClearingClassFileTransformer extends ResettableClassFileTransformer.WithDelegation {
+
+        protected HashClearingClassFileTransformer(ResettableClassFileTransformer classFileTransformer) {
+            super(classFileTransformer);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public byte[] transform(ClassLoader loader, String className, Class<?> classBeingRedefined,
+                ProtectionDomain protectionDomain, byte[] classfileBuffer) throws IllegalClassFormatException {
+            try {
+                return classFileTransformer.transform(loader, className, classBeingRedefined, protectionDomain, classfileBuffer);
+            } finally {
+                CLASS_FILE_HASH.remove();
+            }
+        }
+    }
+
+
+    /**
+     * Hash class file being transformed, and expose hash to {@code AopWeaver} of current thread.
+     */
+    static class HashingClassFileBufferStrategy implements ClassFileBufferStrategy {
+
+        private final ClassFileBufferStrategy delegate;
+
+        HashingClassFileBufferStrategy(ClassFileBufferStrategy delegate) {
+            this.delegate = delegate;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public ClassFileLocator resolve(String name, byte[] binaryRepresentation, ClassLoader classLoader,
+                JavaModule module, ProtectionDomain protectionDomain) {
+            setClassFileHash(name, binaryRepresentation == null ? null : hashClassFile(binaryRepresentation));
+
+            return delegate.resolve(name, binaryRepresentation, classLoader, module, protectionDomain);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public TypePool typePool(PoolStrategy poolStrategy, ClassFileLocator classFileLocator,
+                ClassLoader classLoader, String name) {
+            return delegate.typePool(poolStrategy, classFileLocator, classLoader, name);
+        }
+    }
+}
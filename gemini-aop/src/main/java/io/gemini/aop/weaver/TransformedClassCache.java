@@ -0,0 +1,340 @@
+/*
+ * Copyright © 2023, the original author or authors. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gemini.aop.weaver;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.lang.instrument.IllegalClassFormatException;
+import java.security.ProtectionDomain;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.CRC32;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.gemini.aop.AdvisorFactory;
+import io.gemini.aop.AopContext;
+import io.gemini.aop.weaver.WeaverCache.TypeCache;
+import io.gemini.core.util.ClassLoaderUtils;
+import io.gemini.core.util.Throwables;
+import net.bytebuddy.agent.builder.AgentBuilder.TransformerDecorator;
+import net.bytebuddy.agent.builder.ResettableClassFileTransformer;
+import net.bytebuddy.description.type.TypeDescription;
+import net.bytebuddy.dynamic.ClassFileLocator;
+import net.bytebuddy.pool.TypePool;
+
+/**
+ * Persistent transformed class files, keyed by ClassLoader name, type name and original class
+ * file hash, and stored in folder named by fingerprint of matching settings and advice templates.
+ *
+ * <p>Decorated {@code ClassFileTransformer} returns stored class file of loading type directly,
+ * once type is matched again with same methods, which also prepares {@code WeaverCache} for
+ * joinpoint descriptors. Stored class file is verified by checksum, and invalidated on any mismatch.
+ *
+ * @author   martin.liu
+ * @since	 1.0
+ */
+class TransformedClassCache implements TransformerDecorator, Closeable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(TransformedClassCache.class);
+
+    private static final String FOLDER_PREFIX = "transformed-classes-";
+    private static final String FILE_SUFFIX = ".bin";
+
+    private static final int MAGIC = 0x47454d31;
+
+    private static final ThreadLocal<Boolean> TRANSFORMING = new ThreadLocal<>();
+
+
+    private final AopContext aopContext;
+    private final DefaultAopWeaver aopWeaver;
+    private final WeaverCache weaverCache;
+
+    private final File cacheFolder;
+    private final Set<String> cachedFileNames;
+
+    private final AtomicLong hitCount = new AtomicLong(0);
+    private final AtomicLong storeCount = new AtomicLong(0);
+    private final AtomicLong invalidationCount = new AtomicLong(0);
+
+
+    TransformedClassCache(AopContext aopContext, AdvisorFactory advisorFactory, WeaverContext weaverContext,
+            DefaultAopWeaver aopWeaver, WeaverCache weaverCache, String cachePath) {
+        this(aopContext, aopWeaver, weaverCache, 
+                new File(new File(cachePath), FOLDER_PREFIX + fingerprint(aopContext, advisorFactory, weaverContext)) );
+    }
+
+    TransformedClassCache(AopContext aopContext, DefaultAopWeaver aopWeaver, WeaverCache weaverCache, File cacheFolder) {
+        this.aopContext = aopContext;
+        this.aopWeaver = aopWeaver;
+        this.weaverCache = weaverCache;
+
+        this.cacheFolder = cacheFolder;
+
+        this.deleteStaleFolders(cacheFolder.getParentFile());
+        this.cacheFolder.mkdirs();
+
+        // list stored class files once to avoid file system lookup per loading type
+        this.cachedFileNames = ConcurrentHashMap.newKeySet();
+        String[] fileNames = cacheFolder.list();
+        if (fileNames != null)
+            Collections.addAll(cachedFileNames, fileNames);
+
+        if (LOGGER.isInfoEnabled())
+            LOGGER.info("Loaded {} transformed class files from '{}'.", cachedFileNames.size(), cacheFolder);
+    }
+
+    /**
+     * Fingerprint matching settings and advice template class files, which decide transformed class file.
+     */
+    private static String fingerprint(AopContext aopContext, AdvisorFactory advisorFactory, WeaverContext weaverContext) {
+        StringBuilder content = new StringBuilder( MatchingDecisionCache.fingerprint(aopContext, advisorFactory) ).append('\n');
+
+        for (Class<?> adviceClass : new Class<?>[] { weaverContext.getClassInitializerAdvice(), weaverContext.getClassMethodAdvice(),
+                weaverContext.getInstanceConstructorAdvice(), weaverContext.getInstanceMethodAdvice() }) {
+            content.append(adviceClass.getName()).append(' ');
+            try {
+                content.append( MatchingDecisionCache.hashClassFile(ClassFileLocator.ForClassLoader.read(adviceClass)) );
+            } catch (Exception e) {
+                content.append(System.nanoTime());     // never reuse stored class files
+            }
+            content.append('\n');
+        }
+
+        content.append(weaverContext.isIndyDispatch()).append('\n');
+
+        return MatchingDecisionCache.digest(content.toString());
+    }
+
+    private void deleteStaleFolders(File cacheDir) {
+        File[] folders = cacheDir.listFiles(
+                file -> file.isDirectory() && file.getName().startsWith(FOLDER_PREFIX) && file.equals(cacheFolder) == false );
+        if (folders == null)
+            return;
+
+        for (File folder : folders) {
+            File[] files = folder.listFiles();
+            if (files != null)
+                for (File file : files)
+                    file.delete();
+
+            if (folder.delete() && LOGGER.isDebugEnabled())
+                LOGGER.debug("Deleted stale transformed class files '{}'.", folder);
+        }
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public ResettableClassFileTransformer decorate(ResettableClassFileTransformer classFileTransformer) {
+        return new CachingClassFileTransformer(classFileTransformer);
+    }
+
+    private byte[] transform(ResettableClassFileTransformer classFileTransformer, ClassLoader classLoader, String className,
+            Class<?> classBeingRedefined, ProtectionDomain protectionDomain, byte[] classfileBuffer) throws IllegalClassFormatException {
+        // only cache transformation of loading type, and skip nested types loaded during fast path like ByteBuddy
+        if (Boolean.TRUE == TRANSFORMING.get())
+            return null;
+        if (classBeingRedefined != null || className == null || classfileBuffer == null)
+            return classFileTransformer.transform(classLoader, className, classBeingRedefined, protectionDomain, classfileBuffer);
+
+        String typeName = className.replace('/', '.');
+        String classLoaderName = ClassLoaderUtils.getClassLoaderName(classLoader);
+        String classFileHash = MatchingDecisionCache.hashClassFile(classfileBuffer);
+        String fileName = MatchingDecisionCache.digest(classLoaderName + "\n" + typeName + "\n" + classFileHash) + FILE_SUFFIX;
+
+        // 1.return stored class file if type is matched with same methods
+        if (cachedFileNames.contains(fileName)) {
+            byte[] transformedClassFile = this.loadTransformedClassFile(
+                    fileName, classLoaderName, typeName, classFileHash, classLoader, protectionDomain, classfileBuffer);
+            if (transformedClassFile != null)
+                return transformedClassFile;
+        }
+
+        // 2.transform type via ByteBuddy, and store transformed class file
+        byte[] transformedClassFile = classFileTransformer.transform(
+                classLoader, className, classBeingRedefined, protectionDomain, classfileBuffer);
+        if (transformedClassFile != null) {
+            TypeCache typeCache = weaverCache.getTypeCache(classLoader, typeName);
+            if (typeCache != null && typeCache.isMatched() && typeCache.isTransformed())
+                this.storeTransformedClassFile(fileName, classLoaderName, typeName, classFileHash,
+                        typeCache.getMethodSignatures(), transformedClassFile);
+        }
+        return transformedClassFile;
+    }
+
+    private byte[] loadTransformedClassFile(String fileName, String classLoaderName, String typeName, String classFileHash,
+            ClassLoader classLoader, ProtectionDomain protectionDomain, byte[] classfileBuffer) {
+        TRANSFORMING.set(Boolean.TRUE);
+        try {
+            Set<String> methodSignatures = new LinkedHashSet<>();
+            byte[] transformedClassFile = null;
+            try (DataInputStream input = new DataInputStream(
+                    new BufferedInputStream(new FileInputStream(new File(cacheFolder, fileName))))) {
+                if (input.readInt() != MAGIC || classLoaderName.equals(input.readUTF()) == false
+                        || typeName.equals(input.readUTF()) == false || classFileHash.equals(input.readUTF()) == false)
+                    return this.invalidate(fileName, typeName, "key mismatch");
+
+                for (int count = input.readInt(); count > 0; count--)
+                    methodSignatures.add(input.readUTF());
+
+                transformedClassFile = new byte[input.readInt()];
+                input.readFully(transformedClassFile);
+
+                CRC32 crc32 = new CRC32();
+                crc32.update(transformedClassFile, 0, transformedClassFile.length);
+                if (crc32.getValue() != input.readLong())
+                    return this.invalidate(fileName, typeName, "checksum mismatch");
+            }
+
+            MatchingDecisionCache.setClassFileHash(typeName, classFileHash);
+            TypeCache typeCache = this.matchType(typeName, classLoader, protectionDomain, classfileBuffer);
+            if (typeCache == null || typeCache.isMatched() == false)
+                return this.invalidate(fileName, typeName, "type unmatched");
+
+            if (typeCache.getMethodSignatures().equals(methodSignatures) == false)
+                return this.invalidate(fileName, typeName, "methods mismatch");
+
+            typeCache.setTransformed(true);
+            weaverCache.compactTypeCache(typeCache);
+            hitCount.incrementAndGet();
+
+            return transformedClassFile;
+        } catch (Throwable t) {
+            if (LOGGER.isWarnEnabled())
+                LOGGER.warn("Could not load transformed class file of type '{}' loaded by ClassLoader '{}'.",
+                        typeName, classLoader, t);
+
+            Throwables.throwIfRequired(t);
+            return this.invalidate(fileName, typeName, t.getMessage());
+        } finally {
+            TRANSFORMING.remove();
+            MatchingDecisionCache.setClassFileHash(null, null);
+        }
+    }
+
+    /**
+     * Match type parsed from original class file, which prepares {@code WeaverCache}.
+     * 
+     * @return cached matching result, or null if type is unmatched
+     */
+    protected TypeCache matchType(String typeName, ClassLoader classLoader, ProtectionDomain protectionDomain, 
+            byte[] classfileBuffer) {
+        TypePool typePool = aopContext.getTypePoolFactory().getPoolStrategy().typePool(
+                new ClassFileLocator.Compound(
+                        ClassFileLocator.Simple.of(typeName, classfileBuffer),
+                        aopContext.getTypePoolFactory().getLocationStrategy().classFileLocator(classLoader, null) ),
+                classLoader, typeName);
+        TypeDescription typeDescription = typePool.describe(typeName).resolve();
+
+        if (aopWeaver.matches(typeDescription, classLoader, null, null, protectionDomain) == false)
+            return null;
+
+        if (aopContext.isDiagnosticClass(typeName) && LOGGER.isInfoEnabled())
+            LOGGER.info("Matched type '{}' loaded by ClassLoader '{}' to reuse stored class file.", typeName, classLoader);
+
+        return weaverCache.getTypeCache(classLoader, typeName);
+    }
+
+    private byte[] invalidate(String fileName, String typeName, String reason) {
+        invalidationCount.incrementAndGet();
+        cachedFileNames.remove(fileName);
+        new File(cacheFolder, fileName).delete();
+
+        if (LOGGER.isDebugEnabled())
+            LOGGER.debug("Invalidated transformed class file of type '{}' due to {}.", typeName, reason);
+
+        return null;
+    }
+
+    private void storeTransformedClassFile(String fileName, String classLoaderName, String typeName, String classFileHash,
+            Set<String> methodSignatures, byte[] transformedClassFile) {
+        File tempFile = new File(cacheFolder, fileName + "." + Thread.currentThread().getId() + ".tmp");
+        try {
+            try (DataOutputStream output = new DataOutputStream(
+                    new BufferedOutputStream(new FileOutputStream(tempFile)))) {
+                output.writeInt(MAGIC);
+                output.writeUTF(classLoaderName);
+                output.writeUTF(typeName);
+                output.writeUTF(classFileHash);
+
+                output.writeInt(methodSignatures.size());
+                for (String methodSignature : methodSignatures)
+                    output.writeUTF(methodSignature);
+
+                output.writeInt(transformedClassFile.length);
+                output.write(transformedClassFile);
+
+                CRC32 crc32 = new CRC32();
+                crc32.update(transformedClassFile, 0, transformedClassFile.length);
+                output.writeLong(crc32.getValue());
+            }
+
+            // publish complete file only
+            File file = new File(cacheFolder, fileName);
+            if (tempFile.renameTo(file)) {
+                cachedFileNames.add(fileName);
+                storeCount.incrementAndGet();
+            }
+        } catch (Throwable t) {
+            if (LOGGER.isWarnEnabled())
+                LOGGER.warn("Could not store transformed class file of type '{}' into '{}'.", typeName, cacheFolder, t);
+
+            Throwables.throwIfRequired(t);
+        } finally {
+            tempFile.delete();
+        }
+    }
+
+
+    @Override
+    public void close() throws IOException {
+        if (LOGGER.isInfoEnabled())
+            LOGGER.info("Closed transformed class files '{}', hits: {}, stores: {}, invalidations: {}.",
+                    cacheFolder, hitCount.get(), storeCount.get(), invalidationCount.get());
+    }
+
+
+    private class CachingClassFileTransformer extends ResettableClassFileTransformer.WithDelegation {
+
+        protected CachingClassFileTransformer(ResettableClassFileTransformer classFileTransformer) {
+            super(classFileTransformer);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public byte[] transform(ClassLoader loader, String className, Class<?> classBeingRedefined,
+                ProtectionDomain protectionDomain, byte[] classfileBuffer) throws IllegalClassFormatException {
+            return TransformedClassCache.this.transform(
+                    classFileTransformer, loader, className, classBeingRedefined, protectionDomain, classfileBuffer);
+        }
+    }
+}
@@ -20,7 +20,9 @@ import java.io.IOException;
 import java.lang.invoke.MethodHandles.Lookup;
 import java.lang.reflect.AccessibleObject;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
@@ -45,6 +47,7 @@ import io.gemini.core.util.CollectionUtils;
 import io.gemini.core.util.StringUtils;
 import io.gemini.core.util.Throwables;
 import net.bytebuddy.description.method.MethodDescription;
+import net.bytebuddy.description.type.TypeDescription;
 
 class WeaverCache implements Closeable {
 
@@ -52,12 +55,19 @@ class WeaverCache implements Closeable {
 
 
     private final WeaverContext weaverContext;
-    private final ConcurrentMap<ClassLoader, ConcurrentMap<String /* typeName */, TypeCache>> classLoaderTypeCache;
+    private final ConcurrentReferenceHashMap<ClassLoader, ConcurrentMap<String /* typeName */, TypeCache>> classLoaderTypeCache;
+
+    // cache hashes of unmatched type names per ClassLoader under current advisor generation
+    private final ConcurrentReferenceHashMap<ClassLoader, UnmatchedTypes> classLoaderUnmatchedTypes;
+    private volatile int advisorGeneration;
 
 
     WeaverCache(WeaverContext weaverContext) {
         this.weaverContext = weaverContext;
         this.classLoaderTypeCache = new ConcurrentReferenceHashMap<>();
+
+        this.classLoaderUnmatchedTypes = new ConcurrentReferenceHashMap<>();
+        this.advisorGeneration = 0;
     }
 
     public TypeCache createTypeCache(String typeName) {
@@ -87,6 +97,61 @@ class WeaverCache implements Closeable {
     }
 
 
+    /**
+     * Check whether given type was proven unmatched under current advisor generation.
+     *
+     * <p>Type names are recorded as 64-bit hashes, and a hash collision might report matched 
+     * type as unmatched, which is negligible but still possible. So caller should only check 
+     * types being retransformed or redefined, rather than loading types.
+     *
+     * @param classLoader
+     * @param typeName
+     * @return
+     */
+    public boolean isUnmatchedType(ClassLoader classLoader, String typeName) {
+        if (weaverContext.isCacheUnmatchedTypes() == false)
+            return false;
+
+        UnmatchedTypes unmatchedTypes = this.classLoaderUnmatchedTypes.get( ClassLoaderUtils.maskNull(classLoader) );
+        return unmatchedTypes != null && unmatchedTypes.contains(advisorGeneration, typeName);
+    }
+
+    public void putUnmatchedType(ClassLoader classLoader, String typeName) {
+        if (weaverContext.isCacheUnmatchedTypes() == false)
+            return;
+
+        this.classLoaderUnmatchedTypes
+                .computeIfAbsent(
+                        ClassLoaderUtils.maskNull(classLoader), 
+                        cl -> new UnmatchedTypes() 
+                )
+                .add(advisorGeneration, typeName);
+    }
+
+    /**
+     * Discard all recorded unmatched types once advisors are changed.
+     */
+    public void invalidateUnmatchedTypes() {
+        this.advisorGeneration++;
+
+        if (LOGGER.isDebugEnabled())
+            LOGGER.debug("Invalidated unmatched types of '{}' ClassLoaders with advisor generation '{}'.", 
+                    classLoaderUnmatchedTypes.size(), advisorGeneration);
+    }
+
+
+    /**
+     * Compact matching result of transformed type if enabled, since only method signatures and 
+     * advisors are required to create joinpoint descriptors afterwards.
+     */
+    public void compactTypeCache(TypeCache typeCache) {
+        if (weaverContext.isCompactTypeCache() == false || typeCache == null)
+            return;
+
+        typeCache.compact();
+    }
+
+
     public Joinpoints.Descriptor getJoinpointDescriptor(Lookup lookup, String methodSignature) {
         Class<?> thisClass = lookup.lookupClass();
         TypeCache typeCache = getTypeCache(thisClass.getClassLoader(), thisClass.getName());
@@ -97,6 +162,13 @@ class WeaverCache implements Closeable {
     }
 
 
+    /**
+     * Purge cached types and unmatched types of reclaimed ClassLoaders, and return number of purged entries.
+     */
+    public int purgeStaleEntries() {
+        return this.classLoaderTypeCache.purgeStaleEntries() + this.classLoaderUnmatchedTypes.purgeStaleEntries();
+    }
+
     @Override
     public void close() throws IOException {
         for (ConcurrentMap<String /* typeName */, TypeCache> typeCaches : this.classLoaderTypeCache.values()) {
@@ -105,6 +177,93 @@ class WeaverCache implements Closeable {
         }
 
         this.classLoaderTypeCache.clear();
+
+        this.invalidateUnmatchedTypes();
+        this.classLoaderUnmatchedTypes.clear();
+    }
+
+
+    /**
+     * Open addressing hash set of 64-bit type name hashes, which is far more compact than 
+     * set of type names, and is reset lazily once advisor generation is changed.
+     */
+    static class UnmatchedTypes {
+
+        private static final int INITIAL_CAPACITY = 256;
+
+        private int generation;
+        private long[] hashes;
+        private int size;
+
+
+        UnmatchedTypes() {
+            this.hashes = new long[INITIAL_CAPACITY];
+            this.size = 0;
+        }
+
+        public synchronized boolean contains(int generation, String typeName) {
+            if (this.generation != generation || size == 0)
+                return false;
+
+            long hash = hash(typeName);
+            int mask = hashes.length - 1;
+            for (int pos = (int) (hash ^ (hash >>> 32)) & mask; hashes[pos] != 0; pos = (pos + 1) & mask) {
+                if (hashes[pos] == hash)
+                    return true;
+            }
+            return false;
+        }
+
+        public synchronized void add(int generation, String typeName) {
+            if (this.generation != generation) {
+                this.generation = generation;
+                this.hashes = new long[INITIAL_CAPACITY];
+                this.size = 0;
+            }
+
+            // keep load factor under 0.5
+            if ((size + 1) * 2 > hashes.length)
+                this.resize();
+
+            if (insert(hashes, hash(typeName)))
+                size++;
+        }
+
+        public synchronized int size() {
+            return size;
+        }
+
+        private void resize() {
+            long[] hashes = new long[this.hashes.length * 2];
+            for (long hash : this.hashes) {
+                if (hash != 0)
+                    insert(hashes, hash);
+            }
+            this.hashes = hashes;
+        }
+
+        private static boolean insert(long[] hashes, long hash) {
+            int mask = hashes.length - 1;
+            int pos = (int) (hash ^ (hash >>> 32)) & mask;
+            for ( ; hashes[pos] != 0; pos = (pos + 1) & mask) {
+                if (hashes[pos] == hash)
+                    return false;
+            }
+            hashes[pos] = hash;
+            return true;
+        }
+
+        /**
+         * FNV-1a 64-bit hash of type name, and 0 is reserved as empty slot.
+         */
+        static long hash(String typeName) {
+            long hash = 0xcbf29ce484222325L;
+            for (int i = 0; i < typeName.length(); i++) {
+                hash ^= typeName.charAt(i);
+                hash *= 0x100000001b3L;
+            }
+            return hash == 0 ? 1 : hash;
+        }
     }
 
 
@@ -113,8 +272,11 @@ class WeaverCache implements Closeable {
         private final String typeName;
 
         // cache matching result per ClassLoader and Type in local storage for future transformation
-        private Map<String /* methodSignature */, MethodDescription> methodSignatureMap;
-        private Map<String /* methodSignature */, List<? extends Advisor>> methodSignatureAdvisorsMap;
+        private volatile Map<String /* methodSignature */, MethodDescription> methodSignatureMap;
+        private volatile Map<String /* methodSignature */, List<? extends Advisor>> methodSignatureAdvisorsMap;
+
+        // compacted matching result after transformation, which releases type descriptions
+        private volatile Map<String /* methodSignature */, CompactMethod> compactMethodMap;
 
         // cache transformation result per ClassLoader and Type in local storage
         private AtomicBoolean transformed;
@@ -128,6 +290,7 @@ class WeaverCache implements Closeable {
 
             this.methodSignatureMap = Collections.emptyMap();
             this.methodSignatureAdvisorsMap = Collections.emptyMap();
+            this.compactMethodMap = null;
 
             this.transformed = new AtomicBoolean(false);
 
@@ -155,12 +318,68 @@ class WeaverCache implements Closeable {
             return typeName;
         }
 
-        public Map<String, MethodDescription> getMethodSignatureMap() {
-            return Collections.unmodifiableMap( methodSignatureMap );
+        public Set<String> getMethodSignatures() {
+            Map<String, MethodDescription> methodSignatureMap = this.methodSignatureMap;
+            return Collections.unmodifiableSet( 
+                    methodSignatureMap != null ? methodSignatureMap.keySet() : compactMethodMap.keySet() );
+        }
+
+        /**
+         * Return matched method descriptions, which are resolved from given type description 
+         * again if this cache was compacted.
+         */
+        public Map<String, MethodDescription> getMethodSignatureMap(TypeDescription typeDescription) {
+            Map<String, MethodDescription> methodSignatureMap = this.methodSignatureMap;
+            if (methodSignatureMap != null)
+                return Collections.unmodifiableMap( methodSignatureMap );
+
+            Map<String, CompactMethod> compactMethodMap = this.compactMethodMap;
+            methodSignatureMap = new LinkedHashMap<>(compactMethodMap.size());
+            for (MethodDescription methodDescription : typeDescription.getDeclaredMethods()) {
+                String methodSignature = methodDescription.toGenericString();
+                if (compactMethodMap.containsKey(methodSignature))
+                    methodSignatureMap.put(methodSignature, methodDescription);
+            }
+
+            if (methodSignatureMap.size() < compactMethodMap.size()) {
+                MethodDescription typeInitializer = new MethodDescription.Latent.TypeInitializer(typeDescription);
+                String methodSignature = typeInitializer.toGenericString();
+                if (compactMethodMap.containsKey(methodSignature))
+                    methodSignatureMap.put(methodSignature, typeInitializer);
+            }
+            return methodSignatureMap;
         }
 
         public boolean isMatched() {
-            return methodSignatureMap.size() > 0;
+            Map<String, MethodDescription> methodSignatureMap = this.methodSignatureMap;
+            return methodSignatureMap != null ? methodSignatureMap.size() > 0 : compactMethodMap.size() > 0;
+        }
+
+        public boolean isCompacted() {
+            return methodSignatureMap == null;
+        }
+
+        /**
+         * Replace matched method descriptions and advisors with compact method signatures and 
+         * advisor arrays required by joinpoint descriptor creation, so that type descriptions
+         * and their TypePools are not reachable from this cache after transformation.
+         */
+        synchronized void compact() {
+            Map<String, MethodDescription> methodSignatureMap = this.methodSignatureMap;
+            if (methodSignatureMap == null || methodSignatureMap.isEmpty())
+                return;
+
+            Map<String /* methodSignature */, CompactMethod> compactMethodMap = new HashMap<>(
+                    (int) (methodSignatureMap.size() / 0.75f) + 1);
+            for (Entry<String, MethodDescription> entry : methodSignatureMap.entrySet()) {
+                List<? extends Advisor> advisors = this.methodSignatureAdvisorsMap.get(entry.getKey());
+                compactMethodMap.put(entry.getKey(), new CompactMethod(entry.getValue(), advisors));
+            }
+
+            // publish compacted result before releasing type descriptions
+            this.compactMethodMap = compactMethodMap;
+            this.methodSignatureMap = null;
+            this.methodSignatureAdvisorsMap = null;
         }
 
         public boolean isTransformed() {
@@ -185,15 +404,21 @@ class WeaverCache implements Closeable {
             try {
                 ThreadContext.setContextClassLoader(joinpointClassLoader);  // set joinpointClassLoader
 
+                Map<String, MethodDescription> methodSignatureMap = this.methodSignatureMap;
+                Map<String, List<? extends Advisor>> methodSignatureAdvisorsMap = this.methodSignatureAdvisorsMap;
+                CompactMethod compactMethod = methodSignatureMap == null || methodSignatureAdvisorsMap == null
+                        ? compactMethodMap.get(methodSignature)
+                        : new CompactMethod(methodSignatureMap.get(methodSignature), methodSignatureAdvisorsMap.get(methodSignature));
+
                 List<? extends Advisor> advisorChain = processAdvisors( 
                         joinpointClassLoader, methodSignature,
-                        this.methodSignatureAdvisorsMap.get(methodSignature) );
+                        Arrays.asList(compactMethod.getAdvisors()) );
 
                 Descriptor joinpointDescriptor = CollectionUtils.isEmpty(advisorChain)
                         ? null
                         : this.createJoinpointDescriptor(
                                 lookup, methodSignature, thisClass, 
-                                this.methodSignatureMap.get(methodSignature), advisorChain);
+                                compactMethod, advisorChain);
 
                 if ((weaverContext.getAopContext().getDiagnosticLevel().isDebugEnabled() 
                         || weaverContext.getAopContext().isDiagnosticClass(typeName)) 
@@ -266,20 +491,23 @@ class WeaverCache implements Closeable {
         }
 
         private Joinpoints.Descriptor createJoinpointDescriptor(Lookup lookup, 
-                String methodSignature, Class<?> thisClass, MethodDescription methodDescription,
+                String methodSignature, Class<?> thisClass, CompactMethod compactMethod,
                 List<? extends Advisor> advisorChain) throws ClassNotFoundException, NoSuchMethodException, SecurityException {
-            if (methodDescription.isTypeInitializer()) {
-                return new Joinpoints.Descriptor(lookup, methodSignature, null, advisorChain);
+            boolean diagnosticClass = weaverContext.getAopContext().isDiagnosticClass(typeName);
+            if (compactMethod.isTypeInitializer()) {
+                return new Joinpoints.Descriptor(lookup, methodSignature, null, advisorChain, diagnosticClass, weaverContext.getAopContext().getAopSwitch());
             }
 
-            AccessibleObject accessibleObject = ClassUtils.getAccessibleObject(thisClass, methodDescription);
+            AccessibleObject accessibleObject = ClassUtils.getAccessibleObject(thisClass, 
+                    compactMethod.isConstructor(), compactMethod.getMethodName(), compactMethod.getParameterTypeNames());
             String accessibleName = methodSignature;
-            return new Joinpoints.Descriptor(lookup, accessibleName, accessibleObject, advisorChain);
+            return new Joinpoints.Descriptor(lookup, accessibleName, accessibleObject, advisorChain, diagnosticClass, weaverContext.getAopContext().getAopSwitch());
         }
 
         void clear() {
-            this.methodSignatureMap.clear();
-            this.methodSignatureAdvisorsMap.clear();
+            this.methodSignatureMap = Collections.emptyMap();
+            this.methodSignatureAdvisorsMap = Collections.emptyMap();
+            this.compactMethodMap = null;
             this.joinpointDescriptors.clear();
         }
 
@@ -289,4 +517,57 @@ class WeaverCache implements Closeable {
             return typeName;
         }
     }
+
+
+    /**
+     * Compact method metadata, which keeps method name and erased parameter type names rather 
+     * than method description.
+     */
+    static class CompactMethod {
+
+        private static final String[] NO_PARAMETER_TYPES = new String[0];
+        private static final Advisor[] NO_ADVISORS = new Advisor[0];
+
+        private final boolean typeInitializer;
+        private final boolean constructor;
+        private final String methodName;
+        private final String[] parameterTypeNames;
+
+        private final Advisor[] advisors;
+
+
+        CompactMethod(MethodDescription methodDescription, List<? extends Advisor> advisors) {
+            this.typeInitializer = methodDescription.isTypeInitializer();
+            this.constructor = methodDescription.isConstructor();
+            this.methodName = methodDescription.getName();
+
+            int size = methodDescription.getParameters().size();
+            String[] parameterTypeNames = size == 0 ? NO_PARAMETER_TYPES : new String[size];
+            for (int index = 0; index < size; index++)
+                parameterTypeNames[index] = methodDescription.getParameters().get(index).getType().asErasure().getTypeName().intern();
+            this.parameterTypeNames = parameterTypeNames;
+
+            this.advisors = CollectionUtils.isEmpty(advisors) ? NO_ADVISORS : advisors.toArray(NO_ADVISORS);
+        }
+
+        public boolean isTypeInitializer() {
+            return typeInitializer;
+        }
+
+        public boolean isConstructor() {
+            return constructor;
+        }
+
+        public String getMethodName() {
+            return methodName;
+        }
+
+        public String[] getParameterTypeNames() {
+            return parameterTypeNames;
+        }
+
+        public Advisor[] getAdvisors() {
+            return advisors;
+        }
+    }
 }
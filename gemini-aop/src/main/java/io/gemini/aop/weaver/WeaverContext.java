@@ -72,9 +72,23 @@ class WeaverContext {
     private Class<?> instanceConstructorAdvice;
     private Class<?> instanceMethodAdvice;
 
+    private boolean indyDispatch;
+
+    private boolean cacheUnmatchedTypes;
+    private boolean compactTypeCache;
+    private boolean prepareAdvisorsInBackground;
+
+    private boolean persistMatchingDecisions;
+    private String matchingDecisionPath;
+
+    private boolean persistTransformedClasses;
+    private String transformedClassPath;
+
 
     // weaver installer settings
     private RedefinitionStrategy redefinitionStrategy;
+    private int redefinitionThreads;
+    private int redefinitionBatchSize;
 
 
     public WeaverContext(AopContext aopContext) {
@@ -187,6 +201,37 @@ class WeaverContext {
 
             settingkey = "aop.weaver.instanceMethodAdvice";
             this.instanceMethodAdvice = configView.getAsClass(settingkey, InstanceMethodAdvice.class);
+
+            settingkey = "aop.weaver.indyDispatch";
+            this.indyDispatch = configView.getAsBoolean(settingkey, true);
+        }
+
+        // load type cache and advisor preparation settings
+        {
+            this.cacheUnmatchedTypes = configView.getAsBoolean("aop.weaver.cacheUnmatchedTypes", true);
+            this.compactTypeCache = configView.getAsBoolean("aop.weaver.compactTypeCache", true);
+            this.prepareAdvisorsInBackground = configView.getAsBoolean("aop.weaver.prepareAdvisorsInBackground", false);
+        }
+
+        // load matching decision and transformed class cache settings
+        {
+            this.persistMatchingDecisions = configView.getAsBoolean("aop.weaver.persistMatchingDecisions", false);
+            this.matchingDecisionPath = configView.getAsString("aop.weaver.matchingDecisionPath", "");
+            if (persistMatchingDecisions && StringUtils.hasText(matchingDecisionPath) == false) {
+                if (LOGGER.isWarnEnabled())
+                    LOGGER.warn("Ignored setting 'aop.weaver.persistMatchingDecisions' since 'aop.weaver.matchingDecisionPath' is empty. \n");
+
+                this.persistMatchingDecisions = false;
+            }
+
+            this.persistTransformedClasses = configView.getAsBoolean("aop.weaver.persistTransformedClasses", false);
+            this.transformedClassPath = configView.getAsString("aop.weaver.transformedClassPath", "");
+            if (persistTransformedClasses && StringUtils.hasText(transformedClassPath) == false) {
+                if (LOGGER.isWarnEnabled())
+                    LOGGER.warn("Ignored setting 'aop.weaver.persistTransformedClasses' since 'aop.weaver.transformedClassPath' is empty. \n");
+
+                this.persistTransformedClasses = false;
+            }
         }
 
         // load weaver installer settings
@@ -202,6 +247,12 @@ class WeaverContext {
 
                 this.redefinitionStrategy = RedefinitionStrategy.RETRANSFORMATION;
             }
+
+            int threads = configView.getAsInteger("aop.weaver.redefinitionThreads", 0);
+            this.redefinitionThreads = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+
+            int batchSize = configView.getAsInteger("aop.weaver.redefinitionBatchSize", 20);
+            this.redefinitionBatchSize = batchSize > 0 ? batchSize : 20;
         }
     }
 
@@ -250,8 +301,49 @@ class WeaverContext {
         return instanceMethodAdvice;
     }
 
+    public boolean isIndyDispatch() {
+        return indyDispatch;
+    }
+
+
+    public boolean isCacheUnmatchedTypes() {
+        return cacheUnmatchedTypes;
+    }
+
+    public boolean isCompactTypeCache() {
+        return compactTypeCache;
+    }
+
+    public boolean isPrepareAdvisorsInBackground() {
+        return prepareAdvisorsInBackground;
+    }
+
+    public boolean isPersistMatchingDecisions() {
+        return persistMatchingDecisions;
+    }
+
+    public String getMatchingDecisionPath() {
+        return matchingDecisionPath;
+    }
+
+    public boolean isPersistTransformedClasses() {
+        return persistTransformedClasses;
+    }
+
+    public String getTransformedClassPath() {
+        return transformedClassPath;
+    }
+
 
     public RedefinitionStrategy getRedefinitionStrategy() {
         return redefinitionStrategy;
     }
+
+    public int getRedefinitionThreads() {
+        return redefinitionThreads;
+    }
+
+    public int getRedefinitionBatchSize() {
+        return redefinitionBatchSize;
+    }
 }
@@ -34,11 +34,15 @@ public class ClassInitializerAdvice {
 
     @Advice.OnMethodEnter(skipOn = Advice.OnNonDefaultValue.class, inline = true, prependLineNumber = true)
     public static boolean beforeInitializer(
-            @DescriptorOffset.Descriptor Object descriptor,
+            @DispatcherOffset.Dispatcher Dispatcher<Object, Throwable> joinpointDispatcher,
             @Advice.Local(value = Constants.LOCAL_VARIABLE_ADVICE_DISPATCHER) Dispatcher<Object, Throwable> dispatcher
             ) throws Throwable {
+        // 0.check global switch before boxing arguments and creating dispatcher
+        if (BootstrapAdvice.Bridger.isAopEnabled() == false)
+            return false;
+
         // 1.create dispatcher
-        dispatcher = BootstrapAdvice.Bridger.dispacther(descriptor, null, Dispatcher.ARGUMENTS);
+        dispatcher = joinpointDispatcher;
         if (dispatcher == null)
             // ignore instrumentation and execute instrumented method
             return false;
@@ -34,12 +34,16 @@ public class ClassMethodAdvice {
 
     @Advice.OnMethodEnter(skipOn = Advice.OnNonDefaultValue.class, inline = true, prependLineNumber = true)
     public static boolean beforeStaticMethod(
-            @DescriptorOffset.Descriptor Object descriptor,
+            @DispatcherOffset.Dispatcher Dispatcher<Object, Throwable> joinpointDispatcher,
             @Advice.AllArguments(readOnly = false, typing = Assigner.Typing.DYNAMIC) Object[] arguments,
             @Advice.Local(value = Constants.LOCAL_VARIABLE_ADVICE_DISPATCHER) Dispatcher<Object, Throwable> dispatcher
             ) throws Throwable {
+        // 0.check global switch before boxing arguments and creating dispatcher
+        if (BootstrapAdvice.Bridger.isAopEnabled() == false)
+            return false;
+
         // 1.create dispatcher
-        dispatcher = BootstrapAdvice.Bridger.dispacther(descriptor, null, arguments);
+        dispatcher = joinpointDispatcher;
         if (dispatcher == null)
             // ignore instrumentation and execute instrumented method
             return false;
@@ -47,8 +51,10 @@ public class ClassMethodAdvice {
         // 2.invoke BeforeAdvices
         dispatcher.dispatch();
 
-        // 3.replace arguments
-        arguments = dispatcher.getArguments();
+        // 3.replace arguments if modified by BeforeAdvices, 
+        //   inlined arguments are only unboxed here and never boxed since they are not read
+        if (dispatcher.hasModifiedArguments())
+            arguments = dispatcher.getArguments();
 
         return dispatcher.hasAdviceThrowing() || dispatcher.hasAdviceReturning();
     }
@@ -72,6 +78,10 @@ public class ClassMethodAdvice {
             return;
         }
 
+        // skip boxing target returning if no AfterAdvices
+        if (dispatcher.hasAfterAdvices() == false)
+            return;
+
         // 2.set target returning
         dispatcher.setThrowing(throwing);
         dispatcher.setReturning(returning);
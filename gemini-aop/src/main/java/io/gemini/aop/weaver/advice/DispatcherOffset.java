@@ -0,0 +1,225 @@
+/*
+ * Copyright © 2023, the original author or authors. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gemini.aop.weaver.advice;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import io.gemini.aop.java.lang.BootstrapAdvice;
+import io.gemini.aop.java.lang.BootstrapClassConsumer;
+import net.bytebuddy.asm.Advice.OffsetMapping;
+import net.bytebuddy.asm.Advice.OffsetMapping.ForStackManipulation;
+import net.bytebuddy.description.annotation.AnnotationDescription.Loadable;
+import net.bytebuddy.description.method.MethodDescription;
+import net.bytebuddy.description.method.ParameterDescription;
+import net.bytebuddy.description.method.ParameterDescription.InDefinedShape;
+import net.bytebuddy.description.type.TypeDefinition;
+import net.bytebuddy.description.type.TypeDescription;
+import net.bytebuddy.description.type.TypeDescription.Generic;
+import net.bytebuddy.implementation.bytecode.StackManipulation;
+import net.bytebuddy.implementation.bytecode.assign.Assigner;
+import net.bytebuddy.implementation.bytecode.collection.ArrayFactory;
+import net.bytebuddy.implementation.bytecode.constant.NullConstant;
+import net.bytebuddy.implementation.bytecode.member.MethodInvocation;
+import net.bytebuddy.implementation.bytecode.member.MethodVariableAccess;
+import net.bytebuddy.utility.JavaConstant;
+
+
+/**
+ * Bind {@link BootstrapAdvice.Dispatcher} instance created with thisObject and arguments of joinpoint.
+ * 
+ * <p>{@link ForRegularInvocation} fetches joinpoint descriptor and creates dispatcher via 
+ * {@link BootstrapAdvice.Bridger}, while {@link ForDynamicInvocation} links per joinpoint 
+ * INDY CallSite which creates dispatcher directly and could be inlined by JIT.
+ *
+ * @author   martin.liu
+ * @since	 1.0
+ */
+public interface DispatcherOffset {
+
+
+    @Target( {ElementType.PARAMETER} )
+    @Retention(RetentionPolicy.RUNTIME)
+    public @interface Dispatcher {
+
+    }
+
+
+    abstract class AbstractBase implements OffsetMapping.Factory<Dispatcher> {
+
+        protected static final Generic OBJECT = TypeDefinition.Sort.describe(Object.class);
+        protected static final Generic STRING = TypeDefinition.Sort.describe(String.class);
+
+        protected final String methodSignature;
+        protected final MethodDescription methodDescription;
+
+
+        public AbstractBase(String methodSignature, MethodDescription methodDescription) {
+            this.methodSignature = methodSignature;
+            this.methodDescription = methodDescription;
+        }
+
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public Class<Dispatcher> getAnnotationType() {
+            return Dispatcher.class;
+        }
+
+
+        protected List<JavaConstant> doGetMethodArguments(String methodSignature) {
+            return Arrays.asList( 
+                    JavaConstant.Simple.wrap(methodSignature) );
+        }
+
+        /**
+         * Load this object, or null for static method and uninitialized constructor.
+         * 
+         * @return
+         */
+        protected StackManipulation loadThisObject() {
+            return methodDescription.isStatic() || methodDescription.isConstructor()
+                    ? NullConstant.INSTANCE
+                    : MethodVariableAccess.loadThis();
+        }
+
+        /**
+         * Load boxed arguments as Object array.
+         * 
+         * @return
+         */
+        protected StackManipulation loadArguments() {
+            List<StackManipulation> arguments = new ArrayList<>(methodDescription.getParameters().size());
+            for (ParameterDescription parameter : methodDescription.getParameters()) {
+                arguments.add( new StackManipulation.Compound(
+                        MethodVariableAccess.load(parameter), 
+                        Assigner.DEFAULT.assign(parameter.getType(), OBJECT, Assigner.Typing.STATIC) ) );
+            }
+
+            return ArrayFactory.forType(OBJECT).withValues(arguments);
+        }
+    }
+
+
+    /**
+     * Box arguments per invocation, since {@link BootstrapAdvice.Bridger} takes arguments array.
+     * 
+     * <p>Boxing is deferred to linked method handle chain only by {@link ForDynamicInvocation}.
+     */
+    @BootstrapClassConsumer
+    class ForRegularInvocation extends AbstractBase {
+
+        private static final MethodDescription.InDefinedShape CREATE_DESCRIPTOR_METHOD
+                = new MethodDescription.ForLoadedMethod( BootstrapAdvice.Bridger.createDescriptorMethod() );
+
+        private static final MethodDescription.InDefinedShape DISPATCHER_METHOD
+                = new MethodDescription.ForLoadedMethod( BootstrapAdvice.Bridger.dispatcherMethod() );
+
+
+        public ForRegularInvocation(String methodSignature, MethodDescription methodDescription) {
+            super(methodSignature, methodDescription);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public OffsetMapping make(InDefinedShape target, Loadable<Dispatcher> annotation,
+                AdviceType adviceType) {
+            List<JavaConstant> methodArguments = doGetMethodArguments(methodSignature);
+
+            List<StackManipulation> createDispatcherMethod = new ArrayList<StackManipulation>(1 + 1 + 1 + 1 + 1 + 1);
+            createDispatcherMethod.add( MethodInvocation.lookup() );
+            createDispatcherMethod.add( 
+                    ArrayFactory.forType(STRING).withValues(
+                            methodArguments.stream()
+                            .map( arg -> arg.toStackManipulation() )
+                            .collect(Collectors.toList())
+                    )
+            );
+            createDispatcherMethod.add( MethodInvocation.invoke(CREATE_DESCRIPTOR_METHOD) );
+            createDispatcherMethod.add( loadThisObject() );
+            createDispatcherMethod.add( loadArguments() );
+            createDispatcherMethod.add( MethodInvocation.invoke(DISPATCHER_METHOD) );
+
+            return new ForStackManipulation(
+                    new StackManipulation.Compound(createDispatcherMethod),
+                    DISPATCHER_METHOD.getReturnType(), 
+                    target.getType(), 
+                    Assigner.Typing.STATIC
+            );
+        }
+    }
+
+
+    @BootstrapClassConsumer
+    class ForDynamicInvocation extends AbstractBase {
+
+        private static final MethodDescription.InDefinedShape CREATE_DISPATCHER_INDY_BSM 
+                = new MethodDescription.ForLoadedMethod( BootstrapAdvice.Bridger.createDispatcherIndyBSM() );
+
+        private static final TypeDescription DISPATCHER_TYPE = TypeDescription.ForLoadedType.of(BootstrapAdvice.Dispatcher.class);
+
+
+        public ForDynamicInvocation(String methodSignature, MethodDescription methodDescription) {
+            super(methodSignature, methodDescription);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public OffsetMapping make(InDefinedShape target, Loadable<Dispatcher> annotation,
+                AdviceType adviceType) {
+            List<JavaConstant> dispatcherIndyBSMArgs = doGetMethodArguments(methodSignature);
+
+            // pass typed arguments to CallSite, and defer boxing to linked method handle chain
+            List<StackManipulation> loadArguments = new ArrayList<>(methodDescription.getParameters().size() + 1);
+            List<TypeDescription> argumentTypes = new ArrayList<>(methodDescription.getParameters().size() + 1);
+
+            loadArguments.add( loadThisObject() );
+            argumentTypes.add( OBJECT.asErasure() );
+            for (ParameterDescription parameter : methodDescription.getParameters()) {
+                loadArguments.add( MethodVariableAccess.load(parameter) );
+                argumentTypes.add( parameter.getType().asErasure() );
+            }
+
+            StackManipulation createDispatcher = new StackManipulation.Compound(
+                    new StackManipulation.Compound(loadArguments),
+                    MethodInvocation.invoke(CREATE_DISPATCHER_INDY_BSM).dynamic(
+                        CREATE_DISPATCHER_INDY_BSM.getName(),
+                        DISPATCHER_TYPE,
+                        argumentTypes,
+                        dispatcherIndyBSMArgs)
+            );
+
+            return new ForStackManipulation(
+                    createDispatcher, 
+                    DISPATCHER_TYPE.asGenericType(), 
+                    target.getType(), 
+                    Assigner.Typing.STATIC
+            );
+        }
+    }
+}
@@ -33,12 +33,16 @@ public class InstanceConstructorAdvice {
 
     @Advice.OnMethodEnter(inline = true, prependLineNumber = true)
     public static void beforeConstructor(
-            @DescriptorOffset.Descriptor Object descriptor,
+            @DispatcherOffset.Dispatcher Dispatcher<Object, Throwable> joinpointDispatcher,
             @Advice.AllArguments(readOnly = false, typing = Assigner.Typing.DYNAMIC) Object[] arguments,
             @Advice.Local(value = Constants.LOCAL_VARIABLE_ADVICE_DISPATCHER) Dispatcher<Object, Throwable> dispatcher
             ) throws Throwable {
+        // 0.check global switch before boxing arguments and creating dispatcher
+        if (BootstrapAdvice.Bridger.isAopEnabled() == false)
+            return;
+
         // 1.create dispatcher
-        dispatcher = BootstrapAdvice.Bridger.dispacther(descriptor, null, arguments);
+        dispatcher = joinpointDispatcher;
         if (dispatcher == null)
             // ignore instrumentation and execute instrumented method
             return;
@@ -50,8 +54,9 @@ public class InstanceConstructorAdvice {
         if (dispatcher.hasAdviceThrowing())
             throw dispatcher.getAdviceThrowing();
 
-        // 3.replace arguments
-        arguments = dispatcher.getArguments();
+        // 3.replace arguments if modified by BeforeAdvices
+        if (dispatcher.hasModifiedArguments())
+            arguments = dispatcher.getArguments();
     }
 
 
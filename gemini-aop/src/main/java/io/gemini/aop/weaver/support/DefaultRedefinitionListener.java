@@ -34,6 +34,7 @@ public class DefaultRedefinitionListener implements AgentBuilder.RedefinitionStr
     private static final int DEFAULT = -1;
 
     private long startedAt = DEFAULT;
+    private long batchStartedAt = DEFAULT;
 
     private final DiagnosticLevel diagnosticLevel;
     private final AopMetrics.BootstraperMetrics bootstraperMetrics;
@@ -46,10 +47,16 @@ public class DefaultRedefinitionListener implements AgentBuilder.RedefinitionStr
 
     @Override
     public void onBatch(int index, List<Class<?>> batch, List<Class<?>> types) {
+        long now = System.nanoTime();
         if (this.startedAt == DEFAULT) {
-            this.startedAt = System.nanoTime();
+            this.startedAt = now;
         }
 
+        // accumulate retransformation time of previous batch
+        if (this.batchStartedAt != DEFAULT)
+            this.bootstraperMetrics.incrTypeRetransformingTime(now - batchStartedAt);
+        this.batchStartedAt = now;
+
         /* do nothing */
         if (diagnosticLevel.isSimpleEnabled() && LOGGER.isInfoEnabled())
             LOGGER.info("^Redefining {}/{} loaded types in batch {}.", 
@@ -76,7 +83,12 @@ public class DefaultRedefinitionListener implements AgentBuilder.RedefinitionStr
         if (startedAt == DEFAULT)
             return;
 
-        long time = System.nanoTime() - startedAt;
+        long now = System.nanoTime();
+        if (this.batchStartedAt != DEFAULT)
+            this.bootstraperMetrics.incrTypeRetransformingTime(now - batchStartedAt);
+        this.batchStartedAt = DEFAULT;
+
+        long time = now - startedAt;
 
         /* do nothing */
         if (types.size() > 0 && LOGGER.isInfoEnabled())
@@ -0,0 +1,262 @@
+/*
+ * Copyright © 2023, the original author or authors. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gemini.aop.weaver.support;
+
+import java.lang.instrument.Instrumentation;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.gemini.aop.AopMetrics.BootstraperMetrics;
+import io.gemini.core.DiagnosticLevel;
+import io.gemini.core.concurrent.DaemonThreadFactory;
+import io.gemini.core.util.Assert;
+import io.gemini.core.util.Throwables;
+import net.bytebuddy.agent.builder.AgentBuilder.CircularityLock;
+import net.bytebuddy.agent.builder.AgentBuilder.DescriptionStrategy;
+import net.bytebuddy.agent.builder.AgentBuilder.LocationStrategy;
+import net.bytebuddy.agent.builder.AgentBuilder.PoolStrategy;
+import net.bytebuddy.agent.builder.AgentBuilder.RawMatcher;
+import net.bytebuddy.agent.builder.AgentBuilder.RedefinitionStrategy.DiscoveryStrategy;
+import net.bytebuddy.description.type.TypeDescription;
+import net.bytebuddy.pool.TypePool;
+import net.bytebuddy.utility.JavaModule;
+
+
+/**
+ * Match discovered loaded types across worker threads before ByteBuddy collects them for 
+ * redefinition, and only pass matched types to ByteBuddy.
+ *
+ * <p>Each worker claims next chunk of types from shared cursor, and chunk size is adapted to
+ * observed per-type matching cost, so that expensive types are spread across workers while 
+ * cheap types are claimed in bulk. Matching result is cached by matcher, and ByteBuddy 
+ * collector re-checks matched types cheaply.
+ *
+ * @author   martin.liu
+ * @since	 1.0
+ */
+public class ParallelMatchingDiscoveryStrategy implements DiscoveryStrategy {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ParallelMatchingDiscoveryStrategy.class);
+
+    private static final int INITIAL_CHUNK_SIZE = 32;
+    private static final int MIN_CHUNK_SIZE = 4;
+    private static final int MAX_CHUNK_SIZE = 1024;
+    private static final long TARGET_CHUNK_NANOS = 20_000_000L;
+
+    private static final byte UNKNOWN = 0;
+    private static final byte MATCHED = 1;
+    private static final byte UNMATCHED = 2;
+
+
+    private final DiscoveryStrategy delegatee;
+    private final RawMatcher matcher;
+
+    private final PoolStrategy poolStrategy;
+    private final LocationStrategy locationStrategy;
+    private final DescriptionStrategy descriptionStrategy;
+
+    private final int threads;
+
+    private final DiagnosticLevel diagnosticLevel;
+    private final BootstraperMetrics bootstraperMetrics;
+
+
+    public ParallelMatchingDiscoveryStrategy(DiscoveryStrategy delegatee, RawMatcher matcher, 
+            PoolStrategy poolStrategy, LocationStrategy locationStrategy, DescriptionStrategy descriptionStrategy, 
+            int threads, DiagnosticLevel diagnosticLevel, BootstraperMetrics bootstraperMetrics) {
+        Assert.notNull(delegatee, "'delegatee' must not be null.");
+        this.delegatee = delegatee;
+
+        Assert.notNull(matcher, "'matcher' must not be null.");
+        this.matcher = matcher;
+
+        this.poolStrategy = poolStrategy;
+        this.locationStrategy = locationStrategy;
+        this.descriptionStrategy = descriptionStrategy;
+
+        this.threads = threads;
+
+        this.diagnosticLevel = diagnosticLevel == null ? DiagnosticLevel.DISABLED : diagnosticLevel;
+        this.bootstraperMetrics = bootstraperMetrics;
+    }
+
+    @Override
+    public Iterable<Iterable<Class<?>>> resolve(Instrumentation instrumentation) {
+        Iterable<Iterable<Class<?>>> discoveredTypes = delegatee.resolve(instrumentation);
+        if (threads <= 1)
+            return discoveredTypes;
+
+        return () -> new Iterator<Iterable<Class<?>>>() {
+
+            private final Iterator<Iterable<Class<?>>> iterator = discoveredTypes.iterator();
+
+            @Override
+            public boolean hasNext() {
+                return iterator.hasNext();
+            }
+
+            @Override
+            public Iterable<Class<?>> next() {
+                return matchTypes(instrumentation, iterator.next());
+            }
+        };
+    }
+
+    private List<Class<?>> matchTypes(Instrumentation instrumentation, Iterable<Class<?>> discoveredTypes) {
+        long startedAt = System.nanoTime();
+
+        // filter types as ByteBuddy collector
+        List<Class<?>> types = new ArrayList<>();
+        for (Class<?> type : discoveredTypes) {
+            if (type == null || type.isArray() || type.isPrimitive() 
+                    || type.getName().indexOf('/') != -1 || instrumentation.isModifiableClass(type) == false)
+                continue;
+
+            types.add(type);
+        }
+
+        byte[] results = new byte[types.size()];
+        new Matching(types, results).execute();
+
+        // leave types not matched by interrupted or failed workers to ByteBuddy
+        List<Class<?>> matchedTypes = new ArrayList<>();
+        for (int index = 0; index < results.length; index++) {
+            if (results[index] != UNMATCHED)
+                matchedTypes.add(types.get(index));
+        }
+
+        long time = System.nanoTime() - startedAt;
+        if (bootstraperMetrics != null)
+            bootstraperMetrics.incrTypeMatchingTime(time, types.size());
+
+        if (diagnosticLevel.isSimpleEnabled() && LOGGER.isInfoEnabled())
+            LOGGER.info("$Took '{}' seconds to match {}/{} loaded types with {} threads.", 
+                    time / 1e9, matchedTypes.size(), types.size(), threads);
+
+        return matchedTypes;
+    }
+
+    private boolean matches(Class<?> type) {
+        ClassLoader classLoader = type.getClassLoader();
+        try {
+            JavaModule javaModule = JavaModule.ofType(type);
+            TypePool typePool = poolStrategy.typePool(locationStrategy.classFileLocator(classLoader, javaModule), classLoader);
+            TypeDescription typeDescription = descriptionStrategy.apply(
+                    TypeDescription.ForLoadedType.getName(type), type, typePool, 
+                    CircularityLock.Inactive.INSTANCE, classLoader, javaModule);
+
+            return matcher.matches(typeDescription, classLoader, javaModule, type, type.getProtectionDomain());
+        } catch (Throwable t) {
+            if (LOGGER.isDebugEnabled())
+                LOGGER.debug("Could not match loaded type '{}' in parallel, and leave it to ByteBuddy.", type, t);
+
+            Throwables.throwIfRequired(t);
+            return true;
+        }
+    }
+
+
+    private class Matching {
+
+        private final List<Class<?>> types;
+        private final byte[] results;
+
+        private final AtomicInteger cursor = new AtomicInteger(0);
+        private final AtomicLong matchingNanos = new AtomicLong(0);
+        private final AtomicLong matchingCount = new AtomicLong(0);
+
+
+        private Matching(List<Class<?>> types, byte[] results) {
+            this.types = types;
+            this.results = results;
+        }
+
+        private void execute() {
+            int workers = Math.min(threads, types.size() / MIN_CHUNK_SIZE + 1);
+            if (workers <= 1) {
+                this.work();
+                return;
+            }
+
+            ExecutorService executorService = Executors.newFixedThreadPool(workers - 1, 
+                    new DaemonThreadFactory("RedefinitionMatcher"));
+            try {
+                List<Future<?>> futures = new ArrayList<>(workers - 1);
+                for (int i = 0; i < workers - 1; i++)
+                    futures.add( executorService.submit(this::work) );
+
+                // calling thread works as well
+                this.work();
+
+                for (Future<?> future : futures) {
+                    try {
+                        future.get();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        break;
+                    } catch (Exception e) {
+                        if (LOGGER.isWarnEnabled())
+                            LOGGER.warn("Could not match loaded types in parallel.", e);
+                    }
+                }
+            } finally {
+                executorService.shutdownNow();
+            }
+        }
+
+        private void work() {
+            int size = types.size();
+            while (Thread.currentThread().isInterrupted() == false) {
+                int chunkSize = chunkSize(size);
+                int from = cursor.getAndAdd(chunkSize);
+                if (from >= size)
+                    return;
+
+                int to = Math.min(size, from + chunkSize);
+                long startedAt = System.nanoTime();
+
+                for (int index = from; index < to; index++)
+                    results[index] = matches(types.get(index)) ? MATCHED : UNMATCHED;
+
+                matchingNanos.addAndGet(System.nanoTime() - startedAt);
+                matchingCount.addAndGet(to - from);
+            }
+        }
+
+        /**
+         * Size chunk to take about target time by average matching cost, and shrink it near 
+         * the tail to keep workers balanced.
+         */
+        private int chunkSize(int size) {
+            long count = matchingCount.get();
+            int chunkSize = count == 0 
+                    ? INITIAL_CHUNK_SIZE 
+                    : (int) Math.min(MAX_CHUNK_SIZE, TARGET_CHUNK_NANOS / Math.max(1, matchingNanos.get() / count));
+
+            int remaining = (size - cursor.get()) / (threads * 2);
+            return Math.max(MIN_CHUNK_SIZE, Math.min(chunkSize, remaining));
+        }
+    }
+}
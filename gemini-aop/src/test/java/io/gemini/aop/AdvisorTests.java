@@ -0,0 +1,92 @@
+/*
+ * Copyright © 2023, the original author or authors. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gemini.aop;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+import io.gemini.aop.Advisor.PointcutAdvisor;
+import io.gemini.api.annotation.Recyclable;
+import io.gemini.api.aop.Advice;
+import io.gemini.api.aop.Joinpoint.MutableJoinpoint;
+import io.gemini.api.aop.Pointcut;
+import net.bytebuddy.matcher.ElementMatchers;
+
+/**
+ *
+ *
+ * @author   martin.liu
+ * @since	 1.0
+ */
+public class AdvisorTests {
+
+    @Test
+    public void recycleAdvice() throws Exception {
+        Advisor advisor = createAdvisor(true, Recyclable_Advice.class);
+
+        // per-instance @Recyclable advice is reused per thread
+        Advice advice = advisor.getAdvice();
+        assertThat(advice).isInstanceOf(Recyclable_Advice.class);
+        assertThat(advisor.getAdvice()).isSameAs(advice);
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Advice otherAdvice = executor.submit(advisor::getAdvice).get(5, TimeUnit.SECONDS);
+            assertThat(otherAdvice).isNotNull().isNotSameAs(advice);
+            assertThat(executor.submit(advisor::getAdvice).get(5, TimeUnit.SECONDS)).isSameAs(otherAdvice);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void instantiateAdvice() {
+        // per-instance advice without @Recyclable is instantiated per call
+        Advisor perInstanceAdvisor = createAdvisor(true, Before_Advice.class);
+        assertThat(perInstanceAdvisor.getAdvice()).isNotNull().isNotSameAs(perInstanceAdvisor.getAdvice());
+
+        // singleton advice is shared
+        Advisor singletonAdvisor = createAdvisor(false, Recyclable_Advice.class);
+        assertThat(singletonAdvisor.getAdvice()).isNotNull().isSameAs(singletonAdvisor.getAdvice());
+    }
+
+
+    private static Advisor createAdvisor(boolean perInstance, Class<? extends Before_Advice> adviceClass) {
+        return new PointcutAdvisor.Default(
+                "factory", "advisor", perInstance, 1.0d,
+                () -> adviceClass, 
+                () -> adviceClass == Recyclable_Advice.class ? new Recyclable_Advice() : new Before_Advice(),
+                new Pointcut.Default(ElementMatchers.any(), ElementMatchers.any()),
+                0);
+    }
+
+
+    public static class Before_Advice extends Advice.AbstractBefore<Object, RuntimeException> {
+
+        @Override
+        public void before(MutableJoinpoint<Object, RuntimeException> joinpoint) throws Throwable {
+        }
+    }
+
+    @Recyclable
+    public static class Recyclable_Advice extends Before_Advice {
+    }
+}
@@ -0,0 +1,93 @@
+/*
+ * Copyright © 2023, the original author or authors. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gemini.aop.factory;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.lang.ref.WeakReference;
+import java.net.URL;
+import java.net.URLClassLoader;
+
+import org.junit.jupiter.api.Test;
+
+import io.gemini.aop.factory.DefaultAdvisorFactory.AdvisorCreation;
+import io.gemini.core.concurrent.ConcurrentReferenceHashMap;
+
+/**
+ *
+ *
+ * @author   martin.liu
+ * @since	 1.0
+ */
+public class DefaultAdvisorFactoryTests {
+
+    @Test
+    public void releaseCreatorThread() throws Exception {
+        ConcurrentReferenceHashMap<ClassLoader, AdvisorCreation> classLoaderAdvisorMap = new ConcurrentReferenceHashMap<>();
+        WeakReference<ClassLoader> classLoaderRef = createAdvisorsInThread(classLoaderAdvisorMap, false);
+
+        // completed creation refers to neither creating thread, nor its context ClassLoader
+        for (int i = 0; i < 20 && classLoaderRef.get() != null; i++) {
+            System.gc();
+            Thread.sleep(50);
+        }
+        assertThat(classLoaderRef.get()).isNull();
+
+        classLoaderAdvisorMap.purgeStaleEntries();
+        assertThat(classLoaderAdvisorMap).isEmpty();
+    }
+
+    @Test
+    public void releaseFailedCreatorThread() throws Exception {
+        ConcurrentReferenceHashMap<ClassLoader, AdvisorCreation> classLoaderAdvisorMap = new ConcurrentReferenceHashMap<>();
+        WeakReference<ClassLoader> classLoaderRef = createAdvisorsInThread(classLoaderAdvisorMap, true);
+
+        for (int i = 0; i < 20 && classLoaderRef.get() != null; i++) {
+            System.gc();
+            Thread.sleep(50);
+        }
+        assertThat(classLoaderRef.get()).isNull();
+
+        classLoaderAdvisorMap.purgeStaleEntries();
+        assertThat(classLoaderAdvisorMap).isEmpty();
+    }
+
+    private static WeakReference<ClassLoader> createAdvisorsInThread(
+            ConcurrentReferenceHashMap<ClassLoader, AdvisorCreation> classLoaderAdvisorMap, boolean failed) throws Exception {
+        ClassLoader joinpointClassLoader = new URLClassLoader(new URL[0]);
+
+        AdvisorCreation[] creations = new AdvisorCreation[1];
+        Thread thread = new Thread( () -> {
+            AdvisorCreation creation = new AdvisorCreation();
+            assertThat(creation.isCreator(Thread.currentThread())).isTrue();
+
+            if (failed)
+                creation.completeExceptionally(new IllegalStateException());
+            else
+                creation.complete(null);
+            creations[0] = creation;
+        } );
+        thread.setContextClassLoader(joinpointClassLoader);
+        thread.start();
+        thread.join();
+
+        assertThat(creations[0].isDone()).isTrue();
+        assertThat(creations[0].isCreator(thread)).isFalse();
+        classLoaderAdvisorMap.put(joinpointClassLoader, creations[0]);
+
+        return new WeakReference<>(joinpointClassLoader);
+    }
+}
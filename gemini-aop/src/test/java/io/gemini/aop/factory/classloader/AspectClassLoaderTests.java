@@ -0,0 +1,58 @@
+/*
+ * Copyright © 2023, the original author or authors. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gemini.aop.factory.classloader;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+import io.gemini.aop.factory.classloader.AspectClassLoader.NegativeCache;
+
+/**
+ *
+ *
+ * @author   martin.liu
+ * @since	 1.0
+ */
+public class AspectClassLoaderTests {
+
+    @Test
+    public void cacheMissedNames() {
+        NegativeCache negativeCache = new NegativeCache();
+        assertThat(negativeCache.contains("io.gemini.test.MissedType")).isFalse();
+
+        negativeCache.add("io.gemini.test.MissedType");
+        assertThat(negativeCache.contains("io.gemini.test.MissedType")).isTrue();
+        assertThat(negativeCache.contains("io.gemini.test.OtherType")).isFalse();
+    }
+
+    @Test
+    public void expireMissedNames() throws Exception {
+        NegativeCache negativeCache = new NegativeCache(TimeUnit.MILLISECONDS.toNanos(10));
+
+        negativeCache.add("io.gemini.test.MissedType");
+        assertThat(negativeCache.contains("io.gemini.test.MissedType")).isTrue();
+
+        // joinpoint ClassLoader might define missed type later
+        Thread.sleep(50);
+        assertThat(negativeCache.contains("io.gemini.test.MissedType")).isFalse();
+
+        negativeCache.add("io.gemini.test.MissedType");
+        assertThat(negativeCache.contains("io.gemini.test.MissedType")).isTrue();
+    }
+}
@@ -0,0 +1,125 @@
+/*
+ * Copyright © 2023, the original author or authors. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gemini.aop.integration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.lang.management.ManagementFactory;
+
+import javax.management.Attribute;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.junit.jupiter.api.Test;
+
+import io.gemini.aop.test.AbstractIntegrationTests;
+import io.gemini.aop.test.ExecutionMemento;
+import io.gemini.aop.test.ExecutionMemento.AdviceMethod;
+import io.gemini.api.aop.Advice;
+import io.gemini.api.aop.Joinpoint.MutableJoinpoint;
+import io.gemini.api.aop.annotation.Advisor;
+import io.gemini.api.aop.annotation.ExprPointcut;
+
+/**
+ *
+ *
+ * @author   martin.liu
+ * @since	 1.0
+ */
+public class Advisor_31AdvisorSwitching_Tests extends AbstractIntegrationTests {
+
+    // AopSwitch is defined by AopClassLoader, so it is turned off and on via its MBean
+    private static final String AOP_SWITCH_OBJECT_NAME = "io.gemini.aop:type=AopSwitch";
+
+
+    @Test
+    public void testAopSwitch() throws Exception {
+        MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+        ObjectName objectName = new ObjectName(AOP_SWITCH_OBJECT_NAME);
+
+        AopSwitch_Object object = new AopSwitch_Object();
+        try {
+            assertInvoked(object, AopSwitch_BeforeAdvice.AOP_SWITCH_BEFORE_ADVICE, true);
+
+            mBeanServer.setAttribute(objectName, new Attribute("AopEnabled", false));
+            assertInvoked(object, AopSwitch_BeforeAdvice.AOP_SWITCH_BEFORE_ADVICE, false);
+
+            // relink dispatcher once SwitchPoint is invalidated again
+            mBeanServer.setAttribute(objectName, new Attribute("AopEnabled", true));
+            assertInvoked(object, AopSwitch_BeforeAdvice.AOP_SWITCH_BEFORE_ADVICE, true);
+        } finally {
+            mBeanServer.setAttribute(objectName, new Attribute("AopEnabled", true));
+        }
+    }
+
+    @Test
+    public void testAdvisorSwitch() throws Exception {
+        MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+        ObjectName objectName = new ObjectName(AOP_SWITCH_OBJECT_NAME);
+
+        String advisorName = AopSwitch_BeforeAdvice.class.getName();
+        String[] signature = new String[] { String.class.getName(), boolean.class.getName() };
+
+        AopSwitch_Object object = new AopSwitch_Object();
+        try {
+            mBeanServer.invoke(objectName, "setAdvisorEnabled", new Object[] { advisorName, false }, signature);
+            assertThat( (String[]) mBeanServer.getAttribute(objectName, "DisabledAdvisors") ).contains(advisorName);
+            assertInvoked(object, AopSwitch_BeforeAdvice.AOP_SWITCH_BEFORE_ADVICE, false);
+
+            mBeanServer.invoke(objectName, "setAdvisorEnabled", new Object[] { advisorName, true }, signature);
+            assertInvoked(object, AopSwitch_BeforeAdvice.AOP_SWITCH_BEFORE_ADVICE, true);
+        } finally {
+            mBeanServer.invoke(objectName, "setAdvisorEnabled", new Object[] { advisorName, true }, signature);
+        }
+    }
+
+    private static void assertInvoked(AopSwitch_Object object, String adviceMethod, boolean invoked) {
+        ExecutionMemento.clearMemento();
+
+        assertThat(object.switchAop(1L)).isEqualTo(1L);
+
+        AdviceMethod beforeAdviceMethodInvoker = ExecutionMemento.getAdviceMethodInvoker(adviceMethod);
+        if (invoked) {
+            assertThat(beforeAdviceMethodInvoker).isNotNull();
+            assertThat(beforeAdviceMethodInvoker.isInvoked()).isTrue();
+        } else {
+            assertThat(beforeAdviceMethodInvoker).isNull();
+        }
+
+        ExecutionMemento.clearMemento();
+    }
+
+    public static class AopSwitch_Object {
+
+        public long switchAop(long input) {
+            return input;
+        }
+    }
+
+    @Advisor
+    @ExprPointcut(pointcutExpression = "execution(public long io.gemini.aop.integration.Advisor_31AdvisorSwitching_Tests$AopSwitch_Object.switchAop(long))")
+    public static class AopSwitch_BeforeAdvice extends Advice.AbstractBefore<Long, RuntimeException> {
+
+        private static final String AOP_SWITCH_BEFORE_ADVICE = AopSwitch_BeforeAdvice.class.getName() + ".before";
+
+        @Override
+        public void before(MutableJoinpoint<Long, RuntimeException> joinpoint) throws Throwable {
+            ExecutionMemento.putAdviceMethodInvoker(AOP_SWITCH_BEFORE_ADVICE,
+                    new AdviceMethod()
+                        .withInvoked(true) );
+        }
+    }
+}
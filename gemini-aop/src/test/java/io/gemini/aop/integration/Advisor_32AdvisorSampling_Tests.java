@@ -0,0 +1,129 @@
+/*
+ * Copyright © 2023, the original author or authors. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gemini.aop.integration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+import io.gemini.aop.test.AbstractIntegrationTests;
+import io.gemini.aop.test.ExecutionMemento;
+import io.gemini.aop.test.ExecutionMemento.AdviceMethod;
+import io.gemini.api.aop.Advice;
+import io.gemini.api.aop.Joinpoint.MutableJoinpoint;
+import io.gemini.api.aop.annotation.Advisor;
+import io.gemini.api.aop.annotation.ExprPointcut;
+
+/**
+ *
+ *
+ * @author   martin.liu
+ * @since	 1.0
+ */
+public class Advisor_32AdvisorSampling_Tests extends AbstractIntegrationTests {
+
+    private static final String SAMPLING_POINTCUT =
+            "execution(public long io.gemini.aop.integration.Advisor_32AdvisorSampling_Tests$Sampling_Object.sample(long))";
+
+
+    @Test
+    public void testSamplingRate() {
+        Sampling_Object object = new Sampling_Object();
+
+        for (int i = 0; i < 10; i++) {
+            ExecutionMemento.clearMemento();
+
+            assertThat(object.sample(1L)).isEqualTo(1L);
+
+            {
+                AdviceMethod beforeAdviceMethodInvoker = ExecutionMemento.getAdviceMethodInvoker(AlwaysSampled_BeforeAdvice.SAMPLING_BEFORE_ADVICE);
+                assertThat(beforeAdviceMethodInvoker).isNotNull();
+                assertThat(beforeAdviceMethodInvoker.isInvoked()).isTrue();
+            }
+
+            assertThat(ExecutionMemento.getAdviceMethodInvoker(NeverSampled_BeforeAdvice.SAMPLING_BEFORE_ADVICE)).isNull();
+            assertThat(ExecutionMemento.getAdviceMethodInvoker(NeverSampled_ExprPointcutBeforeAdvice.SAMPLING_BEFORE_ADVICE)).isNull();
+
+            // advisor with illegal sampling rate is ignored
+            assertThat(ExecutionMemento.getAdviceMethodInvoker(IllegalSampled_BeforeAdvice.SAMPLING_BEFORE_ADVICE)).isNull();
+        }
+
+        ExecutionMemento.clearMemento();
+    }
+
+    public static class Sampling_Object {
+
+        public long sample(long input) {
+            return input;
+        }
+    }
+
+    @Advisor(samplingRate = 1.0d)
+    @ExprPointcut(pointcutExpression = SAMPLING_POINTCUT)
+    public static class AlwaysSampled_BeforeAdvice extends Advice.AbstractBefore<Long, RuntimeException> {
+
+        private static final String SAMPLING_BEFORE_ADVICE = AlwaysSampled_BeforeAdvice.class.getName() + ".before";
+
+        @Override
+        public void before(MutableJoinpoint<Long, RuntimeException> joinpoint) throws Throwable {
+            ExecutionMemento.putAdviceMethodInvoker(SAMPLING_BEFORE_ADVICE,
+                    new AdviceMethod()
+                        .withInvoked(true) );
+        }
+    }
+
+    @Advisor(samplingRate = 0.0d)
+    @ExprPointcut(pointcutExpression = SAMPLING_POINTCUT)
+    public static class NeverSampled_BeforeAdvice extends Advice.AbstractBefore<Long, RuntimeException> {
+
+        private static final String SAMPLING_BEFORE_ADVICE = NeverSampled_BeforeAdvice.class.getName() + ".before";
+
+        @Override
+        public void before(MutableJoinpoint<Long, RuntimeException> joinpoint) throws Throwable {
+            ExecutionMemento.putAdviceMethodInvoker(SAMPLING_BEFORE_ADVICE,
+                    new AdviceMethod()
+                        .withInvoked(true) );
+        }
+    }
+
+    @Advisor
+    @ExprPointcut(pointcutExpression = SAMPLING_POINTCUT, samplingRate = 0.0d)
+    public static class NeverSampled_ExprPointcutBeforeAdvice extends Advice.AbstractBefore<Long, RuntimeException> {
+
+        private static final String SAMPLING_BEFORE_ADVICE = NeverSampled_ExprPointcutBeforeAdvice.class.getName() + ".before";
+
+        @Override
+        public void before(MutableJoinpoint<Long, RuntimeException> joinpoint) throws Throwable {
+            ExecutionMemento.putAdviceMethodInvoker(SAMPLING_BEFORE_ADVICE,
+                    new AdviceMethod()
+                        .withInvoked(true) );
+        }
+    }
+
+    @Advisor(samplingRate = 2.0d)
+    @ExprPointcut(pointcutExpression = SAMPLING_POINTCUT)
+    public static class IllegalSampled_BeforeAdvice extends Advice.AbstractBefore<Long, RuntimeException> {
+
+        private static final String SAMPLING_BEFORE_ADVICE = IllegalSampled_BeforeAdvice.class.getName() + ".before";
+
+        @Override
+        public void before(MutableJoinpoint<Long, RuntimeException> joinpoint) throws Throwable {
+            ExecutionMemento.putAdviceMethodInvoker(SAMPLING_BEFORE_ADVICE,
+                    new AdviceMethod()
+                        .withInvoked(true) );
+        }
+    }
+}
@@ -174,6 +174,7 @@ public class MutableJoinpoint_03TargetArgument_Tests extends AbstractIntegration
 
         private static final String TAGRET_ARGUMENTS = "targetArguments";
         private static final String MODIFY_TARGET_ARGUMENTS = "modifyTargetArguments";
+        private static final String SET_TARGET_ARGUMENT = "setTargetArgument";
 
         public static List<Integer> targetArguments(List<Integer> input) {
             ExecutionMemento.putTargetMethodInvoker(TAGRET_ARGUMENTS, 
@@ -190,6 +191,14 @@ public class MutableJoinpoint_03TargetArgument_Tests extends AbstractIntegration
                         .withVArgumnts(l, input) );
             return input;
         }
+
+        public long setTargetArgument(long l) {
+            ExecutionMemento.putTargetMethodInvoker(SET_TARGET_ARGUMENT, 
+                    new TargetMethod()
+                        .withInvoked(true)
+                        .withVArgumnts(l) );
+            return l;
+        }
     }
 
     @Aspect
@@ -305,6 +314,7 @@ public class MutableJoinpoint_03TargetArgument_Tests extends AbstractIntegration
 
         private static final String TAGRET_ARGUMENTS = "targetArguments";
         private static final String MODIFY_TARGET_ARGUMENTS = "modifyTargetArguments";
+        private static final String SET_TARGET_ARGUMENT = "setTargetArgument";
 
         public InstanceConstructor_Object(List<Integer> targetArguments) {
             ExecutionMemento.putTargetMethodInvoker(TAGRET_ARGUMENTS, 
@@ -430,12 +440,30 @@ public class MutableJoinpoint_03TargetArgument_Tests extends AbstractIntegration
             assertThat(targetMethodInvoker.isInvoked()).isTrue();
             assertThat(targetMethodInvoker.getArguments()).isEqualTo(expected);
         }
+
+        {
+            long l = 1L;
+            thisObject.setTargetArgument(l);
+
+            Object[] expected = new Object[] {l + 1};
+
+            AdviceMethod beforeAdviceMethodInvoker = ExecutionMemento.getAdviceMethodInvoker(InstanceMethod_Aspect.SET_TARGET_ARGUMENT_BEFORE_ADVICE);
+            assertThat(beforeAdviceMethodInvoker).isNotNull();
+            assertThat(beforeAdviceMethodInvoker.isInvoked()).isTrue();
+            assertThat(beforeAdviceMethodInvoker.getArguments()).isEqualTo(expected);
+
+            TargetMethod targetMethodInvoker = ExecutionMemento.getTargetMethodInvoker(InstanceMethod_Object.SET_TARGET_ARGUMENT);
+            assertThat(targetMethodInvoker).isNotNull();
+            assertThat(targetMethodInvoker.isInvoked()).isTrue();
+            assertThat(targetMethodInvoker.getArguments()).isEqualTo(expected);
+        }
     }
 
     public static class InstanceMethod_Object {
 
         private static final String TAGRET_ARGUMENTS = "targetArguments";
         private static final String MODIFY_TARGET_ARGUMENTS = "modifyTargetArguments";
+        private static final String SET_TARGET_ARGUMENT = "setTargetArgument";
 
         public List<Integer> targetArguments(List<Integer> input) {
             ExecutionMemento.putTargetMethodInvoker(TAGRET_ARGUMENTS, 
@@ -452,6 +480,14 @@ public class MutableJoinpoint_03TargetArgument_Tests extends AbstractIntegration
                         .withVArgumnts(l, input) );
             return input;
         }
+
+        public long setTargetArgument(long l) {
+            ExecutionMemento.putTargetMethodInvoker(SET_TARGET_ARGUMENT, 
+                    new TargetMethod()
+                        .withInvoked(true)
+                        .withVArgumnts(l) );
+            return l;
+        }
     }
 
     @Aspect
@@ -510,5 +546,22 @@ public class MutableJoinpoint_03TargetArgument_Tests extends AbstractIntegration
                         .withInvoked(true)
                         .withArgumnts(joinpoint.getArguments()) );
         }
+
+
+        private static final String SET_TARGET_ARGUMENT_POINTCUT = 
+                "execution(public * io.gemini.aop.integration.MutableJoinpoint_03TargetArgument_Tests$InstanceMethod_Object.setTargetArgument(..))";
+
+        private static final String SET_TARGET_ARGUMENT_BEFORE_ADVICE = "setTargetArgument_before";
+
+        @Before(SET_TARGET_ARGUMENT_POINTCUT)
+        public void setTargetArgument_before(MutableJoinpoint<Long, RuntimeException> joinpoint) {
+            long l = joinpoint.getLongArgument(0);
+            joinpoint.setLongArgument(0, l + 1);
+
+            ExecutionMemento.putAdviceMethodInvoker(SET_TARGET_ARGUMENT_BEFORE_ADVICE, 
+                    new AdviceMethod()
+                        .withInvoked(true)
+                        .withArgumnts(joinpoint.getArguments()) );
+        }
     }
 }
@@ -185,4 +185,50 @@ public class Pointcut_11AspectJExprMatching_Tests extends AbstractIntegrationTes
                         .withInvoked(true) );
         }
     }
-}
\ No newline at end of file
+
+
+    @Test
+    public void testRuntimeResidue() {
+        RuntimeResidue_Object object = new RuntimeResidue_Object();
+
+        ExecutionMemento.clearMemento();
+        object.matchRuntimeResidue(1L);
+
+        assertThat(ExecutionMemento.getAdviceMethodInvoker(RuntimeResidue_Aspect.MATCH_RUNTIME_RESIDUE_AFTER_ADVICE)).isNull();
+
+
+        object.matchRuntimeResidue("input");
+
+        {
+            AdviceMethod afterAdviceMethodInvoker = ExecutionMemento.getAdviceMethodInvoker(RuntimeResidue_Aspect.MATCH_RUNTIME_RESIDUE_AFTER_ADVICE);
+            assertThat(afterAdviceMethodInvoker).isNotNull();
+            assertThat(afterAdviceMethodInvoker.isInvoked()).isTrue();
+        }
+
+        ExecutionMemento.clearMemento();
+    }
+
+    private static class RuntimeResidue_Object {
+
+        public Object matchRuntimeResidue(Object input) {
+            return input;
+        }
+    }
+
+    @Aspect
+    public static class RuntimeResidue_Aspect {
+
+        private static final String MATCH_RUNTIME_RESIDUE_POINTCUT = 
+                "execution(!private java.lang.Object io.gemini.aop.integration.Pointcut_11AspectJExprMatching_Tests$RuntimeResidue_Object.matchRuntimeResidue(java.lang.Object))"
+                + " && args(java.lang.String)";
+
+        private static final String MATCH_RUNTIME_RESIDUE_AFTER_ADVICE = RuntimeResidue_Aspect.class.getName() + ".matchRuntimeResidue_afterAdvice";
+
+        @After(MATCH_RUNTIME_RESIDUE_POINTCUT)
+        public void matchRuntimeResidue_afterAdvice(MutableJoinpoint<Object, RuntimeException> joinpoint) {
+            ExecutionMemento.putAdviceMethodInvoker(MATCH_RUNTIME_RESIDUE_AFTER_ADVICE, 
+                    new AdviceMethod()
+                        .withInvoked(true) );
+        }
+    }
+}
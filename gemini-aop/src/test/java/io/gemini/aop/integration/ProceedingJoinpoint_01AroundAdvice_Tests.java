@@ -0,0 +1,379 @@
+/*
+ * Copyright © 2023, the original author or authors. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gemini.aop.integration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import io.gemini.aop.test.AbstractIntegrationTests;
+import io.gemini.aop.test.ExecutionMemento;
+import io.gemini.aop.test.ExecutionMemento.AdviceMethod;
+import io.gemini.api.aop.Advice;
+import io.gemini.api.aop.Joinpoint.MutableJoinpoint;
+import io.gemini.api.aop.Joinpoint.ProceedingJoinpoint;
+import io.gemini.api.aop.annotation.Advisor;
+import io.gemini.api.aop.annotation.ExprPointcut;
+
+/**
+ *
+ *
+ * @author   martin.liu
+ * @since	 1.0
+ */
+public class ProceedingJoinpoint_01AroundAdvice_Tests extends AbstractIntegrationTests {
+
+    private static final String OUTER_AROUND_ADVICE = "outerAroundAdvice";
+    private static final String INNER_AROUND_ADVICE = "innerAroundAdvice";
+    private static final String BEFORE_ADVICE = "beforeAdvice";
+
+
+    // advice classes are defined by AspectClassLoader, so invocations are counted via shared ExecutionMemento
+    static void countInvocation(String adviceMethod) {
+        ExecutionMemento.putAdviceMethodInvoker(adviceMethod, 
+                new AdviceMethod()
+                    .withInvoked(true)
+                    .withReturning(getInvocationCount(adviceMethod) + 1) );
+    }
+
+    static int getInvocationCount(String adviceMethod) {
+        AdviceMethod adviceMethodInvoker = ExecutionMemento.getAdviceMethodInvoker(adviceMethod);
+        return adviceMethodInvoker == null ? 0 : (Integer) adviceMethodInvoker.getReturning();
+    }
+
+
+    @Test
+    public void testMultipleAroundAdvices() {
+        ExecutionMemento.clearMemento();
+        MultipleAround_Object.TARGET_COUNTER.set(0);
+
+        long returning = new MultipleAround_Object().multipleAround(1L);
+
+        assertThat(returning).isEqualTo(111L);
+        assertThat(MultipleAround_Object.TARGET_COUNTER.get()).isEqualTo(1);
+        assertThat(getInvocationCount(OUTER_AROUND_ADVICE)).isEqualTo(1);
+        assertThat(getInvocationCount(INNER_AROUND_ADVICE)).isEqualTo(1);
+        assertThat(getInvocationCount(BEFORE_ADVICE)).isEqualTo(1);
+    }
+
+    public static class MultipleAround_Object {
+
+        private static final AtomicInteger TARGET_COUNTER = new AtomicInteger();
+
+        public long multipleAround(long input) {
+            TARGET_COUNTER.incrementAndGet();
+            return input;
+        }
+    }
+
+    private static final String MULTIPLE_AROUND_POINTCUT =
+            "execution(public long io.gemini.aop.integration.ProceedingJoinpoint_01AroundAdvice_Tests$MultipleAround_Object.multipleAround(long))";
+
+    @Advisor(order = 1)
+    @ExprPointcut(pointcutExpression = MULTIPLE_AROUND_POINTCUT)
+    public static class MultipleAround_OuterAdvice implements Advice.Around<Long, RuntimeException> {
+
+        @Override
+        public Long invoke(ProceedingJoinpoint<Long, RuntimeException> joinpoint) throws RuntimeException {
+            countInvocation(OUTER_AROUND_ADVICE);
+            return joinpoint.proceed() + 10L;
+        }
+    }
+
+    @Advisor(order = 2)
+    @ExprPointcut(pointcutExpression = MULTIPLE_AROUND_POINTCUT)
+    public static class MultipleAround_InnerAdvice implements Advice.Around<Long, RuntimeException> {
+
+        @Override
+        public Long invoke(ProceedingJoinpoint<Long, RuntimeException> joinpoint) throws RuntimeException {
+            countInvocation(INNER_AROUND_ADVICE);
+            return joinpoint.proceed() + 100L;
+        }
+    }
+
+    @Advisor
+    @ExprPointcut(pointcutExpression = MULTIPLE_AROUND_POINTCUT)
+    public static class MultipleAround_BeforeAdvice extends Advice.AbstractBefore<Long, RuntimeException> {
+
+        @Override
+        public void before(MutableJoinpoint<Long, RuntimeException> joinpoint) throws Throwable {
+            countInvocation(BEFORE_ADVICE);
+        }
+    }
+
+
+    @Test
+    public void testRetry() {
+        ExecutionMemento.clearMemento();
+        Retry_Object.TARGET_COUNTER.set(0);
+
+        long returning = new Retry_Object().retry(1L);
+
+        assertThat(returning).isEqualTo(3L);
+        assertThat(Retry_Object.TARGET_COUNTER.get()).isEqualTo(3);
+        assertThat(getInvocationCount(OUTER_AROUND_ADVICE)).isEqualTo(1);
+        assertThat(getInvocationCount(BEFORE_ADVICE)).isEqualTo(3);
+    }
+
+    public static class Retry_Object {
+
+        private static final AtomicInteger TARGET_COUNTER = new AtomicInteger();
+
+        public long retry(long input) {
+            int count = TARGET_COUNTER.incrementAndGet();
+            if (count < 3)
+                throw new IllegalStateException("Failed attempt " + count);
+
+            return input * count;
+        }
+    }
+
+    private static final String RETRY_POINTCUT =
+            "execution(public long io.gemini.aop.integration.ProceedingJoinpoint_01AroundAdvice_Tests$Retry_Object.retry(long))";
+
+    @Advisor
+    @ExprPointcut(pointcutExpression = RETRY_POINTCUT)
+    public static class Retry_AroundAdvice implements Advice.Around<Long, RuntimeException> {
+
+        @Override
+        public Long invoke(ProceedingJoinpoint<Long, RuntimeException> joinpoint) throws RuntimeException {
+            countInvocation(OUTER_AROUND_ADVICE);
+
+            for (int attempt = 1; ; attempt++) {
+                try {
+                    return joinpoint.proceed();
+                } catch (IllegalStateException e) {
+                    if (attempt == 3)
+                        throw e;
+                }
+            }
+        }
+    }
+
+    @Advisor
+    @ExprPointcut(pointcutExpression = RETRY_POINTCUT)
+    public static class Retry_BeforeAdvice extends Advice.AbstractBefore<Long, RuntimeException> {
+
+        @Override
+        public void before(MutableJoinpoint<Long, RuntimeException> joinpoint) throws Throwable {
+            countInvocation(BEFORE_ADVICE);
+        }
+    }
+
+
+    @Test
+    public void testNestedCalls() {
+        ExecutionMemento.clearMemento();
+        Nested_Object.TARGET_COUNTER.set(0);
+
+        long returning = new Nested_Object().factorial(5L);
+
+        assertThat(returning).isEqualTo(120L);
+        assertThat(Nested_Object.TARGET_COUNTER.get()).isEqualTo(5);
+        assertThat(getInvocationCount(OUTER_AROUND_ADVICE)).isEqualTo(5);
+        assertThat(getInvocationCount(BEFORE_ADVICE)).isEqualTo(5);
+    }
+
+    public static class Nested_Object {
+
+        private static final AtomicInteger TARGET_COUNTER = new AtomicInteger();
+
+        public long factorial(long input) {
+            TARGET_COUNTER.incrementAndGet();
+            return input <= 1 ? 1 : input * factorial(input - 1);
+        }
+    }
+
+    private static final String NESTED_POINTCUT =
+            "execution(public long io.gemini.aop.integration.ProceedingJoinpoint_01AroundAdvice_Tests$Nested_Object.factorial(long))";
+
+    @Advisor
+    @ExprPointcut(pointcutExpression = NESTED_POINTCUT)
+    public static class Nested_AroundAdvice implements Advice.Around<Long, RuntimeException> {
+
+        @Override
+        public Long invoke(ProceedingJoinpoint<Long, RuntimeException> joinpoint) throws RuntimeException {
+            countInvocation(OUTER_AROUND_ADVICE);
+            return joinpoint.proceed();
+        }
+    }
+
+    @Advisor
+    @ExprPointcut(pointcutExpression = NESTED_POINTCUT)
+    public static class Nested_BeforeAdvice extends Advice.AbstractBefore<Long, RuntimeException> {
+
+        @Override
+        public void before(MutableJoinpoint<Long, RuntimeException> joinpoint) throws Throwable {
+            countInvocation(BEFORE_ADVICE);
+        }
+    }
+
+
+    @Test
+    public void testProceedingInAnotherThread() {
+        ExecutionMemento.clearMemento();
+        AnotherThread_Object.TARGET_COUNTER.set(0);
+
+        long returning = new AnotherThread_Object().proceedInAnotherThread(3L);
+
+        assertThat(returning).isEqualTo(6L);
+        assertThat(AnotherThread_Object.TARGET_COUNTER.get()).isEqualTo(1);
+        assertThat(getInvocationCount(OUTER_AROUND_ADVICE)).isEqualTo(1);
+    }
+
+    public static class AnotherThread_Object {
+
+        private static final AtomicInteger TARGET_COUNTER = new AtomicInteger();
+
+        public long proceedInAnotherThread(long input) {
+            TARGET_COUNTER.incrementAndGet();
+            return input * 2;
+        }
+    }
+
+    @Advisor
+    @ExprPointcut(pointcutExpression = "execution(public long io.gemini.aop.integration.ProceedingJoinpoint_01AroundAdvice_Tests$AnotherThread_Object.proceedInAnotherThread(long))")
+    public static class AnotherThread_AroundAdvice implements Advice.Around<Long, RuntimeException> {
+
+        @Override
+        public Long invoke(ProceedingJoinpoint<Long, RuntimeException> joinpoint) throws RuntimeException {
+            countInvocation(OUTER_AROUND_ADVICE);
+            return CompletableFuture.supplyAsync( () -> joinpoint.proceed() ).join();
+        }
+    }
+
+
+    @Test
+    public void testProceedingWithArguments() {
+        Arguments_Object.TARGET_COUNTER.set(0);
+
+        long returning = new Arguments_Object().replaceArguments(1L);
+
+        assertThat(returning).isEqualTo(2L);
+        assertThat(Arguments_Object.TARGET_COUNTER.get()).isEqualTo(1);
+    }
+
+    public static class Arguments_Object {
+
+        private static final AtomicInteger TARGET_COUNTER = new AtomicInteger();
+
+        public long replaceArguments(long input) {
+            TARGET_COUNTER.incrementAndGet();
+            return input;
+        }
+    }
+
+    @Advisor
+    @ExprPointcut(pointcutExpression = "execution(public long io.gemini.aop.integration.ProceedingJoinpoint_01AroundAdvice_Tests$Arguments_Object.replaceArguments(long))")
+    public static class Arguments_AroundAdvice implements Advice.Around<Long, RuntimeException> {
+
+        @Override
+        public Long invoke(ProceedingJoinpoint<Long, RuntimeException> joinpoint) throws RuntimeException {
+            long input = (Long) joinpoint.getArguments()[0];
+            return joinpoint.proceed(input + 1);
+        }
+    }
+
+
+    @Test
+    public void testIllegalReturning() {
+        IllegalReturning_Object.TARGET_COUNTER.set(0);
+
+        // null returning of int method is replaced with result of original method
+        assertThat(new IllegalReturning_Object().proceedAndReturnNull(1)).isEqualTo(1);
+        assertThat(IllegalReturning_Object.TARGET_COUNTER.get()).isEqualTo(1);
+
+        // original method is invoked if around advice did not proceed it
+        assertThat(new IllegalReturning_Object().skipAndReturnNull(2)).isEqualTo(2);
+        assertThat(IllegalReturning_Object.TARGET_COUNTER.get()).isEqualTo(2);
+    }
+
+    public static class IllegalReturning_Object {
+
+        private static final AtomicInteger TARGET_COUNTER = new AtomicInteger();
+
+        public int proceedAndReturnNull(int input) {
+            TARGET_COUNTER.incrementAndGet();
+            return input;
+        }
+
+        public int skipAndReturnNull(int input) {
+            TARGET_COUNTER.incrementAndGet();
+            return input;
+        }
+    }
+
+    @Advisor
+    @ExprPointcut(pointcutExpression = "execution(public int io.gemini.aop.integration.ProceedingJoinpoint_01AroundAdvice_Tests$IllegalReturning_Object.proceedAndReturnNull(int))")
+    public static class ProceedAndReturnNull_AroundAdvice implements Advice.Around<Integer, RuntimeException> {
+
+        @Override
+        public Integer invoke(ProceedingJoinpoint<Integer, RuntimeException> joinpoint) throws RuntimeException {
+            joinpoint.proceed();
+            return null;
+        }
+    }
+
+    @Advisor
+    @ExprPointcut(pointcutExpression = "execution(public int io.gemini.aop.integration.ProceedingJoinpoint_01AroundAdvice_Tests$IllegalReturning_Object.skipAndReturnNull(int))")
+    public static class SkipAndReturnNull_AroundAdvice implements Advice.Around<Integer, RuntimeException> {
+
+        @Override
+        public Integer invoke(ProceedingJoinpoint<Integer, RuntimeException> joinpoint) throws RuntimeException {
+            return null;
+        }
+    }
+
+
+    @Test
+    public void testUndeclaredThrowing() {
+        UndeclaredThrowing_Object.TARGET_COUNTER.set(0);
+
+        // undeclared checked exception is replaced with result of original method
+        assertThat(new UndeclaredThrowing_Object().throwUndeclared(3)).isEqualTo(3);
+        assertThat(UndeclaredThrowing_Object.TARGET_COUNTER.get()).isEqualTo(1);
+    }
+
+    public static class UndeclaredThrowing_Object {
+
+        private static final AtomicInteger TARGET_COUNTER = new AtomicInteger();
+
+        public int throwUndeclared(int input) {
+            TARGET_COUNTER.incrementAndGet();
+            return input;
+        }
+    }
+
+    @Advisor
+    @ExprPointcut(pointcutExpression = "execution(public int io.gemini.aop.integration.ProceedingJoinpoint_01AroundAdvice_Tests$UndeclaredThrowing_Object.throwUndeclared(int))")
+    public static class UndeclaredThrowing_AroundAdvice implements Advice.Around<Integer, RuntimeException> {
+
+        @Override
+        public Integer invoke(ProceedingJoinpoint<Integer, RuntimeException> joinpoint) throws RuntimeException {
+            joinpoint.proceed();
+            return UndeclaredThrowing_AroundAdvice.<RuntimeException, Integer>sneakyThrow(new IOException("undeclared"));
+        }
+
+        @SuppressWarnings("unchecked")
+        private static <E extends Throwable, T> T sneakyThrow(Throwable throwable) throws E {
+            throw (E) throwable;
+        }
+    }
+}
@@ -0,0 +1,64 @@
+/*
+ * Copyright © 2023, the original author or authors. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gemini.aop.matcher;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.jupiter.api.Test;
+
+import net.bytebuddy.description.type.TypeDescription;
+
+/**
+ *
+ *
+ * @author   martin.liu
+ * @since	 1.0
+ */
+public class TypeNameIndexTests {
+
+    @Test
+    public void lookupTypeNames() {
+        TypeNameIndex<String> index = new TypeNameIndex.Builder<String>()
+                .add("exact", TypeNameIndex.Patterns.ofTypeName("com.acme.Service", false))
+                .add("prefix", TypeNameIndex.Patterns.ofTypeNamePrefix("com.acme.web.", false))
+                .add("residual", null)
+                .add("nested", TypeNameIndex.Patterns.ofTypeNamePrefix("Outer.Inn", false))
+                .add("none", TypeNameIndex.Patterns.EMPTY)
+                .build();
+
+        assertThat(index.lookup(Collections.singleton("com.acme.Service"))).containsExactly("exact", "residual");
+        assertThat(index.lookup(Collections.singleton("com.acme.Service$Inner"))).containsExactly("exact", "residual");
+        assertThat(index.lookup(Collections.singleton("com.acme.ServiceImpl"))).containsExactly("residual");
+        assertThat(index.lookup(Collections.singleton("com.acme.web.Controller"))).containsExactly("prefix", "residual");
+        assertThat(index.lookup(Collections.singleton("com.acme.Outer$Inner"))).containsExactly("residual", "nested");
+        assertThat(index.lookup(Arrays.asList("com.acme.Service", "com.acme.web.Controller")))
+                .containsExactly("exact", "prefix", "residual");
+    }
+
+    @Test
+    public void lookupSuperTypes() {
+        TypeNameIndex<String> index = new TypeNameIndex.Builder<String>()
+                .add("list", TypeNameIndex.Patterns.ofTypeName("java.util.List", true))
+                .add("map", TypeNameIndex.Patterns.ofTypeName("java.util.Map", false))
+                .build();
+
+        assertThat(index.lookup(TypeDescription.ForLoadedType.of(java.util.ArrayList.class))).containsExactly("list");
+        assertThat(index.lookup(TypeDescription.ForLoadedType.of(String.class))).isEmpty();
+    }
+}
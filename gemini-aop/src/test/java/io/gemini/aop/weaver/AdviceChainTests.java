@@ -0,0 +1,165 @@
+/*
+ * Copyright © 2023, the original author or authors. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gemini.aop.weaver;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntFunction;
+
+import org.junit.jupiter.api.Test;
+
+import io.gemini.aop.Advisor;
+import io.gemini.aop.Advisor.GuardedAdvisor;
+import io.gemini.aop.Advisor.PointcutAdvisor;
+import io.gemini.aop.matcher.ExprPointcut.RuntimeTest;
+import io.gemini.api.aop.Advice;
+import io.gemini.api.aop.Joinpoint.MutableJoinpoint;
+import io.gemini.api.aop.Pointcut;
+import net.bytebuddy.matcher.ElementMatchers;
+
+/**
+ *
+ *
+ * @author   martin.liu
+ * @since	 1.0
+ */
+public class AdviceChainTests {
+
+    private static final RuntimeTest FIRST_ARGUMENT_POSITIVE = (thisObject, arguments) -> (Integer) arguments[0] > 0;
+
+
+    @Test
+    public void selectUnguardedChain() {
+        Joinpoints.AdviceChain adviceChain = Joinpoints.AdviceChain.compile(
+                createAdvisors(3, index -> null) );
+
+        assertThat(adviceChain.isSelective()).isFalse();
+        assertThat(adviceChain.select(null, new Object[] { 1 })).isSameAs(adviceChain);
+    }
+
+    @Test
+    public void selectGuardedChainWithMask() {
+        Joinpoints.AdviceChain adviceChain = Joinpoints.AdviceChain.compile(
+                createAdvisors(4, index -> index % 2 == 0 ? null : FIRST_ARGUMENT_POSITIVE) );
+        assertThat(adviceChain.isSelective()).isTrue();
+
+        // all guards pass
+        assertThat(adviceChain.select(null, new Object[] { 1 })).isSameAs(adviceChain);
+
+        // guarded advisors are dropped, and selected chain is cached per mask
+        Joinpoints.AdviceChain selectedChain = adviceChain.select(null, new Object[] { -1 });
+        assertThat(selectedChain.getBeforeAdvices()).hasSize(2);
+        assertThat(selectedChain.isSelective()).isFalse();
+        assertThat(adviceChain.select(null, new Object[] { -1 })).isSameAs(selectedChain);
+    }
+
+    @Test
+    public void selectGuardedChainBeyondMask() {
+        int advisorCount = 70;
+        Joinpoints.AdviceChain adviceChain = Joinpoints.AdviceChain.compile(
+                createAdvisors(advisorCount, index -> index % 2 == 0 ? RuntimeTest.TRUE : FIRST_ARGUMENT_POSITIVE) );
+        assertThat(adviceChain.isSelective()).isTrue();
+
+        assertThat(adviceChain.select(null, new Object[] { 1 })).isSameAs(adviceChain);
+
+        // guarded advisors beyond 64 are still evaluated rather than always applied
+        Joinpoints.AdviceChain selectedChain = adviceChain.select(null, new Object[] { -1 });
+        assertThat(selectedChain.getBeforeAdvices()).hasSize(advisorCount / 2);
+
+        Joinpoints.AdviceChain noneChain = Joinpoints.AdviceChain.compile(
+                createAdvisors(advisorCount, index -> RuntimeTest.FALSE) );
+        assertThat(noneChain.select(null, new Object[] { 1 }).isEmpty()).isTrue();
+    }
+
+    @Test
+    public void selectSampledChain() {
+        Joinpoints.AdviceChain neverSampled = Joinpoints.AdviceChain.compile(
+                createAdvisors(2, index -> null, 0.0d) );
+        assertThat(neverSampled.isSelective()).isTrue();
+        assertThat(neverSampled.select(null, new Object[] { 1 }).isEmpty()).isTrue();
+
+        Joinpoints.AdviceChain alwaysSampled = Joinpoints.AdviceChain.compile(
+                createAdvisors(2, index -> null, 1.0d) );
+        assertThat(alwaysSampled.isSelective()).isFalse();
+    }
+
+    @Test
+    public void instantiatePerInstanceAdvices() {
+        AtomicInteger instantiations = new AtomicInteger();
+        PointcutAdvisor singletonAdvisor = createAdvisor("singleton", false, instantiations);
+        PointcutAdvisor perInstanceAdvisor = createAdvisor("perInstance", true, instantiations);
+
+        // per-instance advice is not instantiated while compiling
+        Joinpoints.AdviceChain adviceChain = Joinpoints.AdviceChain.compile(
+                Arrays.asList(singletonAdvisor, perInstanceAdvisor) );
+        assertThat(adviceChain.hasPerInstanceAdvice()).isTrue();
+        assertThat(adviceChain.getBeforeAdvices()).hasSize(2);
+        assertThat(instantiations.get()).isEqualTo(1);
+
+        // only per-instance advice is instantiated per invocation
+        Joinpoints.AdviceChain firstChain = adviceChain.instantiate();
+        Joinpoints.AdviceChain secondChain = adviceChain.instantiate();
+        assertThat(instantiations.get()).isEqualTo(3);
+
+        assertThat(firstChain.getBeforeAdvices()[0]).isNotNull().isSameAs(secondChain.getBeforeAdvices()[0]);
+        assertThat(firstChain.getBeforeAdvices()[1]).isNotNull().isNotSameAs(secondChain.getBeforeAdvices()[1]);
+        assertThat(firstChain.instantiate()).isSameAs(firstChain);
+    }
+
+
+    private static List<Advisor> createAdvisors(int count, IntFunction<RuntimeTest> runtimeTests) {
+        return createAdvisors(count, runtimeTests, 1.0d);
+    }
+
+    private static List<Advisor> createAdvisors(int count, IntFunction<RuntimeTest> runtimeTests, double samplingRate) {
+        List<Advisor> advisors = new ArrayList<>(count);
+        for (int index = 0; index < count; index++) {
+            PointcutAdvisor advisor = new PointcutAdvisor.Default(
+                    "factory", "advisor" + index, false, samplingRate,
+                    () -> Before_Advice.class, Before_Advice::new,
+                    new Pointcut.Default(ElementMatchers.any(), ElementMatchers.any()),
+                    index);
+
+            RuntimeTest runtimeTest = runtimeTests.apply(index);
+            advisors.add( runtimeTest == null ? advisor : new GuardedAdvisor.Default(advisor, runtimeTest) );
+        }
+        return advisors;
+    }
+
+    private static PointcutAdvisor createAdvisor(String advisorName, boolean perInstance, AtomicInteger instantiations) {
+        return new PointcutAdvisor.Default(
+                "factory", advisorName, perInstance, 1.0d,
+                () -> Before_Advice.class, 
+                () -> {
+                    instantiations.incrementAndGet();
+                    return new Before_Advice();
+                },
+                new Pointcut.Default(ElementMatchers.any(), ElementMatchers.any()),
+                0);
+    }
+
+
+    public static class Before_Advice extends Advice.AbstractBefore<Object, RuntimeException> {
+
+        @Override
+        public void before(MutableJoinpoint<Object, RuntimeException> joinpoint) throws Throwable {
+        }
+    }
+}
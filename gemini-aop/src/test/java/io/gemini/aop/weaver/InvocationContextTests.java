@@ -0,0 +1,61 @@
+/*
+ * Copyright © 2023, the original author or authors. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gemini.aop.weaver;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+import io.gemini.api.aop.Joinpoint.ContextKey;
+
+/**
+ *
+ *
+ * @author   martin.liu
+ * @since	 1.0
+ */
+public class InvocationContextTests {
+
+    @Test
+    public void putAndGet() {
+        Joinpoints.InvocationContext context = new Joinpoints.InvocationContext();
+
+        ContextKey<Long> startTime = ContextKey.of("startTime");
+        ContextKey<Long> sameName = ContextKey.of("startTime");
+
+        assertThat(context.put("key", "value")).isNull();
+        assertThat(context.put(startTime, 1L)).isNull();
+        assertThat(context.put(new String("key"), "value2")).isEqualTo("value");
+
+        assertThat(context.get("key")).isEqualTo("value2");
+        assertThat(context.get(startTime)).isEqualTo(1L);
+        assertThat(context.get(sameName)).isNull();
+        assertThat(context.get("startTime")).isNull();
+        assertThat(context.size()).isEqualTo(2);
+    }
+
+    @Test
+    public void resize() {
+        Joinpoints.InvocationContext context = new Joinpoints.InvocationContext();
+
+        for (int i = 0; i < 100; i++)
+            context.put("key" + i, i);
+
+        assertThat(context.size()).isEqualTo(100);
+        for (int i = 0; i < 100; i++)
+            assertThat(context.get("key" + i)).isEqualTo(i);
+    }
+}
@@ -0,0 +1,199 @@
+/*
+ * Copyright © 2023, the original author or authors. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gemini.aop.weaver;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import io.gemini.aop.Advisor;
+import io.gemini.aop.Advisor.PointcutAdvisor;
+import io.gemini.aop.AdvisorFactory.MatchedAdvisor;
+import io.gemini.aop.weaver.MatchingDecisionCache.Decision;
+import io.gemini.api.aop.Advice;
+import io.gemini.api.aop.AdvisorSpec.ExprPointcutSpec;
+import io.gemini.api.aop.MatchingContext;
+import io.gemini.api.aop.Pointcut;
+import net.bytebuddy.description.method.MethodDescription;
+import net.bytebuddy.matcher.ElementMatcher;
+import net.bytebuddy.matcher.ElementMatchers;
+
+/**
+ *
+ *
+ * @author   martin.liu
+ * @since	 1.0
+ */
+public class MatchingDecisionCacheTests {
+
+    private static final ClassLoader CLASS_LOADER = MatchingDecisionCacheTests.class.getClassLoader();
+
+    private static final String MATCHED_TYPE = "io.gemini.test.MatchedType";
+    private static final String UNMATCHED_TYPE = "io.gemini.test.UnmatchedType";
+
+    private static final String FINGERPRINT = "0123456789abcdef";
+
+    @TempDir
+    File cacheDir;
+
+
+    @Test
+    public void roundTrip() throws Exception {
+        MethodDescription method = new MethodDescription.ForLoadedMethod(Object.class.getMethod("toString"));
+
+        try (MatchingDecisionCache cache = new MatchingDecisionCache(cacheDir, FINGERPRINT)) {
+            cache.record(CLASS_LOADER, MATCHED_TYPE, "hash1", createMethodAdvisors(method, "advisor1"));
+            cache.record(CLASS_LOADER, UNMATCHED_TYPE, "hash2", Collections.emptyMap());
+        }
+
+        try (MatchingDecisionCache cache = new MatchingDecisionCache(cacheDir, FINGERPRINT)) {
+            Decision decision = cache.lookup(CLASS_LOADER, MATCHED_TYPE, "hash1");
+            assertThat(decision).isNotNull();
+            assertThat(decision.isMatched()).isTrue();
+            assertThat(decision.getMatchedAdvisors())
+                .containsOnlyKeys(method.toGenericString())
+                .containsEntry(method.toGenericString(), Collections.singletonList(new MatchedAdvisor("factory", "advisor1", false)));
+
+            assertThat(cache.lookup(CLASS_LOADER, UNMATCHED_TYPE, "hash2")).isSameAs(Decision.UNMATCHED);
+
+            // class file changed
+            assertThat(cache.lookup(CLASS_LOADER, MATCHED_TYPE, "hash3")).isNull();
+        }
+    }
+
+    @Test
+    public void invalidateByFingerprint() throws Exception {
+        try (MatchingDecisionCache cache = new MatchingDecisionCache(cacheDir, FINGERPRINT)) {
+            cache.record(CLASS_LOADER, UNMATCHED_TYPE, "hash1", Collections.emptyMap());
+        }
+
+        try (MatchingDecisionCache cache = new MatchingDecisionCache(cacheDir, "fedcba9876543210")) {
+            assertThat(cache.lookup(CLASS_LOADER, UNMATCHED_TYPE, "hash1")).isNull();
+        }
+
+        // stale file is deleted
+        assertThat(cacheDir.list()).isEmpty();
+    }
+
+    @Test
+    public void conflictedDecisions() throws Exception {
+        MethodDescription method = new MethodDescription.ForLoadedMethod(Object.class.getMethod("toString"));
+
+        try (MatchingDecisionCache cache = new MatchingDecisionCache(cacheDir, FINGERPRINT)) {
+            cache.record(CLASS_LOADER, MATCHED_TYPE, "hash1", Collections.emptyMap());
+            // same key with different decision, such as types loaded by different ClassLoaders with same name
+            cache.record(CLASS_LOADER, MATCHED_TYPE, "hash1", createMethodAdvisors(method, "advisor1"));
+
+            assertThat(cache.lookup(CLASS_LOADER, MATCHED_TYPE, "hash1")).isNull();
+        }
+
+        try (MatchingDecisionCache cache = new MatchingDecisionCache(cacheDir, FINGERPRINT)) {
+            assertThat(cache.lookup(CLASS_LOADER, MATCHED_TYPE, "hash1")).isNull();
+
+            cache.record(CLASS_LOADER, MATCHED_TYPE, "hash1", Collections.emptyMap());
+            assertThat(cache.lookup(CLASS_LOADER, MATCHED_TYPE, "hash1")).isNull();
+        }
+    }
+
+    @Test
+    public void ignorePartiallyWrittenDecisions() throws Exception {
+        MethodDescription method = new MethodDescription.ForLoadedMethod(Object.class.getMethod("toString"));
+
+        try (MatchingDecisionCache cache = new MatchingDecisionCache(cacheDir, FINGERPRINT)) {
+            cache.record(CLASS_LOADER, MATCHED_TYPE, "hash1", createMethodAdvisors(method, "advisor1"));
+        }
+
+        // declare 2 matched methods, but only 1 is written
+        File cacheFile = cacheDir.listFiles()[0];
+        String content = new String(Files.readAllBytes(cacheFile.toPath()), StandardCharsets.UTF_8);
+        Files.write(cacheFile.toPath(), content.replace("\t1\t", "\t2\t").getBytes(StandardCharsets.UTF_8));
+
+        try (MatchingDecisionCache cache = new MatchingDecisionCache(cacheDir, FINGERPRINT)) {
+            assertThat(cache.lookup(CLASS_LOADER, MATCHED_TYPE, "hash1")).isNull();
+        }
+    }
+
+    @Test
+    public void describeAdvisorSpec() {
+        ExprPointcutSpec advisorSpec = new ExprPointcutSpec.Builder()
+                .adviceClassName("io.gemini.test.Advice")
+                .pointcutExpression("execution(* io.gemini.test.Type.method(..))")
+                .condition( ElementMatchers.any() )
+                .builder();
+
+        String description = MatchingDecisionCache.describeAdvisorSpec(advisorSpec);
+        assertThat(description).contains("execution(* io.gemini.test.Type.method(..))");
+
+        // spec content decides description
+        assertThat(MatchingDecisionCache.describeAdvisorSpec(
+                new ExprPointcutSpec.Builder()
+                    .adviceClassName("io.gemini.test.Advice")
+                    .pointcutExpression("execution(* io.gemini.test.Type.method(..))")
+                    .condition( ElementMatchers.any() )
+                    .order(1)
+                    .builder() ))
+            .isNotEqualTo(description);
+
+        // identity of condition instances is ignored
+        ElementMatcher<MatchingContext> condition = new ElementMatcher<MatchingContext>() {
+
+            @Override
+            public boolean matches(MatchingContext target) {
+                return true;
+            }
+        };
+        assertThat(MatchingDecisionCache.describeAdvisorSpec(new ExprPointcutSpec.Builder().adviceClassName("io.gemini.test.Advice").condition(condition).builder()))
+            .doesNotContain(Integer.toHexString(condition.hashCode()));
+    }
+
+    @Test
+    public void exposeClassFileHash() {
+        MatchingDecisionCache.setClassFileHash(MATCHED_TYPE, "hash1");
+        try {
+            assertThat(MatchingDecisionCache.getClassFileHash(MATCHED_TYPE)).isEqualTo("hash1");
+            assertThat(MatchingDecisionCache.getClassFileHash(UNMATCHED_TYPE)).isNull();
+        } finally {
+            MatchingDecisionCache.setClassFileHash(null, null);
+        }
+        assertThat(MatchingDecisionCache.getClassFileHash(MATCHED_TYPE)).isNull();
+
+        assertThat(MatchingDecisionCache.hashClassFile(new byte[] { 1, 2 }))
+            .isEqualTo(MatchingDecisionCache.hashClassFile(new byte[] { 1, 2 }))
+            .isNotEqualTo(MatchingDecisionCache.hashClassFile(new byte[] { 2, 1 }));
+    }
+
+
+    static List<? extends Advisor> createAdvisors(String advisorName) {
+        return Collections.singletonList(
+                new PointcutAdvisor.Default(
+                    "factory", advisorName, false, 1.0d,
+                    () -> Advice.class, () -> null,
+                    new Pointcut.Default(ElementMatchers.any(), ElementMatchers.any()),
+                    0) );
+    }
+
+    static Map<MethodDescription, List<? extends Advisor>> createMethodAdvisors(MethodDescription method, String advisorName) {
+        return Collections.singletonMap(method, createAdvisors(advisorName));
+    }
+}
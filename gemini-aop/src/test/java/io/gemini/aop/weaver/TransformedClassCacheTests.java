@@ -0,0 +1,227 @@
+/*
+ * Copyright © 2023, the original author or authors. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gemini.aop.weaver;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.File;
+import java.lang.instrument.Instrumentation;
+import java.nio.file.Files;
+import java.security.ProtectionDomain;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import io.gemini.aop.weaver.WeaverCache.TypeCache;
+import io.gemini.core.util.ClassLoaderUtils;
+import net.bytebuddy.agent.builder.AgentBuilder.RedefinitionStrategy;
+import net.bytebuddy.agent.builder.AgentBuilder.Transformer;
+import net.bytebuddy.agent.builder.ResettableClassFileTransformer;
+import net.bytebuddy.description.method.MethodDescription;
+import net.bytebuddy.description.type.TypeDescription;
+import net.bytebuddy.utility.JavaModule;
+
+/**
+ *
+ *
+ * @author   martin.liu
+ * @since	 1.0
+ */
+public class TransformedClassCacheTests {
+
+    private static final ClassLoader CLASS_LOADER = TransformedClassCacheTests.class.getClassLoader();
+
+    private static final String TYPE_NAME = "io.gemini.test.TransformedType";
+    private static final String CLASS_NAME = TYPE_NAME.replace('.', '/');
+
+    private static final byte[] ORIGINAL_CLASS_FILE = new byte[] { 1, 2, 3 };
+    private static final byte[] TRANSFORMED_CLASS_FILE = new byte[] { 4, 5, 6, 7 };
+
+    @TempDir
+    File cacheDir;
+
+
+    @Test
+    public void roundTrip() throws Exception {
+        MethodDescription method = new MethodDescription.ForLoadedMethod(Object.class.getMethod("toString"));
+        this.storeTransformedClassFile(method);
+
+        // restart with stored class file
+        CountingClassFileTransformer classFileTransformer = new CountingClassFileTransformer(null, method);
+        WeaverCache weaverCache = createWeaverCache();
+        ResettableClassFileTransformer cachingTransformer = createTransformedClassCache(weaverCache, method).decorate(classFileTransformer);
+
+        assertThat(cachingTransformer.transform(CLASS_LOADER, CLASS_NAME, null, null, ORIGINAL_CLASS_FILE))
+            .isEqualTo(TRANSFORMED_CLASS_FILE);
+        assertThat(classFileTransformer.transformations.get()).isEqualTo(0);
+        assertThat(weaverCache.getTypeCache(CLASS_LOADER, TYPE_NAME).isTransformed()).isTrue();
+
+        // original class file changed
+        assertThat(cachingTransformer.transform(CLASS_LOADER, CLASS_NAME, null, null, new byte[] { 3, 2, 1 }))
+            .isEqualTo(TRANSFORMED_CLASS_FILE);
+        assertThat(classFileTransformer.transformations.get()).isEqualTo(1);
+    }
+
+    @Test
+    public void invalidateByChecksum() throws Exception {
+        MethodDescription method = new MethodDescription.ForLoadedMethod(Object.class.getMethod("toString"));
+        File storedFile = this.storeTransformedClassFile(method);
+
+        // corrupt transformed class file
+        byte[] content = Files.readAllBytes(storedFile.toPath());
+        content[content.length - 9] ^= 0xFF;
+        Files.write(storedFile.toPath(), content);
+
+        this.assertInvalidated(storedFile, createWeaverCache(), method, method);
+    }
+
+    @Test
+    public void invalidateByKey() throws Exception {
+        MethodDescription method = new MethodDescription.ForLoadedMethod(Object.class.getMethod("toString"));
+        File storedFile = this.storeTransformedClassFile(method);
+
+        // stored class file of another type is found by name
+        File collidedFile = new File(storedFile.getParentFile(), toFileName(TYPE_NAME + "2"));
+        Files.move(storedFile.toPath(), collidedFile.toPath());
+
+        CountingClassFileTransformer classFileTransformer = new CountingClassFileTransformer(createWeaverCache(), method);
+        ResettableClassFileTransformer cachingTransformer = createTransformedClassCache(createWeaverCache(), method).decorate(classFileTransformer);
+
+        assertThat(cachingTransformer.transform(CLASS_LOADER, CLASS_NAME + "2", null, null, ORIGINAL_CLASS_FILE))
+            .isEqualTo(TRANSFORMED_CLASS_FILE);
+        assertThat(classFileTransformer.transformations.get()).isEqualTo(1);
+        assertThat(collidedFile.exists()).isFalse();
+    }
+
+    @Test
+    public void invalidateByMethods() throws Exception {
+        MethodDescription method = new MethodDescription.ForLoadedMethod(Object.class.getMethod("toString"));
+        File storedFile = this.storeTransformedClassFile(method);
+
+        // type is matched with different methods after restart
+        MethodDescription otherMethod = new MethodDescription.ForLoadedMethod(Object.class.getMethod("hashCode"));
+        this.assertInvalidated(storedFile, createWeaverCache(), otherMethod, otherMethod);
+    }
+
+
+    private File storeTransformedClassFile(MethodDescription method) throws Exception {
+        WeaverCache weaverCache = createWeaverCache();
+        CountingClassFileTransformer classFileTransformer = new CountingClassFileTransformer(weaverCache, method);
+        ResettableClassFileTransformer cachingTransformer = createTransformedClassCache(weaverCache, method).decorate(classFileTransformer);
+
+        assertThat(cachingTransformer.transform(CLASS_LOADER, CLASS_NAME, null, null, ORIGINAL_CLASS_FILE))
+            .isEqualTo(TRANSFORMED_CLASS_FILE);
+        assertThat(classFileTransformer.transformations.get()).isEqualTo(1);
+
+        File storedFile = new File(getCacheFolder(), toFileName(TYPE_NAME));
+        assertThat(storedFile.exists()).isTrue();
+        return storedFile;
+    }
+
+    private void assertInvalidated(File storedFile, WeaverCache weaverCache,
+            MethodDescription matchedMethod, MethodDescription transformedMethod) throws Exception {
+        CountingClassFileTransformer classFileTransformer = new CountingClassFileTransformer(weaverCache, transformedMethod);
+        ResettableClassFileTransformer cachingTransformer = createTransformedClassCache(weaverCache, matchedMethod).decorate(classFileTransformer);
+
+        assertThat(cachingTransformer.transform(CLASS_LOADER, CLASS_NAME, null, null, ORIGINAL_CLASS_FILE))
+            .isEqualTo(TRANSFORMED_CLASS_FILE);
+        assertThat(classFileTransformer.transformations.get()).isEqualTo(1);
+
+        // stored again by fallback transformation
+        assertThat(storedFile.exists()).isTrue();
+    }
+
+    private File getCacheFolder() {
+        return new File(cacheDir, "transformed-classes-test");
+    }
+
+    private static String toFileName(String typeName) {
+        return MatchingDecisionCache.digest(ClassLoaderUtils.getClassLoaderName(CLASS_LOADER) + "\n" + typeName + "\n"
+                + MatchingDecisionCache.hashClassFile(ORIGINAL_CLASS_FILE)) + ".bin";
+    }
+
+    private static WeaverCache createWeaverCache() {
+        return new WeaverCache(null) {
+
+            @Override
+            public void compactTypeCache(TypeCache typeCache) {
+            }
+        };
+    }
+
+    private TransformedClassCache createTransformedClassCache(WeaverCache weaverCache, MethodDescription matchedMethod) {
+        return new TransformedClassCache(null, null, weaverCache, getCacheFolder()) {
+
+            @Override
+            protected TypeCache matchType(String typeName, ClassLoader classLoader, ProtectionDomain protectionDomain,
+                    byte[] classfileBuffer) {
+                return putTypeCache(weaverCache, typeName, matchedMethod);
+            }
+        };
+    }
+
+    private static TypeCache putTypeCache(WeaverCache weaverCache, String typeName, MethodDescription method) {
+        TypeCache typeCache = weaverCache.createTypeCache(typeName);
+        typeCache.setMethodDescriptionAdvisors(
+                Collections.singletonMap(method, MatchingDecisionCacheTests.createAdvisors("advisor")) );
+        return weaverCache.putTypeCache(CLASS_LOADER, typeCache);
+    }
+
+
+    private static class CountingClassFileTransformer extends ResettableClassFileTransformer.AbstractBase {
+
+        private final WeaverCache weaverCache;
+        private final MethodDescription transformedMethod;
+
+        private final AtomicInteger transformations = new AtomicInteger();
+
+
+        CountingClassFileTransformer(WeaverCache weaverCache, MethodDescription transformedMethod) {
+            this.weaverCache = weaverCache;
+            this.transformedMethod = transformedMethod;
+        }
+
+        @Override
+        public byte[] transform(ClassLoader loader, String className, Class<?> classBeingRedefined,
+                ProtectionDomain protectionDomain, byte[] classfileBuffer) {
+            transformations.incrementAndGet();
+
+            if (weaverCache != null) {
+                TypeCache typeCache = weaverCache.getTypeCache(loader, className.replace('/', '.'));
+                if (typeCache == null)
+                    typeCache = putTypeCache(weaverCache, className.replace('/', '.'), transformedMethod);
+                typeCache.setTransformed(true);
+            }
+            return TRANSFORMED_CLASS_FILE;
+        }
+
+        @Override
+        public Iterator<Transformer> iterator(TypeDescription typeDescription, ClassLoader classLoader,
+                JavaModule module, Class<?> classBeingRedefined, ProtectionDomain protectionDomain) {
+            return Collections.emptyIterator();
+        }
+
+        @Override
+        public boolean reset(Instrumentation instrumentation, ResettableClassFileTransformer classFileTransformer,
+                RedefinitionStrategy redefinitionStrategy, RedefinitionStrategy.DiscoveryStrategy discoveryStrategy,
+                RedefinitionStrategy.BatchAllocator redefinitionBatchAllocator, RedefinitionStrategy.Listener redefinitionListener) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,55 @@
+/*
+ * Copyright © 2023, the original author or authors. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gemini.aop.weaver;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ *
+ *
+ * @author   martin.liu
+ * @since	 1.0
+ */
+public class UnmatchedTypesTests {
+
+    @Test
+    public void addAndContains() {
+        WeaverCache.UnmatchedTypes unmatchedTypes = new WeaverCache.UnmatchedTypes();
+        for (int i = 0; i < 10000; i++)
+            unmatchedTypes.add(0, "com.acme.Type" + i);
+        unmatchedTypes.add(0, "com.acme.Type0");
+
+        assertThat(unmatchedTypes.size()).isEqualTo(10000);
+        assertThat(unmatchedTypes.contains(0, "com.acme.Type0")).isTrue();
+        assertThat(unmatchedTypes.contains(0, "com.acme.Type9999")).isTrue();
+        assertThat(unmatchedTypes.contains(0, "com.acme.Type10000")).isFalse();
+    }
+
+    @Test
+    public void resetByGeneration() {
+        WeaverCache.UnmatchedTypes unmatchedTypes = new WeaverCache.UnmatchedTypes();
+        unmatchedTypes.add(0, "com.acme.Service");
+
+        assertThat(unmatchedTypes.contains(1, "com.acme.Service")).isFalse();
+
+        unmatchedTypes.add(1, "com.acme.Controller");
+        assertThat(unmatchedTypes.contains(1, "com.acme.Service")).isFalse();
+        assertThat(unmatchedTypes.contains(1, "com.acme.Controller")).isTrue();
+        assertThat(unmatchedTypes.size()).isEqualTo(1);
+    }
+}
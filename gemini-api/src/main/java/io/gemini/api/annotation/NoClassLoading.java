@@ -0,0 +1,36 @@
+/*
+ * Copyright © 2023, the original author or authors. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gemini.api.annotation;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Mark annotated Advice class as not loading joinpoint classes at runtime, 
+ * so that context ClassLoader switching can be skipped during advice invocation. 
+ *
+ * @author   martin.liu
+ * @since	 1.0
+ */
+@Target( {ElementType.TYPE} )
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface NoClassLoading {
+
+}
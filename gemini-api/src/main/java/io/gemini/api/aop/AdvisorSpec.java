@@ -35,6 +35,8 @@ public interface AdvisorSpec {
 
     static final boolean DEFAULT_PER_INSTANCE = false;
 
+    static final double DEFAULT_SAMPLING_RATE = 1.0d;
+
     static final int DEFAULT_ORDER = Integer.MAX_VALUE;
 
 
@@ -60,6 +62,16 @@ public interface AdvisorSpec {
 
     boolean isPerInstance();
 
+    /**
+     * Return the fraction of joinpoint invocations, between 0.0 and 1.0, which trigger the advice.
+     * Non-sampled invocations skip the advice entirely.
+     *
+     * @return
+     */
+    default double getSamplingRate() {
+        return DEFAULT_SAMPLING_RATE;
+    }
+
     int getOrder();
 
 
@@ -77,6 +89,7 @@ public interface AdvisorSpec {
         private String adviceClassName;
 
         private boolean perInstance = DEFAULT_PER_INSTANCE;
+        private double samplingRate = DEFAULT_SAMPLING_RATE;
         private int order = DEFAULT_ORDER;
 
 
@@ -86,6 +99,14 @@ public interface AdvisorSpec {
         public AbstractBase(String advisorName, ElementMatcher<MatchingContext> condition, 
                 boolean inheritClassLoaderMatcher, boolean inheritTypeMatcher,
                 String adviceClassName, boolean perInstance, int order) {
+            this(advisorName, condition, 
+                    inheritClassLoaderMatcher, inheritTypeMatcher, 
+                    adviceClassName, perInstance, DEFAULT_SAMPLING_RATE, order);
+        }
+
+        public AbstractBase(String advisorName, ElementMatcher<MatchingContext> condition, 
+                boolean inheritClassLoaderMatcher, boolean inheritTypeMatcher,
+                String adviceClassName, boolean perInstance, double samplingRate, int order) {
             this();
 
             if (hasText(advisorName))
@@ -101,6 +122,7 @@ public interface AdvisorSpec {
             this.adviceClassName = adviceClassName;
 
             this.perInstance = perInstance;
+            this.samplingRate = samplingRate;
             this.order = order;
         }
 
@@ -161,6 +183,15 @@ public interface AdvisorSpec {
             this.perInstance = perInstance;
         }
 
+        @Override
+        public double getSamplingRate() {
+            return samplingRate;
+        }
+
+        protected void setSamplingRate(double samplingRate) {
+            this.samplingRate = samplingRate;
+        }
+
         @Override
         public int getOrder() {
             return order;
@@ -195,6 +226,7 @@ public interface AdvisorSpec {
         private String adviceClassName;
 
         private boolean perInstance = DEFAULT_PER_INSTANCE;
+        private double samplingRate = DEFAULT_SAMPLING_RATE;
         private int order = DEFAULT_ORDER;
 
 
@@ -259,6 +291,15 @@ public interface AdvisorSpec {
             return perInstance;
         }
 
+        public T samplingRate(double samplingRate) {
+            this.samplingRate = samplingRate;
+            return self();
+        }
+
+        protected double getSamplingRate() {
+            return samplingRate;
+        }
+
         public T order(int order) {
             this.order = order;
             return self();
@@ -285,6 +326,14 @@ public interface AdvisorSpec {
                         condition, inheritClassLoaderMatcher, inheritTypeMatcher,
                         adviceClassName, perInstance, order);
             }
+
+            public AbstractBase(String advisorName, ElementMatcher<MatchingContext> condition, 
+                    boolean inheritClassLoaderMatcher, boolean inheritTypeMatcher,
+                    String adviceClassName, boolean perInstance, double samplingRate, int order) {
+                super(advisorName, 
+                        condition, inheritClassLoaderMatcher, inheritTypeMatcher,
+                        adviceClassName, perInstance, samplingRate, order);
+            }
         }
 
 
@@ -321,9 +370,17 @@ public interface AdvisorSpec {
             public Default(String advisorName, ElementMatcher<MatchingContext> condition, 
                     boolean inheritClassLoaderMatcher, boolean inheritTypeMatcher, Pointcut pointcut, 
                     String adviceClassName, boolean perInstance, int order) {
+                this(advisorName, condition, 
+                        inheritClassLoaderMatcher, inheritTypeMatcher, pointcut, 
+                        adviceClassName, perInstance, DEFAULT_SAMPLING_RATE, order);
+            }
+
+            public Default(String advisorName, ElementMatcher<MatchingContext> condition, 
+                    boolean inheritClassLoaderMatcher, boolean inheritTypeMatcher, Pointcut pointcut, 
+                    String adviceClassName, boolean perInstance, double samplingRate, int order) {
                 super(advisorName, condition, 
                         inheritClassLoaderMatcher, inheritTypeMatcher,
-                        adviceClassName, perInstance, order);
+                        adviceClassName, perInstance, samplingRate, order);
 
                 this.pointcut = pointcut;
             }
@@ -360,6 +417,7 @@ public interface AdvisorSpec {
                         new Pointcut.Default(typeMatcher, methodMatcher), 
                         getAdviceClassName(), 
                         isPerInstance(), 
+                        getSamplingRate(), 
                         getOrder()
                 );
             }
@@ -408,9 +466,19 @@ public interface AdvisorSpec {
                     boolean inheritClassLoaderMatcher, boolean inheritTypeMatcher,
                     String classLoaderExpression, String pointcutExpression,  
                     String adviceClassName, boolean perInstance, int order) {
+                this(advisorName, condition, 
+                        inheritClassLoaderMatcher, inheritTypeMatcher,
+                        classLoaderExpression, pointcutExpression, 
+                        adviceClassName, perInstance, DEFAULT_SAMPLING_RATE, order);
+            }
+
+            public AbstractBase(String advisorName, ElementMatcher<MatchingContext> condition, 
+                    boolean inheritClassLoaderMatcher, boolean inheritTypeMatcher,
+                    String classLoaderExpression, String pointcutExpression,  
+                    String adviceClassName, boolean perInstance, double samplingRate, int order) {
                 super(advisorName, condition, 
                         inheritClassLoaderMatcher, inheritTypeMatcher,
-                        adviceClassName, perInstance, order);
+                        adviceClassName, perInstance, samplingRate, order);
 
                 this.classLoaderExpression = classLoaderExpression;
                 this.pointcutExpression = pointcutExpression;
@@ -461,10 +529,20 @@ public interface AdvisorSpec {
                     boolean inheritClassLoaderMatcher, boolean inheritTypeMatcher,
                     String classLoaderExpression, String pointcutExpression,  
                     String adviceClassName, boolean perInstance, int order) {
+                this(advisorName, condition, 
+                        inheritClassLoaderMatcher, inheritTypeMatcher,
+                        classLoaderExpression, pointcutExpression,
+                        adviceClassName, perInstance, DEFAULT_SAMPLING_RATE, order);
+            }
+
+            public Default(String advisorName, ElementMatcher<MatchingContext> condition, 
+                    boolean inheritClassLoaderMatcher, boolean inheritTypeMatcher,
+                    String classLoaderExpression, String pointcutExpression,  
+                    String adviceClassName, boolean perInstance, double samplingRate, int order) {
                 super(advisorName, condition, 
                         inheritClassLoaderMatcher, inheritTypeMatcher,
                         classLoaderExpression, pointcutExpression,
-                        adviceClassName, perInstance, order);
+                        adviceClassName, perInstance, samplingRate, order);
             }
         }
 
@@ -495,6 +573,7 @@ public interface AdvisorSpec {
                         pointcutExpression, 
                         getAdviceClassName(), 
                         isPerInstance(), 
+                        getSamplingRate(), 
                         getOrder()
                 );
             }
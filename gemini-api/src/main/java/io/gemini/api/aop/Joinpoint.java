@@ -17,6 +17,7 @@ package io.gemini.api.aop;
 
 import java.lang.invoke.MethodHandles.Lookup;
 import java.lang.reflect.AccessibleObject;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public interface Joinpoint {
 
@@ -58,17 +59,154 @@ public interface Joinpoint {
      * @return the argument of the invocation */
     Object[] getArguments();
 
+    /**
+     * Set argument value and write it back to target method.
+     * 
+     * @param index index of argument
+     * @param value new argument value
+     */
+    void setArgument(int index, Object value);
+
+    /**
+     * Convenience method to get argument value of primitive type, which unboxes 
+     * element of {@link #getArguments()}. Arguments are still boxed by regular 
+     * dispatch path before advices are invoked.
+     * 
+     * @param index index of argument
+     * @return argument value
+     */
+    default int getIntArgument(int index) {
+        return (Integer) getArguments()[index];
+    }
+
+    default long getLongArgument(int index) {
+        return (Long) getArguments()[index];
+    }
+
+    default double getDoubleArgument(int index) {
+        return (Double) getArguments()[index];
+    }
+
+    default boolean getBooleanArgument(int index) {
+        return (Boolean) getArguments()[index];
+    }
+
+    /**
+     * Convenience method to set argument value of primitive type via 
+     * {@link #setArgument(int, Object)}, which boxes given value.
+     * 
+     * @param index index of argument
+     * @param value new argument value
+     */
+    default void setIntArgument(int index, int value) {
+        setArgument(index, value);
+    }
+
+    default void setLongArgument(int index, long value) {
+        setArgument(index, value);
+    }
+
+    default void setDoubleArgument(int index, double value) {
+        setArgument(index, value);
+    }
+
+    default void setBooleanArgument(int index, boolean value) {
+        setArgument(index, value);
+    }
+
 
     // TODO: per advice
     Object getInvocationContext(String key);
 
     void setInvocationContext(String key, Object value);
 
+    /**
+     * Get invocation context value with typed key.
+     * 
+     * @param <T>
+     * @param key
+     * @return
+     */
+    <T> T getInvocationContext(ContextKey<T> key);
+
+    /**
+     * Set invocation context value with typed key.
+     * 
+     * @param <T>
+     * @param key
+     * @param value
+     */
+    <T> void setInvocationContext(ContextKey<T> key, T value);
+
+
+    /**
+     * Typed invocation context key which is compared by identity, and 
+     * should be created once and shared as constant.
+     *
+     * @param <T> type of context value
+     */
+    final class ContextKey<T> {
+
+        private static final AtomicInteger HASH_GENERATOR = new AtomicInteger();
+
+        private final String name;
+        private final int hash;
+
+
+        private ContextKey(String name) {
+            this.name = name;
+            this.hash = HASH_GENERATOR.getAndIncrement() * 0x61c88647;   // golden ratio spreading
+        }
+
+        public static <T> ContextKey<T> of(String name) {
+            if (name == null)
+                throw new IllegalArgumentException("'name' must not be null.");
+
+            return new ContextKey<>(name);
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public String toString() {
+            return name;
+        }
+    }
+
 
     interface MutableJoinpoint<T, E extends Throwable> extends Joinpoint {
 
         T getReturning();
 
+        /**
+         * Convenience method to get returning value of method with primitive return type, 
+         * which unboxes {@link #getReturning()}.
+         * 
+         * @return returning value
+         */
+        default int getIntReturning() {
+            return (Integer) getReturning();
+        }
+
+        default long getLongReturning() {
+            return (Long) getReturning();
+        }
+
+        default double getDoubleReturning() {
+            return (Double) getReturning();
+        }
+
+        default boolean getBooleanReturning() {
+            return (Boolean) getReturning();
+        }
+
         E getThrowing();
 
         void setAdviceReturning(T returning);
@@ -48,6 +48,11 @@ public @interface Advisor {
 
     boolean perInstance() default io.gemini.api.aop.AdvisorSpec.DEFAULT_PER_INSTANCE;
 
+    /**
+     * @return fraction of joinpoint invocations, between 0.0 and 1.0, which trigger the advice
+     */
+    double samplingRate() default io.gemini.api.aop.AdvisorSpec.DEFAULT_SAMPLING_RATE;
+
 
     int order() default io.gemini.api.aop.AdvisorSpec.DEFAULT_ORDER;
 
@@ -32,4 +32,10 @@ public @interface ExprPointcut {
      */
     String pointcutExpression();
 
+    /**
+     * @return fraction of joinpoint invocations, between 0.0 and 1.0, which trigger the advice, 
+     * and overwrites the sampling rate of {@code Advisor} if specified
+     */
+    double samplingRate() default io.gemini.api.aop.AdvisorSpec.DEFAULT_SAMPLING_RATE;
+
 }
@@ -56,6 +56,12 @@ import java.util.List;
  */
 public abstract class AopClassLoader extends BaseClassLoader {
 
+    static {
+        // register as parallel capable, so that subclasses could be registered too
+        ClassLoader.registerAsParallelCapable();
+    }
+
+
     /**
      * @param urls
      * @param parent
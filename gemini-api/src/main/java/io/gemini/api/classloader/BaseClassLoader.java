@@ -15,17 +15,37 @@
  */
 package io.gemini.api.classloader;
 
+import java.io.IOException;
+import java.net.MalformedURLException;
 import java.net.URL;
 import java.net.URLClassLoader;
+import java.security.CodeSource;
+import java.util.Enumeration;
+import java.util.jar.Attributes;
+import java.util.jar.Attributes.Name;
+import java.util.jar.Manifest;
 
 /**
- *
+ * <p>
+ * URLClassLoader which looks up classes and resources via package to jar index, if all URLs are 
+ * local jar files. The index is built once on first lookup.
  *
  * @author   martin.liu
  * @since	 1.0
  */
 public abstract class BaseClassLoader extends URLClassLoader {
 
+    static {
+        // register as parallel capable, so that subclasses could be registered too
+        ClassLoader.registerAsParallelCapable();
+    }
+
+
+    private final Object jarIndexLock = new Object();
+    private volatile boolean jarIndexed = false;
+    private volatile JarIndex jarIndex;
+
+
     /**
      * @param urls
      * @param parent
@@ -34,4 +54,137 @@ public abstract class BaseClassLoader extends URLClassLoader {
         super(urls, parent);
     }
 
+
+    private JarIndex getJarIndex() {
+        if (jarIndexed == true)
+            return jarIndex;
+
+        synchronized (jarIndexLock) {
+            if (jarIndexed == false) {
+                try {
+                    this.jarIndex = JarIndex.build(this.getURLs());
+                } catch (IOException | RuntimeException e) {
+                    // fall back to URLClassLoader lookup
+                    this.jarIndex = null;
+                }
+                this.jarIndexed = true;
+            }
+            return jarIndex;
+        }
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected Class<?> findClass(String name) throws ClassNotFoundException {
+        JarIndex jarIndex = this.getJarIndex();
+        if (jarIndex == null)
+            return super.findClass(name);
+
+        String path = name.replace('.', '/').concat(".class");
+        JarIndex.Jar jar = jarIndex.findJar(path);
+        if (jar == null)
+            throw new ClassNotFoundException(name);
+
+        try {
+            JarIndex.ClassFile classFile = jar.readClassFile(path);
+            if (classFile == null)
+                throw new ClassNotFoundException(name);
+
+            int pos = name.lastIndexOf('.');
+            if (pos > 0)
+                this.definePackage(name.substring(0, pos), jar);
+
+            byte[] bytes = classFile.getBytes();
+            return super.defineClass(name, bytes, 0, bytes.length, 
+                    new CodeSource(jar.getUrl(), classFile.getCodeSigners()) );
+        } catch (IOException e) {
+            throw new ClassNotFoundException(name, e);
+        }
+    }
+
+    @SuppressWarnings("deprecation")
+    private void definePackage(String packageName, JarIndex.Jar jar) throws IOException {
+        Manifest manifest = jar.getManifest();
+
+        Package pkg = super.getPackage(packageName);
+        if (pkg == null) {
+            try {
+                if (manifest != null)
+                    super.definePackage(packageName, manifest, jar.getUrl());
+                else
+                    super.definePackage(packageName, null, null, null, null, null, null, null);
+                return;
+            } catch (IllegalArgumentException e) {
+                // package was defined concurrently
+                pkg = super.getPackage(packageName);
+                if (pkg == null)
+                    throw e;
+            }
+        }
+
+        // verify package sealing as URLClassLoader
+        if (pkg.isSealed()) {
+            if (pkg.isSealed(jar.getUrl()) == false)
+                throw new SecurityException("sealing violation: package " + packageName + " is sealed");
+        } else if (manifest != null && isSealed(packageName, manifest)) {
+            throw new SecurityException("sealing violation: can't seal package " + packageName + ": already loaded");
+        }
+    }
+
+    private static boolean isSealed(String packageName, Manifest manifest) {
+        Attributes attributes = manifest.getAttributes(packageName.replace('.', '/').concat("/"));
+        String sealed = attributes == null ? null : attributes.getValue(Name.SEALED);
+        if (sealed == null)
+            sealed = manifest.getMainAttributes().getValue(Name.SEALED);
+
+        return "true".equalsIgnoreCase(sealed);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public URL findResource(String name) {
+        JarIndex jarIndex = this.getJarIndex();
+        if (jarIndex == null)
+            return super.findResource(name);
+
+        try {
+            return jarIndex.findResource(name);
+        } catch (MalformedURLException e) {
+            return super.findResource(name);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Enumeration<URL> findResources(String name) throws IOException {
+        JarIndex jarIndex = this.getJarIndex();
+        if (jarIndex == null)
+            return super.findResources(name);
+
+        return jarIndex.findResources(name);
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void close() throws IOException {
+        synchronized (jarIndexLock) {
+            if (jarIndex != null)
+                jarIndex.close();
+
+            this.jarIndex = null;
+            this.jarIndexed = true;
+        }
+
+        super.close();
+    }
 }
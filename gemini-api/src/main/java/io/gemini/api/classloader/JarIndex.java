@@ -0,0 +1,426 @@
+/*
+ * Copyright © 2023, the original author or authors. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gemini.api.classloader;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.net.JarURLConnection;
+import java.net.MalformedURLException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLConnection;
+import java.net.URLStreamHandler;
+import java.security.CodeSigner;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.jar.Manifest;
+import java.util.zip.ZipFile;
+
+/**
+ * Index of package directories to jar files, which is built once from ClassLoader URLs, and
+ * narrows class and resource lookup down to jars containing given package rather than probing
+ * all jars in order.
+ *
+ * <p>Only local jar files are indexed. If any URL is directory or remote resource, whose content
+ * might change or could not be listed, index is not built and lookup falls back to URLClassLoader.
+ *
+ * <p>Each jar is opened once as runtime versioned JarFile on JDK 9+, which resolves entries of 
+ * multi-release jar, and resource URLs read entries from the same JarFile rather than via 
+ * cached {@code jar:} URL connections.
+ *
+ * @author   martin.liu
+ * @since	 1.0
+ */
+class JarIndex implements Closeable {
+
+    private static final String VERSIONS_PREFIX = "META-INF/versions/";
+
+    private static final Constructor<JarFile> VERSIONED_JAR_FILE_CONSTRUCTOR;
+    private static final Object RUNTIME_VERSION;
+
+    private static final int[] NO_JARS = new int[0];
+
+
+    static {
+        Constructor<JarFile> constructor = null;
+        Object runtimeVersion = null;
+        try {
+            // JarFile(File, boolean, int, Runtime.Version) since JDK 9
+            Class<?> versionClass = Class.forName("java.lang.Runtime$Version");
+            runtimeVersion = JarFile.class.getMethod("runtimeVersion").invoke(null);
+            constructor = JarFile.class.getConstructor(File.class, boolean.class, int.class, versionClass);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            constructor = null;
+            runtimeVersion = null;
+        }
+
+        VERSIONED_JAR_FILE_CONSTRUCTOR = constructor;
+        RUNTIME_VERSION = runtimeVersion;
+    }
+
+
+    private final Jar[] jars;
+    private final Map<String /* packagePath */, int[]> packageJars;
+
+
+    private JarIndex(Jar[] jars, Map<String, int[]> packageJars) {
+        this.jars = jars;
+        this.packageJars = packageJars;
+    }
+
+    /**
+     * Build index for given URLs, or return null if any URL is not local jar file.
+     */
+    static JarIndex build(URL[] urls) throws IOException {
+        List<File> files = new ArrayList<>(urls.length);
+        for (URL url : urls) {
+            File file = toJarFile(url);
+            if (file == null)
+                return null;
+
+            files.add(file);
+        }
+
+        List<Jar> jars = new ArrayList<>(files.size());
+        Map<String, List<Integer>> packageJars = new HashMap<>();
+        try {
+            for (int index = 0; index < files.size(); index++) {
+                Jar jar = new Jar(urls[index], openJarFile(files.get(index)));
+                jars.add(jar);
+
+                for (String packagePath : jar.indexEntries()) {
+                    List<Integer> indexes = packageJars.computeIfAbsent(packagePath, key -> new ArrayList<>(1));
+                    if (indexes.isEmpty() || indexes.get(indexes.size() - 1) != index)
+                        indexes.add(index);
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            for (Jar jar : jars)
+                jar.close();
+
+            throw e;
+        }
+
+        Map<String, int[]> indexes = new HashMap<>(packageJars.size() * 2);
+        for (Map.Entry<String, List<Integer>> entry : packageJars.entrySet())
+            indexes.put(entry.getKey(), entry.getValue().stream().mapToInt(Integer::intValue).toArray());
+
+        return new JarIndex(jars.toArray(new Jar[0]), indexes);
+    }
+
+    private static File toJarFile(URL url) {
+        if (url == null || "file".equals(url.getProtocol()) == false
+                || url.getPath().toLowerCase().endsWith(".jar") == false)
+            return null;
+
+        try {
+            File file = new File(url.toURI());
+            return file.isFile() ? file : null;
+        } catch (URISyntaxException | IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static JarFile openJarFile(File file) throws IOException {
+        if (VERSIONED_JAR_FILE_CONSTRUCTOR == null)
+            return new JarFile(file);
+
+        try {
+            return VERSIONED_JAR_FILE_CONSTRUCTOR.newInstance(file, true, ZipFile.OPEN_READ, RUNTIME_VERSION);
+        } catch (InvocationTargetException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException)
+                throw (IOException) cause;
+            if (cause instanceof RuntimeException)
+                throw (RuntimeException) cause;
+
+            throw new IOException("Failed to open jar file " + file, cause);
+        } catch (ReflectiveOperationException e) {
+            return new JarFile(file);
+        }
+    }
+
+
+    private int[] findJars(String name) {
+        int pos = name.lastIndexOf('/', name.endsWith("/") ? name.length() - 2 : name.length() - 1);
+        int[] indexes = packageJars.get(pos < 0 ? "" : name.substring(0, pos));
+        return indexes == null ? NO_JARS : indexes;
+    }
+
+    Jar findJar(String name) {
+        for (int index : findJars(name)) {
+            if (jars[index].contains(name))
+                return jars[index];
+        }
+        return null;
+    }
+
+    URL findResource(String name) throws MalformedURLException {
+        Jar jar = findJar(name);
+        return jar == null ? null : jar.getResource(name);
+    }
+
+    Enumeration<URL> findResources(String name) throws MalformedURLException {
+        List<URL> urls = null;
+        for (int index : findJars(name)) {
+            if (jars[index].contains(name)) {
+                if (urls == null)
+                    urls = new ArrayList<>(1);
+                urls.add(jars[index].getResource(name));
+            }
+        }
+        return urls == null ? Collections.emptyEnumeration() : Collections.enumeration(urls);
+    }
+
+    int getJarCount() {
+        return jars.length;
+    }
+
+    int getPackageCount() {
+        return packageJars.size();
+    }
+
+    @Override
+    public void close() {
+        for (Jar jar : jars)
+            jar.close();
+    }
+
+
+    static class Jar {
+
+        private final URL url;
+        private final JarFile jarFile;
+
+        private final String baseUrl;
+        private final URLStreamHandler entryHandler;
+
+        private volatile Manifest manifest;
+
+
+        Jar(URL url, JarFile jarFile) {
+            this.url = url;
+            this.jarFile = jarFile;
+
+            this.baseUrl = "jar:" + url.toExternalForm() + "!/";
+            this.entryHandler = new EntryHandler();
+        }
+
+        private Set<String> indexEntries() throws IOException {
+            Manifest manifest = this.getManifest();
+            boolean multiRelease = VERSIONED_JAR_FILE_CONSTRUCTOR != null && manifest != null
+                    && "true".equalsIgnoreCase(manifest.getMainAttributes().getValue("Multi-Release"));
+
+            Set<String> packagePaths = new HashSet<>();
+            for (Enumeration<JarEntry> entries = jarFile.entries(); entries.hasMoreElements(); ) {
+                String name = entries.nextElement().getName();
+
+                // versioned entries are resolved by JarFile, and indexed by their base names
+                if (multiRelease && name.startsWith(VERSIONS_PREFIX)) {
+                    int pos = name.indexOf('/', VERSIONS_PREFIX.length());
+                    if (pos < 0 || pos == name.length() - 1)
+                        continue;
+
+                    name = name.substring(pos + 1);
+                }
+
+                int pos = name.lastIndexOf('/', name.endsWith("/") ? name.length() - 2 : name.length() - 1);
+                packagePaths.add(pos < 0 ? "" : name.substring(0, pos));
+            }
+
+            return packagePaths;
+        }
+
+        URL getUrl() {
+            return url;
+        }
+
+        boolean contains(String name) {
+            return jarFile.getEntry(name) != null;
+        }
+
+        URL getResource(String name) throws MalformedURLException {
+            return new URL(null, baseUrl + encodePath(name), entryHandler);
+        }
+
+        private static String encodePath(String name) throws MalformedURLException {
+            for (int pos = 0; pos < name.length(); pos++) {
+                char ch = name.charAt(pos);
+                if (ch == ' ' || ch == '%' || ch == '#' || ch == '?' || ch > 0x7f) {
+                    try {
+                        return new URI(null, null, "/" + name, null).toASCIIString().substring(1);
+                    } catch (URISyntaxException e) {
+                        throw new MalformedURLException(e.getMessage());
+                    }
+                }
+            }
+            return name;
+        }
+
+        Manifest getManifest() throws IOException {
+            if (manifest == null)
+                manifest = jarFile.getManifest();
+            return manifest;
+        }
+
+        /**
+         * Read class file and its code signers from base or versioned entry.
+         */
+        ClassFile readClassFile(String name) throws IOException {
+            JarEntry jarEntry = jarFile.getJarEntry(name);
+            if (jarEntry == null)
+                return null;
+
+            byte[] bytes;
+            try (InputStream input = jarFile.getInputStream(jarEntry)) {
+                bytes = readAllBytes(input);
+            }
+            // code signers are only available after entry is read
+            return new ClassFile(bytes, jarEntry.getCodeSigners());
+        }
+
+        private static byte[] readAllBytes(InputStream input) throws IOException {
+            ByteArrayOutputStream output = new ByteArrayOutputStream(8192);
+            byte[] buffer = new byte[8192];
+            for (int count; (count = input.read(buffer)) != -1; )
+                output.write(buffer, 0, count);
+            return output.toByteArray();
+        }
+
+        void close() {
+            try {
+                jarFile.close();
+            } catch (IOException ignored) { /* ignored */ }
+        }
+
+
+        private class EntryHandler extends URLStreamHandler {
+
+            @Override
+            protected URLConnection openConnection(URL url) throws IOException {
+                return new EntryConnection(url);
+            }
+        }
+
+
+        /**
+         * JarURLConnection reading entry from indexed JarFile.
+         */
+        private class EntryConnection extends JarURLConnection {
+
+            private JarEntry jarEntry;
+
+
+            private EntryConnection(URL url) throws MalformedURLException {
+                super(url);
+            }
+
+            @Override
+            public void connect() throws IOException {
+                if (connected)
+                    return;
+
+                String entryName = this.getEntryName();
+                if (entryName != null) {
+                    this.jarEntry = jarFile.getJarEntry(entryName);
+                    if (jarEntry == null)
+                        throw new FileNotFoundException("JAR entry " + entryName + " not found in " + jarFile.getName());
+                }
+                this.connected = true;
+            }
+
+            @Override
+            public JarFile getJarFile() throws IOException {
+                this.connect();
+                return jarFile;
+            }
+
+            @Override
+            public JarEntry getJarEntry() throws IOException {
+                this.connect();
+                return jarEntry;
+            }
+
+            @Override
+            public InputStream getInputStream() throws IOException {
+                this.connect();
+                if (jarEntry == null)
+                    throw new IOException("no entry name specified");
+
+                return jarFile.getInputStream(jarEntry);
+            }
+
+            @Override
+            public long getContentLengthLong() {
+                try {
+                    this.connect();
+                    return jarEntry == null ? -1 : jarEntry.getSize();
+                } catch (IOException e) {
+                    return -1;
+                }
+            }
+
+            @Override
+            public int getContentLength() {
+                long length = this.getContentLengthLong();
+                return length > Integer.MAX_VALUE ? -1 : (int) length;
+            }
+
+            @Override
+            public String getContentType() {
+                String entryName = this.getEntryName();
+                String contentType = entryName == null ? null : guessContentTypeFromName(entryName);
+                return contentType == null ? "content/unknown" : contentType;
+            }
+        }
+    }
+
+
+    static class ClassFile {
+
+        private final byte[] bytes;
+        private final CodeSigner[] codeSigners;
+
+
+        ClassFile(byte[] bytes, CodeSigner[] codeSigners) {
+            this.bytes = bytes;
+            this.codeSigners = codeSigners;
+        }
+
+        byte[] getBytes() {
+            return bytes;
+        }
+
+        CodeSigner[] getCodeSigners() {
+            return codeSigners;
+        }
+    }
+}
@@ -0,0 +1,229 @@
+/*
+ * Copyright © 2023, the original author or authors. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gemini.api.classloader;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.JarURLConnection;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.jar.Attributes;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import java.util.jar.Manifest;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ *
+ *
+ * @author   martin.liu
+ * @since	 1.0
+ */
+public class BaseClassLoaderTests {
+
+    private static final boolean MULTI_RELEASE_SUPPORTED =
+            System.getProperty("java.specification.version", "1.8").startsWith("1.") == false;
+
+    @TempDir
+    File jarDir;
+
+
+    @Test
+    public void lookUpMultipleJars() throws Exception {
+        Map<String, byte[]> entries1 = new LinkedHashMap<>();
+        entries1.put(toClassPath(Sample_A.class), readClassFile(Sample_A.class));
+        entries1.put("shared/resource.txt", toBytes("jar1"));
+        File jar1 = createJar("jar1.jar", null, entries1);
+
+        Map<String, byte[]> entries2 = new LinkedHashMap<>();
+        entries2.put(toClassPath(Sample_B.class), readClassFile(Sample_B.class));
+        entries2.put("shared/resource.txt", toBytes("jar2"));
+        entries2.put("shared/with space#1.txt", toBytes("escaped"));
+        File jar2 = createJar("jar2.jar", null, entries2);
+
+        try (BaseClassLoader classLoader = createClassLoader(jar1, jar2)) {
+            // classes are defined from indexed jars
+            Class<?> classA = classLoader.loadClass(Sample_A.class.getName());
+            assertThat(classA.getClassLoader()).isSameAs(classLoader);
+            assertThat(classA.getProtectionDomain().getCodeSource().getLocation()).isEqualTo(jar1.toURI().toURL());
+
+            Class<?> classB = classLoader.loadClass(Sample_B.class.getName());
+            assertThat(classB.getProtectionDomain().getCodeSource().getLocation()).isEqualTo(jar2.toURI().toURL());
+            assertThat(classB.getPackage()).isSameAs(classA.getPackage());
+
+            try {
+                classLoader.loadClass("io.gemini.test.MissingType");
+                assertThat(false).isTrue();
+            } catch (ClassNotFoundException expected) {
+            }
+
+            // resources are looked up in all jars in order
+            List<String> contents = new ArrayList<>();
+            for (URL url : Collections.list(classLoader.getResources("shared/resource.txt")))
+                contents.add(readContent(url));
+            assertThat(contents).containsExactly("jar1", "jar2");
+
+            URL url = classLoader.getResource("shared/with space#1.txt");
+            assertThat(url.toExternalForm()).startsWith("jar:" + jar2.toURI().toURL().toExternalForm() + "!/")
+                .endsWith("shared/with%20space%231.txt");
+            assertThat(readContent(url)).isEqualTo("escaped");
+
+            URLConnection connection = url.openConnection();
+            assertThat(connection).isInstanceOf(JarURLConnection.class);
+            // entry is read from indexed JarFile rather than cached jar: URL connection
+            assertThat(connection.getClass().getEnclosingClass()).isSameAs(JarIndex.Jar.class);
+            assertThat(((JarURLConnection) connection).getJarEntry().getName()).isEqualTo("shared/with space#1.txt");
+
+            assertThat(classLoader.getResource("shared/missing.txt")).isNull();
+        }
+    }
+
+    @Test
+    public void lookUpMultiReleaseJar() throws Exception {
+        Manifest manifest = createManifest();
+        manifest.getMainAttributes().putValue("Multi-Release", "true");
+
+        Map<String, byte[]> entries = new LinkedHashMap<>();
+        entries.put("versioned/resource.txt", toBytes("base"));
+        entries.put("META-INF/versions/9/versioned/resource.txt", toBytes("9"));
+        entries.put("META-INF/versions/9/versioned9/resource.txt", toBytes("9 only"));
+        File jar = createJar("multi-release.jar", manifest, entries);
+
+        try (BaseClassLoader classLoader = createClassLoader(jar)) {
+            assertThat(readContent(classLoader.getResource("versioned/resource.txt")))
+                .isEqualTo(MULTI_RELEASE_SUPPORTED ? "9" : "base");
+
+            URL url = classLoader.getResource("versioned9/resource.txt");
+            if (MULTI_RELEASE_SUPPORTED)
+                assertThat(readContent(url)).isEqualTo("9 only");
+            else
+                assertThat(url).isNull();
+        }
+    }
+
+    @Test
+    public void verifySealedPackage() throws Exception {
+        Manifest manifest = createManifest();
+        manifest.getMainAttributes().put(Attributes.Name.SEALED, "true");
+
+        File sealedJar = createJar("sealed.jar", manifest, 
+                Collections.singletonMap(toClassPath(Sample_A.class), readClassFile(Sample_A.class)) );
+        File unsealedJar = createJar("unsealed.jar", null, 
+                Collections.singletonMap(toClassPath(Sample_B.class), readClassFile(Sample_B.class)) );
+
+        // class in sealed package is loaded from other jar
+        try (BaseClassLoader classLoader = createClassLoader(sealedJar, unsealedJar)) {
+            assertThat(classLoader.loadClass(Sample_A.class.getName()).getPackage().isSealed()).isTrue();
+
+            try {
+                classLoader.loadClass(Sample_B.class.getName());
+                assertThat(false).isTrue();
+            } catch (SecurityException expected) {
+                assertThat(expected.getMessage()).contains("is sealed");
+            }
+        }
+
+        // package is sealed after loaded from other jar
+        try (BaseClassLoader classLoader = createClassLoader(sealedJar, unsealedJar)) {
+            assertThat(classLoader.loadClass(Sample_B.class.getName()).getPackage().isSealed()).isFalse();
+
+            try {
+                classLoader.loadClass(Sample_A.class.getName());
+                assertThat(false).isTrue();
+            } catch (SecurityException expected) {
+                assertThat(expected.getMessage()).contains("already loaded");
+            }
+        }
+    }
+
+
+    private BaseClassLoader createClassLoader(File... jars) throws IOException {
+        URL[] urls = new URL[jars.length];
+        for (int index = 0; index < jars.length; index++)
+            urls[index] = jars[index].toURI().toURL();
+
+        // load sample classes from jars rather than test classpath
+        return new BaseClassLoader(urls, null) {};
+    }
+
+    private static Manifest createManifest() {
+        Manifest manifest = new Manifest();
+        manifest.getMainAttributes().put(Attributes.Name.MANIFEST_VERSION, "1.0");
+        return manifest;
+    }
+
+    private File createJar(String fileName, Manifest manifest, Map<String, byte[]> entries) throws IOException {
+        File jar = new File(jarDir, fileName);
+        try (OutputStream output = Files.newOutputStream(jar.toPath());
+                JarOutputStream jarOutput = manifest == null ? new JarOutputStream(output) : new JarOutputStream(output, manifest)) {
+            for (Map.Entry<String, byte[]> entry : entries.entrySet()) {
+                jarOutput.putNextEntry(new JarEntry(entry.getKey()));
+                jarOutput.write(entry.getValue());
+                jarOutput.closeEntry();
+            }
+        }
+        return jar;
+    }
+
+    private static String toClassPath(Class<?> clazz) {
+        return clazz.getName().replace('.', '/') + ".class";
+    }
+
+    private static byte[] readClassFile(Class<?> clazz) throws IOException {
+        try (InputStream input = clazz.getClassLoader().getResourceAsStream(toClassPath(clazz))) {
+            return readAllBytes(input);
+        }
+    }
+
+    private static String readContent(URL url) throws IOException {
+        try (InputStream input = url.openStream()) {
+            return new String(readAllBytes(input), StandardCharsets.UTF_8);
+        }
+    }
+
+    private static byte[] readAllBytes(InputStream input) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        byte[] buffer = new byte[4096];
+        for (int count; (count = input.read(buffer)) != -1; )
+            output.write(buffer, 0, count);
+        return output.toByteArray();
+    }
+
+    private static byte[] toBytes(String content) {
+        return content.getBytes(StandardCharsets.UTF_8);
+    }
+
+
+    public static class Sample_A {
+    }
+
+    public static class Sample_B {
+    }
+}
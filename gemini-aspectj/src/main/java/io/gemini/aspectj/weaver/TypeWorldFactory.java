@@ -15,9 +15,8 @@
  */
 package io.gemini.aspectj.weaver;
 
-import java.util.concurrent.ConcurrentMap;
-
 import io.gemini.aspectj.weaver.world.BytebuddyWorld;
+import io.gemini.core.classloader.ClassLoaderRegistry;
 import io.gemini.core.concurrent.ConcurrentReferenceHashMap;
 import io.gemini.core.pool.TypePoolFactory;
 import io.gemini.core.util.ClassLoaderUtils;
@@ -44,10 +43,10 @@ public interface TypeWorldFactory {
     }
 
 
-    class Default extends AbstractBase {
+    class Default extends AbstractBase implements ClassLoaderRegistry.ReclaimListener {
 
         private final TypePoolFactory typePoolFactory;
-        private final ConcurrentMap<ClassLoader, TypeWorld> typeWorldCache = new ConcurrentReferenceHashMap<>();
+        private final ConcurrentReferenceHashMap<ClassLoader, TypeWorld> typeWorldCache = new ConcurrentReferenceHashMap<>();
 
 
         public Default(TypePoolFactory typePoolFactory) {
@@ -62,12 +61,18 @@ public interface TypeWorldFactory {
             ClassLoader cacheKey = ClassLoaderUtils.maskNull(classLoader);
 
             TypePool typePool = typePoolFactory.createTypePool(classLoader, javaModule);
-            this.typeWorldCache.computeIfAbsent(
+            return this.typeWorldCache.computeIfAbsent(
                     cacheKey, 
                     key -> doCreateTypeWorld(typePool, null)
             );
+        }
 
-            return typeWorldCache.get(cacheKey);
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public int onReclaimed(long classLoaderId, String classLoaderName) {
+            return typeWorldCache.purgeStaleEntries();
         }
     }
 }
\ No newline at end of file
@@ -0,0 +1,220 @@
+/*
+ * Copyright © 2023, the original author or authors. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gemini.core.classloader;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.gemini.core.concurrent.ConcurrentReferenceHashMap;
+import io.gemini.core.concurrent.DaemonThreadFactory;
+import io.gemini.core.util.ClassLoaderUtils;
+import io.gemini.core.util.Throwables;
+
+/**
+ * Central registry of application ClassLoaders, which tracks registered ClassLoaders via weak
+ * references and one {@code ReferenceQueue}, and notifies listeners to tear down per-ClassLoader
+ * state once ClassLoader is reclaimed by garbage collector.
+ *
+ * <p>Per-ClassLoader state held by listeners must not strongly reach its ClassLoader, otherwise
+ * the ClassLoader is pinned and never reclaimed.
+ *
+ * @author   martin.liu
+ * @since	 1.0
+ */
+public class ClassLoaderRegistry implements Closeable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ClassLoaderRegistry.class);
+
+
+    private final ReferenceQueue<ClassLoader> referenceQueue;
+    private final ConcurrentMap<ClassLoader, ClassLoaderRef> classLoaderRefMap;
+    // hold references strongly until they are enqueued
+    private final ConcurrentMap<Long, ClassLoaderRef> classLoaderRefs;
+
+    private final List<ReclaimListener> reclaimListeners;
+
+    private final AtomicLong idGenerator;
+    private final AtomicInteger reclaimedCount;
+    private final AtomicLong purgedEntryCount;
+
+    private final Thread reaperThread;
+    private volatile boolean closed = false;
+
+
+    public ClassLoaderRegistry() {
+        this.referenceQueue = new ReferenceQueue<>();
+        this.classLoaderRefMap = new ConcurrentReferenceHashMap<>();
+        this.classLoaderRefs = new ConcurrentHashMap<>();
+
+        this.reclaimListeners = new CopyOnWriteArrayList<>();
+
+        this.idGenerator = new AtomicLong(0);
+        this.reclaimedCount = new AtomicInteger(0);
+        this.purgedEntryCount = new AtomicLong(0);
+
+        this.reaperThread = new DaemonThreadFactory("ClassLoaderReaper").newThread(this::reap);
+        this.reaperThread.start();
+    }
+
+
+    public void addReclaimListener(ReclaimListener reclaimListener) {
+        if (reclaimListener == null)
+            return;
+
+        this.reclaimListeners.add(reclaimListener);
+    }
+
+    /**
+     * Register given ClassLoader once, and return its registry id, or -1 for bootstrap ClassLoader.
+     */
+    public long register(ClassLoader classLoader) {
+        if (classLoader == null || closed)
+            return -1;
+
+        ClassLoaderRef classLoaderRef = classLoaderRefMap.get(classLoader);
+        if (classLoaderRef != null)
+            return classLoaderRef.getId();
+
+        return classLoaderRefMap.computeIfAbsent(
+                classLoader,
+                cl -> {
+                    ClassLoaderRef ref = new ClassLoaderRef(cl, idGenerator.incrementAndGet(), referenceQueue);
+                    classLoaderRefs.put(ref.getId(), ref);
+                    return ref;
+                }
+        ).getId();
+    }
+
+    public int getRegisteredCount() {
+        return classLoaderRefs.size();
+    }
+
+    public int getReclaimedCount() {
+        return reclaimedCount.get();
+    }
+
+    public long getPurgedEntryCount() {
+        return purgedEntryCount.get();
+    }
+
+
+    private void reap() {
+        while (closed == false) {
+            try {
+                ClassLoaderRef classLoaderRef = (ClassLoaderRef) referenceQueue.remove();
+                this.reclaim(classLoaderRef);
+            } catch (InterruptedException e) {
+                if (closed)
+                    return;
+            } catch (Throwable t) {
+                if (LOGGER.isWarnEnabled())
+                    LOGGER.warn("Could not tear down reclaimed ClassLoader.", t);
+
+                Throwables.throwIfRequired(t);
+            }
+        }
+    }
+
+    private void reclaim(ClassLoaderRef classLoaderRef) {
+        if (classLoaderRefs.remove(classLoaderRef.getId()) == null)
+            return;
+
+        long startedAt = System.nanoTime();
+        int purgedEntries = 0;
+        for (ReclaimListener reclaimListener : reclaimListeners) {
+            try {
+                purgedEntries += reclaimListener.onReclaimed(classLoaderRef.getId(), classLoaderRef.getName());
+            } catch (Throwable t) {
+                if (LOGGER.isWarnEnabled())
+                    LOGGER.warn("Could not tear down state of reclaimed ClassLoader '{}' via listener '{}'.",
+                            classLoaderRef.getName(), reclaimListener, t);
+
+                Throwables.throwIfRequired(t);
+            }
+        }
+
+        reclaimedCount.incrementAndGet();
+        purgedEntryCount.addAndGet(purgedEntries);
+
+        if (LOGGER.isInfoEnabled())
+            LOGGER.info("Tore down reclaimed ClassLoader '{}' in {} ms, \n"
+                    + "  PurgedEntries: {} \n"
+                    + "  ReclaimedClassLoaders: {} \n"
+                    + "  LiveClassLoaders: {} \n",
+                    classLoaderRef.getName(), (System.nanoTime() - startedAt) / 1e6,
+                    purgedEntries, reclaimedCount.get(), classLoaderRefs.size());
+    }
+
+
+    @Override
+    public void close() throws IOException {
+        this.closed = true;
+        this.reaperThread.interrupt();
+
+        this.classLoaderRefMap.clear();
+        this.classLoaderRefs.clear();
+    }
+
+
+    /**
+     * Listener to tear down per-ClassLoader state once ClassLoader is reclaimed.
+     */
+    public interface ReclaimListener {
+
+        /**
+         * Tear down state of reclaimed ClassLoader, and return number of purged entries.
+         *
+         * @param classLoaderId registry id returned by {@link ClassLoaderRegistry#register(ClassLoader)}
+         * @param classLoaderName
+         * @return
+         */
+        int onReclaimed(long classLoaderId, String classLoaderName);
+    }
+
+
+    static class ClassLoaderRef extends WeakReference<ClassLoader> {
+
+        private final long id;
+        private final String name;
+
+
+        ClassLoaderRef(ClassLoader classLoader, long id, ReferenceQueue<ClassLoader> referenceQueue) {
+            super(classLoader, referenceQueue);
+
+            this.id = id;
+            this.name = ClassLoaderUtils.getClassLoaderName(classLoader);
+        }
+
+        public long getId() {
+            return id;
+        }
+
+        public String getName() {
+            return name;
+        }
+    }
+}
@@ -14,1114 +14,307 @@
  * limitations under the License.
  */
 package io.gemini.core.concurrent;
-/*
- * Written by Doug Lea with assistance from members of JCP JSR-166
- * Expert Group and released to the public domain, as explained at
- * http://creativecommons.org/licenses/publicdomain
- */
-//package xbird.util.concurrent.jsr166;
 
 import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
 import java.io.Serializable;
+import java.lang.ref.Reference;
 import java.lang.ref.ReferenceQueue;
 import java.lang.ref.WeakReference;
 import java.util.AbstractCollection;
 import java.util.AbstractMap;
 import java.util.AbstractSet;
 import java.util.Collection;
-import java.util.ConcurrentModificationException;
 import java.util.Enumeration;
-import java.util.HashMap;
-import java.util.Hashtable;
 import java.util.Iterator;
 import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.Set;
-import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.function.Function;
 
 /**
- * A hash table with <em>weak keys</em>, full concurrency of retrievals, and
- * adjustable expected concurrency for updates. Similar to
- * {@link java.util.WeakHashMap}, entries of this table are periodically
- * removed once their corresponding keys are no longer referenced outside of
- * this table. In other words, this table will not prevent a key from being
- * discarded by the garbage collector. Once a key has been discarded by the
- * collector, the corresponding entry is no longer visible to this table;
- * however, the entry may occupy space until a future table operation decides to
- * reclaim it. For this reason, summary functions such as <tt>size</tt> and
- * <tt>isEmpty</tt> might return a value greater than the observed number of
- * entries. In order to support a high level of concurrency, stale entries are
- * only reclaimed during blocking (usually mutating) operations.
- * 
- * While keys in this table are only held using a weak reference, values are
- * held using a normal strong reference. This provides the guarantee that a
- * value will always have at least the same life-span as it's key. For this
- * reason, care should be taken to ensure that a value never refers, either
- * directly or indirectly, to its key, thereby preventing reclamation. If weak
- * values are desired, one can simply use a {@link WeakReference} for the value
- * type.
- * 
- * Just like {@link java.util.ConcurrentHashMap}, this class obeys the same
- * functional specification as {@link java.util.Hashtable}, and includes
- * versions of methods corresponding to each method of <tt>Hashtable</tt>.
- * However, even though all operations are thread-safe, retrieval operations do
- * <em>not</em> entail locking, and there is <em>not</em> any support for
- * locking the entire table in a way that prevents all access. This class is
- * fully interoperable with <tt>Hashtable</tt> in programs that rely on its
- * thread safety but not on its synchronization details.
- * 
- * <p>
- * Retrieval operations (including <tt>get</tt>) generally do not block, so
- * may overlap with update operations (including <tt>put</tt> and
- * <tt>remove</tt>). Retrievals reflect the results of the most recently
- * <em>completed</em> update operations holding upon their onset. For
- * aggregate operations such as <tt>putAll</tt> and <tt>clear</tt>,
- * concurrent retrievals may reflect insertion or removal of only some entries.
- * Similarly, Iterators and Enumerations return elements reflecting the state of
- * the hash table at some point at or since the creation of the
- * iterator/enumeration. They do <em>not</em> throw
- * {@link ConcurrentModificationException}. However, iterators are designed to
- * be used by only one thread at a time.
- * 
- * <p>
- * The allowed concurrency among update operations is guided by the optional
- * <tt>concurrencyLevel</tt> constructor argument (default <tt>16</tt>),
- * which is used as a hint for internal sizing. The table is internally
- * partitioned to try to permit the indicated number of concurrent updates
- * without contention. Because placement in hash tables is essentially random,
- * the actual concurrency will vary. Ideally, you should choose a value to
- * accommodate as many threads as will ever concurrently modify the table. Using
- * a significantly higher value than you need can waste space and time, and a
- * significantly lower value can lead to thread contention. But overestimates
- * and underestimates within an order of magnitude do not usually have much
- * noticeable impact. A value of one is appropriate when it is known that only
- * one thread will modify and all others will only read. Also, resizing this or
- * any other kind of hash table is a relatively slow operation, so, when
- * possible, it is a good idea to provide estimates of expected table sizes in
- * constructors.
- * 
- * <p>
- * This class and its views and iterators implement all of the <em>optional</em>
- * methods of the {@link Map} and {@link Iterator} interfaces.
- * 
- * <p>
- * Like {@link Hashtable} but unlike {@link HashMap}, this class does
- * <em>not</em> allow <tt>null</tt> to be used as a key or value.
- * 
- * <p>
- * This class is a member of the <a href="{@docRoot}/../technotes/guides/collections/index.html">
- * Java Collections Framework</a>.
- * 
- * @author Doug Lea
- * @author Jason T. Greene
+ * A hash table with <em>weak keys</em> and strong values, which is backed by {@link ConcurrentHashMap}
+ * of weak key references. Retrievals look entries up via short-lived lookup keys and never lock.
+ * {@link #computeIfAbsent(Object, Function)} calls mapping function at most once per absent key,
+ * but outside of any bin lock of backing table, so that slow mapping functions only block callers
+ * of the same key.
+ *
+ * <p>Entries are expunged once their keys are reclaimed by garbage collector and enqueued into
+ * internal {@code ReferenceQueue}, which is drained during update operations and
+ * {@link #purgeStaleEntries()}. Until then, {@code size} might return a value greater than the
+ * observed number of entries.
+ *
+ * <p>Keys are compared via {@code equals}, which is identity for ClassLoader and Class keys. Values
+ * must not strongly refer to their keys, otherwise keys are never reclaimed. Neither keys nor
+ * values might be null.
+ *
+ * <p>Iterators and enumerations are weakly consistent, and skip entries whose keys are reclaimed.
+ * Serialized form keeps live mappings only.
+ *
+ * @author   martin.liu
+ * @since	 1.0
+ *
  * @param <K> the type of keys maintained by this map
  * @param <V> the type of mapped values
  */
-public class ConcurrentReferenceHashMap<K, V> extends AbstractMap<K, V>
-        implements java.util.concurrent.ConcurrentMap<K, V>, Serializable {
-    private static final long serialVersionUID = 7249069246763182397L;
+public class ConcurrentReferenceHashMap<K, V> extends AbstractMap<K, V> implements ConcurrentMap<K, V>, Serializable {
 
-    /*
-     * The basic strategy is to subdivide the table among Segments,
-     * each of which itself is a concurrently readable hash table.
-     */
-
-    /* ---------------- Constants -------------- */
+    private static final long serialVersionUID = 7249069246763182397L;
 
-    /**
-     * The default initial capacity for this table,
-     * used when not otherwise specified in a constructor.
-     */
     static final int DEFAULT_INITIAL_CAPACITY = 16;
 
-    /**
-     * The default load factor for this table, used when not
-     * otherwise specified in a constructor.
-     */
     static final float DEFAULT_LOAD_FACTOR = 0.75f;
 
-    /**
-     * The default concurrency level for this table, used when not
-     * otherwise specified in a constructor.
-     */
     static final int DEFAULT_CONCURRENCY_LEVEL = 16;
 
-    /**
-     * The maximum capacity, used if a higher value is implicitly
-     * specified by either of the constructors with arguments.  MUST
-     * be a power of two <= 1<<30 to ensure that entries are indexable
-     * using ints.
-     */
-    static final int MAXIMUM_CAPACITY = 1 << 30;
-
-    /**
-     * The maximum number of segments to allow; used to bound
-     * constructor arguments.
-     */
-    static final int MAX_SEGMENTS = 1 << 16; // slightly conservative
-
-    /**
-     * Number of unsynchronized retries in size and containsValue
-     * methods before resorting to locking. This is used to avoid
-     * unbounded retries if tables undergo continuous modification
-     * which would make it impossible to obtain an accurate result.
-     */
-    static final int RETRIES_BEFORE_LOCK = 2;
-
-    /* ---------------- Fields -------------- */
-
-    /**
-     * Mask value for indexing into segments. The upper bits of a
-     * key's hash code are used to choose the segment.
-     */
-    final int segmentMask;
-
-    /**
-     * Shift value for indexing within segments.
-     */
-    final int segmentShift;
-
-    /**
-     * The segments, each of which is a specialized hash table
-     */
-    final Segment<K, V>[] segments;
-
-    transient Set<K> keySet;
-    transient Set<Map.Entry<K, V>> entrySet;
-    transient Collection<V> values;
-
-    /* ---------------- Small Utilities -------------- */
-
-    /**
-     * Applies a supplemental hash function to a given hashCode, which
-     * defends against poor quality hash functions.  This is critical
-     * because ConcurrentWeakHashMap uses power-of-two length hash tables,
-     * that otherwise encounter collisions for hashCodes that do not
-     * differ in lower or upper bits.
-     */
-    private static int hash(int h) {
-        // Spread bits to regularize both segment and index locations,
-        // using variant of single-word Wang/Jenkins hash.
-        h += (h << 15) ^ 0xffffcd7d;
-        h ^= (h >>> 10);
-        h += (h << 3);
-        h ^= (h >>> 6);
-        h += (h << 2) + (h << 14);
-        return h ^ (h >>> 16);
-    }
-
-    /**
-     * Returns the segment that should be used for key with given hash
-     * @param hash the hash code for the key
-     * @return the segment
-     */
-    final Segment<K, V> segmentfor (int hash) {
-        return segments[(hash >>> segmentShift) & segmentMask];
-    }
-
-    /* ---------------- Inner Classes -------------- */
-
-    /**
-     * A weak-key reference which stores the key hash needed for reclamation.
-     */
-    static final class WeakKeyReference<K> extends WeakReference<K> {
-        final int hash;
-
-        WeakKeyReference(K key, int hash, ReferenceQueue<K> refQueue) {
-            super(key, refQueue);
-            this.hash = hash;
-        }
-    }
-
-    /**
-     * ConcurrentWeakHashMap list entry. Note that this is never exported
-     * out as a user-visible Map.Entry.
-     *
-     * Because the value field is volatile, not final, it is legal wrt
-     * the Java Memory Model for an unsynchronized reader to see null
-     * instead of initial value when read via a data race.  Although a
-     * reordering leading to this is not likely to ever actually
-     * occur, the Segment.readValueUnderLock method is used as a
-     * backup in case a null (pre-initialized) value is ever seen in
-     * an unsynchronized access method.
-     */
-    static final class HashEntry<K, V> {
-        final WeakReference<K> keyRef;
-        final int hash;
-        volatile V value;
-        final HashEntry<K, V> next;
-
-        HashEntry(K key, int hash, HashEntry<K, V> next, V value, ReferenceQueue<K> refQueue) {
-            this.keyRef = new WeakKeyReference<K>(key, hash, refQueue);
-            this.hash = hash;
-            this.next = next;
-            this.value = value;
-        }
-
-        @SuppressWarnings("unchecked")
-        static final <K, V> HashEntry<K, V>[] newArray(int i) {
-            return new HashEntry[i];
-        }
-    }
-
-    /**
-     * Segments are specialized versions of hash tables.  This
-     * subclasses from ReentrantLock opportunistically, just to
-     * simplify some locking and avoid separate construction.
-     */
-    static final class Segment<K, V> extends ReentrantLock implements Serializable {
-        /*
-         * Segments maintain a table of entry lists that are ALWAYS
-         * kept in a consistent state, so can be read without locking.
-         * Next fields of nodes are immutable (final).  All list
-         * additions are performed at the front of each bin. This
-         * makes it easy to check changes, and also fast to traverse.
-         * When nodes would otherwise be changed, new nodes are
-         * created to replace them. This works well for hash tables
-         * since the bin lists tend to be short. (The average length
-         * is less than two for the default load factor threshold.)
-         *
-         * Read operations can thus proceed without locking, but rely
-         * on selected uses of volatiles to ensure that completed
-         * write operations performed by other threads are
-         * noticed. For most purposes, the "count" field, tracking the
-         * number of elements, serves as that volatile variable
-         * ensuring visibility.  This is convenient because this field
-         * needs to be read in many read operations anyway:
-         *
-         *   - All (unsynchronized) read operations must first read the
-         *     "count" field, and should not look at table entries if
-         *     it is 0.
-         *
-         *   - All (synchronized) write operations should write to
-         *     the "count" field after structurally changing any bin.
-         *     The operations must not take any action that could even
-         *     momentarily cause a concurrent read operation to see
-         *     inconsistent data. This is made easier by the nature of
-         *     the read operations in Map. For example, no operation
-         *     can reveal that the table has grown but the threshold
-         *     has not yet been updated, so there are no atomicity
-         *     requirements for this with respect to reads.
-         *
-         * As a guide, all critical volatile reads and writes to the
-         * count field are marked in code comments.
-         */
-
-        private static final long serialVersionUID = 2249069246763182397L;
-
-        /**
-         * The number of elements in this segment's region.
-         */
-        transient volatile int count;
-
-        /**
-         * Number of updates that alter the size of the table. This is
-         * used during bulk-read methods to make sure they see a
-         * consistent snapshot: If modCounts change during a traversal
-         * of segments computing size or checking containsValue, then
-         * we might have an inconsistent view of state so (usually)
-         * must retry.
-         */
-        transient int modCount;
-
-        /**
-         * The table is rehashed when its size exceeds this threshold.
-         * (The value of this field is always <tt>(int)(capacity *
-         * loadFactor)</tt>.)
-         */
-        transient int threshold;
-
-        /**
-         * The per-segment table.
-         */
-        transient volatile HashEntry<K, V>[] table;
-
-        /**
-         * The load factor for the hash table.  Even though this value
-         * is same for all segments, it is replicated to avoid needing
-         * links to outer object.
-         * @serial
-         */
-        final float loadFactor;
-
-        /**
-         * The collected weak-key reference queue for this segment. 
-         * This should be (re)initialized whenever table is assigned,
-         */
-        transient volatile ReferenceQueue<K> refQueue;
-
-        Segment(int initialCapacity, float lf) {
-            loadFactor = lf;
-            setTable(HashEntry.<K, V> newArray(initialCapacity));
-        }
-
-        @SuppressWarnings("unchecked")
-        static final <K, V> Segment<K, V>[] newArray(int i) {
-            return new Segment[i];
-        }
-
-        /**
-         * Sets table to new HashEntry array.
-         * Call only while holding lock or in constructor.
-         */
-        void setTable(HashEntry<K, V>[] newTable) {
-            threshold = (int) (newTable.length * loadFactor);
-            table = newTable;
-            refQueue = new ReferenceQueue<K>();
-        }
-
-        /**
-         * Returns properly casted first entry of bin for given hash.
-         */
-        HashEntry<K, V> getFirst(int hash) {
-            HashEntry<K, V>[] tab = table;
-            return tab[hash & (tab.length - 1)];
-        }
-
-        /**
-         * Reads value field of an entry under lock. Called if value
-         * field ever appears to be null. This is possible only if a
-         * compiler happens to reorder a HashEntry initialization with
-         * its table assignment, which is legal under memory model
-         * but is not known to ever occur.
-         */
-        V readValueUnderLock(HashEntry<K, V> e) {
-            lock();
-            try {
-                removeStale();
-                return e.value;
-            } finally {
-                unlock();
-            }
-        }
-
-        /* Specialized implementations of map methods */
-
-        V get(Object key, int hash) {
-            if (count != 0) { // read-volatile
-                HashEntry<K, V> e = getFirst(hash);
-                while (e != null) {
-                    if (e.hash == hash && key.equals(e.keyRef.get())) {
-                        V v = e.value;
-                        if (v != null)
-                            return v;
-                        return readValueUnderLock(e); // recheck
-                    }
-                    e = e.next;
-                }
-            }
-            return null;
-        }
-
-        boolean containsKey(Object key, int hash) {
-            if (count != 0) { // read-volatile
-                HashEntry<K, V> e = getFirst(hash);
-                while (e != null) {
-                    if (e.hash == hash && key.equals(e.keyRef.get()))
-                        return true;
-                    e = e.next;
-                }
-            }
-            return false;
-        }
 
-        boolean containsValue(Object value) {
-            if (count != 0) { // read-volatile
-                HashEntry<K, V>[] tab = table;
-                int len = tab.length;
-                for (int i = 0; i < len; i++) {
-                    for (HashEntry<K, V> e = tab[i]; e != null; e = e.next) {
-                        V v = e.value;
-                        if (v == null) // recheck
-                            v = readValueUnderLock(e);
-                        if (value.equals(v))
-                            return true;
-                    }
-                }
-            }
-            return false;
-        }
+    private transient ConcurrentHashMap<Object /* WeakKey */, V> table;
+    private transient ReferenceQueue<K> referenceQueue;
 
-        boolean replace(K key, int hash, V oldValue, V newValue) {
-            lock();
-            try {
-                removeStale();
-                HashEntry<K, V> e = getFirst(hash);
-                while (e != null && (e.hash != hash || !key.equals(e.keyRef.get())))
-                    e = e.next;
-
-                boolean replaced = false;
-                if (e != null && oldValue.equals(e.value)) {
-                    replaced = true;
-                    e.value = newValue;
-                }
-                return replaced;
-            } finally {
-                unlock();
-            }
-        }
+    private transient ConcurrentMap<Object /* LookupKey */, Computation> computations;
 
-        V replace(K key, int hash, V newValue) {
-            lock();
-            try {
-                removeStale();
-                HashEntry<K, V> e = getFirst(hash);
-                while (e != null && (e.hash != hash || !key.equals(e.keyRef.get())))
-                    e = e.next;
-
-                V oldValue = null;
-                if (e != null) {
-                    oldValue = e.value;
-                    e.value = newValue;
-                }
-                return oldValue;
-            } finally {
-                unlock();
-            }
-        }
+    private transient Set<K> keySet;
+    private transient Collection<V> values;
+    private transient Set<Map.Entry<K, V>> entrySet;
 
-        V put(K key, int hash, V value, boolean onlyIfAbsent) {
-            lock();
-            try {
-                removeStale();
-                int c = count;
-                if (c++ > threshold) {// ensure capacity
-                    int reduced = rehash();
-                    if (reduced > 0) // adjust from possible weak cleanups
-                        count = (c -= reduced) - 1; // write-volatile      
-                }
-
-                HashEntry<K, V>[] tab = table;
-                int index = hash & (tab.length - 1);
-                HashEntry<K, V> first = tab[index];
-                HashEntry<K, V> e = first;
-                while (e != null && (e.hash != hash || !key.equals(e.keyRef.get())))
-                    e = e.next;
-
-                V oldValue;
-                if (e != null) {
-                    oldValue = e.value;
-                    if (!onlyIfAbsent)
-                        e.value = value;
-                } else {
-                    oldValue = null;
-                    ++modCount;
-                    tab[index] = new HashEntry<K, V>(key, hash, first, value, refQueue);
-                    count = c; // write-volatile
-                }
-                return oldValue;
-            } finally {
-                unlock();
-            }
-        }
-
-        int rehash() {
-            HashEntry<K, V>[] oldTable = table;
-            int oldCapacity = oldTable.length;
-            if (oldCapacity >= MAXIMUM_CAPACITY)
-                return 0;
-
-            /*
-             * Reclassify nodes in each list to new Map.  Because we are
-             * using power-of-two expansion, the elements from each bin
-             * must either stay at same index, or move with a power of two
-             * offset. We eliminate unnecessary node creation by catching
-             * cases where old nodes can be reused because their next
-             * fields won't change. Statistically, at the default
-             * threshold, only about one-sixth of them need cloning when
-             * a table doubles. The nodes they replace will be garbage
-             * collectable as soon as they are no longer referenced by any
-             * reader thread that may be in the midst of traversing table
-             * right now.
-             */
-
-            HashEntry<K, V>[] newTable = HashEntry.newArray(oldCapacity << 1);
-            threshold = (int) (newTable.length * loadFactor);
-            int sizeMask = newTable.length - 1;
-            int reduce = 0;
-            for (int i = 0; i < oldCapacity; i++) {
-                // We need to guarantee that any existing reads of old Map can
-                //  proceed. So we cannot yet null out each bin.
-                HashEntry<K, V> e = oldTable[i];
-
-                if (e != null) {
-                    HashEntry<K, V> next = e.next;
-                    int idx = e.hash & sizeMask;
-
-                    //  Single node on list
-                    if (next == null)
-                        newTable[idx] = e;
-
-                    else {
-                        // Reuse trailing consecutive sequence at same slot
-                        HashEntry<K, V> lastRun = e;
-                        int lastIdx = idx;
-                        for (HashEntry<K, V> last = next; last != null; last = last.next) {
-                            int k = last.hash & sizeMask;
-                            if (k != lastIdx) {
-                                lastIdx = k;
-                                lastRun = last;
-                            }
-                        }
-                        newTable[lastIdx] = lastRun;
-                        // Clone all remaining nodes
-                        for (HashEntry<K, V> p = e; p != lastRun; p = p.next) {
-                            // Skip GC'd weak refs
-                            K key = p.keyRef.get();
-                            if (key == null) {
-                                reduce++;
-                                continue;
-                            }
-                            int k = p.hash & sizeMask;
-                            HashEntry<K, V> n = newTable[k];
-                            newTable[k] = new HashEntry<K, V>(key, p.hash, n, p.value, refQueue);
-                        }
-                    }
-                }
-            }
-            table = newTable;
-            return reduce;
-        }
-
-        /**
-         * Remove; match on key only if value null, else match both.
-         */
-        V remove(Object key, int hash, Object value, boolean weakRemove) {
-            lock();
-            try {
-                if (!weakRemove)
-                    removeStale();
-                int c = count - 1;
-                HashEntry<K, V>[] tab = table;
-                int index = hash & (tab.length - 1);
-                HashEntry<K, V> first = tab[index];
-                HashEntry<K, V> e = first;
-                // a weak remove operation compares the WeakReference instance
-                while (e != null && (!weakRemove || key != e.keyRef)
-                        && (e.hash != hash || !key.equals(e.keyRef.get())))
-                    e = e.next;
-
-                V oldValue = null;
-                if (e != null) {
-                    V v = e.value;
-                    if (value == null || value.equals(v)) {
-                        oldValue = v;
-                        // All entries following removed node can stay
-                        // in list, but all preceding ones need to be
-                        // cloned.
-                        ++modCount;
-                        HashEntry<K, V> newFirst = e.next;
-                        for (HashEntry<K, V> p = first; p != e; p = p.next) {
-                            K pKey = p.keyRef.get();
-                            if (pKey == null) { // Skip GC'd keys
-                                c--;
-                                continue;
-                            }
-
-                            newFirst = new HashEntry<K, V>(pKey, p.hash, newFirst, p.value, refQueue);
-                        }
-                        tab[index] = newFirst;
-                        count = c; // write-volatile
-                    }
-                }
-                return oldValue;
-            } finally {
-                unlock();
-            }
-        }
-
-        @SuppressWarnings("unchecked")
-        void removeStale() {
-            WeakKeyReference<K> ref;
-            while ((ref = (WeakKeyReference<K>) refQueue.poll()) != null) {
-                remove(ref, ref.hash, null, true);
-            }
-        }
 
-        void clear() {
-            if (count != 0) {
-                lock();
-                try {
-                    HashEntry<K, V>[] tab = table;
-                    for (int i = 0; i < tab.length; i++)
-                        tab[i] = null;
-                    ++modCount;
-                    // replace the reference queue to avoid unnecessary stale cleanups
-                    refQueue = new ReferenceQueue<K>();
-                    count = 0; // write-volatile
-                } finally {
-                    unlock();
-                }
-            }
-        }
-    }
-
-    /* ---------------- Public operations -------------- */
-
-    /**
-     * Creates a new, empty map with the specified initial
-     * capacity, load factor and concurrency level.
-     *
-     * @param initialCapacity the initial capacity. The implementation
-     * performs internal sizing to accommodate this many elements.
-     * @param loadFactor  the load factor threshold, used to control resizing.
-     * Resizing may be performed when the average number of elements per
-     * bin exceeds this threshold.
-     * @param concurrencyLevel the estimated number of concurrently
-     * updating threads. The implementation performs internal sizing
-     * to try to accommodate this many threads.
-     * @throws IllegalArgumentException if the initial capacity is
-     * negative or the load factor or concurrencyLevel are
-     * nonpositive.
-     */
     public ConcurrentReferenceHashMap(int initialCapacity, float loadFactor, int concurrencyLevel) {
-        if (!(loadFactor > 0) || initialCapacity < 0 || concurrencyLevel <= 0)
-            throw new IllegalArgumentException();
-
-        if (concurrencyLevel > MAX_SEGMENTS)
-            concurrencyLevel = MAX_SEGMENTS;
-
-        // Find power-of-two sizes best matching arguments
-        int sshift = 0;
-        int ssize = 1;
-        while (ssize < concurrencyLevel) {
-            ++sshift;
-            ssize <<= 1;
-        }
-        segmentShift = 32 - sshift;
-        segmentMask = ssize - 1;
-        this.segments = Segment.newArray(ssize);
-
-        if (initialCapacity > MAXIMUM_CAPACITY)
-            initialCapacity = MAXIMUM_CAPACITY;
-        int c = initialCapacity / ssize;
-        if (c * ssize < initialCapacity)
-            ++c;
-        int cap = 1;
-        while (cap < c)
-            cap <<= 1;
-
-        for (int i = 0; i < this.segments.length; ++i)
-            this.segments[i] = new Segment<K, V>(cap, loadFactor);
+        this.initialize(initialCapacity, loadFactor, concurrencyLevel);
     }
 
-    /**
-     * Creates a new, empty map with the specified initial capacity
-     * and load factor and with the default concurrencyLevel (16).
-     *
-     * @param initialCapacity The implementation performs internal
-     * sizing to accommodate this many elements.
-     * @param loadFactor  the load factor threshold, used to control resizing.
-     * Resizing may be performed when the average number of elements per
-     * bin exceeds this threshold.
-     * @throws IllegalArgumentException if the initial capacity of
-     * elements is negative or the load factor is nonpositive
-     *
-     * @since 1.6
-     */
     public ConcurrentReferenceHashMap(int initialCapacity, float loadFactor) {
         this(initialCapacity, loadFactor, DEFAULT_CONCURRENCY_LEVEL);
     }
 
-    /**
-     * Creates a new, empty map with the specified initial capacity,
-     * and with default load factor (0.75) and concurrencyLevel (16).
-     *
-     * @param initialCapacity the initial capacity. The implementation
-     * performs internal sizing to accommodate this many elements.
-     * @throws IllegalArgumentException if the initial capacity of
-     * elements is negative.
-     */
     public ConcurrentReferenceHashMap(int initialCapacity) {
         this(initialCapacity, DEFAULT_LOAD_FACTOR, DEFAULT_CONCURRENCY_LEVEL);
     }
 
-    /**
-     * Creates a new, empty map with a default initial capacity (16),
-     * load factor (0.75) and concurrencyLevel (16).
-     */
     public ConcurrentReferenceHashMap() {
         this(DEFAULT_INITIAL_CAPACITY, DEFAULT_LOAD_FACTOR, DEFAULT_CONCURRENCY_LEVEL);
     }
 
-    /**
-     * Creates a new map with the same mappings as the given map.
-     * The map is created with a capacity of 1.5 times the number
-     * of mappings in the given map or 16 (whichever is greater),
-     * and a default load factor (0.75) and concurrencyLevel (16).
-     *
-     * @param m the map
-     */
     public ConcurrentReferenceHashMap(Map<? extends K, ? extends V> m) {
-        this(Math.max((int) (m.size() / DEFAULT_LOAD_FACTOR) + 1, DEFAULT_INITIAL_CAPACITY), DEFAULT_LOAD_FACTOR, DEFAULT_CONCURRENCY_LEVEL);
+        this(Math.max((int) (m.size() / DEFAULT_LOAD_FACTOR) + 1, DEFAULT_INITIAL_CAPACITY),
+                DEFAULT_LOAD_FACTOR, DEFAULT_CONCURRENCY_LEVEL);
         putAll(m);
     }
 
-    /**
-     * Returns <tt>true</tt> if this map contains no key-value mappings.
-     *
-     * @return <tt>true</tt> if this map contains no key-value mappings
-     */
-    public boolean isEmpty() {
-        final Segment<K, V>[] segments = this.segments;
-        /*
-         * We keep track of per-segment modCounts to avoid ABA
-         * problems in which an element in one segment was added and
-         * in another removed during traversal, in which case the
-         * table was never actually empty at any point. Note the
-         * similar use of modCounts in the size() and containsValue()
-         * methods, which are the only other methods also susceptible
-         * to ABA problems.
-         */
-        int[] mc = new int[segments.length];
-        int mcsum = 0;
-        for (int i = 0; i < segments.length; ++i) {
-            if (segments[i].count != 0)
-                return false;
-            else
-                mcsum += mc[i] = segments[i].modCount;
-        }
-        // If mcsum happens to be zero, then we know we got a snapshot
-        // before any modifications at all were made.  This is
-        // probably common enough to bother tracking.
-        if (mcsum != 0) {
-            for (int i = 0; i < segments.length; ++i) {
-                if (segments[i].count != 0 || mc[i] != segments[i].modCount)
-                    return false;
-            }
-        }
-        return true;
+    private void initialize(int initialCapacity, float loadFactor, int concurrencyLevel) {
+        this.table = new ConcurrentHashMap<>(initialCapacity, loadFactor, concurrencyLevel);
+        this.referenceQueue = new ReferenceQueue<>();
+        this.computations = new ConcurrentHashMap<>(DEFAULT_INITIAL_CAPACITY, loadFactor, concurrencyLevel);
     }
 
+
     /**
-     * Returns the number of key-value mappings in this map.  If the
-     * map contains more than <tt>Integer.MAX_VALUE</tt> elements, returns
-     * <tt>Integer.MAX_VALUE</tt>.
-     *
-     * @return the number of key-value mappings in this map
+     * {@inheritDoc}
      */
+    @Override
     public int size() {
-        final Segment<K, V>[] segments = this.segments;
-        long sum = 0;
-        long check = 0;
-        int[] mc = new int[segments.length];
-        // Try a few times to get accurate count. On failure due to
-        // continuous async changes in table, resort to locking.
-        for (int k = 0; k < RETRIES_BEFORE_LOCK; ++k) {
-            check = 0;
-            sum = 0;
-            int mcsum = 0;
-            for (int i = 0; i < segments.length; ++i) {
-                sum += segments[i].count;
-                mcsum += mc[i] = segments[i].modCount;
-            }
-            if (mcsum != 0) {
-                for (int i = 0; i < segments.length; ++i) {
-                    check += segments[i].count;
-                    if (mc[i] != segments[i].modCount) {
-                        check = -1; // force retry
-                        break;
-                    }
-                }
-            }
-            if (check == sum)
-                break;
-        }
-        if (check != sum) { // Resort to locking all segments
-            sum = 0;
-            for (int i = 0; i < segments.length; ++i)
-                segments[i].lock();
-            for (int i = 0; i < segments.length; ++i)
-                sum += segments[i].count;
-            for (int i = 0; i < segments.length; ++i)
-                segments[i].unlock();
-        }
-        if (sum > Integer.MAX_VALUE)
-            return Integer.MAX_VALUE;
-        else
-            return (int) sum;
+        return table.size();
     }
 
     /**
-     * Returns the value to which the specified key is mapped,
-     * or {@code null} if this map contains no mapping for the key.
-     *
-     * <p>More formally, if this map contains a mapping from a key
-     * {@code k} to a value {@code v} such that {@code key.equals(k)},
-     * then this method returns {@code v}; otherwise it returns
-     * {@code null}.  (There can be at most one such mapping.)
-     *
-     * @throws NullPointerException if the specified key is null
+     * {@inheritDoc}
      */
-    public V get(Object key) {
-        int hash = hash(key.hashCode());
-        return segmentfor (hash).get(key, hash);
+    @Override
+    public boolean isEmpty() {
+        return table.isEmpty();
     }
 
     /**
-     * Tests if the specified object is a key in this table.
-     *
-     * @param  key   possible key
-     * @return <tt>true</tt> if and only if the specified object
-     *         is a key in this table, as determined by the
-     *         <tt>equals</tt> method; <tt>false</tt> otherwise.
-     * @throws NullPointerException if the specified key is null
+     * {@inheritDoc}
      */
-    public boolean containsKey(Object key) {
-        int hash = hash(key.hashCode());
-        return segmentfor (hash).containsKey(key, hash);
+    @Override
+    public V get(Object key) {
+        return table.get(new LookupKey(key));
     }
 
     /**
-     * Returns <tt>true</tt> if this map maps one or more keys to the
-     * specified value. Note: This method requires a full internal
-     * traversal of the hash table, and so is much slower than
-     * method <tt>containsKey</tt>.
-     *
-     * @param value value whose presence in this map is to be tested
-     * @return <tt>true</tt> if this map maps one or more keys to the
-     *         specified value
-     * @throws NullPointerException if the specified value is null
+     * {@inheritDoc}
      */
-    public boolean containsValue(Object value) {
-        if (value == null)
-            throw new NullPointerException();
-
-        // See explanation of modCount use above
-
-        final Segment<K, V>[] segments = this.segments;
-        int[] mc = new int[segments.length];
-
-        // Try a few times without locking
-        for (int k = 0; k < RETRIES_BEFORE_LOCK; ++k) {
-            int mcsum = 0;
-            for (int i = 0; i < segments.length; ++i) {
-                mcsum += mc[i] = segments[i].modCount;
-                if (segments[i].containsValue(value))
-                    return true;
-            }
-            boolean cleanSweep = true;
-            if (mcsum != 0) {
-                for (int i = 0; i < segments.length; ++i) {
-                    if (mc[i] != segments[i].modCount) {
-                        cleanSweep = false;
-                        break;
-                    }
-                }
-            }
-            if (cleanSweep)
-                return false;
-        }
-        // Resort to locking all segments
-        for (int i = 0; i < segments.length; ++i)
-            segments[i].lock();
-        boolean found = false;
-        try {
-            for (int i = 0; i < segments.length; ++i) {
-                if (segments[i].containsValue(value)) {
-                    found = true;
-                    break;
-                }
-            }
-        } finally {
-            for (int i = 0; i < segments.length; ++i)
-                segments[i].unlock();
-        }
-        return found;
+    @Override
+    public boolean containsKey(Object key) {
+        return table.containsKey(new LookupKey(key));
     }
 
     /**
-     * Legacy method testing if some key maps into the specified value
-     * in this table.  This method is identical in functionality to
-     * {@link #containsValue}, and exists solely to ensure
-     * full compatibility with class {@link java.util.Hashtable},
-     * which supported this method prior to introduction of the
-     * Java Collections framework.
-
-     * @param  value a value to search for
-     * @return <tt>true</tt> if and only if some key maps to the
-     *         <tt>value</tt> argument in this table as
-     *         determined by the <tt>equals</tt> method;
-     *         <tt>false</tt> otherwise
-     * @throws NullPointerException if the specified value is null
+     * {@inheritDoc}
      */
-    public boolean contains(Object value) {
-        return containsValue(value);
+    @Override
+    public boolean containsValue(Object value) {
+        return table.containsValue(value);
     }
 
     /**
-     * Maps the specified key to the specified value in this table.
-     * Neither the key nor the value can be null.
-     *
-     * <p> The value can be retrieved by calling the <tt>get</tt> method
-     * with a key that is equal to the original key.
-     *
-     * @param key key with which the specified value is to be associated
-     * @param value value to be associated with the specified key
-     * @return the previous value associated with <tt>key</tt>, or
-     *         <tt>null</tt> if there was no mapping for <tt>key</tt>
-     * @throws NullPointerException if the specified key or value is null
+     * {@inheritDoc}
      */
+    @Override
     public V put(K key, V value) {
-        if (value == null)
-            throw new NullPointerException();
-        int hash = hash(key.hashCode());
-        return segmentfor (hash).put(key, hash, value, false);
+        expungeStaleEntries();
+        return table.put(new WeakKey<>(key, referenceQueue), value);
     }
 
     /**
      * {@inheritDoc}
-     *
-     * @return the previous value associated with the specified key,
-     *         or <tt>null</tt> if there was no mapping for the key
-     * @throws NullPointerException if the specified key or value is null
      */
+    @Override
     public V putIfAbsent(K key, V value) {
-        if (value == null)
-            throw new NullPointerException();
-        int hash = hash(key.hashCode());
-        return segmentfor (hash).put(key, hash, value, true);
+        expungeStaleEntries();
+        return table.putIfAbsent(new WeakKey<>(key, referenceQueue), value);
     }
 
     /**
-     * Copies all of the mappings from the specified map to this one.
-     * These mappings replace any mappings that this map had for any of the
-     * keys currently in the specified map.
-     *
-     * @param m mappings to be stored in this map
+     * {@inheritDoc}
      */
+    @Override
     public void putAll(Map<? extends K, ? extends V> m) {
         for (Map.Entry<? extends K, ? extends V> e : m.entrySet())
             put(e.getKey(), e.getValue());
     }
 
     /**
-     * Removes the key (and its corresponding value) from this map.
-     * This method does nothing if the key is not in the map.
+     * Return existing value of given key without locking, or compute and store value, so that
+     * mapping function is called at most once per absent key.
      *
-     * @param  key the key that needs to be removed
-     * @return the previous value associated with <tt>key</tt>, or
-     *         <tt>null</tt> if there was no mapping for <tt>key</tt>
-     * @throws NullPointerException if the specified key is null
+     * <p>Mapping function is called outside of bin lock of backing table, and concurrent callers
+     * of the same key wait for its result. Mapping function might update this map, except
+     * computing value of the same key recursively.
+     */
+    @Override
+    public V computeIfAbsent(K key, Function<? super K, ? extends V> mappingFunction) {
+        LookupKey lookupKey = new LookupKey(key);
+        V value = table.get(lookupKey);
+        if (value != null)
+            return value;
+
+        Computation computation = new Computation(key, mappingFunction);
+        Computation existingComputation = computations.putIfAbsent(lookupKey, computation);
+        if (existingComputation == null) {
+            try {
+                computation.run();
+            } finally {
+                computations.remove(lookupKey, computation);
+            }
+        } else {
+            if (existingComputation.runner == Thread.currentThread())
+                throw new IllegalStateException("Recursive update");
+
+            computation = existingComputation;
+        }
+
+        return computation.getValue();
+    }
+
+    /**
+     * {@inheritDoc}
      */
+    @Override
     public V remove(Object key) {
-        int hash = hash(key.hashCode());
-        return segmentfor (hash).remove(key, hash, null, false);
+        expungeStaleEntries();
+        return table.remove(new LookupKey(key));
     }
 
     /**
      * {@inheritDoc}
-     *
-     * @throws NullPointerException if the specified key is null
      */
+    @Override
     public boolean remove(Object key, Object value) {
-        int hash = hash(key.hashCode());
-        if (value == null)
-            return false;
-        return segmentfor (hash).remove(key, hash, value, false) != null;
+        expungeStaleEntries();
+        return value != null && table.remove(new LookupKey(key), value);
     }
 
     /**
      * {@inheritDoc}
-     *
-     * @throws NullPointerException if any of the arguments are null
      */
+    @Override
     public boolean replace(K key, V oldValue, V newValue) {
-        if (oldValue == null || newValue == null)
-            throw new NullPointerException();
-        int hash = hash(key.hashCode());
-        return segmentfor (hash).replace(key, hash, oldValue, newValue);
+        expungeStaleEntries();
+        return table.replace(new LookupKey(key), oldValue, newValue);
     }
 
     /**
      * {@inheritDoc}
-     *
-     * @return the previous value associated with the specified key,
-     *         or <tt>null</tt> if there was no mapping for the key
-     * @throws NullPointerException if the specified key or value is null
      */
+    @Override
     public V replace(K key, V value) {
-        if (value == null)
-            throw new NullPointerException();
-        int hash = hash(key.hashCode());
-        return segmentfor (hash).replace(key, hash, value);
+        expungeStaleEntries();
+        return table.replace(new LookupKey(key), value);
+    }
+
+    /**
+     * Removes mappings whose keys were reclaimed by garbage collector, including cleared keys
+     * which are not enqueued yet.
+     *
+     * @return number of removed mappings
+     */
+    public int purgeStaleEntries() {
+        int purged = expungeStaleEntries();
+
+        for (Object weakKey : table.keySet()) {
+            if (((WeakKey<?>) weakKey).get() == null && table.remove(weakKey) != null)
+                purged++;
+        }
+        return purged;
+    }
+
+    private int expungeStaleEntries() {
+        int expunged = 0;
+        for (Reference<? extends K> weakKey; (weakKey = referenceQueue.poll()) != null; ) {
+            if (table.remove(weakKey) != null)
+                expunged++;
+        }
+        return expunged;
     }
 
     /**
      * Removes all of the mappings from this map.
      */
+    @Override
     public void clear() {
-        for (int i = 0; i < segments.length; ++i)
-            segments[i].clear();
+        table.clear();
+
+        while (referenceQueue.poll() != null)
+            ;
     }
 
     /**
-     * Returns a {@link Set} view of the keys contained in this map.
-     * The set is backed by the map, so changes to the map are
-     * reflected in the set, and vice-versa.  The set supports element
-     * removal, which removes the corresponding mapping from this map,
-     * via the <tt>Iterator.remove</tt>, <tt>Set.remove</tt>,
-     * <tt>removeAll</tt>, <tt>retainAll</tt>, and <tt>clear</tt>
-     * operations.  It does not support the <tt>add</tt> or
-     * <tt>addAll</tt> operations.
-     *
-     * <p>The view's <tt>iterator</tt> is a "weakly consistent" iterator
-     * that will never throw {@link ConcurrentModificationException},
-     * and guarantees to traverse elements as they existed upon
-     * construction of the iterator, and may (but is not guaranteed to)
-     * reflect any modifications subsequent to construction.
+     * Returns a {@link Set} view of the keys contained in this map, whose iterator is weakly consistent.
      */
+    @Override
     public Set<K> keySet() {
         Set<K> ks = keySet;
-        return (ks != null) ? ks : (keySet = new KeySet());
+        return ks != null ? ks : (keySet = new KeySet());
     }
 
     /**
-     * Returns a {@link Collection} view of the values contained in this map.
-     * The collection is backed by the map, so changes to the map are
-     * reflected in the collection, and vice-versa.  The collection
-     * supports element removal, which removes the corresponding
-     * mapping from this map, via the <tt>Iterator.remove</tt>,
-     * <tt>Collection.remove</tt>, <tt>removeAll</tt>,
-     * <tt>retainAll</tt>, and <tt>clear</tt> operations.  It does not
-     * support the <tt>add</tt> or <tt>addAll</tt> operations.
-     *
-     * <p>The view's <tt>iterator</tt> is a "weakly consistent" iterator
-     * that will never throw {@link ConcurrentModificationException},
-     * and guarantees to traverse elements as they existed upon
-     * construction of the iterator, and may (but is not guaranteed to)
-     * reflect any modifications subsequent to construction.
+     * Returns a {@link Collection} view of the values contained in this map, whose iterator is weakly consistent.
      */
+    @Override
     public Collection<V> values() {
         Collection<V> vs = values;
-        return (vs != null) ? vs : (values = new Values());
+        return vs != null ? vs : (values = new Values());
     }
 
     /**
-     * Returns a {@link Set} view of the mappings contained in this map.
-     * The set is backed by the map, so changes to the map are
-     * reflected in the set, and vice-versa.  The set supports element
-     * removal, which removes the corresponding mapping from the map,
-     * via the <tt>Iterator.remove</tt>, <tt>Set.remove</tt>,
-     * <tt>removeAll</tt>, <tt>retainAll</tt>, and <tt>clear</tt>
-     * operations.  It does not support the <tt>add</tt> or
-     * <tt>addAll</tt> operations.
-     *
-     * <p>The view's <tt>iterator</tt> is a "weakly consistent" iterator
-     * that will never throw {@link ConcurrentModificationException},
-     * and guarantees to traverse elements as they existed upon
-     * construction of the iterator, and may (but is not guaranteed to)
-     * reflect any modifications subsequent to construction.
+     * Returns a {@link Set} view of the mappings contained in this map, whose iterator is weakly consistent.
      */
+    @Override
     public Set<Map.Entry<K, V>> entrySet() {
         Set<Map.Entry<K, V>> es = entrySet;
-        return (es != null) ? es : (entrySet = new EntrySet());
+        return es != null ? es : (entrySet = new EntrySet());
     }
 
     /**
-     * Returns an enumeration of the keys in this table.
+     * Returns an enumeration of the keys in this map.
      *
-     * @return an enumeration of the keys in this table
+     * @return an enumeration of the keys in this map
      * @see #keySet()
      */
     public Enumeration<K> keys() {
@@ -1129,332 +322,390 @@ public class ConcurrentReferenceHashMap<K, V> extends AbstractMap<K, V>
     }
 
     /**
-     * Returns an enumeration of the values in this table.
+     * Returns an enumeration of the values in this map.
      *
-     * @return an enumeration of the values in this table
+     * @return an enumeration of the values in this map
      * @see #values()
      */
     public Enumeration<V> elements() {
         return new ValueIterator();
     }
 
-    /* ---------------- Iterator Support -------------- */
 
-    abstract class HashIterator {
-        int nextSegmentIndex;
-        int nextTableIndex;
-        HashEntry<K, V>[] currentTable;
-        HashEntry<K, V> nextEntry;
-        HashEntry<K, V> lastReturned;
-        K currentKey; // Strong reference to weak key (prevents gc)
+    /**
+     * Weak reference to stored key, which is equal to other key reference with equal live key,
+     * or to itself once cleared, so that enqueued reference could remove its own entry.
+     */
+    static final class WeakKey<K> extends WeakReference<K> {
 
-        HashIterator() {
-            nextSegmentIndex = segments.length - 1;
-            nextTableIndex = -1;
-            advance();
-        }
+        private final int hash;
 
-        public boolean hasMoreElements() {
-            return hasNext();
-        }
 
-        final void advance() {
-            if (nextEntry != null && (nextEntry = nextEntry.next) != null)
-                return;
+        WeakKey(K key, ReferenceQueue<K> referenceQueue) {
+            super(key, referenceQueue);
 
-            while (nextTableIndex >= 0) {
-                if ((nextEntry = currentTable[nextTableIndex--]) != null)
-                    return;
-            }
+            this.hash = key.hashCode();
+        }
 
-            while (nextSegmentIndex >= 0) {
-                Segment<K, V> seg = segments[nextSegmentIndex--];
-                if (seg.count != 0) {
-                    currentTable = seg.table;
-                    for (int j = currentTable.length - 1; j >= 0; --j) {
-                        if ((nextEntry = currentTable[j]) != null) {
-                            nextTableIndex = j - 1;
-                            return;
-                        }
-                    }
-                }
-            }
+        @Override
+        public int hashCode() {
+            return hash;
         }
 
-        public boolean hasNext() {
-            while (nextEntry != null) {
-                if (nextEntry.keyRef.get() != null)
-                    return true;
-                advance();
-            }
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj)
+                return true;
 
+            Object key = this.get();
+            if (key == null)
+                return false;
+
+            if (obj instanceof LookupKey)
+                return key.equals(((LookupKey) obj).key);
+            if (obj instanceof WeakKey)
+                return key.equals(((WeakKey<?>) obj).get());
             return false;
         }
+    }
 
-        HashEntry<K, V> nextEntry() {
-            do {
-                if (nextEntry == null)
-                    throw new NoSuchElementException();
+    /**
+     * Strong key wrapper to look up entries without allocating weak reference.
+     */
+    static final class LookupKey {
 
-                lastReturned = nextEntry;
-                currentKey = lastReturned.keyRef.get();
-                advance();
-            } while (currentKey == null); // Skip GC'd keys
+        private final Object key;
+        private final int hash;
 
-            return lastReturned;
-        }
 
-        public void remove() {
-            if (lastReturned == null)
-                throw new IllegalStateException();
-            ConcurrentReferenceHashMap.this.remove(currentKey);
-            lastReturned = null;
+        LookupKey(Object key) {
+            this.key = key;
+            this.hash = key.hashCode();
         }
-    }
 
-    final class KeyIterator extends HashIterator implements Iterator<K>, Enumeration<K> {
-        public K next() {
-            return super.nextEntry().keyRef.get();
+        @Override
+        public int hashCode() {
+            return hash;
         }
 
-        public K nextElement() {
-            return super.nextEntry().keyRef.get();
+        @Override
+        public boolean equals(Object obj) {
+            if (obj instanceof WeakKey)
+                return key.equals(((WeakKey<?>) obj).get());
+            if (obj instanceof LookupKey)
+                return key.equals(((LookupKey) obj).key);
+            return false;
         }
     }
 
-    final class ValueIterator extends HashIterator implements Iterator<V>, Enumeration<V> {
-        public V next() {
-            return super.nextEntry().value;
+
+    /**
+     * In-flight computation of absent value, which stores computed value before it completes.
+     */
+    final class Computation extends FutureTask<V> {
+
+        private volatile Thread runner;
+
+
+        Computation(K key, Function<? super K, ? extends V> mappingFunction) {
+            super( () -> {
+                // value might be stored after previous lookup
+                V value = table.get(new LookupKey(key));
+                if (value != null)
+                    return value;
+
+                value = mappingFunction.apply(key);
+                if (value == null)
+                    return null;
+
+                expungeStaleEntries();
+                V existingValue = table.putIfAbsent(new WeakKey<>(key, referenceQueue), value);
+                return existingValue != null ? existingValue : value;
+            } );
         }
 
-        public V nextElement() {
-            return super.nextEntry().value;
+        @Override
+        public void run() {
+            this.runner = Thread.currentThread();
+            try {
+                super.run();
+            } finally {
+                this.runner = null;
+            }
+        }
+
+        V getValue() {
+            boolean interrupted = false;
+            try {
+                while (true) {
+                    try {
+                        return this.get();
+                    } catch (InterruptedException e) {
+                        interrupted = true;
+                    } catch (ExecutionException e) {
+                        Throwable cause = e.getCause();
+                        if (cause instanceof RuntimeException)
+                            throw (RuntimeException) cause;
+                        if (cause instanceof Error)
+                            throw (Error) cause;
+                        throw new IllegalStateException(cause);
+                    }
+                }
+            } finally {
+                if (interrupted)
+                    Thread.currentThread().interrupt();
+            }
         }
     }
 
-    /*
-     * This class is needed for JDK5 compatibility.
+
+    /**
+     * Iterator over live entries, which snapshots key strongly per entry.
      */
-    static class SimpleEntry<K, V> implements Entry<K, V>, java.io.Serializable {
-        private static final long serialVersionUID = -8499721149061103585L;
+    abstract class HashIterator<E> implements Iterator<E>, Enumeration<E> {
 
-        private final K key;
-        private V value;
+        private final Iterator<Map.Entry<Object, V>> iterator = table.entrySet().iterator();
+
+        private K nextKey;
+        private V nextValue;
+        private Object lastWeakKey;
+        private Object nextWeakKey;
 
-        public SimpleEntry(K key, V value) {
-            this.key = key;
-            this.value = value;
-        }
 
-        public SimpleEntry(Entry<? extends K, ? extends V> entry) {
-            this.key = entry.getKey();
-            this.value = entry.getValue();
+        @Override
+        public boolean hasNext() {
+            while (nextKey == null && iterator.hasNext()) {
+                Map.Entry<Object, V> entry = iterator.next();
+
+                @SuppressWarnings("unchecked")
+                K key = ((WeakKey<K>) entry.getKey()).get();
+                if (key != null) {
+                    nextKey = key;
+                    nextValue = entry.getValue();
+                    nextWeakKey = entry.getKey();
+                }
+            }
+            return nextKey != null;
         }
 
-        public K getKey() {
-            return key;
+        protected Map.Entry<K, V> nextEntry() {
+            if (hasNext() == false)
+                throw new NoSuchElementException();
+
+            Map.Entry<K, V> entry = new WriteThroughEntry(nextKey, nextValue);
+            lastWeakKey = nextWeakKey;
+
+            nextKey = null;
+            nextValue = null;
+            nextWeakKey = null;
+            return entry;
         }
 
-        public V getValue() {
-            return value;
+        @Override
+        public void remove() {
+            if (lastWeakKey == null)
+                throw new IllegalStateException();
+
+            table.remove(lastWeakKey);
+            lastWeakKey = null;
         }
 
-        public V setValue(V value) {
-            V oldValue = this.value;
-            this.value = value;
-            return oldValue;
+        @Override
+        public boolean hasMoreElements() {
+            return hasNext();
         }
 
-        public boolean equals(Object o) {
-            if (!(o instanceof Map.Entry))
-                return false;
-            @SuppressWarnings("rawtypes")
-            Map.Entry e = (Map.Entry) o;
-            return eq(key, e.getKey()) && eq(value, e.getValue());
+        @Override
+        public E nextElement() {
+            return next();
         }
+    }
 
-        public int hashCode() {
-            return (key == null ? 0 : key.hashCode()) ^ (value == null ? 0 : value.hashCode());
+    final class KeyIterator extends HashIterator<K> {
+
+        @Override
+        public K next() {
+            return nextEntry().getKey();
         }
+    }
 
-        public String toString() {
-            return key + "=" + value;
+    final class ValueIterator extends HashIterator<V> {
+
+        @Override
+        public V next() {
+            return nextEntry().getValue();
         }
+    }
+
+    final class EntryIterator extends HashIterator<Map.Entry<K, V>> {
 
-        private static boolean eq(Object o1, Object o2) {
-            return o1 == null ? o2 == null : o1.equals(o2);
+        @Override
+        public Map.Entry<K, V> next() {
+            return nextEntry();
         }
     }
 
     /**
-     * Custom Entry class used by EntryIterator.next(), that relays setValue
-     * changes to the underlying map.
+     * Entry which relays {@code setValue} to underlying map.
      */
-    final class WriteThroughEntry extends SimpleEntry<K, V> {
+    final class WriteThroughEntry extends AbstractMap.SimpleEntry<K, V> {
+
         private static final long serialVersionUID = -7900634345345313646L;
 
-        WriteThroughEntry(K k, V v) {
-            super(k, v);
+
+        WriteThroughEntry(K key, V value) {
+            super(key, value);
         }
 
-        /**
-         * Set our entry's value and write through to the map. The
-         * value to return is somewhat arbitrary here. Since a
-         * WriteThroughEntry does not necessarily track asynchronous
-         * changes, the most recent "previous" value could be
-         * different from what we return (or could even have been
-         * removed in which case the put will re-establish). We do not
-         * and cannot guarantee more.
-         */
+        @Override
         public V setValue(V value) {
             if (value == null)
                 throw new NullPointerException();
-            V v = super.setValue(value);
-            ConcurrentReferenceHashMap.this.put(getKey(), value);
-            return v;
-        }
-    }
 
-    final class EntryIterator extends HashIterator implements Iterator<Entry<K, V>> {
-        public Map.Entry<K, V> next() {
-            HashEntry<K, V> e = super.nextEntry();
-            return new WriteThroughEntry(e.keyRef.get(), e.value);
+            V oldValue = super.setValue(value);
+            ConcurrentReferenceHashMap.this.put(getKey(), value);
+            return oldValue;
         }
     }
 
     final class KeySet extends AbstractSet<K> {
+
+        @Override
         public Iterator<K> iterator() {
             return new KeyIterator();
         }
 
+        @Override
         public int size() {
             return ConcurrentReferenceHashMap.this.size();
         }
 
+        @Override
         public boolean isEmpty() {
             return ConcurrentReferenceHashMap.this.isEmpty();
         }
 
+        @Override
         public boolean contains(Object o) {
             return ConcurrentReferenceHashMap.this.containsKey(o);
         }
 
+        @Override
         public boolean remove(Object o) {
             return ConcurrentReferenceHashMap.this.remove(o) != null;
         }
 
+        @Override
         public void clear() {
             ConcurrentReferenceHashMap.this.clear();
         }
     }
 
     final class Values extends AbstractCollection<V> {
+
+        @Override
         public Iterator<V> iterator() {
             return new ValueIterator();
         }
 
+        @Override
         public int size() {
             return ConcurrentReferenceHashMap.this.size();
         }
 
+        @Override
         public boolean isEmpty() {
             return ConcurrentReferenceHashMap.this.isEmpty();
         }
 
+        @Override
         public boolean contains(Object o) {
             return ConcurrentReferenceHashMap.this.containsValue(o);
         }
 
+        @Override
         public void clear() {
             ConcurrentReferenceHashMap.this.clear();
         }
     }
 
     final class EntrySet extends AbstractSet<Map.Entry<K, V>> {
+
+        @Override
         public Iterator<Map.Entry<K, V>> iterator() {
             return new EntryIterator();
         }
 
+        @Override
         public boolean contains(Object o) {
             if (!(o instanceof Map.Entry))
                 return false;
+
             Map.Entry<?, ?> e = (Map.Entry<?, ?>) o;
             V v = ConcurrentReferenceHashMap.this.get(e.getKey());
             return v != null && v.equals(e.getValue());
         }
 
+        @Override
         public boolean remove(Object o) {
             if (!(o instanceof Map.Entry))
                 return false;
+
             Map.Entry<?, ?> e = (Map.Entry<?, ?>) o;
             return ConcurrentReferenceHashMap.this.remove(e.getKey(), e.getValue());
         }
 
+        @Override
         public int size() {
             return ConcurrentReferenceHashMap.this.size();
         }
 
+        @Override
         public boolean isEmpty() {
             return ConcurrentReferenceHashMap.this.isEmpty();
         }
 
+        @Override
         public void clear() {
             ConcurrentReferenceHashMap.this.clear();
         }
     }
 
-    /* ---------------- Serialization Support -------------- */
 
     /**
-     * Save the state of the <tt>ConcurrentWeakHashMap</tt> instance to a
-     * stream (i.e., serialize it).
+     * Save live mappings of this map to a stream.
+     *
      * @param s the stream
      * @serialData
-     * the key (Object) and value (Object)
-     * for each key-value mapping, followed by a null pair.
-     * The key-value mappings are emitted in no particular order.
+     * the key (Object) and value (Object) for each live key-value mapping,
+     * followed by a null pair. The key-value mappings are emitted in no particular order.
      */
-    private void writeObject(java.io.ObjectOutputStream s) throws IOException {
+    private void writeObject(ObjectOutputStream s) throws IOException {
         s.defaultWriteObject();
 
-        for (int k = 0; k < segments.length; ++k) {
-            Segment<K, V> seg = segments[k];
-            seg.lock();
-            try {
-                HashEntry<K, V>[] tab = seg.table;
-                for (int i = 0; i < tab.length; ++i) {
-                    for (HashEntry<K, V> e = tab[i]; e != null; e = e.next) {
-                        K key = e.keyRef.get();
-                        if (key == null) // Skip GC'd keys
-                            continue;
-
-                        s.writeObject(key);
-                        s.writeObject(e.value);
-                    }
-                }
-            } finally {
-                seg.unlock();
-            }
+        for (Map.Entry<Object, V> entry : table.entrySet()) {
+            Object key = ((WeakKey<?>) entry.getKey()).get();
+            if (key == null) // skip reclaimed keys
+                continue;
+
+            s.writeObject(key);
+            s.writeObject(entry.getValue());
         }
         s.writeObject(null);
         s.writeObject(null);
     }
 
     /**
-     * Reconstitute the <tt>ConcurrentWeakHashMap</tt> instance from a
-     * stream (i.e., deserialize it).
+     * Reconstitute this map from a stream.
+     *
      * @param s the stream
      */
     @SuppressWarnings("unchecked")
-    private void readObject(java.io.ObjectInputStream s) throws IOException, ClassNotFoundException {
+    private void readObject(ObjectInputStream s) throws IOException, ClassNotFoundException {
         s.defaultReadObject();
 
-        // Initialize each segment to be minimally sized, and let grow.
-        for (int i = 0; i < segments.length; ++i) {
-            segments[i].setTable(new HashEntry[1]);
-        }
+        this.initialize(DEFAULT_INITIAL_CAPACITY, DEFAULT_LOAD_FACTOR, DEFAULT_CONCURRENCY_LEVEL);
 
-        // Read the keys and values, and put the mappings in the table
         for (;;) {
             K key = (K) s.readObject();
             V value = (V) s.readObject();
@@ -1463,4 +714,4 @@ public class ConcurrentReferenceHashMap<K, V> extends AbstractMap<K, V>
             put(key, value);
         }
     }
-}
\ No newline at end of file
+}
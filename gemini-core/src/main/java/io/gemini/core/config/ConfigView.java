@@ -30,6 +30,7 @@ import io.gemini.core.config.ConfigView.ConfigException.ConfigNotFoundException;
 import io.gemini.core.converter.ConversionService;
 import io.gemini.core.converter.Converter;
 import io.gemini.core.converter.Converter.StringToBoolean;
+import io.gemini.core.converter.Converter.StringToDouble;
 import io.gemini.core.converter.Converter.StringToInteger;
 import io.gemini.core.converter.Converter.StringToStringArray;
 import io.gemini.core.converter.Converter.StringToStringList;
@@ -144,6 +145,15 @@ public interface ConfigView {
     }
 
 
+    default Double getAsDouble(String key) {
+        return this.getValue(key, true, StringToDouble.INSTANCE);
+    }
+
+    default Double getAsDouble(String key, Double defaultValue) {
+        return this.getValue(key, defaultValue, true, StringToDouble.INSTANCE);
+    }
+
+
     default <T> Class<T> getAsClass(String key) {
         return this.getValue(key, true, TypeDefinition.Sort.describe(Class.class));
     }
@@ -103,7 +103,7 @@ public interface ConversionService {
             this.addConverter(String.class, Float.class, StringToFloat.INSTANCE);
 
             this.addConverter(String.class, double.class, StringToDouble.INSTANCE);
-            this.addConverter(String.class, double.class, StringToDouble.INSTANCE);
+            this.addConverter(String.class, Double.class, StringToDouble.INSTANCE);
         }
 
         /**
@@ -18,6 +18,9 @@ package io.gemini.core.object;
 import java.io.Closeable;
 import java.io.IOException;
 import java.lang.annotation.Annotation;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.Field;
 import java.lang.reflect.InvocationTargetException;
@@ -30,6 +33,7 @@ import java.util.Collections;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
@@ -97,11 +101,21 @@ public interface ObjectFactory extends Closeable {
 
         protected static final Logger LOGGER = LoggerFactory.getLogger(ObjectFactory.class);
 
+        private static final MethodType CONSTRUCTOR_HANDLE_TYPE = MethodType.methodType(Object.class, Object[].class);
+
+        private static final Object[] NO_ARGUMENTS = new Object[0];
+
         private final DiagnosticLevel diagnosticLevel;
 
         private final ClassLoader classLoader;
         private final ClassScanner classScanner;
 
+        // cache resolved constructors and their handles in classes, which might be loaded by joinpoint
+        // ClassLoaders, rather than in maps to avoid pinning those classes
+        private final ClassValue<Boolean> instantiatableTypes;
+        private final ClassValue<Optional<Constructor<?>>> initializerConstructors;
+        private final ClassValue<ConcurrentMap<Constructor<?>, MethodHandle>> constructorHandles;
+
 
         protected AbstractBase(DiagnosticLevel diagnosticLevel,
                 ClassLoader classLoader, ClassScanner classScanner) {
@@ -113,6 +127,28 @@ public interface ObjectFactory extends Closeable {
 
             Assert.notNull(classScanner, "'classScanner' must not be null");
             this.classScanner = classScanner;
+
+            this.instantiatableTypes = new ClassValue<Boolean>() {
+
+                @Override
+                protected Boolean computeValue(Class<?> type) {
+                    return isInstantiatable(type);
+                }
+            };
+            this.initializerConstructors = new ClassValue<Optional<Constructor<?>>>() {
+
+                @Override
+                protected Optional<Constructor<?>> computeValue(Class<?> type) {
+                    return Optional.ofNullable(findInitializerConstructor(type));
+                }
+            };
+            this.constructorHandles = new ClassValue<ConcurrentMap<Constructor<?>, MethodHandle>>() {
+
+                @Override
+                protected ConcurrentMap<Constructor<?>, MethodHandle> computeValue(Class<?> type) {
+                    return new ConcurrentHashMap<>(2);
+                }
+            };
         }
 
         protected DiagnosticLevel getDiagnosticLevel() {
@@ -162,18 +198,8 @@ public interface ObjectFactory extends Closeable {
             arguments =  arguments == null ? Collections.emptyMap() : arguments;
 
 
-            // find constructor with @Initializer
-            Constructor<T> candidateConstructor = null;
-            for (Constructor<T> constructor : (Constructor<T>[]) clazz.getDeclaredConstructors()) {
-                if (constructor.getAnnotationsByType(Initializer.class) == null)
-                    continue;
-
-                if (candidateConstructor == null)
-                    candidateConstructor = constructor;
-                else
-                    throw new ObjectsException("Class [" + clazz.getName() + "] contains multiple constructors annotated with @" + Initializer.class.getName());
-            }
-
+            // find constructor with @Initializer once
+            Constructor<T> candidateConstructor = (Constructor<T>) initializerConstructors.get(clazz).orElse(null);
             if (candidateConstructor == null)
                 return doCreateObject(clazz);
 
@@ -202,12 +228,47 @@ public interface ObjectFactory extends Closeable {
             }
         }
 
+        private Constructor<?> findInitializerConstructor(Class<?> clazz) {
+            Constructor<?> candidateConstructor = null;
+            for (Constructor<?> constructor : clazz.getDeclaredConstructors()) {
+                if (constructor.getAnnotationsByType(Initializer.class) == null)
+                    continue;
+
+                if (candidateConstructor == null)
+                    candidateConstructor = constructor;
+                else
+                    throw new ObjectsException("Class [" + clazz.getName() + "] contains multiple constructors annotated with @" + Initializer.class.getName());
+            }
+            return candidateConstructor;
+        }
+
+        /**
+         * Instantiate object via constructor handle, which is unreflected and adapted to take
+         * spread arguments once per constructor.
+         */
+        @SuppressWarnings("unchecked")
         protected <T> T doInstantiateObject(Class<T> clazz, Constructor<T> constructor, Object[] arguments) 
                 throws InstantiationException, IllegalAccessException, IllegalArgumentException, InvocationTargetException {
-            ReflectionUtils.makeAccessible(clazz, constructor);
+            ConcurrentMap<Constructor<?>, MethodHandle> handles = constructorHandles.get(clazz);
+            MethodHandle constructorHandle = handles.get(constructor);
+            if (constructorHandle == null) {
+                constructorHandle = createConstructorHandle(clazz, constructor);
+                handles.putIfAbsent(constructor, constructorHandle);
+            }
+
+            // check arguments as Constructor.newInstance() does, and report adaption failure as IllegalArgumentException
+            // rather than InvocationTargetException, since constructor might throw ClassCastException too
+            arguments = arguments == null ? NO_ARGUMENTS : arguments;
+            checkArguments(constructor, arguments);
+
+            T object = null;
+            try {
+                object = (T) (Object) constructorHandle.invokeExact(arguments);
+            } catch (Throwable t) {
+                Throwables.throwIfRequired(t);
 
-            T object = arguments == null 
-                    ? (T) constructor.newInstance() : (T) constructor.newInstance(arguments);
+                throw new InvocationTargetException(t);
+            }
 
             if (LOGGER.isDebugEnabled())
                 LOGGER.debug("Instantiated '{}' type with constructor '{}.", clazz, constructor);
@@ -215,11 +276,39 @@ public interface ObjectFactory extends Closeable {
             return object;
         }
 
+        private void checkArguments(Constructor<?> constructor, Object[] arguments) {
+            Class<?>[] parameterTypes = constructor.getParameterTypes();
+            if (parameterTypes.length != arguments.length)
+                throw new IllegalArgumentException("Wrong number of arguments [" + arguments.length 
+                        + "] for constructor [" + constructor + "]");
+
+            for (int i = 0; i < parameterTypes.length; i++) {
+                Object argument = arguments[i];
+                if (argument == null ? parameterTypes[i].isPrimitive() : ClassUtils.isAssignableFrom(parameterTypes[i], argument.getClass()) == false)
+                    throw new IllegalArgumentException("Illegal argument type [" + (argument == null ? "null" : argument.getClass())
+                            + "] for parameter [" + i 
+                            + "] of constructor [" + constructor + "]");
+            }
+        }
+
+        private MethodHandle createConstructorHandle(Class<?> clazz, Constructor<?> constructor) 
+                throws InstantiationException, IllegalAccessException {
+            if (Modifier.isAbstract(clazz.getModifiers()))
+                throw new InstantiationException("Cannot instantiate abstract class [" + clazz.getName() + "]");
+
+            ReflectionUtils.makeAccessible(clazz, constructor);
+
+            return MethodHandles.lookup().unreflectConstructor(constructor)
+                    .asSpreader(Object[].class, constructor.getParameterCount())
+                    .asType(CONSTRUCTOR_HANDLE_TYPE);
+        }
+
 
         @Override
         public <T> T createObject(Class<T> clazz) throws ObjectsException {
             Assert.notNull(clazz, "'clazz must not be null.'");
-            Assert.isTrue(isInstantiatable(clazz), "clazz '" + clazz + "' must be top-level or nested, concrete class.");
+            if (instantiatableTypes.get(clazz) == false)
+                throw new IllegalArgumentException("clazz '" + clazz + "' must be top-level or nested, concrete class.");
 
             return this.doCreateObject(clazz);
         }
@@ -258,6 +347,9 @@ public interface ObjectFactory extends Closeable {
 
         private ConcurrentMap<String, Object> objectMap;
 
+        // resolved per class against registered singletons, and reset once singletons change
+        private volatile ClassValue<Instantiator> instantiators;
+
         static {
             INJECTION_ANNOTATION = new LinkedHashSet<>();
             INJECTION_ANNOTATION.add("javax.inject.Inject");
@@ -271,6 +363,17 @@ public interface ObjectFactory extends Closeable {
             super(diagnosticLevel, classLoader, classScanner);
 
             this.objectMap = new ConcurrentHashMap<>();
+            this.instantiators = createInstantiators();
+        }
+
+        private ClassValue<Instantiator> createInstantiators() {
+            return new ClassValue<Instantiator>() {
+
+                @Override
+                protected Instantiator computeValue(Class<?> type) {
+                    return resolveInstantiator(type);
+                }
+            };
         }
 
         @Override
@@ -280,76 +383,105 @@ public interface ObjectFactory extends Closeable {
         @Override
         public void registerSingleton(String objectName, Object existingObject) {
             this.objectMap.put(objectName, existingObject);
+            this.instantiators = createInstantiators();
         }
 
         @Override
         @SuppressWarnings("unchecked")
         protected <T> T doCreateObject(Class<T> clazz) throws ObjectsException {
-            Constructor<T>[] constructors = (Constructor<T>[]) clazz.getDeclaredConstructors();
+            Instantiator instantiator = this.instantiators.get(clazz);
+            if (instantiator == null) {
+                if (LOGGER.isWarnEnabled())
+                    LOGGER.warn("Could not instantiate '{}' type with below constructors,\n"
+                            + "  {}.\n", clazz, Arrays.asList(clazz.getDeclaredConstructors()));
+
+                throw new IllegalArgumentException("Cannot instantiate class [" + clazz + "] with required constructor");
+            }
 
             try {
-                Constructor<T> candidateConstructor = null;
-                for (Constructor<T> constructor : constructors) {
-                    if (constructor.getParameterCount() == 0) {
-                        candidateConstructor = constructor;
-                        continue;
-                    }
+                T object = this.doInstantiateObject(clazz, (Constructor<T>) instantiator.constructor, instantiator.arguments);
 
-                    int i = 0;
-                    Object[] arguments = new Object[constructor.getParameterCount()];
-                    boolean candidate = false;
-                    for (Parameter parameter : constructor.getParameters()) {
-                        // check annotation
-                        for (Annotation annotation : parameter.getAnnotations()) {
-                            if (INJECTION_ANNOTATION.contains(annotation.annotationType().getName()) == true) {
-                                candidate = true;
-                                break;
-                            }
-                        }
-                        if (candidate == false)
-                            continue;
+                return instantiator.injectable ? this.initializeObject(clazz, object) : object;
+            } catch (Throwable t) {
+                Throwables.throwIfRequired(t);
 
-                        // check parameter name and type
-                        String paramName = parameter.getName();
-                        if (this.objectMap.containsKey(paramName) == false) {
-                            candidate = false;
-                            break;
-                        }
+                throw new ObjectsException(t);
+            }
+        }
+
+        /**
+         * Resolve constructor annotated with injection annotation and whose dependencies are
+         * registered, or default constructor, or return null if none is found.
+         */
+        private Instantiator resolveInstantiator(Class<?> clazz) {
+            boolean injectable = hasInjectionPoints(clazz);
 
-                        Object depentObj = this.objectMap.get(paramName);
-                        if (depentObj == null || parameter.getType() != depentObj.getClass()) {
-                            candidate = false;
+            Constructor<?> candidateConstructor = null;
+            for (Constructor<?> constructor : clazz.getDeclaredConstructors()) {
+                if (constructor.getParameterCount() == 0) {
+                    candidateConstructor = constructor;
+                    continue;
+                }
+
+                int i = 0;
+                Object[] arguments = new Object[constructor.getParameterCount()];
+                boolean candidate = false;
+                for (Parameter parameter : constructor.getParameters()) {
+                    // check annotation
+                    for (Annotation annotation : parameter.getAnnotations()) {
+                        if (INJECTION_ANNOTATION.contains(annotation.annotationType().getName()) == true) {
+                            candidate = true;
                             break;
                         }
-
-                        arguments[i++] = depentObj;
                     }
+                    if (candidate == false)
+                        continue;
 
-                    // try to instantiate object with candidate constructor
-                    if (candidate) {
-                        T object = this.doInstantiateObject(clazz, constructor, arguments);
+                    // check parameter name and type
+                    String paramName = parameter.getName();
+                    if (this.objectMap.containsKey(paramName) == false) {
+                        candidate = false;
+                        break;
+                    }
 
-                        return this.initializeObject(clazz, object);
+                    Object depentObj = this.objectMap.get(paramName);
+                    if (depentObj == null || parameter.getType() != depentObj.getClass()) {
+                        candidate = false;
+                        break;
                     }
+
+                    arguments[i++] = depentObj;
                 }
 
-                // try to instantiate object with default constructor
-                if (candidateConstructor != null) {
-                    T object = this.doInstantiateObject(clazz, candidateConstructor, null);
+                // instantiate object with candidate constructor
+                if (candidate)
+                    return new Instantiator(constructor, arguments, injectable);
+            }
 
-                    return this.initializeObject(clazz, object);
-                }
-            } catch (Throwable t) {
-                Throwables.throwIfRequired(t);
+            // instantiate object with default constructor
+            return candidateConstructor == null ? null : new Instantiator(candidateConstructor, null, injectable);
+        }
 
-                throw new ObjectsException(t);
+        private boolean hasInjectionPoints(Class<?> clazz) {
+            for (Method method : clazz.getDeclaredMethods()) {
+                if (method.getParameterCount() == 1 && isInjectionPoint(method.getParameters()[0].getAnnotations()))
+                    return true;
             }
 
-            if (LOGGER.isWarnEnabled())
-                LOGGER.warn("Could not instantiate '{}' type with below constructors,\n"
-                        + "  {}.\n", clazz, Arrays.asList(constructors));
+            for (Field field : clazz.getDeclaredFields()) {
+                if (Modifier.isFinal(field.getModifiers()) == false && isInjectionPoint(field.getAnnotations()))
+                    return true;
+            }
+
+            return false;
+        }
 
-            throw new IllegalArgumentException("Cannot instantiate class [" + clazz + "] with required constructor");
+        private boolean isInjectionPoint(Annotation[] annotations) {
+            for (Annotation annotation : annotations) {
+                if (INJECTION_ANNOTATION.contains(annotation.annotationType().getName()) == true)
+                    return true;
+            }
+            return false;
         }
 
         private <T> T initializeObject(Class<T> clazz, T object) throws Exception {
@@ -422,6 +554,22 @@ public interface ObjectFactory extends Closeable {
         @Override
         public void close() throws IOException {
             this.objectMap.clear();
+            this.instantiators = createInstantiators();
+        }
+
+
+        private static class Instantiator {
+
+            private final Constructor<?> constructor;
+            private final Object[] arguments;
+            private final boolean injectable;
+
+
+            public Instantiator(Constructor<?> constructor, Object[] arguments, boolean injectable) {
+                this.constructor = constructor;
+                this.arguments = arguments;
+                this.injectable = injectable;
+            }
         }
     }
 
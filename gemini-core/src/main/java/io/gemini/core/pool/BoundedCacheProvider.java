@@ -0,0 +1,239 @@
+/*
+ * Copyright © 2023, the original author or authors. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gemini.core.pool;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+import net.bytebuddy.pool.TypePool.CacheProvider;
+import net.bytebuddy.pool.TypePool.Resolution;
+
+/**
+ * Type description cache with bounded entries shared by all TypePools, which evicts entries 
+ * gradually by segmented LRU policy, rather than clearing all soft referenced entries at once 
+ * during full GC.
+ *
+ * <p>Entries are striped into segments by key hash. In each segment, new entries are admitted 
+ * into probation area, and entries hit again are promoted into protected area, which takes 
+ * 80% of segment capacity. So that types scanned once, such as types looked up during 
+ * matching, do not flush frequently used types, such as {@code java.lang.Object}.
+ *
+ * @author   martin.liu
+ * @since	 1.0
+ */
+public class BoundedCacheProvider {
+
+    private static final int MAX_SEGMENTS = 16;
+    private static final int MIN_SEGMENT_CAPACITY = 64;
+
+
+    private final int capacity;
+    private final Segment[] segments;
+
+    private final LongAdder hitCount = new LongAdder();
+    private final LongAdder missCount = new LongAdder();
+    private final LongAdder evictionCount = new LongAdder();
+
+
+    public BoundedCacheProvider(int capacity) {
+        this.capacity = Math.max(1, capacity);
+
+        int segmentCount = 1;
+        while (segmentCount < MAX_SEGMENTS && segmentCount * 2 * MIN_SEGMENT_CAPACITY <= this.capacity)
+            segmentCount *= 2;
+
+        this.segments = new Segment[segmentCount];
+        for (int i = 0; i < segmentCount; i++)
+            this.segments[i] = new Segment( (this.capacity + segmentCount - 1) / segmentCount );
+    }
+
+
+    /**
+     * Create a CacheProvider for one TypePool, which shares capacity with others.
+     */
+    public CacheProvider newCacheProvider() {
+        return new View();
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public int getSize() {
+        int size = 0;
+        for (Segment segment : segments)
+            size += segment.size();
+        return size;
+    }
+
+    public long getHitCount() {
+        return hitCount.sum();
+    }
+
+    public long getMissCount() {
+        return missCount.sum();
+    }
+
+    public long getEvictionCount() {
+        return evictionCount.sum();
+    }
+
+    private Segment segmentFor(Key key) {
+        int hash = key.hash ^ (key.hash >>> 16);
+        return segments[hash & (segments.length - 1)];
+    }
+
+    @Override
+    public String toString() {
+        return "size: " + getSize() + "/" + capacity + ", hits: " + getHitCount() 
+                + ", misses: " + getMissCount() + ", evictions: " + getEvictionCount();
+    }
+
+
+    private class View implements CacheProvider {
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public Resolution find(String name) {
+            Key key = new Key(this, name);
+            Resolution resolution = segmentFor(key).get(key);
+
+            (resolution != null ? hitCount : missCount).increment();
+            return resolution;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public Resolution register(String name, Resolution resolution) {
+            Key key = new Key(this, name);
+            return segmentFor(key).putIfAbsent(key, resolution);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void clear() {
+            for (Segment segment : segments)
+                segment.removeAll(this);
+        }
+    }
+
+
+    private static class Key {
+
+        private final View owner;
+        private final String name;
+        private final int hash;
+
+
+        private Key(View owner, String name) {
+            this.owner = owner;
+            this.name = name;
+            this.hash = 31 * System.identityHashCode(owner) + name.hashCode();
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj)
+                return true;
+            if (obj instanceof Key == false)
+                return false;
+
+            Key other = (Key) obj;
+            return owner == other.owner && name.equals(other.name);
+        }
+    }
+
+
+    private class Segment {
+
+        private final int capacity;
+        private final int protectedCapacity;
+
+        private final LinkedHashMap<Key, Resolution> probation = new LinkedHashMap<>(16, 0.75f, true);
+        private final LinkedHashMap<Key, Resolution> protectedEntries = new LinkedHashMap<>(16, 0.75f, true);
+
+
+        private Segment(int capacity) {
+            this.capacity = capacity;
+            this.protectedCapacity = capacity * 4 / 5;
+        }
+
+        private synchronized Resolution get(Key key) {
+            Resolution resolution = protectedEntries.get(key);
+            if (resolution != null)
+                return resolution;
+
+            resolution = probation.remove(key);
+            if (resolution == null)
+                return null;
+
+            // promote entry hit in probation, and demote least recently used protected entry
+            protectedEntries.put(key, resolution);
+            if (protectedEntries.size() > protectedCapacity) {
+                Iterator<Map.Entry<Key, Resolution>> iterator = protectedEntries.entrySet().iterator();
+                Map.Entry<Key, Resolution> eldest = iterator.next();
+                iterator.remove();
+
+                probation.put(eldest.getKey(), eldest.getValue());
+            }
+
+            return resolution;
+        }
+
+        private synchronized Resolution putIfAbsent(Key key, Resolution resolution) {
+            Resolution existing = protectedEntries.get(key);
+            if (existing == null)
+                existing = probation.get(key);
+            if (existing != null)
+                return existing;
+
+            probation.put(key, resolution);
+
+            // evict least recently used probation entries
+            while (probation.size() + protectedEntries.size() > capacity) {
+                Iterator<Map.Entry<Key, Resolution>> iterator = (probation.isEmpty() ? protectedEntries : probation).entrySet().iterator();
+                iterator.next();
+                iterator.remove();
+
+                evictionCount.increment();
+            }
+
+            return resolution;
+        }
+
+        private synchronized void removeAll(View owner) {
+            probation.keySet().removeIf( key -> key.owner == owner );
+            protectedEntries.keySet().removeIf( key -> key.owner == owner );
+        }
+
+        private synchronized int size() {
+            return probation.size() + protectedEntries.size();
+        }
+    }
+}
@@ -15,9 +15,11 @@
  */
 package io.gemini.core.pool;
 
-import java.util.concurrent.ConcurrentMap;
+import java.util.Collections;
+import java.util.Set;
 
 import io.gemini.api.classloader.BaseClassLoader;
+import io.gemini.core.classloader.ClassLoaderRegistry;
 import io.gemini.core.concurrent.ConcurrentReferenceHashMap;
 import io.gemini.core.pool.TypePools.EagerResolutionTypePool;
 import io.gemini.core.pool.TypePools.LazyResolutionTypePool;
@@ -44,12 +46,24 @@ public interface TypePoolFactory {
 
     TypePool createTypePool(ClassLoader classLoader, JavaModule javaModule);
 
+    /**
+     * Return bounded type description cache shared by TypePools, or null if types are cached 
+     * by soft references per TypePool.
+     */
+    BoundedCacheProvider getBoundedCacheProvider();
 
-    class Default implements TypePoolFactory, PoolStrategy, DescriptionStrategy {
+
+    class Default implements TypePoolFactory, PoolStrategy, DescriptionStrategy, ClassLoaderRegistry.ReclaimListener {
 
         private LocationStrategy locationStrategy;
 
-        private final ConcurrentMap<ClassLoader, TypePool> typePoolCache = new ConcurrentReferenceHashMap<>();
+        // chain TypePools to mirror ClassLoader hierarchy, and share types resolved by parent TypePools
+        private final boolean hierarchical;
+        private final Set<String> childFirstClassLoaders;
+
+        private final BoundedCacheProvider boundedCacheProvider;
+
+        private final ConcurrentReferenceHashMap<ClassLoader, TypePool> typePoolCache = new ConcurrentReferenceHashMap<>();
 
 
         public Default() {
@@ -57,7 +71,25 @@ public interface TypePoolFactory {
         }
 
         public Default(LocationStrategy locationStrategy) {
+            this(locationStrategy, false, null, 0);
+        }
+
+        /**
+         * @param locationStrategy
+         * @param hierarchical chain TypePools to mirror ClassLoader hierarchy
+         * @param childFirstClassLoaders class names of ClassLoaders loading types from themselves before 
+         *          parent ClassLoader, whose TypePools only share JDK types in bootstrap and platform TypePools
+         * @param typeCacheCapacity maximum number of types cached by all TypePools, or soft referenced types 
+         *          per TypePool if not positive
+         */
+        public Default(LocationStrategy locationStrategy, boolean hierarchical, Set<String> childFirstClassLoaders, 
+                int typeCacheCapacity) {
             this.locationStrategy = locationStrategy == null ? LocationStrategy.ForClassLoader.WEAK : locationStrategy;
+
+            this.hierarchical = hierarchical;
+            this.childFirstClassLoaders = childFirstClassLoaders == null ? Collections.emptySet() : childFirstClassLoaders;
+
+            this.boundedCacheProvider = typeCacheCapacity > 0 ? new BoundedCacheProvider(typeCacheCapacity) : null;
         }
 
 
@@ -86,6 +118,27 @@ public interface TypePoolFactory {
         }
 
 
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public BoundedCacheProvider getBoundedCacheProvider() {
+            return boundedCacheProvider;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public int onReclaimed(long classLoaderId, String classLoaderName) {
+            return typePoolCache.purgeStaleEntries();
+        }
+
+        private CacheProvider newCacheProvider() {
+            return boundedCacheProvider != null 
+                    ? boundedCacheProvider.newCacheProvider() : new CacheProvider.Simple.UsingSoftReference();
+        }
+
         /**
          * {@inheritDoc}
          */
@@ -93,16 +146,57 @@ public interface TypePoolFactory {
         public TypePool createTypePool(ClassLoader classLoader, JavaModule javaModule) {
             ClassLoader cacheKey = ClassLoaderUtils.maskNull(classLoader);
 
-            this.typePoolCache.computeIfAbsent(
+            TypePool typePool = this.typePoolCache.get(cacheKey);
+            if (typePool != null)
+                return typePool;
+
+            // create parent TypePools before computeIfAbsent to avoid nested update
+            TypePool parentPool = this.getParentTypePool(classLoader);
+
+            return this.typePoolCache.computeIfAbsent(
                     cacheKey, 
-                    key -> doCreateTypePool(classLoader, javaModule, null, null) 
+                    key -> doCreateTypePool(classLoader, javaModule, null, null, parentPool) 
             );
+        }
+
+        private TypePool getParentTypePool(ClassLoader classLoader) {
+            if (hierarchical == false || classLoader == null || classLoader instanceof BaseClassLoader)
+                return null;
+
+            ClassLoader parentClassLoader = null;
+            try {
+                // only share JDK types with child-first ClassLoader
+                parentClassLoader = isChildFirst(classLoader) 
+                        ? ClassLoader.getSystemClassLoader().getParent() : classLoader.getParent();
+            } catch (SecurityException e) {
+                return null;
+            }
+
+            if (parentClassLoader == classLoader || parentClassLoader instanceof BaseClassLoader)
+                return null;
 
-            return this.typePoolCache.get(cacheKey);
+            TypePool parentPool = this.createTypePool(parentClassLoader, null);
+            return parentPool instanceof EagerResolutionTypePool ? parentPool : null;
+        }
+
+        private boolean isChildFirst(ClassLoader classLoader) {
+            if (childFirstClassLoaders.isEmpty())
+                return false;
+
+            for (Class<?> clazz = classLoader.getClass(); clazz != null && clazz != ClassLoader.class; clazz = clazz.getSuperclass()) {
+                if (childFirstClassLoaders.contains(clazz.getName()))
+                    return true;
+            }
+            return false;
         }
 
         protected TypePool doCreateTypePool(ClassLoader classLoader, JavaModule javaModule,
                 CacheProvider cacheProvider, ClassFileLocator classFileLocator) {
+            return this.doCreateTypePool(classLoader, javaModule, cacheProvider, classFileLocator, null);
+        }
+
+        protected TypePool doCreateTypePool(ClassLoader classLoader, JavaModule javaModule,
+                CacheProvider cacheProvider, ClassFileLocator classFileLocator, TypePool parentPool) {
             if (classLoader instanceof BaseClassLoader)
                 // reuse loaded Aop framework classes for better performance
                 return TypePool.ClassLoading.of(classLoader);
@@ -110,9 +204,10 @@ public interface TypePoolFactory {
                 // eagerly look up TypeDescription of joinpoint type.
                 return new EagerResolutionTypePool(
                         ClassLoaderUtils.getClassLoaderName(classLoader),
-                        cacheProvider != null ? cacheProvider : new CacheProvider.Simple.UsingSoftReference(), 
+                        cacheProvider != null ? cacheProvider : this.newCacheProvider(), 
                         classFileLocator != null ? classFileLocator : this.locationStrategy.classFileLocator(classLoader, javaModule), 
-                        ReaderMode.FAST);
+                        ReaderMode.FAST,
+                        parentPool);
         }
 
         /** 
@@ -138,14 +233,16 @@ public interface TypePoolFactory {
             // share cached type between AgentBuilder transformer and Pointcut matcher if possible
             CacheProvider cacheProvider = ((EagerResolutionTypePool) typePool).getCacheProvider();
             if (cacheProvider == null)
-                cacheProvider = new CacheProvider.Simple.UsingSoftReference();
+                cacheProvider = this.newCacheProvider();
 
             // lazily lookup TypePool if property other than the type's name is looked up.
             return new LazyResolutionTypePool(
                     ClassLoaderUtils.getClassLoaderName(classLoader),
                     cacheProvider, 
                     classFileLocator, 
-                    ReaderMode.FAST);
+                    ReaderMode.FAST,
+                    ((EagerResolutionTypePool) typePool).getParentPool(),
+                    name);
         }
 
         /* {@inheritDoc}
@@ -39,22 +39,26 @@ public interface TypePools {
     /**
      * This class exposes CacheProvider to use Type between AgentBuilder transformer and Pointcut matcher.
      *
+     * <p>Types are looked up in own cache first, and then in parent pool, which usually mirrors 
+     * parent ClassLoader, so that types resolved by parent pool are shared by all child pools.
+     *
      */
     class EagerResolutionTypePool extends TypePool.Default {
 
         private final String poolName;
 
+        private final TypePool parentPool;
 
-        public EagerResolutionTypePool(String poolName, CacheProvider cacheProvider, ClassFileLocator classFileLocator, ReaderMode readerMode) {
-            super(cacheProvider, classFileLocator, readerMode);
 
-            this.poolName = poolName;
+        public EagerResolutionTypePool(String poolName, CacheProvider cacheProvider, ClassFileLocator classFileLocator, ReaderMode readerMode) {
+            this(poolName, cacheProvider, classFileLocator, readerMode, null);
         }
 
         public EagerResolutionTypePool(String poolName, CacheProvider cacheProvider, ClassFileLocator classFileLocator, ReaderMode readerMode, TypePool parentPool) {
-            super(cacheProvider, classFileLocator, readerMode, parentPool);
+            super(cacheProvider, classFileLocator, readerMode);
 
             this.poolName = poolName;
+            this.parentPool = parentPool;
         }
 
 
@@ -67,13 +71,59 @@ public interface TypePools {
             return this.cacheProvider;
         }
 
+        public TypePool getParentPool() {
+            return parentPool;
+        }
+
         @Override
         public Resolution describe(String name) {
+            if (parentPool == null || isDelegatable(name) == false)
+                return super.describe(name);
+
+            return this.describe(name, true);
+        }
+
+        private boolean isDelegatable(String name) {
+            // array, primitive and default package types are resolved locally
+            return name.indexOf('[') == -1 && name.indexOf('/') == -1 && name.indexOf('.') > 0;
+        }
+
+        private Resolution describeInParent(String name) {
+            return parentPool instanceof EagerResolutionTypePool 
+                    ? ((EagerResolutionTypePool) parentPool).describeForChild(name) 
+                    : parentPool.describe(name);
+        }
+
+        /**
+         * Look up type on behalf of child pool, and only cache resolved type, since unresolved type 
+         * is usually defined by child ClassLoader, and cached by child pool.
+         */
+        protected Resolution describeForChild(String name) {
+            return this.describe(name, false);
+        }
+
+        private Resolution describe(String name, boolean cacheUnresolved) {
+            // unresolved type is cached after parent pool was looked up, and skip parent pool then
             Resolution resolution = cacheProvider.find(name);
-            if (resolution != null && resolution.isResolved())
+            if (resolution != null)
                 return resolution;
 
-            return super.describe(name);
+            if (parentPool != null && this.isParentFirst(name)) {
+                resolution = this.describeInParent(name);
+                if (resolution.isResolved())
+                    return resolution;
+            }
+
+            // look up cache once, rather than again in super.describe
+            resolution = this.doDescribe(name);
+            return cacheUnresolved || resolution.isResolved() ? this.doCache(name, resolution) : resolution;
+        }
+
+        /**
+         * Check whether given type should be looked up in parent pool first.
+         */
+        protected boolean isParentFirst(String name) {
+            return true;
         }
 
         @Override
@@ -89,17 +139,35 @@ public interface TypePools {
      */
     class LazyResolutionTypePool extends EagerResolutionTypePool {
 
+        private final String typeName;
+
+
         /**
          * @param cacheProvider
          * @param classFileLocator
          * @param readerMode
          */
         public LazyResolutionTypePool(String poolName, CacheProvider cacheProvider, ClassFileLocator classFileLocator, ReaderMode readerMode) {
-            super(poolName, cacheProvider, classFileLocator, readerMode);
+            this(poolName, cacheProvider, classFileLocator, readerMode, null, null);
         }
 
         public LazyResolutionTypePool(String poolName, CacheProvider cacheProvider, ClassFileLocator classFileLocator, ReaderMode readerMode, TypePool parentPool) {
+            this(poolName, cacheProvider, classFileLocator, readerMode, parentPool, null);
+        }
+
+        /**
+         * @param typeName type being transformed, which is always looked up locally, rather than in parent pool
+         */
+        public LazyResolutionTypePool(String poolName, CacheProvider cacheProvider, ClassFileLocator classFileLocator, ReaderMode readerMode, TypePool parentPool, 
+                String typeName) {
             super(poolName, cacheProvider, classFileLocator, readerMode, parentPool);
+
+            this.typeName = typeName;
+        }
+
+        @Override
+        protected boolean isParentFirst(String name) {
+            return typeName == null || typeName.equals(name) == false;
         }
 
 
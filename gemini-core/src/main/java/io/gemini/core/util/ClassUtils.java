@@ -140,17 +140,28 @@ public abstract class ClassUtils {
         Assert.notNull(type, "'type' must not be null.");
         Assert.notNull(methodDescription, "'methodDescription' must not be null.");
 
-        ClassLoader classLoader = type.getClassLoader();
-        String methodName = methodDescription.getName();
-
-        List<Class<?>> parameterTypes = new ArrayList<>(methodDescription.getParameters().size());
+        List<String> parameterTypeNames = new ArrayList<>(methodDescription.getParameters().size());
         for (ParameterDescription paramDescription : methodDescription.getParameters()) {
             TypeDescription parameterType = paramDescription.getType().asErasure();
-            parameterTypes.add( ClassUtils.forName(parameterType.getTypeName(), false, classLoader) );
+            parameterTypeNames.add( parameterType.getTypeName() );
+        }
+
+        return getAccessibleObject(type, methodDescription.isConstructor(), methodDescription.getName(), 
+                parameterTypeNames.toArray( new String[] {} ));
+    }
+
+    public static AccessibleObject getAccessibleObject(Class<?> type, boolean constructor, String methodName, 
+            String[] parameterTypeNames) throws ClassNotFoundException, NoSuchMethodException, SecurityException {
+        Assert.notNull(type, "'type' must not be null.");
+
+        ClassLoader classLoader = type.getClassLoader();
+
+        Class<?>[] parameters = new Class<?>[parameterTypeNames.length];
+        for (int index = 0; index < parameterTypeNames.length; index++) {
+            parameters[index] = ClassUtils.forName(parameterTypeNames[index], false, classLoader);
         }
 
-        Class<?>[] parameters = parameterTypes.toArray( new Class[] {});
-        return methodDescription.isConstructor()
+        return constructor
                 ? type.getDeclaredConstructor(parameters)
                 : type.getDeclaredMethod(methodName, parameters);
     }
@@ -0,0 +1,114 @@
+/*
+ * Copyright © 2023, the original author or authors. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gemini.core.classloader;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.lang.ref.WeakReference;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+import io.gemini.core.concurrent.ConcurrentReferenceHashMap;
+
+/**
+ *
+ *
+ * @author   martin.liu
+ * @since	 1.0
+ */
+public class ClassLoaderRegistryTests {
+
+    @Test
+    public void register() throws Exception {
+        try (ClassLoaderRegistry classLoaderRegistry = new ClassLoaderRegistry();
+                URLClassLoader classLoader = new URLClassLoader(new URL[0], null)) {
+            long classLoaderId = classLoaderRegistry.register(classLoader);
+            assertThat(classLoaderId).isPositive();
+            assertThat(classLoaderRegistry.register(classLoader)).isEqualTo(classLoaderId);
+            assertThat(classLoaderRegistry.getRegisteredCount()).isEqualTo(1);
+
+            // bootstrap ClassLoader is never reclaimed
+            assertThat(classLoaderRegistry.register(null)).isEqualTo(-1L);
+
+            try (URLClassLoader otherClassLoader = new URLClassLoader(new URL[0], null)) {
+                assertThat(classLoaderRegistry.register(otherClassLoader)).isNotEqualTo(classLoaderId);
+                assertThat(classLoaderRegistry.getRegisteredCount()).isEqualTo(2);
+            }
+        }
+    }
+
+    @Test
+    public void notifyReclaimedClassLoader() throws Exception {
+        try (ClassLoaderRegistry classLoaderRegistry = new ClassLoaderRegistry()) {
+            ConcurrentReferenceHashMap<ClassLoader, Object> classLoaderStates = new ConcurrentReferenceHashMap<>();
+            Map<Long, String> reclaimedClassLoaders = new ConcurrentHashMap<>();
+            CountDownLatch latch = new CountDownLatch(1);
+
+            classLoaderRegistry.addReclaimListener( (classLoaderId, classLoaderName) -> {
+                reclaimedClassLoaders.put(classLoaderId, classLoaderName);
+                latch.countDown();
+                return classLoaderStates.purgeStaleEntries();
+            });
+
+            // state must not strongly reach its ClassLoader
+            List<WeakReference<ClassLoader>> classLoaderRefs = new ArrayList<>();
+            long classLoaderId = registerClassLoader(classLoaderRegistry, classLoaderStates, classLoaderRefs);
+
+            for (int i = 0; i < 50 && latch.getCount() > 0; i++) {
+                System.gc();
+                latch.await(100, TimeUnit.MILLISECONDS);
+            }
+
+            assertThat(latch.getCount()).isEqualTo(0L);
+            assertThat(classLoaderRefs.get(0).get()).isNull();
+            assertThat(reclaimedClassLoaders).containsOnlyKeys(classLoaderId);
+            // stale entries might be purged after listener is notified, but are skipped by iterators
+            assertThat(classLoaderStates.entrySet().iterator().hasNext()).isFalse();
+
+            assertThat(classLoaderRegistry.getRegisteredCount()).isEqualTo(0);
+            assertThat(classLoaderRegistry.getReclaimedCount()).isEqualTo(1);
+            assertThat(classLoaderRegistry.getPurgedEntryCount()).isLessThanOrEqualTo(1L);
+        }
+    }
+
+    @Test
+    public void ignoreClosedRegistry() throws Exception {
+        ClassLoaderRegistry classLoaderRegistry = new ClassLoaderRegistry();
+        classLoaderRegistry.close();
+
+        try (URLClassLoader classLoader = new URLClassLoader(new URL[0], null)) {
+            assertThat(classLoaderRegistry.register(classLoader)).isEqualTo(-1L);
+            assertThat(classLoaderRegistry.getRegisteredCount()).isEqualTo(0);
+        }
+    }
+
+    private static long registerClassLoader(ClassLoaderRegistry classLoaderRegistry, 
+            Map<ClassLoader, Object> classLoaderStates, List<WeakReference<ClassLoader>> classLoaderRefs) {
+        ClassLoader classLoader = new URLClassLoader(new URL[0], null);
+        classLoaderStates.put(classLoader, new Object());
+        classLoaderRefs.add(new WeakReference<>(classLoader));
+
+        return classLoaderRegistry.register(classLoader);
+    }
+}
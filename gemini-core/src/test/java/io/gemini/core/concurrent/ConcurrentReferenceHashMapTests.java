@@ -0,0 +1,223 @@
+/*
+ * Copyright © 2023, the original author or authors. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gemini.core.concurrent;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ *
+ *
+ * @author   martin.liu
+ * @since	 1.0
+ */
+public class ConcurrentReferenceHashMapTests {
+
+    @Test
+    public void operations() {
+        ConcurrentReferenceHashMap<String, String> map = new ConcurrentReferenceHashMap<>();
+        String key = new String("key");
+
+        assertThat(map.put(key, "v1")).isNull();
+        assertThat(map.get(new String("key"))).isEqualTo("v1");
+        assertThat(map.putIfAbsent(key, "v2")).isEqualTo("v1");
+        assertThat(map.replace(key, "v1", "v3")).isTrue();
+        assertThat(map.containsKey(key)).isTrue();
+        assertThat(map.containsValue("v3")).isTrue();
+
+        for (Map.Entry<String, String> entry : map.entrySet())
+            entry.setValue("v4");
+        assertThat(map.get(key)).isEqualTo("v4");
+
+        assertThat(map.remove(key, "v3")).isFalse();
+        assertThat(map.remove(key)).isEqualTo("v4");
+        assertThat(map).isEmpty();
+    }
+
+    @Test
+    public void computeIfAbsentOnce() throws Exception {
+        ConcurrentReferenceHashMap<Object, Object> map = new ConcurrentReferenceHashMap<>();
+        Object key = new Object();
+        AtomicInteger calls = new AtomicInteger();
+
+        int threads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch latch = new CountDownLatch(1);
+        try {
+            List<Future<Object>> futures = new ArrayList<>(threads);
+            for (int i = 0; i < threads; i++) {
+                futures.add( executor.submit( () -> {
+                    latch.await();
+                    return map.computeIfAbsent(key, k -> {
+                        calls.incrementAndGet();
+                        return new Object();
+                    });
+                }) );
+            }
+            latch.countDown();
+
+            Object value = map.get(key);
+            for (Future<Object> future : futures) {
+                Object result = future.get();
+                value = value == null ? result : value;
+                assertThat(result).isSameAs(value);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertThat(calls.get()).isEqualTo(1);
+    }
+
+    @Test
+    public void computeIfAbsentOutsideLock() throws Exception {
+        ConcurrentReferenceHashMap<Object, Object> map = new ConcurrentReferenceHashMap<>();
+        // keys share the same bin of backing table
+        Object slowKey = new CollidedKey("slow");
+        Object fastKey = new CollidedKey("fast");
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        CountDownLatch computing = new CountDownLatch(1);
+        CountDownLatch computed = new CountDownLatch(1);
+        try {
+            Future<Object> future = executor.submit( () ->
+                map.computeIfAbsent(slowKey, k -> {
+                    computing.countDown();
+                    try {
+                        computed.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    return "slow";
+                }) );
+            assertThat(computing.await(5, TimeUnit.SECONDS)).isTrue();
+
+            // slow mapping function neither blocks other keys, nor nested updates
+            assertThat(map.computeIfAbsent(fastKey, k -> map.computeIfAbsent(new CollidedKey("nested"), n -> "nested"))).isEqualTo("nested");
+            assertThat(map.get(new CollidedKey("nested"))).isEqualTo("nested");
+
+            computed.countDown();
+            assertThat(future.get(5, TimeUnit.SECONDS)).isEqualTo("slow");
+        } finally {
+            executor.shutdownNow();
+        }
+        assertThat(map).hasSize(3);
+
+        // null value is not stored
+        assertThat(map.computeIfAbsent(new CollidedKey("null"), k -> null)).isNull();
+        assertThat(map).hasSize(3);
+    }
+
+    @Test
+    public void computeIfAbsentRecursively() {
+        ConcurrentReferenceHashMap<Object, Object> map = new ConcurrentReferenceHashMap<>();
+        Object key = new CollidedKey("key");
+
+        assertThatThrownBy( () -> map.computeIfAbsent(key, k -> map.computeIfAbsent(k, n -> "value")) )
+            .isInstanceOf(IllegalStateException.class);
+        assertThat(map).isEmpty();
+
+        // failed computation is not cached
+        assertThat(map.computeIfAbsent(key, k -> "value")).isEqualTo("value");
+    }
+
+    @Test
+    @SuppressWarnings("resource")
+    public void purgeStaleEntries() throws Exception {
+        ConcurrentReferenceHashMap<ClassLoader, String> map = new ConcurrentReferenceHashMap<>();
+        ClassLoader liveKey = new URLClassLoader(new URL[0]);
+        map.put(liveKey, "live");
+
+        for (int i = 0; i < 10; i++)
+            map.put(new URLClassLoader(new URL[0]), "stale");
+
+        int purged = 0;
+        for (int i = 0; i < 20 && purged < 10; i++) {
+            System.gc();
+            Thread.sleep(50);
+            purged += map.purgeStaleEntries();
+        }
+
+        assertThat(purged).isEqualTo(10);
+        assertThat(map).hasSize(1).containsEntry(liveKey, "live");
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void enumerateAndSerialize() throws Exception {
+        ConcurrentReferenceHashMap<String, String> map = new ConcurrentReferenceHashMap<>();
+        map.put("k1", "v1");
+        map.put("k2", "v2");
+
+        assertThat(Collections.list(map.keys())).containsExactlyInAnyOrder("k1", "k2");
+        assertThat(Collections.list(map.elements())).containsExactlyInAnyOrder("v1", "v2");
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream output = new ObjectOutputStream(bytes)) {
+            output.writeObject(map);
+        }
+
+        ConcurrentReferenceHashMap<String, String> copy = null;
+        try (ObjectInputStream input = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            copy = (ConcurrentReferenceHashMap<String, String>) input.readObject();
+        }
+
+        assertThat(copy).isEqualTo(map);
+        assertThat(copy.put("k3", "v3")).isNull();
+        assertThat(copy.computeIfAbsent("k4", k -> "v4")).isEqualTo("v4");
+    }
+
+
+    private static class CollidedKey {
+
+        private final String name;
+
+
+        CollidedKey(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public int hashCode() {
+            return 0;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            return obj instanceof CollidedKey && name.equals(((CollidedKey) obj).name);
+        }
+    }
+}
@@ -15,12 +15,21 @@
  */
 package io.gemini.core.object;
 
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.lang.reflect.InvocationTargetException;
 import java.net.URLClassLoader;
+import java.util.Collections;
+
+import javax.annotation.Resource;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import io.gemini.api.annotation.Initializer;
 import io.gemini.core.DiagnosticLevel;
+import io.gemini.core.object.ObjectFactory.ObjectsException;
 
 /**
  *
@@ -36,6 +45,7 @@ public class ObjectFactoryTests {
     public void setup() {
         ClassLoader classLoader = this.getClass().getClassLoader();
         ClassScanner classScanner = new ClassScanner.Builder()
+                .diagnosticLevel(DiagnosticLevel.SIMPLE)
                 .scannedClassLoaders(classLoader)
                 .acceptPackages(ObjectFactoryTests.class.getPackage().getName())
                 .acceptJarPatterns("*.jar", "classes")
@@ -51,9 +61,89 @@ public class ObjectFactoryTests {
         objectFactory.createObject(InnerClass.class);
     }
 
+    @Test
+    public void testCachedInstantiation() {
+        InnerClass first = objectFactory.createObject(InnerClass.class);
+        InnerClass second = objectFactory.createObject(InnerClass.class);
+
+        assertThat(first).isNotNull().isNotSameAs(second);
+    }
+
+    @Test
+    public void testRegisterSingleton() throws Exception {
+        assertThat(objectFactory.createObject(InjectedClass.class).dependency).isNull();
+
+        // cached instantiator is reset once singletons change
+        Dependency dependency = new Dependency();
+        objectFactory.registerSingleton("dependency", dependency);
+        assertThat(objectFactory.createObject(InjectedClass.class).dependency).isSameAs(dependency);
+        assertThat(objectFactory.createObject(InjectedClass.class).dependency).isSameAs(dependency);
+
+        objectFactory.close();
+        assertThat(objectFactory.createObject(InjectedClass.class).dependency).isNull();
+    }
+
+    @Test
+    public void testInitializer() {
+        InitializedClass first = objectFactory.createObject(InitializedClass.class, Collections.singletonMap("name", "first"));
+        InitializedClass second = objectFactory.createObject(InitializedClass.class, Collections.singletonMap("name", "second"));
+
+        // cached @Initializer constructor is reused with given arguments
+        assertThat(first.name).isEqualTo("first");
+        assertThat(second.name).isEqualTo("second");
+
+        assertThatThrownBy( () -> objectFactory.createObject(InitializedClass.class, Collections.singletonMap("name", 1)) )
+            .isInstanceOf(ObjectsException.class);
+    }
+
+    @Test
+    public void testInstantiationFailure() throws Exception {
+        ObjectFactory.Simple simpleFactory = (ObjectFactory.Simple) objectFactory;
+
+        // argument adaption failure is not mistaken for exception thrown by constructor
+        assertThatThrownBy( () -> simpleFactory.doInstantiateObject(InitializedClass.class, 
+                    InitializedClass.class.getConstructor(String.class), new Object[] { 1 }) )
+            .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy( () -> simpleFactory.doInstantiateObject(InitializedClass.class, 
+                    InitializedClass.class.getConstructor(String.class), new Object[0]) )
+            .isInstanceOf(IllegalArgumentException.class);
+
+        assertThatThrownBy( () -> simpleFactory.doInstantiateObject(FailedClass.class, 
+                    FailedClass.class.getConstructor(Object.class), new Object[] { 1 }) )
+            .isInstanceOf(InvocationTargetException.class)
+            .hasCauseInstanceOf(ClassCastException.class);
+    }
+
     private static class InnerClass {
 
         @SuppressWarnings("unused")
         public InnerClass() {}
     }
+
+    private static class Dependency {
+    }
+
+    private static class InjectedClass {
+
+        @Resource
+        private Dependency dependency;
+    }
+
+    private static class InitializedClass {
+
+        private final String name;
+
+        @Initializer
+        public InitializedClass(String name) {
+            this.name = name;
+        }
+    }
+
+    private static class FailedClass {
+
+        @SuppressWarnings("unused")
+        public FailedClass(Object name) {
+            String value = (String) name;
+        }
+    }
 }
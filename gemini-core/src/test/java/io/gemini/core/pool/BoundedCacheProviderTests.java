@@ -0,0 +1,123 @@
+/*
+ * Copyright © 2023, the original author or authors. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gemini.core.pool;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+import io.gemini.core.pool.TypePools.EagerResolutionTypePool;
+import net.bytebuddy.description.type.TypeDescription;
+import net.bytebuddy.dynamic.ClassFileLocator;
+import net.bytebuddy.pool.TypePool.CacheProvider;
+import net.bytebuddy.pool.TypePool.Default.ReaderMode;
+import net.bytebuddy.pool.TypePool.Resolution;
+
+/**
+ *
+ *
+ * @author   martin.liu
+ * @since	 1.0
+ */
+public class BoundedCacheProviderTests {
+
+    private static final int CAPACITY = 10;
+
+
+    @Test
+    public void evictProbationEntries() {
+        BoundedCacheProvider boundedCacheProvider = new BoundedCacheProvider(CAPACITY);
+        CacheProvider cacheProvider = boundedCacheProvider.newCacheProvider();
+
+        for (int i = 0; i < CAPACITY; i++)
+            cacheProvider.register("type" + i, createResolution());
+        assertThat(boundedCacheProvider.getSize()).isEqualTo(CAPACITY);
+        assertThat(boundedCacheProvider.getEvictionCount()).isEqualTo(0);
+
+        // entry hit again is promoted into protected area
+        assertThat(cacheProvider.find("type0")).isNotNull();
+
+        // types scanned once do not flush promoted entry
+        for (int i = 0; i < CAPACITY; i++)
+            cacheProvider.register("scanned" + i, createResolution());
+
+        assertThat(boundedCacheProvider.getSize()).isEqualTo(CAPACITY);
+        assertThat(boundedCacheProvider.getEvictionCount()).isEqualTo(CAPACITY);
+        assertThat(cacheProvider.find("type0")).isNotNull();
+        assertThat(cacheProvider.find("type1")).isNull();
+        assertThat(cacheProvider.find("scanned" + (CAPACITY - 1))).isNotNull();
+    }
+
+    @Test
+    public void demoteProtectedEntries() {
+        BoundedCacheProvider boundedCacheProvider = new BoundedCacheProvider(CAPACITY);
+        CacheProvider cacheProvider = boundedCacheProvider.newCacheProvider();
+
+        // protected area takes 80% of capacity
+        int protectedCapacity = CAPACITY * 4 / 5;
+        for (int i = 0; i <= protectedCapacity; i++) {
+            cacheProvider.register("type" + i, createResolution());
+            cacheProvider.find("type" + i);
+        }
+
+        // least recently used protected entry is demoted into probation area, and evicted first
+        for (int i = 0; i < CAPACITY - protectedCapacity; i++)
+            cacheProvider.register("scanned" + i, createResolution());
+
+        assertThat(boundedCacheProvider.getSize()).isEqualTo(CAPACITY);
+        assertThat(cacheProvider.find("type0")).isNull();
+        for (int i = 1; i <= protectedCapacity; i++)
+            assertThat(cacheProvider.find("type" + i)).isNotNull();
+    }
+
+    @Test
+    public void isolateCacheProviders() {
+        BoundedCacheProvider boundedCacheProvider = new BoundedCacheProvider(CAPACITY);
+        CacheProvider cacheProvider1 = boundedCacheProvider.newCacheProvider();
+        CacheProvider cacheProvider2 = boundedCacheProvider.newCacheProvider();
+
+        Resolution resolution = createResolution();
+        assertThat(cacheProvider1.register("type", resolution)).isSameAs(resolution);
+        assertThat(cacheProvider1.register("type", createResolution())).isSameAs(resolution);
+        assertThat(cacheProvider2.find("type")).isNull();
+
+        cacheProvider2.register("type", createResolution());
+        cacheProvider1.clear();
+        assertThat(cacheProvider1.find("type")).isNull();
+        assertThat(cacheProvider2.find("type")).isNotNull();
+    }
+
+    @Test
+    public void countOneMissPerTypePool() {
+        BoundedCacheProvider boundedCacheProvider = new BoundedCacheProvider(CAPACITY);
+        EagerResolutionTypePool parentPool = new EagerResolutionTypePool("parent", boundedCacheProvider.newCacheProvider(), 
+                ClassFileLocator.ForClassLoader.ofBootLoader(), ReaderMode.FAST);
+        EagerResolutionTypePool childPool = new EagerResolutionTypePool("child", boundedCacheProvider.newCacheProvider(), 
+                ClassFileLocator.ForClassLoader.ofBootLoader(), ReaderMode.FAST, parentPool);
+
+        assertThat(parentPool.describe(Object.class.getName()).isResolved()).isTrue();
+        assertThat(boundedCacheProvider.getMissCount()).isEqualTo(1);
+        assertThat(parentPool.describe(Object.class.getName()).isResolved()).isTrue();
+        assertThat(boundedCacheProvider.getHitCount()).isEqualTo(1);
+
+        assertThat(childPool.describe(String.class.getName()).isResolved()).isTrue();
+        assertThat(boundedCacheProvider.getMissCount()).isEqualTo(3);
+    }
+
+    private static Resolution createResolution() {
+        return new Resolution.Simple(TypeDescription.ForLoadedType.of(Object.class));
+    }
+}
@@ -0,0 +1,76 @@
+/*
+ * Copyright © 2023, the original author or authors. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gemini.core.pool;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.Collections;
+
+import org.junit.jupiter.api.Test;
+
+import io.gemini.core.pool.TypePools.EagerResolutionTypePool;
+import net.bytebuddy.pool.TypePool;
+
+/**
+ *
+ *
+ * @author   martin.liu
+ * @since	 1.0
+ */
+public class TypePoolFactoryTests {
+
+    @Test
+    public void chainTypePools() throws Exception {
+        TypePoolFactory typePoolFactory = new TypePoolFactory.Default(null, true, 
+                Collections.singleton(ChildFirst_ClassLoader.class.getName()), 0);
+
+        try (URLClassLoader parentClassLoader = new URLClassLoader(new URL[0], null);
+                URLClassLoader classLoader = new URLClassLoader(new URL[0], parentClassLoader);
+                URLClassLoader childFirstClassLoader = new ChildFirst_ClassLoader(parentClassLoader)) {
+            TypePool parentPool = typePoolFactory.createTypePool(parentClassLoader, null);
+            assertThat(parentPool).isInstanceOf(EagerResolutionTypePool.class);
+
+            // TypePools mirror ClassLoader hierarchy
+            TypePool typePool = typePoolFactory.createTypePool(classLoader, null);
+            assertThat(((EagerResolutionTypePool) typePool).getParentPool()).isSameAs(parentPool);
+            assertThat(typePoolFactory.createTypePool(classLoader, null)).isSameAs(typePool);
+
+            // child-first ClassLoader only shares JDK types
+            TypePool childFirstPool = typePoolFactory.createTypePool(childFirstClassLoader, null);
+            assertThat(((EagerResolutionTypePool) childFirstPool).getParentPool())
+                .isNotSameAs(parentPool)
+                .isSameAs(typePoolFactory.createTypePool(ClassLoader.getSystemClassLoader().getParent(), null));
+
+            assertThat(childFirstPool.describe(String.class.getName()).isResolved()).isTrue();
+        }
+
+        // TypePools are not chained by default
+        TypePoolFactory flatTypePoolFactory = new TypePoolFactory.Default();
+        try (URLClassLoader classLoader = new URLClassLoader(new URL[0], new URLClassLoader(new URL[0], null))) {
+            assertThat(((EagerResolutionTypePool) flatTypePoolFactory.createTypePool(classLoader, null)).getParentPool()).isNull();
+        }
+    }
+
+
+    private static class ChildFirst_ClassLoader extends URLClassLoader {
+
+        ChildFirst_ClassLoader(ClassLoader parent) {
+            super(new URL[0], parent);
+        }
+    }
+}
@@ -0,0 +1,137 @@
+/*
+ * Copyright © 2023, the original author or authors. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gemini.core.pool;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import io.gemini.core.pool.TypePools.EagerResolutionTypePool;
+import io.gemini.core.pool.TypePools.LazyResolutionTypePool;
+import net.bytebuddy.dynamic.ClassFileLocator;
+import net.bytebuddy.pool.TypePool.CacheProvider;
+import net.bytebuddy.pool.TypePool.Default.ReaderMode;
+
+/**
+ *
+ *
+ * @author   martin.liu
+ * @since	 1.0
+ */
+public class TypePoolsTests {
+
+    private static final String CHILD_TYPE = Child_Type.class.getName();
+    private static final String MISSING_TYPE = "io.gemini.test.MissingType";
+
+
+    @Test
+    public void shareParentTypes() throws Exception {
+        CacheProvider parentCache = new CacheProvider.Simple();
+        CountingClassFileLocator parentLocator = new CountingClassFileLocator(ClassFileLocator.ForClassLoader.ofBootLoader());
+        EagerResolutionTypePool parentPool = new EagerResolutionTypePool("parent", parentCache, parentLocator, ReaderMode.FAST);
+
+        CacheProvider childCache = new CacheProvider.Simple();
+        EagerResolutionTypePool childPool = new EagerResolutionTypePool("child", childCache, 
+                new ClassFileLocator.Compound(createChildTypeLocator(), ClassFileLocator.ForClassLoader.ofBootLoader()), 
+                ReaderMode.FAST, parentPool);
+
+        // JDK type is resolved and cached by parent pool
+        assertThat(childPool.describe(String.class.getName()).isResolved()).isTrue();
+        assertThat(parentCache.find(String.class.getName())).isNotNull();
+        assertThat(childCache.find(String.class.getName())).isNull();
+
+        // child type is only cached by child pool
+        assertThat(childPool.describe(CHILD_TYPE).resolve().getName()).isEqualTo(CHILD_TYPE);
+        assertThat(parentCache.find(CHILD_TYPE)).isNull();
+        assertThat(childCache.find(CHILD_TYPE)).isNotNull();
+
+        // parent pool is skipped once unresolved type is cached by child pool
+        int locations = parentLocator.locations.get();
+        assertThat(childPool.describe(MISSING_TYPE).isResolved()).isFalse();
+        assertThat(childPool.describe(MISSING_TYPE).isResolved()).isFalse();
+        assertThat(parentLocator.locations.get()).isEqualTo(locations + 1);
+        assertThat(parentCache.find(MISSING_TYPE)).isNull();
+        assertThat(childCache.find(MISSING_TYPE)).isNotNull();
+
+        // array and primitive types
+        assertThat(childPool.describe(String[].class.getName()).resolve().getComponentType().getName()).isEqualTo(String.class.getName());
+        assertThat(childPool.describe("int").resolve().isPrimitive()).isTrue();
+    }
+
+    @Test
+    public void describeTransformedTypeLocally() throws Exception {
+        CacheProvider parentCache = new CacheProvider.Simple();
+        EagerResolutionTypePool parentPool = new EagerResolutionTypePool("parent", parentCache, 
+                new ClassFileLocator.Compound(createChildTypeLocator(), ClassFileLocator.ForClassLoader.ofBootLoader()), 
+                ReaderMode.FAST);
+
+        // type being transformed is looked up by child pool, rather than shared by parent pool
+        CountingClassFileLocator childLocator = new CountingClassFileLocator(createChildTypeLocator());
+        CacheProvider childCache = new CacheProvider.Simple();
+        LazyResolutionTypePool lazyPool = new LazyResolutionTypePool("child", childCache, childLocator, ReaderMode.FAST, 
+                parentPool, CHILD_TYPE);
+
+        assertThat(lazyPool.describe(CHILD_TYPE).resolve().getSuperClass().asErasure().represents(Object.class)).isTrue();
+        assertThat(childLocator.locations.get()).isEqualTo(1);
+        assertThat(parentCache.find(CHILD_TYPE)).isNull();
+        assertThat(childCache.find(CHILD_TYPE)).isNotNull();
+
+        // other types are still shared by parent pool
+        assertThat(lazyPool.describe(String.class.getName()).isResolved()).isTrue();
+        assertThat(parentCache.find(String.class.getName())).isNotNull();
+
+        // type is shared by parent pool without exclusion
+        EagerResolutionTypePool childPool = new EagerResolutionTypePool("child", new CacheProvider.Simple(), 
+                createChildTypeLocator(), ReaderMode.FAST, parentPool);
+        assertThat(childPool.describe(CHILD_TYPE).isResolved()).isTrue();
+        assertThat(parentCache.find(CHILD_TYPE)).isNotNull();
+    }
+
+    private static ClassFileLocator createChildTypeLocator() throws IOException {
+        return ClassFileLocator.Simple.of(CHILD_TYPE, ClassFileLocator.ForClassLoader.read(Child_Type.class));
+    }
+
+
+    static class Child_Type {
+    }
+
+
+    private static class CountingClassFileLocator implements ClassFileLocator {
+
+        private final ClassFileLocator delegate;
+
+        private final AtomicInteger locations = new AtomicInteger();
+
+
+        CountingClassFileLocator(ClassFileLocator delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public Resolution locate(String name) throws IOException {
+            locations.incrementAndGet();
+            return delegate.locate(name);
+        }
+
+        @Override
+        public void close() throws IOException {
+            delegate.close();
+        }
+    }
+}